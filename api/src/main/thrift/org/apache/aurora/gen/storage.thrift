@@ -92,6 +92,28 @@ struct PruneJobUpdateHistory {
   2: i64 historyPruneThresholdMs
 }
 
+// Registers a TaskConfig in the log's task config dictionary. SaveDeduplicatedTasks ops that follow
+// may reference the config by its ID until the next snapshot, after which it must be registered
+// again.
+struct SaveTaskConfig {
+  // Hex encoded SHA-256 hash of the thrift binary encoding of config.
+  1: string configId
+  2: api.TaskConfig config
+}
+
+// A ScheduledTask with its assignedTask.task field set to null. Deserializers must fill in
+// assignedTask.task with the TaskConfig registered under taskConfigId by a SaveTaskConfig op.
+struct ConfigReferencingScheduledTask {
+  1: api.ScheduledTask partialScheduledTask
+  2: string taskConfigId
+}
+
+// Equivalent to SaveTasks, with each task's config replaced by a reference into the log's task
+// config dictionary.
+struct SaveDeduplicatedTasks {
+  1: list<ConfigReferencingScheduledTask> tasks
+}
+
 union Op {
   1: SaveFrameworkId saveFrameworkId
   2: SaveCronJob saveCronJob
@@ -108,6 +130,8 @@ union Op {
   15: SaveJobUpdateEvent saveJobUpdateEvent
   16: SaveJobInstanceUpdateEvent saveJobInstanceUpdateEvent
   17: PruneJobUpdateHistory pruneJobUpdateHistory
+  18: SaveTaskConfig saveTaskConfig
+  19: SaveDeduplicatedTasks saveDeduplicatedTasks
 }
 
 // The current schema version ID.  This should be incremented each time the
@@ -154,6 +178,18 @@ struct Snapshot {
   12: bool experimentalTaskStore
 }
 
+// A scheduler backup that holds the changes to storage since a full backup.  Restoring it requires
+// the full backup it was taken against.
+struct SnapshotDelta {
+  // Name of the full backup that this delta applies to.
+  1: string baseBackup
+  // Snapshot of all storage except tasks, for which it only holds the tasks added or changed since
+  // the full backup.
+  2: Snapshot snapshot
+  // IDs of the tasks that were removed since the full backup.
+  3: set<string> removedTaskIds
+}
+
 // A message header that calls out the number of expected FrameChunks to follow to form a complete
 // message.
 struct FrameHeader {
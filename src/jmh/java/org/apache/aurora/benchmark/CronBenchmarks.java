@@ -0,0 +1,188 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.benchmark;
+
+import java.text.ParseException;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+
+import org.apache.aurora.scheduler.cron.CompiledCrontabEntry;
+import org.apache.aurora.scheduler.cron.CrontabEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.CronExpression;
+
+/**
+ * Performance benchmarks for computing the next fire time of a large population of cron jobs,
+ * comparing Quartz cron expressions against the compiled schedules used by the indexed cron
+ * engine.
+ */
+public class CronBenchmarks {
+  private static final TimeZone TIME_ZONE = TimeZone.getTimeZone("GMT");
+
+  /**
+   * A generated cron schedule, in both crontab and Quartz syntax.
+   */
+  private static final class Schedule {
+    private final String crontab;
+    private final String quartz;
+
+    Schedule(String crontab, String quartz) {
+      this.crontab = crontab;
+      this.quartz = quartz;
+    }
+  }
+
+  private static ImmutableList<Schedule> createSchedules(int count) {
+    Random random = new Random(0);
+    ImmutableList.Builder<Schedule> schedules = ImmutableList.builder();
+    for (int i = 0; i < count; i++) {
+      int minute = random.nextInt(60);
+      int hour = random.nextInt(24);
+      switch (i % 4) {
+        case 0:
+          schedules.add(new Schedule(
+              String.format("%d %d * * *", minute, hour),
+              String.format("0 %d %d ? * *", minute, hour)));
+          break;
+        case 1:
+          int dayOfWeek = random.nextInt(7);
+          schedules.add(new Schedule(
+              String.format("%d %d * * %d", minute, hour, dayOfWeek),
+              // Quartz numbers days of the week from 1.
+              String.format("0 %d %d ? * %d", minute, hour, dayOfWeek + 1)));
+          break;
+        case 2:
+          int step = 1 + random.nextInt(30);
+          schedules.add(new Schedule(
+              String.format("*/%d * * * *", step),
+              String.format("0 0/%d * * * ?", step)));
+          break;
+        default:
+          int dayOfMonth = 1 + random.nextInt(28);
+          schedules.add(new Schedule(
+              String.format("%d %d %d * *", minute, hour, dayOfMonth),
+              String.format("0 %d %d %d * ?", minute, hour, dayOfMonth)));
+          break;
+      }
+    }
+    return schedules.build();
+  }
+
+  public enum Engine {
+    QUARTZ,
+    INDEXED
+  }
+
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  @Warmup(iterations = 1, time = 10, timeUnit = TimeUnit.SECONDS)
+  @Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+  @Fork(1)
+  @State(Scope.Thread)
+  public static class PredictNextRunBenchmark {
+    private ImmutableList<Schedule> schedules;
+    private ImmutableList<CompiledCrontabEntry> compiled;
+    private long nowMs;
+
+    @Param({"QUARTZ", "INDEXED"})
+    private Engine engine;
+
+    @Param({"10000"})
+    private int jobCount;
+
+    @Setup
+    public void setUp() {
+      schedules = createSchedules(jobCount);
+      ImmutableList.Builder<CompiledCrontabEntry> builder = ImmutableList.builder();
+      for (Schedule schedule : schedules) {
+        builder.add(CompiledCrontabEntry.compile(CrontabEntry.parse(schedule.crontab)));
+      }
+      compiled = builder.build();
+      nowMs = System.currentTimeMillis();
+    }
+
+    /**
+     * Predicts the next run of every job, as the scheduler does when summarizing all cron jobs.
+     * The Quartz path parses an expression per prediction, matching the Quartz predictor.
+     */
+    @Benchmark
+    public long run() throws ParseException {
+      long checksum = 0;
+      if (engine == Engine.QUARTZ) {
+        Date now = new Date(nowMs);
+        for (Schedule schedule : schedules) {
+          CronExpression expression = new CronExpression(schedule.quartz);
+          expression.setTimeZone(TIME_ZONE);
+          checksum += expression.getNextValidTimeAfter(now).getTime();
+        }
+      } else {
+        ZoneId zone = TIME_ZONE.toZoneId();
+        for (CompiledCrontabEntry entry : compiled) {
+          Optional<Long> next = entry.nextFireTimeAfter(nowMs, zone);
+          checksum += next.get();
+        }
+      }
+      return checksum;
+    }
+  }
+
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  @Warmup(iterations = 1, time = 10, timeUnit = TimeUnit.SECONDS)
+  @Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+  @Fork(1)
+  @State(Scope.Thread)
+  public static class CompileBenchmark {
+    private ImmutableList<Schedule> schedules;
+
+    @Param({"10000"})
+    private int jobCount;
+
+    @Setup
+    public void setUp() {
+      schedules = createSchedules(jobCount);
+    }
+
+    /**
+     * Parses and compiles every schedule, as the indexed engine does when jobs are loaded at
+     * startup.
+     */
+    @Benchmark
+    public long run() {
+      long checksum = 0;
+      for (Schedule schedule : schedules) {
+        checksum += CompiledCrontabEntry.compile(CrontabEntry.parse(schedule.crontab))
+            .getEntry()
+            .hashCode();
+      }
+      return checksum;
+    }
+  }
+}
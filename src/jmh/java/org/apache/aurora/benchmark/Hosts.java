@@ -37,13 +37,33 @@ final class Hosts {
     private static final String SLAVE_ID_FORMAT = "slave-%s";
     private static final String HOST_NAME_FORMAT = "host-%s";
     private static final String RACK_NAME_FORMAT = "rack-%s";
+    private static final String EXTRA_ATTRIBUTE_FORMAT = "attribute-%s";
+    private static final String EXTRA_ATTRIBUTE_VALUE = "value";
     private int hostsPerRack = 1;
+    private int extraAttributes = 0;
 
     Builder setNumHostsPerRack(int newHostsPerRack) {
       hostsPerRack = newHostsPerRack;
       return this;
     }
 
+    /**
+     * Sets the number of additional attributes on every host.  The attributes are named with
+     * {@link #extraAttributeName(int)} and carry the value {@link #EXTRA_ATTRIBUTE_VALUE}.
+     */
+    Builder setNumExtraAttributes(int newExtraAttributes) {
+      extraAttributes = newExtraAttributes;
+      return this;
+    }
+
+    static String extraAttributeName(int index) {
+      return String.format(EXTRA_ATTRIBUTE_FORMAT, index);
+    }
+
+    static String extraAttributeValue() {
+      return EXTRA_ATTRIBUTE_VALUE;
+    }
+
     Set<IHostAttributes> build(int count) {
       ImmutableSet.Builder<IHostAttributes> attributes = ImmutableSet.builder();
       int rackIndex = 0;
@@ -52,9 +72,7 @@ final class Hosts {
             .setHost(String.format(HOST_NAME_FORMAT, i))
             .setSlaveId(String.format(SLAVE_ID_FORMAT, i))
             .setMode(MaintenanceMode.NONE)
-            .setAttributes(ImmutableSet.of(
-                new Attribute("rack", ImmutableSet.of(String.format(RACK_NAME_FORMAT, rackIndex))),
-                new Attribute("host", ImmutableSet.of(String.format(HOST_NAME_FORMAT, i)))))));
+            .setAttributes(buildAttributes(i, rackIndex))));
 
         if (i % hostsPerRack == 0) {
           rackIndex++;
@@ -62,5 +80,16 @@ final class Hosts {
       }
       return attributes.build();
     }
+
+    private Set<Attribute> buildAttributes(int hostIndex, int rackIndex) {
+      ImmutableSet.Builder<Attribute> attributes = ImmutableSet.<Attribute>builder()
+          .add(new Attribute("rack", ImmutableSet.of(String.format(RACK_NAME_FORMAT, rackIndex))))
+          .add(new Attribute("host", ImmutableSet.of(String.format(HOST_NAME_FORMAT, hostIndex))));
+      for (int i = 0; i < extraAttributes; i++) {
+        attributes.add(
+            new Attribute(extraAttributeName(i), ImmutableSet.of(EXTRA_ATTRIBUTE_VALUE)));
+      }
+      return attributes.build();
+    }
   }
 }
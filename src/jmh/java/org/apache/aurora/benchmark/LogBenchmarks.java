@@ -0,0 +1,183 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+
+import org.apache.aurora.codec.ThriftBinaryCodec;
+import org.apache.aurora.codec.ThriftBinaryCodec.CodingException;
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Data;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.gen.storage.LogEntry;
+import org.apache.aurora.gen.storage.Op;
+import org.apache.aurora.gen.storage.SaveTasks;
+import org.apache.aurora.gen.storage.Transaction;
+import org.apache.aurora.gen.storage.storageConstants;
+import org.apache.aurora.scheduler.log.Log;
+import org.apache.aurora.scheduler.log.local.SegmentedLog;
+import org.apache.aurora.scheduler.log.local.SegmentedLog.SyncPolicy;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Performance benchmarks for the local segmented log, using the serialized transactions that
+ * {@link org.apache.aurora.scheduler.storage.log.LogStorage} writes as the workload.
+ */
+public class LogBenchmarks {
+
+  private static byte[] createTransaction(int taskCount) {
+    Transaction transaction = new Transaction()
+        .setSchemaVersion(storageConstants.CURRENT_SCHEMA_VERSION)
+        .setOps(ImmutableList.of(Op.saveTasks(new SaveTasks(IScheduledTask.toBuildersSet(
+            new Tasks.Builder().build(taskCount))))));
+    try {
+      return ThriftBinaryCodec.encodeNonNull(LogEntry.transaction(transaction));
+    } catch (CodingException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static SegmentedLog createLog(File directory, SyncPolicy syncPolicy) {
+    return new SegmentedLog(
+        directory,
+        new SegmentedLog.Settings(
+            Amount.of(64, Data.MB),
+            syncPolicy,
+            Amount.of(100L, Time.MILLISECONDS)));
+  }
+
+  private static Log.Stream open(SegmentedLog log) {
+    try {
+      return log.open();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static void closeAndDelete(SegmentedLog log, File directory) {
+    try {
+      // Closing the log also stops its sync thread.
+      log.close();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    directory.delete();
+  }
+
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  @Warmup(iterations = 1, time = 10, timeUnit = TimeUnit.SECONDS)
+  @Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+  @Fork(1)
+  @Threads(1)
+  @State(Scope.Thread)
+  public static class AppendBenchmark {
+    private File directory;
+    private SegmentedLog log;
+    private Log.Stream stream;
+    private byte[] entry;
+
+    @Param({"NEVER", "INTERVAL", "ALWAYS"})
+    private SyncPolicy syncPolicy;
+
+    @Param({"1", "10"})
+    private int tasksPerTransaction;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+      directory = Files.createTempDir();
+      log = createLog(directory, syncPolicy);
+      stream = open(log);
+      entry = createTransaction(tasksPerTransaction);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+      closeAndDelete(log, directory);
+    }
+
+    @Benchmark
+    public Log.Position run() {
+      return stream.append(entry);
+    }
+  }
+
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  @Warmup(iterations = 1, time = 10, timeUnit = TimeUnit.SECONDS)
+  @Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+  @Fork(1)
+  @Threads(1)
+  @State(Scope.Thread)
+  public static class ReadAllBenchmark {
+    private File directory;
+    private SegmentedLog log;
+    private Log.Stream stream;
+
+    @Param({"1000", "10000"})
+    private int entryCount;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      directory = Files.createTempDir();
+      log = createLog(directory, SyncPolicy.NEVER);
+      stream = open(log);
+      byte[] entry = createTransaction(10);
+      for (int i = 0; i < entryCount; i++) {
+        stream.append(entry);
+      }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+      closeAndDelete(log, directory);
+    }
+
+    @Benchmark
+    public long run() {
+      long bytes = 0;
+      Iterator<Log.Entry> entries = stream.readAll();
+      while (entries.hasNext()) {
+        bytes += entries.next().contents().length;
+      }
+      return bytes;
+    }
+  }
+}
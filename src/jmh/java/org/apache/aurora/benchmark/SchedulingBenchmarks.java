@@ -13,11 +13,18 @@
  */
 package org.apache.aurora.benchmark;
 
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import javax.inject.Singleton;
 
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.eventbus.EventBus;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
@@ -29,10 +36,13 @@ import org.apache.aurora.benchmark.fakes.FakeDriver;
 import org.apache.aurora.benchmark.fakes.FakeRescheduleCalculator;
 import org.apache.aurora.benchmark.fakes.FakeStatsProvider;
 import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Data;
 import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.common.stats.StatsProvider;
 import org.apache.aurora.common.util.Clock;
 import org.apache.aurora.common.util.testing.FakeClock;
+import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.gen.ScheduledTask;
 import org.apache.aurora.gen.ServerInfo;
 import org.apache.aurora.scheduler.HostOffer;
 import org.apache.aurora.scheduler.TaskIdGenerator;
@@ -42,6 +52,7 @@ import org.apache.aurora.scheduler.async.DelayExecutor;
 import org.apache.aurora.scheduler.base.TaskTestUtil;
 import org.apache.aurora.scheduler.configuration.executor.ExecutorSettings;
 import org.apache.aurora.scheduler.events.EventSink;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
 import org.apache.aurora.scheduler.filter.SchedulingFilter;
 import org.apache.aurora.scheduler.filter.SchedulingFilterImpl;
 import org.apache.aurora.scheduler.mesos.Driver;
@@ -55,6 +66,8 @@ import org.apache.aurora.scheduler.preemptor.PreemptorModule;
 import org.apache.aurora.scheduler.scheduling.RescheduleCalculator;
 import org.apache.aurora.scheduler.scheduling.TaskScheduler;
 import org.apache.aurora.scheduler.scheduling.TaskScheduler.TaskSchedulerImpl.ReservationDuration;
+import org.apache.aurora.scheduler.scheduling.TaskScheduler.TaskSchedulerImpl.TaskSchedulerSettings;
+import org.apache.aurora.scheduler.state.LaunchDispatcherImpl.LaunchDispatcherSettings;
 import org.apache.aurora.scheduler.state.StateModule;
 import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult;
@@ -73,6 +86,7 @@ import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Warmup;
 
 /**
@@ -94,10 +108,11 @@ public class SchedulingBenchmarks {
     private static final Amount<Long, Time> DELAY_FOREVER = Amount.of(30L, Time.DAYS);
     protected Storage storage;
     protected PendingTaskProcessor pendingTaskProcessor;
-    private TaskScheduler taskScheduler;
-    private OfferManager offerManager;
-    private EventBus eventBus;
-    private BenchmarkSettings settings;
+    protected TaskScheduler taskScheduler;
+    protected OfferManager offerManager;
+    protected EventBus eventBus;
+    protected BenchmarkSettings settings;
+    protected Set<HostOffer> offers;
 
     /**
      * Runs once to setup up benchmark state.
@@ -111,7 +126,7 @@ public class SchedulingBenchmarks {
 
       // TODO(maxim): Find a way to DRY it and reuse existing modules instead.
       Injector injector = Guice.createInjector(
-          new StateModule(),
+          new StateModule(new LaunchDispatcherSettings(getOfferPackingWindow())),
           new PreemptorModule(true, NO_DELAY, NO_DELAY),
           new TierModule(TaskTestUtil.TIER_CONFIG),
           new PrivateModule() {
@@ -136,7 +151,9 @@ public class SchedulingBenchmarks {
               bind(OfferSettings.class).toInstance(
                   new OfferSettings(NO_DELAY, () -> DELAY_FOREVER));
               bind(BiCache.BiCacheSettings.class).toInstance(
-                  new BiCache.BiCacheSettings(DELAY_FOREVER, ""));
+                  new BiCache.BiCacheSettings(DELAY_FOREVER, "jmh_cache"));
+              bind(TaskSchedulerSettings.class)
+                  .toInstance(new TaskSchedulerSettings(isOptimisticAssignment()));
               bind(TaskScheduler.class).to(TaskScheduler.TaskSchedulerImpl.class);
               bind(TaskScheduler.TaskSchedulerImpl.class).in(Singleton.class);
               expose(TaskScheduler.class);
@@ -172,13 +189,22 @@ public class SchedulingBenchmarks {
       settings = getSettings();
       saveHostAttributes(settings.getHostAttributes());
 
-      Set<HostOffer> offers = new Offers.Builder().build(settings.getHostAttributes());
+      offers = new Offers.Builder().build(settings.getHostAttributes());
       Offers.addOffers(offerManager, offers);
       fillUpCluster(offers.size());
+      addVictims();
 
       saveTasks(settings.getTasks());
     }
 
+    /**
+     * Adds active tasks to the cluster state after the cluster is filled up, without scheduling
+     * them.  Does nothing by default.
+     */
+    protected void addVictims() {
+      // No additional victims.
+    }
+
     private Set<IScheduledTask> buildClusterTasks(int numOffers) {
       int numOffersToFill = (int) Math.round(numOffers * settings.getClusterUtilization());
       return new Tasks.Builder()
@@ -195,7 +221,32 @@ public class SchedulingBenchmarks {
       }
     }
 
-    private void saveTasks(final Set<IScheduledTask> tasks) {
+    /**
+     * Gets the offer packing window to schedule with.  Offer packing is disabled by default.
+     */
+    protected Optional<Amount<Long, Time>> getOfferPackingWindow() {
+      return Optional.absent();
+    }
+
+    /**
+     * Gets whether offers are matched outside of storage write transactions.  Disabled by default.
+     */
+    protected boolean isOptimisticAssignment() {
+      return false;
+    }
+
+    /**
+     * Returns the tasks to PENDING and restores the original offers.
+     */
+    protected void resetCluster() {
+      for (HostOffer offer : offerManager.getOffers()) {
+        offerManager.cancelOffer(offer.getOffer().getId());
+      }
+      Offers.addOffers(offerManager, offers);
+      saveTasks(settings.getTasks());
+    }
+
+    protected void saveTasks(final Set<IScheduledTask> tasks) {
       storage.write(
           (NoResult.Quiet) storeProvider -> storeProvider.getUnsafeTaskStore().saveTasks(tasks));
     }
@@ -242,6 +293,119 @@ public class SchedulingBenchmarks {
     }
   }
 
+  /**
+   * Tests the time to place a batch of small tasks on a cluster of empty hosts, with and without
+   * offer packing.  Without packing, each offer is used for a single task.  With packing, tasks
+   * are placed onto the remaining resources of offers that were already used.  The async executor
+   * is a no-op, so packed offers are not launched during the run.
+   */
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 5)
+  @Measurement(iterations = 10)
+  public static class OfferPackingSchedulingBenchmark extends AbstractBase {
+    @Param({"false", "true"})
+    public boolean offerPacking;
+
+    @Override
+    protected Optional<Amount<Long, Time>> getOfferPackingWindow() {
+      return offerPacking
+          ? Optional.of(Amount.of(1L, Time.SECONDS))
+          : Optional.absent();
+    }
+
+    @Override
+    protected BenchmarkSettings getSettings() {
+      return new BenchmarkSettings.Builder()
+          .setClusterUtilization(0.0)
+          .setHostAttributes(new Hosts.Builder().setNumHostsPerRack(2).build(100))
+          .setTasks(new Tasks.Builder()
+              .setCpu(1.0)
+              .setRam(Amount.of(1L, Data.GB))
+              .setDisk(Amount.of(1L, Data.GB))
+              .build(500)).build();
+    }
+
+    /**
+     * Returns the tasks to PENDING and restores the original offers before each run.
+     */
+    @Setup(Level.Iteration)
+    public void setUpIteration() {
+      resetCluster();
+    }
+  }
+
+  /**
+   * Tests the time to place a batch of small tasks on a cluster of empty hosts with a number of
+   * concurrent scheduling threads.  With more than one thread, offers are matched and claimed
+   * outside of the storage write lock, and assignments are committed in shared transactions.
+   */
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 5)
+  @Measurement(iterations = 10)
+  public static class ParallelSchedulingBenchmark extends AbstractBase {
+    @Param({"1", "4", "8", "16"})
+    public int numThreads;
+
+    private ExecutorService workers;
+
+    @Override
+    protected boolean isOptimisticAssignment() {
+      return numThreads > 1;
+    }
+
+    @Override
+    protected BenchmarkSettings getSettings() {
+      return new BenchmarkSettings.Builder()
+          .setClusterUtilization(0.0)
+          .setHostAttributes(new Hosts.Builder().setNumHostsPerRack(2).build(2000))
+          .setTasks(new Tasks.Builder()
+              .setCpu(1.0)
+              .setRam(Amount.of(1L, Data.GB))
+              .setDisk(Amount.of(1L, Data.GB))
+              .build(1000)).build();
+    }
+
+    /**
+     * Starts the scheduling threads.
+     */
+    @Setup(Level.Trial)
+    public void setUpWorkers() {
+      workers = Executors.newFixedThreadPool(numThreads);
+    }
+
+    /**
+     * Stops the scheduling threads.
+     */
+    @TearDown(Level.Trial)
+    public void tearDownWorkers() {
+      workers.shutdownNow();
+    }
+
+    /**
+     * Returns the tasks to PENDING and restores the original offers before each run.
+     */
+    @Setup(Level.Iteration)
+    public void setUpIteration() {
+      resetCluster();
+    }
+
+    @Override
+    public boolean runBenchmark() {
+      List<Future<Boolean>> results = Lists.newArrayList();
+      for (IScheduledTask task : settings.getTasks()) {
+        String taskId = task.getAssignedTask().getTaskId();
+        results.add(workers.submit(() -> taskScheduler.schedule(taskId)));
+      }
+      boolean result = false;
+      for (Future<Boolean> scheduled : results) {
+        result = Futures.getUnchecked(scheduled);
+      }
+      return result;
+    }
+  }
+
   /**
    * Tests scheduling performance with a task vetoed due to value constraint mismatch.
    */
@@ -272,6 +436,31 @@ public class SchedulingBenchmarks {
     }
   }
 
+  /**
+   * Tests scheduling performance with a task carrying many constraints, all but the last of which
+   * are satisfied by every host.
+   */
+  public static class ManyConstraintsSchedulingBenchmark extends AbstractBase {
+    private static final int NUM_CONSTRAINTS = 20;
+
+    @Override
+    protected BenchmarkSettings getSettings() {
+      Tasks.Builder tasks = new Tasks.Builder().setProduction(true);
+      for (int i = 0; i < NUM_CONSTRAINTS; i++) {
+        tasks.addValueConstraint(
+            Hosts.Builder.extraAttributeName(i),
+            Hosts.Builder.extraAttributeValue());
+      }
+
+      return new BenchmarkSettings.Builder()
+          .setHostAttributes(new Hosts.Builder()
+              .setNumHostsPerRack(2)
+              .setNumExtraAttributes(NUM_CONSTRAINTS)
+              .build(1000))
+          .setTasks(tasks.addLimitConstraint("host", 0).build(1)).build();
+    }
+  }
+
   /**
    * Tests scheduling performance with a large number of tasks and slaves where the cluster
    * is completely filled up.
@@ -315,4 +504,66 @@ public class SchedulingBenchmarks {
       return System.currentTimeMillis() % 5 == 0;
     }
   }
+
+  /**
+   * Tests preemptor searching for a preemption slot among 100k victims on 10k slaves, where only
+   * one in a hundred slaves has enough preemptible resources for the pending tasks.  Each slave
+   * runs one task that fills it up and nine lower priority tasks of the pending tasks' role.
+   */
+  public static class PreemptorManyVictimsSlotSearchBenchmark extends AbstractBase {
+    private static final int VICTIMS_PER_HOST = 9;
+    private static final int FEASIBLE_HOST_INTERVAL = 100;
+
+    @Param({"1", "10", "100"})
+    public int numPendingTasks;
+
+    private Set<IHostAttributes> hosts;
+
+    @Override
+    protected BenchmarkSettings getSettings() {
+      hosts = new Hosts.Builder().setNumHostsPerRack(2).build(10000);
+      return new BenchmarkSettings.Builder()
+          .setClusterUtilization(1.0)
+          .setHostAttributes(hosts)
+          .setTasks(new Tasks.Builder()
+              .setRole("preemptor")
+              .setPriority(10)
+              .setCpu(12)
+              .addValueConstraint("host", "denied")
+              .build(numPendingTasks)).build();
+    }
+
+    @Override
+    protected void addVictims() {
+      int hostIndex = 0;
+      for (IHostAttributes host : hosts) {
+        Set<IScheduledTask> victims = new Tasks.Builder()
+            .setRole("preemptor")
+            .setEnv("victim")
+            .setPriority(0)
+            .setCpu(hostIndex % FEASIBLE_HOST_INTERVAL == 0 ? 2.0 : 1.0)
+            .setRam(Amount.of(1L, Data.GB))
+            .setScheduleStatus(ScheduleStatus.RUNNING)
+            .setUuidStart(hostIndex * VICTIMS_PER_HOST)
+            .build(VICTIMS_PER_HOST);
+        for (IScheduledTask victim : victims) {
+          ScheduledTask assigned = victim.newBuilder();
+          assigned.getAssignedTask()
+              .setSlaveId(host.getSlaveId())
+              .setSlaveHost(host.getHost());
+          eventBus.post(TaskStateChange.transition(
+              IScheduledTask.build(assigned),
+              ScheduleStatus.PENDING));
+        }
+        hostIndex++;
+      }
+    }
+
+    @Override
+    public boolean runBenchmark() {
+      pendingTaskProcessor.run();
+      // Return non-guessable result to satisfy "blackhole" requirement.
+      return System.currentTimeMillis() % 5 == 0;
+    }
+  }
 }
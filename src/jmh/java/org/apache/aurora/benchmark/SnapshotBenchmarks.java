@@ -33,6 +33,7 @@ import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.db.DbModule;
 import org.apache.aurora.scheduler.storage.log.SnapshotStoreImpl;
 import org.apache.aurora.scheduler.storage.log.SnapshotStoreImpl.ExperimentalTaskStore;
+import org.apache.aurora.scheduler.storage.log.SnapshotStoreImpl.InMemJobUpdateStore;
 import org.apache.thrift.TException;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
@@ -95,6 +96,8 @@ public class SnapshotBenchmarks {
               bind(SnapshotStoreImpl.class).in(Singleton.class);
               bind(new TypeLiteral<Boolean>() { }).annotatedWith(ExperimentalTaskStore.class)
                   .toInstance(true);
+              bind(new TypeLiteral<Boolean>() { }).annotatedWith(InMemJobUpdateStore.class)
+                  .toInstance(false);
             }
           },
           DbModule.testModuleWithWorkQueue(
@@ -13,15 +13,20 @@
  */
 package org.apache.aurora.benchmark;
 
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import com.google.common.base.Optional;
+import com.google.common.collect.FluentIterable;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.util.Modules;
 
 import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.gen.ScheduledTask;
+import org.apache.aurora.gen.TaskEvent;
 import org.apache.aurora.scheduler.base.Query;
 import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.TaskStore;
@@ -45,6 +50,8 @@ import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Warmup;
 
 import static org.apache.aurora.common.inject.Bindings.KeyFactory.PLAIN;
+import static org.apache.aurora.gen.ScheduleStatus.KILLING;
+import static org.apache.aurora.gen.ScheduleStatus.RUNNING;
 
 public class TaskStoreBenchmarks {
 
@@ -132,4 +139,56 @@ public class TaskStoreBenchmarks {
       return storage.read(store -> store.getTaskStore().fetchTasks(Query.unscoped()));
     }
   }
+
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  @Warmup(iterations = 1, time = 10, timeUnit = TimeUnit.SECONDS)
+  @Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+  @Fork(1)
+  @State(Scope.Thread)
+  public static class DBStatusTransitionBenchmark {
+    private Storage storage;
+    private List<String> taskIds;
+    private long timestamp;
+
+    @Param({"1000", "10000"})
+    private int numTasks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      storage = DbUtil.createStorage();
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpIteration() {
+      Set<IScheduledTask> tasks = new Tasks.Builder().build(numTasks);
+      storage.write((Storage.MutateWork.NoResult.Quiet)
+          storeProvider -> storeProvider.getUnsafeTaskStore().saveTasks(tasks));
+      taskIds = FluentIterable.from(tasks)
+          .transform(task -> task.getAssignedTask().getTaskId())
+          .toList();
+      timestamp = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownIteration() {
+      storage.write((Storage.MutateWork.NoResult.Quiet)
+          storeProvider -> storeProvider.getUnsafeTaskStore().deleteAllTasks());
+    }
+
+    @Benchmark
+    public Optional<IScheduledTask> run() {
+      // Each transition alternates a task between RUNNING and KILLING, and appends an event.
+      timestamp++;
+      String taskId = taskIds.get((int) (timestamp % taskIds.size()));
+      return storage.write(storeProvider -> storeProvider.getUnsafeTaskStore().mutateTask(
+          taskId,
+          task -> {
+            ScheduleStatus status = task.getStatus() == RUNNING ? KILLING : RUNNING;
+            ScheduledTask builder = task.newBuilder().setStatus(status);
+            builder.addToTaskEvents(new TaskEvent(timestamp, status));
+            return IScheduledTask.build(builder);
+          }));
+    }
+  }
 }
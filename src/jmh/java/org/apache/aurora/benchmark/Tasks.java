@@ -53,6 +53,7 @@ final class Tasks {
     private JobKey jobKey = new JobKey("jmh", "dev", "benchmark");
     private int uuidStart = 0;
     private boolean isProduction = false;
+    private int priority = 1;
     private double cpu = 6.0;
     private Amount<Long, Data> ram = Amount.of(8L, Data.GB);
     private Amount<Long, Data> disk = Amount.of(128L, Data.GB);
@@ -94,6 +95,11 @@ final class Tasks {
       return this;
     }
 
+    Builder setPriority(int newPriority) {
+      priority = newPriority;
+      return this;
+    }
+
     Builder setScheduleStatus(ScheduleStatus newScheduleStatus) {
       scheduleStatus = newScheduleStatus;
       return this;
@@ -152,6 +158,7 @@ final class Tasks {
             .setRamMb(ram.as(Data.MB))
             .setDiskMb(disk.as(Data.MB))
             .setProduction(isProduction)
+            .setPriority(priority)
             .setResources(ImmutableSet.of(
                 numCpus(cpu),
                 ramMb(ram.as(Data.MB)),
@@ -13,16 +13,26 @@
  */
 package org.apache.aurora.benchmark;
 
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
+import com.google.common.base.Optional;
 import com.google.common.collect.Iterables;
 
+import org.apache.aurora.gen.JobUpdateQuery;
+import org.apache.aurora.scheduler.storage.JobUpdateStore;
 import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult;
+import org.apache.aurora.scheduler.storage.db.DbJobUpdateStore;
+import org.apache.aurora.scheduler.storage.db.DbModule;
 import org.apache.aurora.scheduler.storage.db.DbUtil;
+import org.apache.aurora.scheduler.storage.entities.IJobInstanceUpdateEvent;
 import org.apache.aurora.scheduler.storage.entities.IJobUpdateDetails;
 import org.apache.aurora.scheduler.storage.entities.IJobUpdateKey;
+import org.apache.aurora.scheduler.storage.entities.IJobUpdateQuery;
+import org.apache.aurora.scheduler.storage.entities.IJobUpdateSummary;
+import org.apache.aurora.scheduler.storage.mem.MemJobUpdateStore;
 import org.apache.thrift.TException;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
@@ -38,7 +48,38 @@ import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Warmup;
 
+import static org.apache.aurora.common.inject.Bindings.KeyFactory.PLAIN;
+
 public class UpdateStoreBenchmarks {
+  /**
+   * Job update store implementations to compare.
+   */
+  public enum StoreType {
+    DB(DbJobUpdateStore.class),
+    MEM(MemJobUpdateStore.class);
+
+    private final Class<? extends JobUpdateStore.Mutable> impl;
+
+    StoreType(Class<? extends JobUpdateStore.Mutable> impl) {
+      this.impl = impl;
+    }
+
+    Storage createStorage() {
+      return DbUtil.createStorageInjector(DbModule.testModuleWithWorkQueue(
+          PLAIN,
+          Optional.of(new DbModule.TaskStoreModule(PLAIN)),
+          impl))
+          .getInstance(Storage.class);
+    }
+  }
+
+  private static void deleteUpdates(Storage storage) {
+    storage.write((NoResult.Quiet) storeProvider -> {
+      storeProvider.getJobUpdateStore().deleteAllUpdatesAndEvents();
+      storeProvider.getLockStore().deleteLocks();
+    });
+  }
+
   @BenchmarkMode(Mode.Throughput)
   @OutputTimeUnit(TimeUnit.SECONDS)
   @Warmup(iterations = 1, time = 10, timeUnit = TimeUnit.SECONDS)
@@ -52,9 +93,12 @@ public class UpdateStoreBenchmarks {
     @Param({"1000", "5000", "10000"})
     private int instances;
 
+    @Param({"DB", "MEM"})
+    private StoreType storeType;
+
     @Setup(Level.Trial)
     public void setUp() {
-      storage = DbUtil.createStorage();
+      storage = storeType.createStorage();
     }
 
     @Setup(Level.Iteration)
@@ -66,10 +110,7 @@ public class UpdateStoreBenchmarks {
 
     @TearDown(Level.Iteration)
     public void tearDownIteration() {
-      storage.write((NoResult.Quiet) storeProvider -> {
-        storeProvider.getJobUpdateStore().deleteAllUpdatesAndEvents();
-        storeProvider.getLockStore().deleteLocks();
-      });
+      deleteUpdates(storage);
     }
 
     @Benchmark
@@ -92,9 +133,12 @@ public class UpdateStoreBenchmarks {
     @Param({"1", "10", "100", "1000"})
     private int instanceOverrides;
 
+    @Param({"DB", "MEM"})
+    private StoreType storeType;
+
     @Setup(Level.Trial)
     public void setUp() {
-      storage = DbUtil.createStorage();
+      storage = storeType.createStorage();
     }
 
     @Setup(Level.Iteration)
@@ -106,10 +150,7 @@ public class UpdateStoreBenchmarks {
 
     @TearDown(Level.Iteration)
     public void tearDownIteration() {
-      storage.write((NoResult.Quiet) storeProvider -> {
-        storeProvider.getJobUpdateStore().deleteAllUpdatesAndEvents();
-        storeProvider.getLockStore().deleteLocks();
-      });
+      deleteUpdates(storage);
     }
 
     @Benchmark
@@ -118,4 +159,88 @@ public class UpdateStoreBenchmarks {
           Iterables.getOnlyElement(keys)).get());
     }
   }
+
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  @Warmup(iterations = 1, time = 10, timeUnit = TimeUnit.SECONDS)
+  @Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+  @Fork(1)
+  @State(Scope.Thread)
+  public static class InstanceEventsBenchmark {
+    private Storage storage;
+    private IJobUpdateKey key;
+    private int instanceId;
+
+    @Param({"1000", "5000"})
+    private int instances;
+
+    @Param({"DB", "MEM"})
+    private StoreType storeType;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      storage = storeType.createStorage();
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpIteration() {
+      key = Iterables.getOnlyElement(JobUpdates.saveUpdates(
+          storage,
+          new JobUpdates.Builder().setNumInstanceEvents(instances).build(1)));
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownIteration() {
+      deleteUpdates(storage);
+    }
+
+    // Mirrors the updater, which fetches the events of each instance it evaluates.
+    @Benchmark
+    public List<IJobInstanceUpdateEvent> run() throws TException {
+      instanceId = (instanceId + 1) % instances;
+      return storage.read(
+          store -> store.getJobUpdateStore().fetchInstanceEvents(key, instanceId));
+    }
+  }
+
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  @Warmup(iterations = 1, time = 10, timeUnit = TimeUnit.SECONDS)
+  @Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+  @Fork(1)
+  @State(Scope.Thread)
+  public static class JobSummariesBenchmark {
+    private Storage storage;
+    private IJobUpdateQuery query;
+
+    @Param({"100", "1000"})
+    private int updates;
+
+    @Param({"DB", "MEM"})
+    private StoreType storeType;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      storage = storeType.createStorage();
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpIteration() {
+      Set<IJobUpdateKey> keys = JobUpdates.saveUpdates(
+          storage,
+          new JobUpdates.Builder().setNumInstanceEvents(10).build(updates));
+      query = IJobUpdateQuery.build(
+          new JobUpdateQuery().setKey(Iterables.getFirst(keys, null).newBuilder()));
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownIteration() {
+      deleteUpdates(storage);
+    }
+
+    @Benchmark
+    public List<IJobUpdateSummary> run() throws TException {
+      return storage.read(store -> store.getJobUpdateStore().fetchJobUpdateSummaries(query));
+    }
+  }
 }
@@ -27,7 +27,11 @@ public class FakeDriver extends AbstractIdleService implements Driver {
   }
 
   @Override
-  public void launchTask(Protos.OfferID offerId, Protos.TaskInfo task, Protos.Filters filter) {
+  public void launchTasks(
+      Protos.OfferID offerId,
+      Collection<Protos.TaskInfo> tasks,
+      Protos.Filters filter) {
+
     // no-op
   }
 
@@ -13,6 +13,8 @@
  */
 package org.apache.aurora.benchmark.fakes;
 
+import java.util.List;
+
 import com.google.common.base.Optional;
 
 import org.apache.aurora.scheduler.HostOffer;
@@ -33,7 +35,24 @@ public class FakeOfferManager implements OfferManager {
   }
 
   @Override
-  public void launchTask(Protos.OfferID offerId, Protos.TaskInfo taskInfo) throws LaunchException {
+  public boolean claimOffer(Protos.OfferID offerId) {
+    return true;
+  }
+
+  @Override
+  public void addPackedOffer(HostOffer remainder) {
+    // no-op
+  }
+
+  @Override
+  public void releaseOffer(HostOffer offer) {
+    // no-op
+  }
+
+  @Override
+  public void launchTasks(Protos.OfferID offerId, List<Protos.TaskInfo> tasks)
+      throws LaunchException {
+
     // no-op
   }
 
@@ -13,13 +13,18 @@
  */
 package org.apache.aurora.scheduler;
 
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 import com.google.common.base.MoreObjects;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 
+import org.apache.aurora.scheduler.filter.ConstraintEvaluator;
 import org.apache.aurora.scheduler.resources.ResourceBag;
 import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
 
@@ -36,6 +41,7 @@ public class HostOffer {
   private final Offer offer;
   private final IHostAttributes hostAttributes;
   private final LoadingCache<TierInfo, ResourceBag> resourceBagCache;
+  private final Supplier<Map<String, Set<String>>> indexedAttributes;
 
   public HostOffer(Offer offer, IHostAttributes hostAttributes) {
     this.offer = requireNonNull(offer);
@@ -47,6 +53,8 @@ public class HostOffer {
             return bagFromMesosResources(getOfferResources(offer, tierInfo));
           }
         });
+    this.indexedAttributes =
+        Suppliers.memoize(() -> ConstraintEvaluator.indexAttributes(hostAttributes));
   }
 
   public Offer getOffer() {
@@ -57,6 +65,16 @@ public class HostOffer {
     return hostAttributes;
   }
 
+  /**
+   * Gets the host attributes indexed by name, for evaluating task constraints.  The index is built
+   * once per offer and shared by every task matched against it.
+   *
+   * @return Indexed host attributes.
+   */
+  public Map<String, Set<String>> getIndexedAttributes() {
+    return indexedAttributes.get();
+  }
+
   public ResourceBag getResourceBag(TierInfo tierInfo) {
     return resourceBagCache.getUnchecked(tierInfo);
   }
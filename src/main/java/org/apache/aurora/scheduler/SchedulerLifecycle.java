@@ -21,6 +21,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
@@ -173,6 +174,9 @@ public class SchedulerLifecycle implements EventSubscriber {
   @VisibleForTesting
   static final String REGISTERED_GAUGE = "framework_registered";
 
+  @VisibleForTesting
+  static final String TIME_TO_ACTIVE_GAUGE = "scheduler_lifecycle_time_to_active_ms";
+
   @VisibleForTesting
   static String stateGaugeName(State state) {
     return "scheduler_lifecycle_" + state;
@@ -202,6 +206,9 @@ public class SchedulerLifecycle implements EventSubscriber {
             return registrationAcked.get() ? 1 : 0;
           }
         });
+    final AtomicLong electedNanos = new AtomicLong();
+    final AtomicLong timeToActiveMs = new AtomicLong();
+    statsProvider.makeGauge(TIME_TO_ACTIVE_GAUGE, timeToActiveMs::get);
     for (final State state : State.values()) {
       statsProvider.makeGauge(
           stateGaugeName(state),
@@ -234,6 +241,7 @@ public class SchedulerLifecycle implements EventSubscriber {
       @Override
       public void accept(Transition<State> transition) {
         LOG.info("Elected as leading scheduler!");
+        electedNanos.set(System.nanoTime());
 
         storage.start(stores -> {
           // If storage backfill operations are necessary, they can be done here.
@@ -276,6 +284,8 @@ public class SchedulerLifecycle implements EventSubscriber {
           LOG.error("Failed to advertise leader, shutting down.");
           throw Throwables.propagate(e);
         }
+        timeToActiveMs.set(
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - electedNanos.get()));
       }
     };
 
@@ -31,6 +31,7 @@ import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Multiset;
 import com.google.common.eventbus.Subscribe;
 import com.google.common.util.concurrent.AbstractIdleService;
 
@@ -41,7 +42,6 @@ import org.apache.aurora.scheduler.events.PubsubEvent.EventSubscriber;
 import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
 import org.apache.aurora.scheduler.events.PubsubEvent.TasksDeleted;
 import org.apache.aurora.scheduler.events.PubsubEvent.Vetoed;
-import org.apache.aurora.scheduler.filter.SchedulingFilter.Veto;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.VetoGroup;
 import org.apache.aurora.scheduler.storage.AttributeStore;
 import org.apache.aurora.scheduler.storage.Storage;
@@ -213,9 +213,12 @@ class TaskVars extends AbstractIdleService implements EventSubscriber {
 
   @Subscribe
   public void taskVetoed(Vetoed event) {
-    VetoGroup vetoGroup = Veto.identifyGroup(event.getVetoes());
-    if (vetoGroup != VetoGroup.EMPTY) {
-      counters.getUnchecked(VETO_GROUPS_TO_COUNTERS.get(vetoGroup)).increment();
+    // A single event summarizes every offer that vetoed the task during a scheduling attempt.
+    for (Multiset.Entry<VetoGroup> entry : event.getVetoGroups().entrySet()) {
+      if (entry.getElement() != VetoGroup.EMPTY) {
+        counters.getUnchecked(VETO_GROUPS_TO_COUNTERS.get(entry.getElement()))
+            .add(entry.getCount());
+      }
     }
   }
 
@@ -244,6 +247,10 @@ class TaskVars extends AbstractIdleService implements EventSubscriber {
       value.incrementAndGet();
     }
 
+    private void add(long delta) {
+      value.addAndGet(delta);
+    }
+
     private void decrement() {
       value.decrementAndGet();
     }
@@ -54,6 +54,7 @@ import org.apache.aurora.scheduler.discovery.FlaggedZooKeeperConfig;
 import org.apache.aurora.scheduler.discovery.ServiceDiscoveryModule;
 import org.apache.aurora.scheduler.events.WebhookModule;
 import org.apache.aurora.scheduler.http.HttpService;
+import org.apache.aurora.scheduler.log.local.LocalLogStreamModule;
 import org.apache.aurora.scheduler.log.mesos.MesosLogStreamModule;
 import org.apache.aurora.scheduler.mesos.CommandLineDriverSettingsModule;
 import org.apache.aurora.scheduler.mesos.LibMesosLoadingModule;
@@ -86,6 +87,25 @@ public class SchedulerMain {
   @CmdLine(name = "viz_job_url_prefix", help = "URL prefix for job container stats.")
   private static final Arg<String> STATS_URL_PREFIX = Arg.create("");
 
+  /**
+   * Implementations of the log that backs scheduler storage.
+   */
+  public enum LogBackend {
+    /**
+     * The mesos replicated log.
+     */
+    MESOS,
+
+    /**
+     * Segment files in a local directory.  This log is not replicated.
+     */
+    LOCAL
+  }
+
+  @CmdLine(name = "log_backend",
+      help = "The log implementation that backs scheduler storage.")
+  private static final Arg<LogBackend> LOG_BACKEND = Arg.create(LogBackend.MESOS);
+
   @Inject private SingletonService schedulerService;
   @Inject private HttpService httpService;
   @Inject private SchedulerLifecycle schedulerLifecycle;
@@ -197,7 +217,9 @@ public class SchedulerMain {
         .add(
             new CommandLineDriverSettingsModule(),
             new LibMesosLoadingModule(),
-            new MesosLogStreamModule(FlaggedZooKeeperConfig.create()),
+            LOG_BACKEND.get() == LogBackend.LOCAL
+                ? new LocalLogStreamModule()
+                : new MesosLogStreamModule(FlaggedZooKeeperConfig.create()),
             new LogStorageModule(),
             new TierModule(),
             new WebhookModule()
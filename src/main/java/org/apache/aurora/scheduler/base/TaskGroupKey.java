@@ -13,7 +13,11 @@
  */
 package org.apache.aurora.scheduler.base;
 
-import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 
 import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
 
@@ -22,22 +26,43 @@ import static java.util.Objects.requireNonNull;
 /**
  * Identifier for a group of identical {@link ITaskConfig} instances. Serves as a separation layer
  * between a task configuration and its scheduling purpose representation.
+ * <p>
+ * Keys are interned: while a key is reachable, {@link #from(ITaskConfig)} returns the same
+ * canonical instance for every equal task config. Each canonical key carries a compact numeric
+ * group ID, which makes {@link #equals(Object)} and {@link #hashCode()} constant-time rather than a
+ * deep comparison of the task config.
  */
 public final class TaskGroupKey {
+  private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+  // Weak values let a group key (and its ID) be reclaimed once no scheduling component references
+  // it any longer.
+  private static final LoadingCache<ITaskConfig, TaskGroupKey> CANONICAL_KEYS =
+      CacheBuilder.newBuilder()
+          .weakValues()
+          .build(new CacheLoader<ITaskConfig, TaskGroupKey>() {
+            @Override
+            public TaskGroupKey load(ITaskConfig task) {
+              return new TaskGroupKey(task, NEXT_ID.getAndIncrement());
+            }
+          });
+
   private final ITaskConfig canonicalTask;
+  private final int id;
 
-  private TaskGroupKey(ITaskConfig task) {
+  private TaskGroupKey(ITaskConfig task, int id) {
     this.canonicalTask = requireNonNull(task);
+    this.id = id;
   }
 
   /**
-   * Creates a {@code TaskGroupKey} from {@link ITaskConfig}.
+   * Gets the canonical {@code TaskGroupKey} for an {@link ITaskConfig}.
    *
    * @param task Task to create a {@code TaskGroupKey} from.
-   * @return An instance of {@code TaskGroupKey}.
+   * @return The canonical {@code TaskGroupKey} instance for {@code task}.
    */
   public static TaskGroupKey from(ITaskConfig task) {
-    return new TaskGroupKey(task);
+    return CANONICAL_KEYS.getUnchecked(requireNonNull(task));
   }
 
   /**
@@ -49,18 +74,30 @@ public final class TaskGroupKey {
     return canonicalTask;
   }
 
+  /**
+   * Gets the numeric group ID of this key. IDs are unique among all keys created by this process.
+   *
+   * @return Group ID.
+   */
+  public int getId() {
+    return id;
+  }
+
   @Override
   public int hashCode() {
-    return Objects.hash(canonicalTask);
+    return id;
   }
 
   @Override
   public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
     if (!(o instanceof TaskGroupKey)) {
       return false;
     }
     TaskGroupKey other = (TaskGroupKey) o;
-    return Objects.equals(canonicalTask, other.canonicalTask);
+    return id == other.id;
   }
 
   @Override
@@ -0,0 +1,167 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.cron;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ContiguousSet;
+import com.google.common.collect.DiscreteDomain;
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeSet;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A {@link CrontabEntry} compiled into one bitset per field, for fast computation of fire times.
+ *
+ * <p>
+ * Compiled entries are immutable and thread-safe. A schedule should be compiled once and reused,
+ * computing a fire time only involves bit tests and calendar arithmetic.
+ */
+public final class CompiledCrontabEntry {
+  // Fire times past this year are treated as unrepresentable, matching the limit of Quartz cron
+  // expressions.
+  private static final int MAX_YEAR = Year.now(ZoneOffset.UTC).getValue() + 100;
+  private static final Instant END_OF_MAX_YEAR =
+      LocalDateTime.of(MAX_YEAR + 1, 1, 1, 0, 0).toInstant(ZoneOffset.UTC);
+  // Schedules that cannot match any day within this many years (eg: February 30th) never fire.
+  // Eight years covers the longest gap between leap days.
+  private static final int SEARCH_YEARS = 8;
+
+  private final CrontabEntry entry;
+  private final long minutes;
+  private final long hours;
+  private final long daysOfMonth;
+  private final long months;
+  private final long daysOfWeek;
+
+  private CompiledCrontabEntry(CrontabEntry entry) {
+    this.entry = requireNonNull(entry);
+    this.minutes = toBits(entry.getMinute());
+    this.hours = toBits(entry.getHour());
+    this.daysOfMonth = toBits(entry.getDayOfMonth());
+    this.months = toBits(entry.getMonth());
+    this.daysOfWeek = toBits(entry.getDayOfWeek());
+  }
+
+  /**
+   * Compiles a crontab entry.
+   *
+   * @param entry Entry to compile.
+   * @return The compiled form of {@code entry}.
+   */
+  public static CompiledCrontabEntry compile(CrontabEntry entry) {
+    return new CompiledCrontabEntry(entry);
+  }
+
+  private static long toBits(RangeSet<Integer> field) {
+    long bits = 0;
+    for (Range<Integer> range : field.asRanges()) {
+      for (int i : ContiguousSet.create(range, DiscreteDomain.integers())) {
+        bits |= 1L << i;
+      }
+    }
+    return bits;
+  }
+
+  private static boolean isSet(long bits, int value) {
+    return (bits & (1L << value)) != 0;
+  }
+
+  private static int nextSetBit(long bits, int from) {
+    long remaining = bits & (-1L << from);
+    return remaining == 0 ? -1 : Long.numberOfTrailingZeros(remaining);
+  }
+
+  /**
+   * Gets the entry this was compiled from.
+   *
+   * @return The source entry.
+   */
+  public CrontabEntry getEntry() {
+    return entry;
+  }
+
+  /**
+   * Computes the first time strictly after {@code afterMs} at which this schedule fires.
+   *
+   * <p>
+   * Wall clock times skipped by a daylight saving transition fire at the corresponding instant
+   * after the transition, and repeated wall clock times fire once.
+   *
+   * @param afterMs Time to search from, in milliseconds since the epoch.
+   * @param zone Time zone the schedule is evaluated in.
+   * @return The next fire time in milliseconds since the epoch, or absent if the schedule does
+   *         not fire again within a representable time.
+   */
+  public Optional<Long> nextFireTimeAfter(long afterMs, ZoneId zone) {
+    Instant after = Instant.ofEpochMilli(afterMs);
+    if (!after.isBefore(END_OF_MAX_YEAR)) {
+      return Optional.absent();
+    }
+
+    LocalDateTime time = LocalDateTime.ofInstant(after, zone)
+        .truncatedTo(ChronoUnit.MINUTES)
+        .plusMinutes(1);
+    int lastYear = Math.min(time.getYear() + SEARCH_YEARS, MAX_YEAR);
+    while (time.getYear() <= lastYear) {
+      if (!isSet(months, time.getMonthValue())) {
+        time = time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1).plusMonths(1);
+        continue;
+      }
+
+      // Either the day of month or the day of week is always a wildcard, so a day matches when
+      // both fields match. DayOfWeek numbers Sunday as 7 where crontab uses 0.
+      if (!isSet(daysOfMonth, time.getDayOfMonth())
+          || !isSet(daysOfWeek, time.getDayOfWeek().getValue() % 7)) {
+        time = time.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+        continue;
+      }
+
+      int hour = nextSetBit(hours, time.getHour());
+      if (hour < 0) {
+        time = time.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+        continue;
+      } else if (hour != time.getHour()) {
+        time = time.truncatedTo(ChronoUnit.DAYS).withHour(hour);
+      }
+
+      int minute = nextSetBit(minutes, time.getMinute());
+      if (minute < 0) {
+        time = time.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+        continue;
+      }
+      time = time.withMinute(minute);
+
+      long fireMs = ZonedDateTime.of(time, zone).toInstant().toEpochMilli();
+      if (fireMs > afterMs) {
+        return Optional.of(fireMs);
+      }
+      time = time.plusMinutes(1);
+    }
+    return Optional.absent();
+  }
+
+  @Override
+  public String toString() {
+    return entry.toString();
+  }
+}
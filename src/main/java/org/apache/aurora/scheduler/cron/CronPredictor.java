@@ -31,4 +31,15 @@ public interface CronPredictor {
    * @return A prediction for the next time a cron will run if a valid prediction can be made.
    */
   Optional<Date> predictNextRun(CrontabEntry schedule);
+
+  /**
+   * Predicts the next date at which a cron schedule in crontab(5) form will trigger.
+   *
+   * @param schedule Cron schedule to predict the next time for.
+   * @return A prediction for the next time a cron will run if a valid prediction can be made.
+   * @throws IllegalArgumentException If the schedule could not be parsed.
+   */
+  default Optional<Date> predictNextRun(String schedule) {
+    return predictNextRun(CrontabEntry.parse(schedule));
+  }
 }
@@ -21,10 +21,9 @@ import javax.inject.Inject;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
-import com.google.common.collect.Iterables;
 
 import org.apache.aurora.common.stats.Stats;
-import org.apache.aurora.common.util.BackoffHelper;
+import org.apache.aurora.common.util.Clock;
 import org.apache.aurora.gen.CronCollisionPolicy;
 import org.apache.aurora.scheduler.base.JobKeys;
 import org.apache.aurora.scheduler.base.Query;
@@ -34,7 +33,6 @@ import org.apache.aurora.scheduler.cron.CronException;
 import org.apache.aurora.scheduler.cron.SanitizedCronJob;
 import org.apache.aurora.scheduler.state.StateManager;
 import org.apache.aurora.scheduler.storage.Storage;
-import org.apache.aurora.scheduler.storage.Storage.MutateWork;
 import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult;
 import org.apache.aurora.scheduler.storage.entities.IJobConfiguration;
 import org.apache.aurora.scheduler.storage.entities.IJobKey;
@@ -57,8 +55,9 @@ import static org.apache.aurora.gen.ScheduleStatus.KILLING;
  * concurrently but only a single instance will be active at a time per job key.
  *
  * <p>
- * Executions may block for long periods of time when waiting for a kill to complete. The Quartz
- * scheduler should therefore be configured with a large number of threads.
+ * Executions never block waiting for a kill to complete. When a previous run must be killed
+ * first, the new run is handed to {@link DeferredCronLaunches} and launched once the previous
+ * run's tasks have terminated.
  */
 @DisallowConcurrentExecution
 class AuroraCronJob implements Job {
@@ -76,31 +75,22 @@ class AuroraCronJob implements Job {
   private final ConfigurationManager configurationManager;
   private final Storage storage;
   private final StateManager stateManager;
-  private final BackoffHelper delayedStartBackoff;
+  private final DeferredCronLaunches deferredLaunches;
+  private final Clock clock;
 
   @Inject
   AuroraCronJob(
       ConfigurationManager configurationManager,
-      Config config,
       Storage storage,
-      StateManager stateManager) {
+      StateManager stateManager,
+      DeferredCronLaunches deferredLaunches,
+      Clock clock) {
 
     this.configurationManager = requireNonNull(configurationManager);
     this.storage = requireNonNull(storage);
     this.stateManager = requireNonNull(stateManager);
-    this.delayedStartBackoff = requireNonNull(config.getDelayedStartBackoff());
-  }
-
-  private static final class DeferredLaunch {
-    private final ITaskConfig task;
-    private final Set<Integer> instanceIds;
-    private final Set<String> activeTaskIds;
-
-    DeferredLaunch(ITaskConfig task, Set<Integer> instanceIds, Set<String> activeTaskIds) {
-      this.task = task;
-      this.instanceIds = instanceIds;
-      this.activeTaskIds = activeTaskIds;
-    }
+    this.deferredLaunches = requireNonNull(deferredLaunches);
+    this.clock = requireNonNull(clock);
   }
 
   @Override
@@ -112,119 +102,70 @@ class AuroraCronJob implements Job {
     doExecute(Quartz.auroraJobKey(context.getJobDetail().getKey()));
   }
 
-  @VisibleForTesting
-  void doExecute(final IJobKey key) throws JobExecutionException {
+  void doExecute(final IJobKey key) {
     final String path = JobKeys.canonicalString(key);
 
-    final Optional<DeferredLaunch> deferredLaunch = storage.write(
-        (MutateWork.Quiet<Optional<DeferredLaunch>>) storeProvider -> {
-          Optional<IJobConfiguration> config = storeProvider.getCronJobStore().fetchJob(key);
-          if (!config.isPresent()) {
-            LOG.warn(
-                "Cron was triggered for {} but no job with that key was found in storage.",
-                path);
-            CRON_JOB_MISFIRES.incrementAndGet();
-            return Optional.absent();
-          }
+    long triggeredAtMs = clock.nowMillis();
 
-          SanitizedCronJob cronJob;
-          try {
-            cronJob = SanitizedCronJob.fromUnsanitized(configurationManager, config.get());
-          } catch (ConfigurationManager.TaskDescriptionException | CronException e) {
-            LOG.warn(
-                "Invalid cron job for {} in storage - failed to parse with {}", key, e);
-            CRON_JOB_PARSE_FAILURES.incrementAndGet();
-            return Optional.absent();
-          }
-
-          CronCollisionPolicy collisionPolicy = cronJob.getCronCollisionPolicy();
-          LOG.info(
-              "Cron triggered for {} at {} with policy {}", path, new Date(), collisionPolicy);
-          CRON_JOB_TRIGGERS.incrementAndGet();
-
-          final Query.Builder activeQuery = Query.jobScoped(key).active();
-          Set<String> activeTasks =
-              Tasks.ids(storeProvider.getTaskStore().fetchTasks(activeQuery));
-
-          ITaskConfig task = cronJob.getSanitizedConfig().getJobConfig().getTaskConfig();
-          Set<Integer> instanceIds = cronJob.getSanitizedConfig().getInstanceIds();
-          if (activeTasks.isEmpty()) {
-            stateManager.insertPendingTasks(storeProvider, task, instanceIds);
+    storage.write((NoResult.Quiet) storeProvider -> {
+      Optional<IJobConfiguration> config = storeProvider.getCronJobStore().fetchJob(key);
+      if (!config.isPresent()) {
+        LOG.warn("Cron was triggered for {} but no job with that key was found in storage.", path);
+        CRON_JOB_MISFIRES.incrementAndGet();
+        return;
+      }
 
-            return Optional.absent();
-          }
+      SanitizedCronJob cronJob;
+      try {
+        cronJob = SanitizedCronJob.fromUnsanitized(configurationManager, config.get());
+      } catch (ConfigurationManager.TaskDescriptionException | CronException e) {
+        LOG.warn("Invalid cron job for {} in storage - failed to parse with {}", key, e);
+        CRON_JOB_PARSE_FAILURES.incrementAndGet();
+        return;
+      }
 
-          CRON_JOB_COLLISIONS.incrementAndGet();
-          switch (collisionPolicy) {
-            case KILL_EXISTING:
-              return Optional.of(new DeferredLaunch(task, instanceIds, activeTasks));
+      CronCollisionPolicy collisionPolicy = cronJob.getCronCollisionPolicy();
+      LOG.info("Cron triggered for {} at {} with policy {}", path, new Date(), collisionPolicy);
+      CRON_JOB_TRIGGERS.incrementAndGet();
 
-            case RUN_OVERLAP:
-              LOG.error("Ignoring trigger for job {} with deprecated collision"
-                  + "policy RUN_OVERLAP due to unterminated active tasks.", path);
-              return Optional.absent();
+      final Query.Builder activeQuery = Query.jobScoped(key).active();
+      Set<String> activeTasks = Tasks.ids(storeProvider.getTaskStore().fetchTasks(activeQuery));
 
-            case CANCEL_NEW:
-              return Optional.absent();
+      ITaskConfig task = cronJob.getSanitizedConfig().getJobConfig().getTaskConfig();
+      Set<Integer> instanceIds = cronJob.getSanitizedConfig().getInstanceIds();
+      if (activeTasks.isEmpty()) {
+        stateManager.insertPendingTasks(storeProvider, task, instanceIds);
+        return;
+      }
 
-            default:
-              LOG.error("Unrecognized cron collision policy: " + collisionPolicy);
-              return Optional.absent();
+      CRON_JOB_COLLISIONS.incrementAndGet();
+      switch (collisionPolicy) {
+        case KILL_EXISTING:
+          // The launch is registered before the kills are issued, and task events are only
+          // delivered once this write completes, so no ancestor termination can be missed.
+          deferredLaunches.defer(key, task, instanceIds, activeTasks, triggeredAtMs);
+          for (String taskId : activeTasks) {
+            stateManager.changeState(
+                storeProvider,
+                taskId,
+                Optional.absent(),
+                KILLING,
+                KILL_AUDIT_MESSAGE);
           }
-        }
-    );
+          LOG.info("Waiting for job to terminate before launching cron job {}.", path);
+          break;
 
-    if (!deferredLaunch.isPresent()) {
-      return;
-    }
+        case RUN_OVERLAP:
+          LOG.error("Ignoring trigger for job {} with deprecated collision"
+              + "policy RUN_OVERLAP due to unterminated active tasks.", path);
+          break;
 
-    storage.write((NoResult.Quiet) storeProvider -> {
-      for (String taskId : deferredLaunch.get().activeTaskIds) {
-        stateManager.changeState(
-            storeProvider,
-            taskId,
-            Optional.absent(),
-            KILLING,
-            KILL_AUDIT_MESSAGE);
+        case CANCEL_NEW:
+          break;
+
+        default:
+          LOG.error("Unrecognized cron collision policy: " + collisionPolicy);
       }
     });
-
-    LOG.info("Waiting for job to terminate before launching cron job {}.", path);
-
-    final Query.Builder query = Query.taskScoped(deferredLaunch.get().activeTaskIds).active();
-    try {
-      // NOTE: We block the quartz execution thread here until we've successfully killed our
-      // ancestor. We mitigate this by using a cached thread pool for quartz.
-      delayedStartBackoff.doUntilSuccess(() -> {
-        if (Iterables.isEmpty(Storage.Util.fetchTasks(storage, query))) {
-          LOG.info("Initiating delayed launch of cron " + path);
-          storage.write((NoResult.Quiet) storeProvider -> stateManager.insertPendingTasks(
-              storeProvider,
-              deferredLaunch.get().task,
-              deferredLaunch.get().instanceIds));
-
-          return true;
-        } else {
-          LOG.info("Not yet safe to run cron " + path);
-          return false;
-        }
-      });
-    } catch (InterruptedException e) {
-      LOG.warn("Interrupted while trying to launch cron " + path, e);
-      Thread.currentThread().interrupt();
-      throw new JobExecutionException(e);
-    }
-  }
-
-  static class Config {
-    private final BackoffHelper delayedStartBackoff;
-
-    Config(BackoffHelper delayedStartBackoff) {
-      this.delayedStartBackoff = requireNonNull(delayedStartBackoff);
-    }
-
-    public BackoffHelper getDelayedStartBackoff() {
-      return delayedStartBackoff;
-    }
   }
 }
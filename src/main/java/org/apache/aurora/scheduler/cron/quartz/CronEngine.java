@@ -0,0 +1,76 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.cron.quartz;
+
+import java.util.Map;
+
+import org.apache.aurora.scheduler.cron.CronException;
+import org.apache.aurora.scheduler.cron.CronScheduler;
+import org.apache.aurora.scheduler.cron.CrontabEntry;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
+
+/**
+ * Fires cron jobs according to their schedules. Each trigger is executed by an
+ * {@link AuroraCronJob}, and at most one execution is active at a time per job key.
+ *
+ * <p>
+ * Engines only hold schedules in memory. The source of truth for cron jobs is always storage.
+ */
+interface CronEngine extends CronScheduler {
+  /**
+   * Starts firing scheduled jobs.
+   *
+   * @throws CronException If the engine could not be started.
+   */
+  void start() throws CronException;
+
+  /**
+   * Stops firing scheduled jobs. A stopped engine may not be restarted.
+   *
+   * @throws CronException If the engine could not be stopped cleanly.
+   */
+  void stop() throws CronException;
+
+  /**
+   * Schedules a job for execution.
+   *
+   * @param jobKey Key of the job to schedule.
+   * @param schedule Schedule to fire the job on.
+   * @throws CronException If the job is already scheduled or could not be scheduled.
+   */
+  void schedule(IJobKey jobKey, CrontabEntry schedule) throws CronException;
+
+  /**
+   * Removes a job from the schedule. Executions that are already active are not interrupted.
+   *
+   * @param jobKey Key of the job to deschedule.
+   * @throws CronException If the job could not be descheduled.
+   */
+  void deschedule(IJobKey jobKey) throws CronException;
+
+  /**
+   * Triggers an immediate execution of a scheduled job.
+   *
+   * @param jobKey Key of the job to trigger.
+   * @throws CronException If the job is not scheduled or could not be triggered.
+   */
+  void trigger(IJobKey jobKey) throws CronException;
+
+  /**
+   * Dumps the schedules of all scheduled jobs.
+   *
+   * @return A map from job to the cron schedule in use for that job.
+   */
+  Map<IJobKey, CrontabEntry> getScheduledJobs();
+}
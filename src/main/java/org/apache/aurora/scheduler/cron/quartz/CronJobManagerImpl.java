@@ -14,15 +14,9 @@
 package org.apache.aurora.scheduler.cron.quartz;
 
 import java.util.Map;
-import java.util.TimeZone;
 
 import javax.inject.Inject;
 
-import com.google.common.base.Optional;
-import com.google.common.base.Throwables;
-import com.google.common.collect.FluentIterable;
-import com.google.common.collect.ImmutableMap;
-
 import org.apache.aurora.gen.CronCollisionPolicy;
 import org.apache.aurora.scheduler.base.JobKeys;
 import org.apache.aurora.scheduler.cron.CronException;
@@ -34,11 +28,6 @@ import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult;
 import org.apache.aurora.scheduler.storage.entities.IJobConfiguration;
 import org.apache.aurora.scheduler.storage.entities.IJobKey;
-import org.quartz.CronTrigger;
-import org.quartz.JobKey;
-import org.quartz.Scheduler;
-import org.quartz.SchedulerException;
-import org.quartz.impl.matchers.GroupMatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -54,14 +43,12 @@ class CronJobManagerImpl implements CronJobManager {
   private static final Logger LOG = LoggerFactory.getLogger(CronJobManagerImpl.class);
 
   private final Storage storage;
-  private final Scheduler scheduler;
-  private final TimeZone timeZone;
+  private final CronEngine engine;
 
   @Inject
-  CronJobManagerImpl(Storage storage, Scheduler scheduler, TimeZone timeZone) {
+  CronJobManagerImpl(Storage storage, CronEngine engine) {
     this.storage = requireNonNull(storage);
-    this.scheduler = requireNonNull(scheduler);
-    this.timeZone = requireNonNull(timeZone);
+    this.engine = requireNonNull(engine);
   }
 
   @Override
@@ -76,11 +63,7 @@ class CronJobManagerImpl implements CronJobManager {
   }
 
   private void triggerJob(IJobKey jobKey) throws CronException {
-    try {
-      scheduler.triggerJob(Quartz.jobKey(jobKey));
-    } catch (SchedulerException e) {
-      throw new CronException(e);
-    }
+    engine.trigger(jobKey);
     LOG.info(formatMessage("Triggered cron job for %s.", jobKey));
   }
 
@@ -149,13 +132,7 @@ class CronJobManagerImpl implements CronJobManager {
 
   // TODO(ksweeney): Consider exposing this in the interface and making caller responsible.
   void scheduleJob(CrontabEntry crontabEntry, IJobKey jobKey) throws CronException {
-    try {
-      scheduler.scheduleJob(
-          Quartz.jobDetail(jobKey, AuroraCronJob.class),
-          Quartz.cronTrigger(crontabEntry, timeZone));
-    } catch (SchedulerException e) {
-      throw new CronException(e);
-    }
+    engine.schedule(jobKey, crontabEntry);
     LOG.info(formatMessage("Scheduled job %s with schedule %s.", jobKey, crontabEntry));
   }
 
@@ -180,35 +157,16 @@ class CronJobManagerImpl implements CronJobManager {
       // There's a race here where an old running job could fail to find the old config. That's
       // fine given that the behavior of AuroraCronJob is to log an error and exit if it's unable
       // to find a job for its key.
-      scheduler.deleteJob(Quartz.jobKey(jobKey));
+      engine.deschedule(jobKey);
       LOG.info(formatMessage("Successfully descheduled %s.", jobKey));
-    } catch (SchedulerException e) {
+    } catch (CronException e) {
       LOG.warn(formatMessage("Error descheduling %s: %s", jobKey, e), e);
     }
   }
 
   @Override
   public Map<IJobKey, CrontabEntry> getScheduledJobs() {
-    // NOTE: no synchronization is needed here since this is just a dump of internal quartz state
-    // for debugging.
-    ImmutableMap.Builder<IJobKey, CrontabEntry> scheduledJobs = ImmutableMap.builder();
-    try {
-      for (JobKey jobKey : scheduler.getJobKeys(GroupMatcher.anyGroup())) {
-        // The quartz API allows jobs to have multiple triggers. We don't use that feature but
-        // we're defensive here since this function is used for debugging.
-        Optional<CronTrigger> trigger = FluentIterable.from(scheduler.getTriggersOfJob(jobKey))
-            .filter(CronTrigger.class)
-            .first();
-        if (trigger.isPresent()) {
-          scheduledJobs.put(
-              Quartz.auroraJobKey(jobKey),
-              Quartz.crontabEntry(trigger.get()));
-        }
-      }
-    } catch (SchedulerException e) {
-      throw Throwables.propagate(e);
-    }
-    return scheduledJobs.build();
+    return engine.getScheduledJobs();
   }
 
   private static String formatMessage(String format, IJobKey jobKey, Object... args) {
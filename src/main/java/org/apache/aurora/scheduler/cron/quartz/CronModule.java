@@ -15,22 +15,29 @@ package org.apache.aurora.scheduler.cron.quartz;
 
 import java.util.Properties;
 import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicLong;
 
 import javax.inject.Singleton;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.inject.AbstractModule;
+import com.google.inject.PrivateModule;
 import com.google.inject.Provides;
 
 import org.apache.aurora.common.args.Arg;
 import org.apache.aurora.common.args.CmdLine;
 import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Time;
-import org.apache.aurora.common.util.BackoffHelper;
 import org.apache.aurora.scheduler.SchedulerServicesModule;
+import org.apache.aurora.scheduler.base.AsyncUtil;
 import org.apache.aurora.scheduler.cron.CronJobManager;
 import org.apache.aurora.scheduler.cron.CronPredictor;
 import org.apache.aurora.scheduler.cron.CronScheduler;
+import org.apache.aurora.scheduler.cron.quartz.IndexedCronEngine.CronExecutor;
+import org.apache.aurora.scheduler.events.PubsubEventModule;
 import org.quartz.Scheduler;
 import org.quartz.SchedulerException;
 import org.quartz.impl.StdSchedulerFactory;
@@ -38,6 +45,8 @@ import org.quartz.simpl.SimpleThreadPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import static java.util.Objects.requireNonNull;
+
 import static org.quartz.impl.StdSchedulerFactory.PROP_SCHED_INSTANCE_ID;
 import static org.quartz.impl.StdSchedulerFactory.PROP_SCHED_MAKE_SCHEDULER_THREAD_DAEMON;
 import static org.quartz.impl.StdSchedulerFactory.PROP_SCHED_NAME;
@@ -45,14 +54,32 @@ import static org.quartz.impl.StdSchedulerFactory.PROP_THREAD_POOL_CLASS;
 import static org.quartz.impl.StdSchedulerFactory.PROP_THREAD_POOL_PREFIX;
 
 /**
- * Provides a {@link CronJobManager} with a Quartz backend. While Quartz itself supports
- * persistence, the scheduler exposed by this module does not persist any state - it simply
- * creates tasks from a {@link org.apache.aurora.gen.JobConfiguration} template on a cron-style
- * schedule.
+ * Provides a {@link CronJobManager} with either a Quartz or an indexed engine backend. While Quartz
+ * itself supports persistence, the scheduler exposed by this module does not persist any state -
+ * it simply creates tasks from a {@link org.apache.aurora.gen.JobConfiguration} template on a
+ * cron-style schedule.
  */
 public class CronModule extends AbstractModule {
   private static final Logger LOG = LoggerFactory.getLogger(CronModule.class);
 
+  /**
+   * Engines that may be used to fire cron jobs.
+   */
+  public enum Engine {
+    /**
+     * The Quartz scheduler.
+     */
+    QUARTZ,
+
+    /**
+     * An index of compiled schedules ordered by next fire time.
+     */
+    INDEXED
+  }
+
+  @CmdLine(name = "cron_engine", help = "The engine used to fire cron jobs.")
+  private static final Arg<Engine> CRON_ENGINE = Arg.create(Engine.QUARTZ);
+
   @CmdLine(name = "cron_scheduler_num_threads",
       help = "Number of threads to use for the cron scheduler thread pool.")
   private static final Arg<Integer> NUM_THREADS = Arg.create(100);
@@ -60,35 +87,91 @@ public class CronModule extends AbstractModule {
   @CmdLine(name = "cron_timezone", help = "TimeZone to use for cron predictions.")
   private static final Arg<String> CRON_TIMEZONE = Arg.create("GMT");
 
+  // No-op arguments kept for one release so that existing command lines still parse.
   @CmdLine(name = "cron_start_initial_backoff", help =
-      "Initial backoff delay while waiting for a previous cron run to be killed.")
+      "DEPRECATED. Has no effect, as runs waiting for a previous cron run to be killed are "
+          + "launched from task state changes.")
   public static final Arg<Amount<Long, Time>> CRON_START_INITIAL_BACKOFF =
       Arg.create(Amount.of(1L, Time.SECONDS));
 
   @CmdLine(name = "cron_start_max_backoff", help =
-      "Max backoff delay while waiting for a previous cron run to be killed.")
+      "DEPRECATED. Has no effect, as runs waiting for a previous cron run to be killed are "
+          + "launched from task state changes.")
   public static final Arg<Amount<Long, Time>> CRON_START_MAX_BACKOFF =
       Arg.create(Amount.of(1L, Time.MINUTES));
 
+  @CmdLine(name = "cron_trigger_batch_size",
+      help = "Maximum number of due cron jobs handed to a cron scheduler thread at once, when "
+          + "using the INDEXED cron engine.")
+  private static final Arg<Integer> TRIGGER_BATCH_SIZE = Arg.create(50);
+
   // Global per-JVM ID number generator for the provided Quartz Scheduler.
   private static final AtomicLong ID_GENERATOR = new AtomicLong();
 
+  private final Engine engine;
+
+  public CronModule() {
+    this(CRON_ENGINE.get());
+  }
+
+  @VisibleForTesting
+  CronModule(Engine engine) {
+    this.engine = requireNonNull(engine);
+  }
+
   @Override
   protected void configure() {
-    bind(CronPredictor.class).to(CronPredictorImpl.class);
-    bind(CronPredictorImpl.class).in(Singleton.class);
+    switch (engine) {
+      case QUARTZ:
+        bind(CronPredictor.class).to(CronPredictorImpl.class);
+        bind(CronPredictorImpl.class).in(Singleton.class);
+
+        bind(CronEngine.class).to(QuartzCronEngine.class);
+        bind(QuartzCronEngine.class).in(Singleton.class);
+
+        bind(AuroraCronJobFactory.class).in(Singleton.class);
+        break;
+
+      case INDEXED:
+        bind(CronPredictor.class).to(IndexedCronPredictor.class);
+        bind(IndexedCronPredictor.class).in(Singleton.class);
+
+        install(new PrivateModule() {
+          @Override
+          protected void configure() {
+            bind(IndexedCronEngine.Settings.class)
+                .toInstance(new IndexedCronEngine.Settings(TRIGGER_BATCH_SIZE.get()));
+            bind(ScheduledExecutorService.class).annotatedWith(CronExecutor.class)
+                .toInstance(AsyncUtil.singleThreadLoggingScheduledExecutor(
+                    "CronEngineTimer-%d",
+                    LOG));
+            bind(ExecutorService.class).annotatedWith(CronExecutor.class)
+                .toInstance(AsyncUtil.loggingExecutor(
+                    NUM_THREADS.get(),
+                    NUM_THREADS.get(),
+                    new LinkedBlockingQueue<>(),
+                    "CronEngineWorker-%d",
+                    LOG));
+            bind(CronEngine.class).to(IndexedCronEngine.class);
+            bind(IndexedCronEngine.class).in(Singleton.class);
+            expose(CronEngine.class);
+          }
+        });
+        break;
+
+      default:
+        throw new IllegalArgumentException("Unsupported cron engine " + engine);
+    }
+
+    bind(CronScheduler.class).to(CronEngine.class);
 
     bind(CronJobManager.class).to(CronJobManagerImpl.class);
     bind(CronJobManagerImpl.class).in(Singleton.class);
 
-    bind(CronScheduler.class).to(CronSchedulerImpl.class);
-    bind(CronSchedulerImpl.class).in(Singleton.class);
-
-    bind(AuroraCronJobFactory.class).in(Singleton.class);
-
     bind(AuroraCronJob.class).in(Singleton.class);
-    bind(AuroraCronJob.Config.class).toInstance(new AuroraCronJob.Config(
-        new BackoffHelper(CRON_START_INITIAL_BACKOFF.get(), CRON_START_MAX_BACKOFF.get())));
+
+    bind(DeferredCronLaunches.class).in(Singleton.class);
+    PubsubEventModule.bindSubscriber(binder(), DeferredCronLaunches.class);
 
     bind(CronLifecycle.class).in(Singleton.class);
     SchedulerServicesModule.addSchedulerActiveServiceBinding(binder()).to(CronLifecycle.class);
@@ -0,0 +1,186 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.cron.quartz;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.inject.Inject;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.eventbus.Subscribe;
+
+import org.apache.aurora.common.stats.SlidingStats;
+import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.common.util.Clock;
+import org.apache.aurora.scheduler.base.JobKeys;
+import org.apache.aurora.scheduler.base.Tasks;
+import org.apache.aurora.scheduler.events.PubsubEvent.EventSubscriber;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.events.PubsubEvent.TasksDeleted;
+import org.apache.aurora.scheduler.state.StateManager;
+import org.apache.aurora.scheduler.storage.Storage;
+import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
+import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.util.Objects.requireNonNull;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Holds cron runs that are waiting for the tasks of a previous run to terminate, as required by
+ * the {@link org.apache.aurora.gen.CronCollisionPolicy#KILL_EXISTING} collision policy. A run is
+ * launched in a single storage write as soon as the last of its ancestor tasks has terminated or
+ * been deleted, without holding a cron worker thread in the meantime.
+ */
+class DeferredCronLaunches implements EventSubscriber {
+  private static final Logger LOG = LoggerFactory.getLogger(DeferredCronLaunches.class);
+
+  @VisibleForTesting
+  static final String PENDING_LAUNCHES_STAT = "cron_job_deferred_launches_pending";
+
+  private final Storage storage;
+  private final StateManager stateManager;
+  private final Clock clock;
+  private final SlidingStats launchLatency = new SlidingStats("cron_job_deferred_launch", "ms");
+
+  private final Map<IJobKey, DeferredLaunch> launchesByJob = Maps.newHashMap();
+  private final Map<String, IJobKey> jobsByAncestor = Maps.newHashMap();
+
+  @Inject
+  DeferredCronLaunches(
+      Storage storage,
+      StateManager stateManager,
+      Clock clock,
+      StatsProvider statsProvider) {
+
+    this.storage = requireNonNull(storage);
+    this.stateManager = requireNonNull(stateManager);
+    this.clock = requireNonNull(clock);
+    statsProvider.makeGauge(PENDING_LAUNCHES_STAT, this::pendingLaunches);
+  }
+
+  private static final class DeferredLaunch {
+    private final IJobKey job;
+    private final ITaskConfig task;
+    private final Set<Integer> instanceIds;
+    private final Set<String> ancestorTaskIds;
+    private final long triggeredAtMs;
+
+    DeferredLaunch(
+        IJobKey job,
+        ITaskConfig task,
+        Set<Integer> instanceIds,
+        Set<String> ancestorTaskIds,
+        long triggeredAtMs) {
+
+      this.job = job;
+      this.task = task;
+      this.instanceIds = instanceIds;
+      this.ancestorTaskIds = ancestorTaskIds;
+      this.triggeredAtMs = triggeredAtMs;
+    }
+  }
+
+  @VisibleForTesting
+  synchronized int pendingLaunches() {
+    return launchesByJob.size();
+  }
+
+  /**
+   * Defers the launch of a cron run until all of the given ancestor tasks have terminated.  Any
+   * launch already deferred for the same job is replaced.
+   *
+   * <p>
+   * This must be called from within the storage write that kills the ancestor tasks, so that the
+   * resulting task events are only delivered once the launch has been registered.
+   *
+   * @param job Job to launch.
+   * @param task Task configuration of the new run.
+   * @param instanceIds Instances of the new run.
+   * @param ancestorTaskIds Active tasks of the previous run.
+   * @param triggeredAtMs Time at which the cron run was triggered.
+   */
+  synchronized void defer(
+      IJobKey job,
+      ITaskConfig task,
+      Set<Integer> instanceIds,
+      Set<String> ancestorTaskIds,
+      long triggeredAtMs) {
+
+    checkArgument(!ancestorTaskIds.isEmpty());
+
+    DeferredLaunch replaced = launchesByJob.put(
+        job,
+        new DeferredLaunch(
+            job,
+            task,
+            ImmutableSet.copyOf(instanceIds),
+            Sets.newHashSet(ancestorTaskIds),
+            triggeredAtMs));
+    if (replaced != null) {
+      LOG.info("Replacing deferred launch of cron {}", JobKeys.canonicalString(job));
+      replaced.ancestorTaskIds.forEach(jobsByAncestor::remove);
+    }
+    for (String taskId : ancestorTaskIds) {
+      jobsByAncestor.put(taskId, job);
+    }
+  }
+
+  @Subscribe
+  public void taskChangedState(TaskStateChange change) {
+    if (Tasks.isTerminated(change.getNewState())) {
+      ancestorsGone(ImmutableSet.of(change.getTaskId()));
+    }
+  }
+
+  @Subscribe
+  public void tasksDeleted(TasksDeleted deleted) {
+    ancestorsGone(Tasks.ids(deleted.getTasks()));
+  }
+
+  private void ancestorsGone(Set<String> taskIds) {
+    List<DeferredLaunch> ready = Lists.newArrayList();
+    synchronized (this) {
+      for (String taskId : taskIds) {
+        IJobKey job = jobsByAncestor.remove(taskId);
+        if (job != null) {
+          DeferredLaunch launch = launchesByJob.get(job);
+          launch.ancestorTaskIds.remove(taskId);
+          if (launch.ancestorTaskIds.isEmpty()) {
+            launchesByJob.remove(job);
+            ready.add(launch);
+          }
+        }
+      }
+    }
+
+    for (DeferredLaunch launch : ready) {
+      LOG.info("Initiating delayed launch of cron {}", JobKeys.canonicalString(launch.job));
+      storage.write((NoResult.Quiet) storeProvider -> stateManager.insertPendingTasks(
+          storeProvider,
+          launch.task,
+          launch.instanceIds));
+      launchLatency.accumulate(clock.nowMillis() - launch.triggeredAtMs);
+    }
+  }
+}
@@ -0,0 +1,315 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.cron.quartz;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+import javax.inject.Qualifier;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import org.apache.aurora.common.stats.SlidingStats;
+import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.common.util.Clock;
+import org.apache.aurora.scheduler.base.JobKeys;
+import org.apache.aurora.scheduler.cron.CompiledCrontabEntry;
+import org.apache.aurora.scheduler.cron.CronException;
+import org.apache.aurora.scheduler.cron.CrontabEntry;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.PARAMETER;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+import static java.util.Objects.requireNonNull;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A {@link CronEngine} that keeps every scheduled job in an index ordered by next fire time.
+ *
+ * <p>
+ * Schedules are compiled once when a job is scheduled. A single timer thread sleeps until the
+ * earliest fire time in the index, collects every job that is due and hands them to a bounded
+ * pool of worker threads in batches. A job that is triggered while an execution of it is still
+ * active is executed once more after the active execution completes.
+ */
+class IndexedCronEngine implements CronEngine {
+  private static final Logger LOG = LoggerFactory.getLogger(IndexedCronEngine.class);
+
+  @VisibleForTesting
+  static final String SCHEDULED_JOBS_STAT = "cron_engine_scheduled_jobs";
+  @VisibleForTesting
+  static final String TRIGGER_BATCHES_STAT = "cron_engine_trigger_batches";
+  @VisibleForTesting
+  static final String OVERLAPPING_TRIGGERS_STAT = "cron_engine_overlapping_triggers";
+
+  /**
+   * Binding annotation for the timer and worker executors used by the engine.
+   */
+  @Qualifier
+  @Target({ FIELD, PARAMETER, METHOD }) @Retention(RUNTIME)
+  @interface CronExecutor { }
+
+  static class Settings {
+    private final int batchSize;
+
+    Settings(int batchSize) {
+      checkArgument(batchSize > 0);
+      this.batchSize = batchSize;
+    }
+  }
+
+  private static final class ScheduledJob {
+    private final IJobKey jobKey;
+    private final CompiledCrontabEntry schedule;
+    private final long sequence;
+    private long nextFireMs;
+
+    ScheduledJob(IJobKey jobKey, CompiledCrontabEntry schedule, long sequence) {
+      this.jobKey = jobKey;
+      this.schedule = schedule;
+      this.sequence = sequence;
+    }
+  }
+
+  // Jobs with equal fire times are ordered by the sequence in which they were scheduled.
+  private static final Comparator<ScheduledJob> BY_NEXT_FIRE_TIME =
+      Comparator.<ScheduledJob>comparingLong(job -> job.nextFireMs)
+          .thenComparingLong(job -> job.sequence);
+
+  private final AuroraCronJob cronJob;
+  private final ScheduledExecutorService timer;
+  private final ExecutorService workers;
+  private final Clock clock;
+  private final ZoneId zone;
+  private final int batchSize;
+
+  private final Map<IJobKey, ScheduledJob> jobs = Maps.newHashMap();
+  private final NavigableSet<ScheduledJob> fireIndex = Sets.newTreeSet(BY_NEXT_FIRE_TIME);
+  private final Set<IJobKey> activeExecutions = Sets.newHashSet();
+  private final Set<IJobKey> pendingExecutions = Sets.newHashSet();
+  private long nextSequence;
+  private long wakeAtMs = Long.MAX_VALUE;
+  private boolean started;
+
+  private final AtomicLong triggerBatches;
+  private final AtomicLong overlappingTriggers;
+  private final SlidingStats triggerDelay = new SlidingStats("cron_engine_trigger_delay", "ms");
+
+  @Inject
+  IndexedCronEngine(
+      AuroraCronJob cronJob,
+      @CronExecutor ScheduledExecutorService timer,
+      @CronExecutor ExecutorService workers,
+      Clock clock,
+      TimeZone timeZone,
+      Settings settings,
+      StatsProvider statsProvider) {
+
+    this.cronJob = requireNonNull(cronJob);
+    this.timer = requireNonNull(timer);
+    this.workers = requireNonNull(workers);
+    this.clock = requireNonNull(clock);
+    this.zone = timeZone.toZoneId();
+    this.batchSize = settings.batchSize;
+    this.triggerBatches = statsProvider.makeCounter(TRIGGER_BATCHES_STAT);
+    this.overlappingTriggers = statsProvider.makeCounter(OVERLAPPING_TRIGGERS_STAT);
+    statsProvider.makeGauge(SCHEDULED_JOBS_STAT, this::scheduledJobCount);
+  }
+
+  private synchronized int scheduledJobCount() {
+    return jobs.size();
+  }
+
+  @Override
+  public synchronized void start() {
+    LOG.info("Starting indexed cron engine.");
+    started = true;
+    maybeScheduleWake();
+  }
+
+  @Override
+  public void stop() {
+    LOG.info("Shutting down indexed cron engine.");
+    synchronized (this) {
+      started = false;
+    }
+    timer.shutdownNow();
+    workers.shutdown();
+  }
+
+  @Override
+  public synchronized void schedule(IJobKey jobKey, CrontabEntry schedule) throws CronException {
+    requireNonNull(schedule);
+    if (jobs.containsKey(jobKey)) {
+      throw new CronException("Job is already scheduled: " + JobKeys.canonicalString(jobKey));
+    }
+
+    ScheduledJob job =
+        new ScheduledJob(jobKey, CompiledCrontabEntry.compile(schedule), nextSequence++);
+    jobs.put(jobKey, job);
+    index(job, clock.nowMillis());
+    maybeScheduleWake();
+  }
+
+  @Override
+  public synchronized void deschedule(IJobKey jobKey) {
+    ScheduledJob job = jobs.remove(jobKey);
+    if (job != null) {
+      fireIndex.remove(job);
+    }
+  }
+
+  @Override
+  public void trigger(IJobKey jobKey) throws CronException {
+    synchronized (this) {
+      if (!jobs.containsKey(jobKey)) {
+        throw new CronException("Job is not scheduled: " + JobKeys.canonicalString(jobKey));
+      }
+    }
+    dispatch(ImmutableList.of(jobKey));
+  }
+
+  @Override
+  public synchronized Optional<CrontabEntry> getSchedule(IJobKey jobKey) {
+    return Optional.fromNullable(jobs.get(jobKey)).transform(job -> job.schedule.getEntry());
+  }
+
+  @Override
+  public synchronized Map<IJobKey, CrontabEntry> getScheduledJobs() {
+    return ImmutableMap.copyOf(Maps.transformValues(jobs, job -> job.schedule.getEntry()));
+  }
+
+  /**
+   * Gets the time at which a job will next be fired.
+   *
+   * @param jobKey Key of a scheduled job.
+   * @return The next fire time of the job, if it is scheduled and will fire again.
+   */
+  @VisibleForTesting
+  synchronized Optional<Long> getNextFireTime(IJobKey jobKey) {
+    ScheduledJob job = jobs.get(jobKey);
+    return job == null || !fireIndex.contains(job)
+        ? Optional.absent()
+        : Optional.of(job.nextFireMs);
+  }
+
+  // Must be called while holding the lock, with the job absent from the index.
+  private void index(ScheduledJob job, long afterMs) {
+    Optional<Long> nextFire = job.schedule.nextFireTimeAfter(afterMs, zone);
+    if (nextFire.isPresent()) {
+      job.nextFireMs = nextFire.get();
+      fireIndex.add(job);
+    } else {
+      LOG.warn("Cron job " + JobKeys.canonicalString(job.jobKey) + " will never fire again.");
+    }
+  }
+
+  // Must be called while holding the lock.
+  private void maybeScheduleWake() {
+    if (!started || fireIndex.isEmpty()) {
+      return;
+    }
+
+    long fireMs = fireIndex.first().nextFireMs;
+    if (fireMs < wakeAtMs) {
+      // Wakeups that are superseded by an earlier one are not cancelled, they find no due jobs
+      // when they run.
+      wakeAtMs = fireMs;
+      timer.schedule(
+          () -> fireDueJobs(fireMs),
+          Math.max(1, fireMs - clock.nowMillis()),
+          TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void fireDueJobs(long scheduledWakeMs) {
+    List<IJobKey> due = Lists.newArrayList();
+    synchronized (this) {
+      if (scheduledWakeMs == wakeAtMs) {
+        wakeAtMs = Long.MAX_VALUE;
+      }
+      if (!started) {
+        return;
+      }
+
+      long nowMs = clock.nowMillis();
+      while (!fireIndex.isEmpty() && fireIndex.first().nextFireMs <= nowMs) {
+        ScheduledJob job = fireIndex.pollFirst();
+        triggerDelay.accumulate(nowMs - job.nextFireMs);
+        due.add(job.jobKey);
+        // Like a Quartz cron trigger with the default misfire policy, a job that missed several
+        // fire times is fired once.
+        index(job, nowMs);
+      }
+      maybeScheduleWake();
+    }
+    dispatch(due);
+  }
+
+  private void dispatch(List<IJobKey> jobKeys) {
+    for (List<IJobKey> batch : Lists.partition(jobKeys, batchSize)) {
+      triggerBatches.incrementAndGet();
+      workers.execute(() -> batch.forEach(this::execute));
+    }
+  }
+
+  private void execute(IJobKey jobKey) {
+    synchronized (this) {
+      if (!activeExecutions.add(jobKey)) {
+        overlappingTriggers.incrementAndGet();
+        pendingExecutions.add(jobKey);
+        return;
+      }
+    }
+
+    boolean executeAgain;
+    do {
+      try {
+        cronJob.doExecute(jobKey);
+      } catch (RuntimeException e) {
+        LOG.error("Cron execution failed for " + JobKeys.canonicalString(jobKey), e);
+      }
+
+      synchronized (this) {
+        executeAgain = pendingExecutions.remove(jobKey);
+        if (!executeAgain) {
+          activeExecutions.remove(jobKey);
+        }
+      }
+    } while (executeAgain);
+  }
+}
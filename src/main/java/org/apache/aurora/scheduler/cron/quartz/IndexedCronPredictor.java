@@ -0,0 +1,105 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.cron.quartz;
+
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.TimeZone;
+
+import javax.inject.Inject;
+
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+import org.apache.aurora.common.util.Clock;
+import org.apache.aurora.scheduler.cron.CompiledCrontabEntry;
+import org.apache.aurora.scheduler.cron.CronPredictor;
+import org.apache.aurora.scheduler.cron.CrontabEntry;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A {@link CronPredictor} that compiles each distinct schedule once and remembers its latest
+ * prediction, which stays valid until the predicted time has passed.
+ */
+class IndexedCronPredictor implements CronPredictor {
+  // Far more than the number of distinct schedules in use, this only bounds memory should
+  // schedules be churned.
+  private static final int MAX_CACHED_SCHEDULES = 10000;
+
+  private final Clock clock;
+  private final ZoneId zone;
+  private final LoadingCache<CrontabEntry, Prediction> byEntry = CacheBuilder.newBuilder()
+      .maximumSize(MAX_CACHED_SCHEDULES)
+      .build(CacheLoader.from(entry -> new Prediction(CompiledCrontabEntry.compile(entry))));
+  private final Cache<String, Prediction> bySchedule = CacheBuilder.newBuilder()
+      .maximumSize(MAX_CACHED_SCHEDULES)
+      .build();
+
+  @Inject
+  IndexedCronPredictor(Clock clock, TimeZone timeZone) {
+    this.clock = requireNonNull(clock);
+    this.zone = timeZone.toZoneId();
+  }
+
+  private static final class Memo {
+    private final long fromMs;
+    private final Optional<Long> nextMs;
+
+    Memo(long fromMs, Optional<Long> nextMs) {
+      this.fromMs = fromMs;
+      this.nextMs = nextMs;
+    }
+
+    boolean isValidAt(long nowMs) {
+      return fromMs <= nowMs && (!nextMs.isPresent() || nowMs < nextMs.get());
+    }
+  }
+
+  private final class Prediction {
+    private final CompiledCrontabEntry schedule;
+    private volatile Memo memo = new Memo(Long.MAX_VALUE, Optional.absent());
+
+    Prediction(CompiledCrontabEntry schedule) {
+      this.schedule = schedule;
+    }
+
+    Optional<Date> predictAfter(long nowMs) {
+      Memo current = memo;
+      if (!current.isValidAt(nowMs)) {
+        current = new Memo(nowMs, schedule.nextFireTimeAfter(nowMs, zone));
+        memo = current;
+      }
+      return current.nextMs.transform(Date::new);
+    }
+  }
+
+  @Override
+  public Optional<Date> predictNextRun(CrontabEntry schedule) {
+    return byEntry.getUnchecked(schedule).predictAfter(clock.nowMillis());
+  }
+
+  @Override
+  public Optional<Date> predictNextRun(String schedule) {
+    Prediction prediction = bySchedule.getIfPresent(schedule);
+    if (prediction == null) {
+      prediction = byEntry.getUnchecked(CrontabEntry.parse(schedule));
+      bySchedule.put(schedule, prediction);
+    }
+    return prediction.predictAfter(clock.nowMillis());
+  }
+}
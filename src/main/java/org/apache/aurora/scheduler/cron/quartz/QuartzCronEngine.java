@@ -0,0 +1,147 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.cron.quartz;
+
+import java.util.Map;
+import java.util.TimeZone;
+
+import javax.inject.Inject;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Throwables;
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+
+import org.apache.aurora.scheduler.base.JobKeys;
+import org.apache.aurora.scheduler.cron.CronException;
+import org.apache.aurora.scheduler.cron.CrontabEntry;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
+import org.quartz.CronTrigger;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.util.Objects.requireNonNull;
+
+import static org.apache.aurora.scheduler.cron.quartz.Quartz.jobKey;
+
+/**
+ * A {@link CronEngine} backed by a Quartz {@link Scheduler}.
+ */
+class QuartzCronEngine implements CronEngine {
+  private static final Logger LOG = LoggerFactory.getLogger(QuartzCronEngine.class);
+
+  private final Scheduler scheduler;
+  private final TimeZone timeZone;
+
+  @Inject
+  QuartzCronEngine(Scheduler scheduler, TimeZone timeZone) {
+    this.scheduler = requireNonNull(scheduler);
+    this.timeZone = requireNonNull(timeZone);
+  }
+
+  @Override
+  public void start() throws CronException {
+    try {
+      LOG.info("Starting Quartz cron scheduler" + scheduler.getSchedulerName() + ".");
+      scheduler.start();
+    } catch (SchedulerException e) {
+      throw new CronException(e);
+    }
+  }
+
+  @Override
+  public void stop() throws CronException {
+    LOG.info("Shutting down Quartz cron scheduler.");
+    try {
+      scheduler.shutdown();
+    } catch (SchedulerException e) {
+      throw new CronException(e);
+    }
+  }
+
+  @Override
+  public void schedule(IJobKey jobKey, CrontabEntry schedule) throws CronException {
+    try {
+      scheduler.scheduleJob(
+          Quartz.jobDetail(jobKey, AuroraCronJob.class),
+          Quartz.cronTrigger(schedule, timeZone));
+    } catch (SchedulerException e) {
+      throw new CronException(e);
+    }
+  }
+
+  @Override
+  public void deschedule(IJobKey jobKey) throws CronException {
+    try {
+      scheduler.deleteJob(jobKey(jobKey));
+    } catch (SchedulerException e) {
+      throw new CronException(e);
+    }
+  }
+
+  @Override
+  public void trigger(IJobKey jobKey) throws CronException {
+    try {
+      scheduler.triggerJob(jobKey(jobKey));
+    } catch (SchedulerException e) {
+      throw new CronException(e);
+    }
+  }
+
+  @Override
+  public Optional<CrontabEntry> getSchedule(IJobKey jobKey) throws IllegalStateException {
+    requireNonNull(jobKey);
+
+    try {
+      return Optional.of(Iterables.getOnlyElement(
+          FluentIterable.from(scheduler.getTriggersOfJob(jobKey(jobKey)))
+              .filter(CronTrigger.class)
+              .transform(Quartz::crontabEntry)));
+    } catch (SchedulerException e) {
+      LOG.error(
+          "Error reading job " + JobKeys.canonicalString(jobKey) + " cronExpression Quartz: " + e,
+          e);
+      return Optional.absent();
+    }
+  }
+
+  @Override
+  public Map<IJobKey, CrontabEntry> getScheduledJobs() {
+    // NOTE: no synchronization is needed here since this is just a dump of internal quartz state
+    // for debugging.
+    ImmutableMap.Builder<IJobKey, CrontabEntry> scheduledJobs = ImmutableMap.builder();
+    try {
+      for (JobKey jobKey : scheduler.getJobKeys(GroupMatcher.anyGroup())) {
+        // The quartz API allows jobs to have multiple triggers. We don't use that feature but
+        // we're defensive here since this function is used for debugging.
+        Optional<CronTrigger> trigger = FluentIterable.from(scheduler.getTriggersOfJob(jobKey))
+            .filter(CronTrigger.class)
+            .first();
+        if (trigger.isPresent()) {
+          scheduledJobs.put(
+              Quartz.auroraJobKey(jobKey),
+              Quartz.crontabEntry(trigger.get()));
+        }
+      }
+    } catch (SchedulerException e) {
+      throw Throwables.propagate(e);
+    }
+    return scheduledJobs.build();
+  }
+}
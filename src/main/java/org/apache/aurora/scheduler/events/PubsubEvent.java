@@ -18,12 +18,14 @@ import java.util.Set;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableMultiset;
 import com.google.gson.Gson;
 
 import org.apache.aurora.gen.ScheduleStatus;
 import org.apache.aurora.scheduler.base.TaskGroupKey;
 import org.apache.aurora.scheduler.base.Tasks;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.Veto;
+import org.apache.aurora.scheduler.filter.SchedulingFilter.VetoGroup;
 import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.apache.mesos.Protos;
@@ -208,10 +210,27 @@ public interface PubsubEvent {
   class Vetoed implements PubsubEvent {
     private final TaskGroupKey groupKey;
     private final Set<Veto> vetoes;
+    private final ImmutableMultiset<VetoGroup> vetoGroups;
 
     public Vetoed(TaskGroupKey groupKey, Set<Veto> vetoes) {
+      this(groupKey, vetoes, ImmutableMultiset.of(Veto.identifyGroup(vetoes)));
+    }
+
+    /**
+     * Creates a veto summary for a scheduling attempt that was rejected by one or more offers.
+     *
+     * @param groupKey Task group that was vetoed.
+     * @param vetoes The closest fit (lowest aggregate score) vetoes seen during the attempt.
+     * @param vetoGroups The veto group of every offer that rejected the task during the attempt.
+     */
+    public Vetoed(
+        TaskGroupKey groupKey,
+        Set<Veto> vetoes,
+        ImmutableMultiset<VetoGroup> vetoGroups) {
+
       this.groupKey = requireNonNull(groupKey);
       this.vetoes = requireNonNull(vetoes);
+      this.vetoGroups = requireNonNull(vetoGroups);
     }
 
     public TaskGroupKey getGroupKey() {
@@ -222,6 +241,10 @@ public interface PubsubEvent {
       return vetoes;
     }
 
+    public ImmutableMultiset<VetoGroup> getVetoGroups() {
+      return vetoGroups;
+    }
+
     @Override
     public boolean equals(Object o) {
       if (!(o instanceof Vetoed)) {
@@ -230,12 +253,13 @@ public interface PubsubEvent {
 
       Vetoed other = (Vetoed) o;
       return Objects.equals(groupKey, other.groupKey)
-          && Objects.equals(vetoes, other.vetoes);
+          && Objects.equals(vetoes, other.vetoes)
+          && Objects.equals(vetoGroups, other.vetoGroups);
     }
 
     @Override
     public int hashCode() {
-      return Objects.hash(groupKey, vetoes);
+      return Objects.hash(groupKey, vetoes, vetoGroups);
     }
 
     @Override
@@ -243,6 +267,7 @@ public interface PubsubEvent {
       return MoreObjects.toStringHelper(this)
           .add("groupKey", groupKey)
           .add("vetoes", vetoes)
+          .add("vetoGroups", vetoGroups)
           .toString();
     }
   }
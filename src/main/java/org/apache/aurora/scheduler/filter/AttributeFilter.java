@@ -18,7 +18,6 @@ import java.util.Set;
 import com.google.common.base.Predicates;
 import com.google.common.collect.Iterables;
 
-import org.apache.aurora.scheduler.storage.entities.IAttribute;
 import org.apache.aurora.scheduler.storage.entities.IValueConstraint;
 
 /**
@@ -43,20 +42,22 @@ final class AttributeFilter {
   }
 
   /**
-   * Tests whether an attribute matches a limit constraint.
+   * Tests whether attribute values match a limit constraint.
    *
-   * @param attribute Attribute to match against.
+   * @param name Attribute name.
+   * @param values Attribute values to match against.
    * @param limit Limit value.
    * @param attributeAggregate Cached state of the job being filtered.
    * @return {@code true} if the limit constraint is satisfied, {@code false} otherwise.
    */
   static boolean matches(
-      final IAttribute attribute,
+      String name,
+      Set<String> values,
       int limit,
       AttributeAggregate attributeAggregate) {
 
-    for (String value : attribute.getValues()) {
-      if (limit <= attributeAggregate.getNumTasksWithAttribute(attribute.getName(), value)) {
+    for (String value : values) {
+      if (limit <= attributeAggregate.getNumTasksWithAttribute(name, value)) {
         return false;
       }
     }
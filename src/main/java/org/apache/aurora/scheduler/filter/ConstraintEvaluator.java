@@ -0,0 +1,191 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.filter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Optional;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import org.apache.aurora.scheduler.base.SchedulerException;
+import org.apache.aurora.scheduler.base.TaskGroupKey;
+import org.apache.aurora.scheduler.configuration.ConfigurationManager;
+import org.apache.aurora.scheduler.filter.SchedulingFilter.Veto;
+import org.apache.aurora.scheduler.storage.entities.IAttribute;
+import org.apache.aurora.scheduler.storage.entities.IConstraint;
+import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
+import org.apache.aurora.scheduler.storage.entities.ITaskConstraint;
+
+import static java.util.Objects.requireNonNull;
+
+import static org.apache.aurora.scheduler.configuration.ConfigurationManager.DEDICATED_ATTRIBUTE;
+
+/**
+ * A task's scheduling constraints, compiled once so they may be evaluated against many hosts.
+ * <p>
+ * Constraints are evaluated against host attributes indexed by name with
+ * {@link #indexAttributes(IHostAttributes)}, turning each check into set lookups rather than a
+ * scan of the host's attribute list.  Value constraints are evaluated before limit constraints,
+ * since they are cheaper and do not depend on the state of the job.
+ */
+public final class ConstraintEvaluator {
+  // Group keys are interned, so weak (identity-compared) keys find the evaluator for as long as
+  // any scheduling component still references the group.
+  private static final LoadingCache<TaskGroupKey, ConstraintEvaluator> BY_GROUP =
+      CacheBuilder.newBuilder()
+          .weakKeys()
+          .build(new CacheLoader<TaskGroupKey, ConstraintEvaluator>() {
+            @Override
+            public ConstraintEvaluator load(TaskGroupKey groupKey) {
+              return compile(groupKey.getTask().getConstraints());
+            }
+          });
+
+  private final boolean dedicated;
+  private final List<IConstraint> valueConstraints;
+  private final List<IConstraint> limitConstraints;
+
+  private ConstraintEvaluator(
+      boolean dedicated,
+      List<IConstraint> valueConstraints,
+      List<IConstraint> limitConstraints) {
+
+    this.dedicated = dedicated;
+    this.valueConstraints = requireNonNull(valueConstraints);
+    this.limitConstraints = requireNonNull(limitConstraints);
+  }
+
+  /**
+   * Compiles task constraints into an evaluator.
+   *
+   * @param constraints Task constraints.
+   * @return An evaluator for the constraints.
+   */
+  public static ConstraintEvaluator compile(Iterable<IConstraint> constraints) {
+    ImmutableList.Builder<IConstraint> valueConstraints = ImmutableList.builder();
+    ImmutableList.Builder<IConstraint> limitConstraints = ImmutableList.builder();
+    for (IConstraint constraint : constraints) {
+      ITaskConstraint taskConstraint = constraint.getConstraint();
+      switch (taskConstraint.getSetField()) {
+        case VALUE:
+          valueConstraints.add(constraint);
+          break;
+
+        case LIMIT:
+          limitConstraints.add(constraint);
+          break;
+
+        default:
+          throw new SchedulerException("Failed to recognize the constraint type: "
+              + taskConstraint.getSetField());
+      }
+    }
+
+    return new ConstraintEvaluator(
+        ConfigurationManager.isDedicated(constraints),
+        valueConstraints.build(),
+        limitConstraints.build());
+  }
+
+  /**
+   * Gets the compiled constraints of a task group, compiling them only the first time the group
+   * is evaluated.
+   *
+   * @param groupKey Task group.
+   * @return An evaluator for the constraints of the group.
+   */
+  public static ConstraintEvaluator forGroup(TaskGroupKey groupKey) {
+    return BY_GROUP.getUnchecked(groupKey);
+  }
+
+  /**
+   * Indexes host attribute values by attribute name.  Values of attributes sharing a name are
+   * merged.  An attribute without values is retained with an empty value set, since its presence
+   * alone is significant (e.g. a dedicated host, or a limit constraint on the attribute).
+   *
+   * @param attributes Host attributes.
+   * @return Attribute values by name.
+   */
+  public static Map<String, Set<String>> indexAttributes(IHostAttributes attributes) {
+    Map<String, Set<String>> index = Maps.newHashMap();
+    for (IAttribute attribute : attributes.getAttributes()) {
+      Set<String> values = index.get(attribute.getName());
+      index.put(
+          attribute.getName(),
+          values == null
+              ? ImmutableSet.copyOf(attribute.getValues())
+              : Sets.union(values, attribute.getValues()).immutableCopy());
+    }
+    return ImmutableMap.copyOf(index);
+  }
+
+  /**
+   * Gets the veto (if any) for placing a task that is not dedicated on a dedicated host.
+   *
+   * @param hostAttributes Indexed host attributes.
+   * @return A veto if the host is dedicated and the task is not.
+   */
+  Optional<Veto> getDedicatedVeto(Map<String, Set<String>> hostAttributes) {
+    return !dedicated && hostAttributes.containsKey(DEDICATED_ATTRIBUTE)
+        ? Optional.of(Veto.dedicatedHostConstraintMismatch())
+        : Optional.absent();
+  }
+
+  /**
+   * Gets the veto (if any) for the first constraint the host does not satisfy.
+   *
+   * @param jobState Cached state of the job being filtered.
+   * @param hostAttributes Indexed host attributes.
+   * @return A veto if a constraint is not satisfied.
+   */
+  Optional<Veto> getConstraintVeto(
+      AttributeAggregate jobState,
+      Map<String, Set<String>> hostAttributes) {
+
+    for (IConstraint constraint : valueConstraints) {
+      Set<String> values = hostAttributes.getOrDefault(constraint.getName(), ImmutableSet.of());
+      if (!AttributeFilter.matches(values, constraint.getConstraint().getValue())) {
+        // Break early to avoid potentially-expensive operations to satisfy other constraints.
+        return Optional.of(Veto.constraintMismatch(constraint.getName()));
+      }
+    }
+
+    for (IConstraint constraint : limitConstraints) {
+      Set<String> values = hostAttributes.get(constraint.getName());
+      if (values == null) {
+        return Optional.of(Veto.constraintMismatch(constraint.getName()));
+      }
+
+      boolean satisfied = AttributeFilter.matches(
+          constraint.getName(),
+          values,
+          constraint.getConstraint().getLimit().getLimit(),
+          jobState);
+      if (!satisfied) {
+        return Optional.of(Veto.unsatisfiedLimit(constraint.getName()));
+      }
+    }
+
+    return Optional.absent();
+  }
+}
@@ -13,11 +13,15 @@
  */
 package org.apache.aurora.scheduler.filter;
 
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
 import com.google.common.base.MoreObjects;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 
+import org.apache.aurora.scheduler.base.TaskGroupKey;
 import org.apache.aurora.scheduler.resources.ResourceBag;
 import org.apache.aurora.scheduler.storage.entities.IConstraint;
 import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
@@ -215,6 +219,20 @@ public interface SchedulingFilter {
       return group;
     }
 
+    /**
+     * Gets the aggregate score of a set of vetoes.  A lower score represents a closer fit.
+     *
+     * @param vetoes Vetoes to score.
+     * @return Sum of the veto scores.
+     */
+    public static int aggregateScore(Iterable<Veto> vetoes) {
+      int total = 0;
+      for (Veto veto : vetoes) {
+        total += veto.getScore();
+      }
+      return total;
+    }
+
     @Override
     public boolean equals(Object o) {
       if (!(o instanceof Veto)) {
@@ -248,10 +266,29 @@ public interface SchedulingFilter {
   class UnusedResource {
     private final ResourceBag offer;
     private final IHostAttributes attributes;
+    private final Map<String, Set<String>> indexedAttributes;
 
     public UnusedResource(ResourceBag offer, IHostAttributes attributes) {
+      this(offer, attributes, ConstraintEvaluator.indexAttributes(attributes));
+    }
+
+    /**
+     * Creates an unused resource with host attributes that were already indexed, to avoid
+     * indexing them again for every task matched against the host.
+     *
+     * @param offer Available resources.
+     * @param attributes Host attributes.
+     * @param indexedAttributes Host attributes indexed with
+     *     {@link ConstraintEvaluator#indexAttributes(IHostAttributes)}.
+     */
+    public UnusedResource(
+        ResourceBag offer,
+        IHostAttributes attributes,
+        Map<String, Set<String>> indexedAttributes) {
+
       this.offer = offer;
       this.attributes = attributes;
+      this.indexedAttributes = indexedAttributes;
     }
 
     public ResourceBag getResourceBag() {
@@ -262,6 +299,10 @@ public interface SchedulingFilter {
       return attributes;
     }
 
+    public Map<String, Set<String>> getIndexedAttributes() {
+      return indexedAttributes;
+    }
+
     @Override
     public boolean equals(Object o) {
       if (!(o instanceof UnusedResource)) {
@@ -286,17 +327,30 @@ public interface SchedulingFilter {
     private final ITaskConfig task;
     private final ResourceBag request;
     private final AttributeAggregate jobState;
+    private final Supplier<ConstraintEvaluator> constraintEvaluator;
 
     public ResourceRequest(ITaskConfig task, ResourceBag request, AttributeAggregate jobState) {
       this.task = task;
       this.request = request;
       this.jobState = jobState;
+      this.constraintEvaluator =
+          Suppliers.memoize(() -> ConstraintEvaluator.forGroup(TaskGroupKey.from(task)));
     }
 
     public Iterable<IConstraint> getConstraints() {
       return task.getConstraints();
     }
 
+    /**
+     * Gets the task constraints compiled for evaluation.  Constraints are compiled once per task
+     * group and shared by every request for the group and every offer it is matched against.
+     *
+     * @return Compiled task constraints.
+     */
+    public ConstraintEvaluator getConstraintEvaluator() {
+      return constraintEvaluator.get();
+    }
+
     public ITaskConfig getTask() {
       return task;
     }
@@ -13,29 +13,20 @@
  */
 package org.apache.aurora.scheduler.filter;
 
-import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.Set;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Iterables;
-import com.google.common.collect.Ordering;
 
 import org.apache.aurora.common.inject.TimedInterceptor.Timed;
 import org.apache.aurora.gen.MaintenanceMode;
-import org.apache.aurora.gen.TaskConstraint;
-import org.apache.aurora.scheduler.configuration.ConfigurationManager;
 import org.apache.aurora.scheduler.resources.ResourceBag;
 import org.apache.aurora.scheduler.resources.ResourceType;
-import org.apache.aurora.scheduler.storage.entities.IAttribute;
-import org.apache.aurora.scheduler.storage.entities.IConstraint;
-import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
 
 import static org.apache.aurora.gen.MaintenanceMode.DRAINED;
 import static org.apache.aurora.gen.MaintenanceMode.DRAINING;
-import static org.apache.aurora.scheduler.configuration.ConfigurationManager.DEDICATED_ATTRIBUTE;
 
 /**
  * Implementation of the scheduling filter that ensures resource requirements of tasks are
@@ -72,49 +63,12 @@ public class SchedulingFilterImpl implements SchedulingFilter {
     return vetoes.build();
   }
 
-  private static boolean isValueConstraint(IConstraint constraint) {
-    return constraint.getConstraint().getSetField() == TaskConstraint._Fields.VALUE;
-  }
-
-  private static final Ordering<IConstraint> VALUES_FIRST = Ordering.from(
-      new Comparator<IConstraint>() {
-        @Override
-        public int compare(IConstraint a, IConstraint b) {
-          if (a.getConstraint().getSetField() == b.getConstraint().getSetField()) {
-            return 0;
-          }
-          return isValueConstraint(a) ? -1 : 1;
-        }
-      });
-
-  private Optional<Veto> getConstraintVeto(
-      Iterable<IConstraint> taskConstraints,
-      AttributeAggregate jobState,
-      Iterable<IAttribute> offerAttributes) {
-
-    for (IConstraint constraint : VALUES_FIRST.sortedCopy(taskConstraints)) {
-      Optional<Veto> veto = ConstraintMatcher.getVeto(jobState, offerAttributes, constraint);
-      if (veto.isPresent()) {
-        // Break early to avoid potentially-expensive operations to satisfy other constraints.
-        return veto;
-      }
-    }
-
-    return Optional.absent();
-  }
-
   private Optional<Veto> getMaintenanceVeto(MaintenanceMode mode) {
     return VETO_MODES.contains(mode)
         ? Optional.of(Veto.maintenance(mode.toString().toLowerCase()))
         : Optional.absent();
   }
 
-  private boolean isDedicated(IHostAttributes attributes) {
-    return Iterables.any(
-        attributes.getAttributes(),
-        new ConstraintMatcher.NameFilter(DEDICATED_ATTRIBUTE));
-  }
-
   @Timed("scheduling_filter")
   @Override
   public Set<Veto> filter(UnusedResource resource, ResourceRequest request) {
@@ -122,11 +76,12 @@ public class SchedulingFilterImpl implements SchedulingFilter {
     // early any time a veto from a score group is applied. This helps to more accurately report
     // a veto reason in the NearestFit.
 
-    // 1. Dedicated constraint check (highest score).
-    if (!ConfigurationManager.isDedicated(request.getConstraints())
-        && isDedicated(resource.getAttributes())) {
+    ConstraintEvaluator constraints = request.getConstraintEvaluator();
 
-      return ImmutableSet.of(Veto.dedicatedHostConstraintMismatch());
+    // 1. Dedicated constraint check (highest score).
+    Optional<Veto> dedicatedVeto = constraints.getDedicatedVeto(resource.getIndexedAttributes());
+    if (dedicatedVeto.isPresent()) {
+      return dedicatedVeto.asSet();
     }
 
     // 2. Host maintenance check.
@@ -136,10 +91,8 @@ public class SchedulingFilterImpl implements SchedulingFilter {
     }
 
     // 3. Value and limit constraint check.
-    Optional<Veto> constraintVeto = getConstraintVeto(
-        request.getConstraints(),
-        request.getJobState(),
-        resource.getAttributes().getAttributes());
+    Optional<Veto> constraintVeto =
+        constraints.getConstraintVeto(request.getJobState(), resource.getIndexedAttributes());
 
     if (constraintVeto.isPresent()) {
       return constraintVeto.asSet();
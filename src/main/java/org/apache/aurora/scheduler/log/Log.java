@@ -16,6 +16,8 @@ package org.apache.aurora.scheduler.log;
 import java.io.IOException;
 import java.util.Iterator;
 
+import com.google.common.base.Optional;
+
 /**
  * Represents an append only log that can be read after and truncated before a known
  * {@link Position}.
@@ -42,6 +44,13 @@ public interface Log {
      * @return the data stored in this log entry
      */
     byte[] contents();
+
+    /**
+     * Gets the position of the log entry in the stream it was read from.
+     *
+     * @return the position of this log entry
+     */
+    Position position();
   }
 
   /**
@@ -89,7 +98,8 @@ public interface Log {
      * returned entry iterator.  If the implementation does use some form of streaming or batching,
      * it may throw a
      * {@code StreamAccessException} on any call to {@link Iterator#hasNext()} or
-     * {@link Iterator#next()}.
+     * {@link Iterator#next()}.  If the returned iterator is {@link java.io.Closeable}, it must be
+     * closed once the caller stops reading from it, whether or not all entries were read.
      *
      * @return an iterator that ranges from the entry from the given {@code position} to the last
      *     entry in the log.
@@ -98,6 +108,21 @@ public interface Log {
      */
     Iterator<Entry> readAll() throws InvalidPositionException, StreamAccessException;
 
+    /**
+     * Reads the entries following the given {@code position}, or all entries if no position is
+     * given.  Unlike {@link #readAll()}, this does not claim the stream for writing, which allows
+     * a replica that is not the writer to tail the stream.  Entries written by another replica
+     * may become visible to this read after some delay.  As with {@link #readAll()}, a
+     * {@link java.io.Closeable} iterator must be closed once the caller stops reading from it.
+     *
+     * @param position the position of the last entry already read, if any
+     * @return an iterator over the entries after {@code position} up to the last entry in the log
+     * @throws InvalidPositionException if entries after the position have been truncated
+     * @throws StreamAccessException if the stream could not be read from
+     */
+    Iterator<Entry> readAfter(Optional<Position> position)
+        throws InvalidPositionException, StreamAccessException;
+
     /**
      * Removes all log entries preceding the log entry at the given {@code position}.
      *
@@ -0,0 +1,88 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.log.local;
+
+import java.io.File;
+import java.util.Objects;
+
+import javax.inject.Singleton;
+
+import com.google.inject.PrivateModule;
+
+import org.apache.aurora.common.args.Arg;
+import org.apache.aurora.common.args.CmdLine;
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Data;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.scheduler.log.Log;
+import org.apache.aurora.scheduler.log.local.SegmentedLog.LogDirectory;
+import org.apache.aurora.scheduler.log.local.SegmentedLog.Settings;
+import org.apache.aurora.scheduler.log.local.SegmentedLog.SyncPolicy;
+
+/**
+ * Binds a local, segmented file Log implementation.
+ *
+ * <p>Exports the following bindings:
+ * <ul>
+ *   <li>{@link Log} - a log backed by segment files in a local directory</li>
+ * </ul>
+ */
+public class LocalLogStreamModule extends PrivateModule {
+  @CmdLine(name = "local_log_dir",
+      help = "Directory to store local log segments in.  It will be created if it does not exist.")
+  private static final Arg<File> LOG_DIR = Arg.create(null);
+
+  @CmdLine(name = "local_log_segment_size",
+      help = "The size at which a local log segment is rolled over to a new segment.")
+  private static final Arg<Amount<Integer, Data>> SEGMENT_SIZE =
+      Arg.create(Amount.of(64, Data.MB));
+
+  @CmdLine(name = "local_log_sync_policy",
+      help = "When appended local log records are forced to the storage device.")
+  private static final Arg<SyncPolicy> SYNC_POLICY = Arg.create(SyncPolicy.ALWAYS);
+
+  @CmdLine(name = "local_log_sync_interval",
+      help = "Maximum interval between forcing appended records to the storage device when "
+          + "using the INTERVAL sync policy.")
+  private static final Arg<Amount<Long, Time>> SYNC_INTERVAL =
+      Arg.create(Amount.of(100L, Time.MILLISECONDS));
+
+  private final File logDir;
+
+  public LocalLogStreamModule() {
+    this(getLogDir());
+  }
+
+  public LocalLogStreamModule(File logDir) {
+    this.logDir = Objects.requireNonNull(logDir);
+  }
+
+  private static File getLogDir() {
+    if (!LOG_DIR.hasAppliedValue()) {
+      throw new IllegalStateException("A value for the -local_log_dir flag must be supplied");
+    }
+    return LOG_DIR.get();
+  }
+
+  @Override
+  protected void configure() {
+    bind(File.class).annotatedWith(LogDirectory.class).toInstance(logDir);
+    bind(Settings.class).toInstance(
+        new Settings(SEGMENT_SIZE.get(), SYNC_POLICY.get(), SYNC_INTERVAL.get()));
+
+    bind(Log.class).to(SegmentedLog.class);
+    bind(SegmentedLog.class).in(Singleton.class);
+    expose(Log.class);
+  }
+}
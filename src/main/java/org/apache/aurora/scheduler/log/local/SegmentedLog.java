@@ -0,0 +1,626 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.log.local;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+import javax.inject.Inject;
+import javax.inject.Qualifier;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.UnmodifiableIterator;
+import com.google.common.primitives.Longs;
+
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Data;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.stats.SlidingStats;
+import org.apache.aurora.common.stats.Stats;
+import org.apache.aurora.scheduler.base.AsyncUtil;
+import org.apache.aurora.scheduler.log.Log;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.PARAMETER;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A {@link Log} backed by append-only segment files in a local directory.
+ * <p>
+ * Each record is stored as a 4 byte length, a 4 byte CRC32 of the contents and the contents
+ * themselves.  Segments are named after the position of their first record and are rolled once
+ * they reach the configured size.  Reads memory-map each segment.  Truncation persists the new
+ * start of the log in a small metadata file, so that reads skip the truncated records, and deletes
+ * the segments that hold only truncated records.
+ * <p>
+ * This log is not replicated and is intended for single-scheduler deployments, benchmarks and
+ * tests.
+ */
+public class SegmentedLog implements Log, Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SegmentedLog.class);
+
+  private static final String SEGMENT_SUFFIX = ".log";
+  private static final String START_FILE = "start";
+  private static final int HEADER_BYTES = 8;
+
+  /**
+   * Binding annotation for the directory that holds the log segments.
+   */
+  @Qualifier
+  @Retention(RUNTIME)
+  @Target({ PARAMETER, METHOD })
+  public @interface LogDirectory { }
+
+  /**
+   * Controls when appended records are forced to the storage device.
+   */
+  public enum SyncPolicy {
+    /**
+     * Force every append before it is acknowledged.
+     */
+    ALWAYS,
+
+    /**
+     * Force appended records in groups, at most once per sync interval.  A crash may lose records
+     * appended within the last interval.
+     */
+    INTERVAL,
+
+    /**
+     * Never force records, leaving write-back to the operating system.
+     */
+    NEVER
+  }
+
+  /**
+   * Configuration settings for a segmented log.
+   */
+  public static class Settings {
+    private final Amount<Integer, Data> segmentSize;
+    private final SyncPolicy syncPolicy;
+    private final Amount<Long, Time> syncInterval;
+
+    public Settings(
+        Amount<Integer, Data> segmentSize,
+        SyncPolicy syncPolicy,
+        Amount<Long, Time> syncInterval) {
+
+      Preconditions.checkArgument(segmentSize.as(Data.BYTES) > HEADER_BYTES);
+      Preconditions.checkArgument(syncInterval.getValue() > 0);
+      this.segmentSize = segmentSize;
+      this.syncPolicy = requireNonNull(syncPolicy);
+      this.syncInterval = syncInterval;
+    }
+  }
+
+  private final File directory;
+  private final Settings settings;
+  private SegmentedStream stream;
+
+  @Inject
+  public SegmentedLog(@LogDirectory File directory, Settings settings) {
+    this.directory = requireNonNull(directory);
+    this.settings = requireNonNull(settings);
+  }
+
+  @Override
+  public synchronized Stream open() throws IOException {
+    // The directory may only be appended to by a single stream.
+    if (stream == null) {
+      if (!directory.exists() && !directory.mkdirs()) {
+        throw new IOException("Failed to create log directory " + directory);
+      }
+      stream = new SegmentedStream(directory, settings);
+    }
+    return stream;
+  }
+
+  /**
+   * Closes the open stream, if any, after forcing the records appended to it.  The log may be
+   * opened again afterwards.
+   *
+   * @throws IOException if the stream could not be closed
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (stream != null) {
+      stream.close();
+      stream = null;
+    }
+  }
+
+  @VisibleForTesting
+  static class LocalPosition implements Log.Position {
+    private final long position;
+
+    LocalPosition(long position) {
+      this.position = position;
+    }
+
+    long get() {
+      return position;
+    }
+
+    @Override
+    public int compareTo(Position o) {
+      Preconditions.checkArgument(o instanceof LocalPosition);
+      return Long.compare(position, ((LocalPosition) o).position);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof LocalPosition && position == ((LocalPosition) o).position;
+    }
+
+    @Override
+    public int hashCode() {
+      return Longs.hashCode(position);
+    }
+
+    @Override
+    public String toString() {
+      return Long.toString(position);
+    }
+  }
+
+  /**
+   * A segment file along with the byte offsets of the records it holds.
+   */
+  private static class Segment {
+    private final File file;
+    private final long firstPosition;
+    private final List<Long> offsets = Lists.newArrayList();
+    private long size;
+
+    Segment(File file, long firstPosition) {
+      this.file = file;
+      this.firstPosition = firstPosition;
+    }
+
+    long nextPosition() {
+      return firstPosition + offsets.size();
+    }
+  }
+
+  private static int checksum(byte[] contents) {
+    CRC32 crc = new CRC32();
+    crc.update(contents, 0, contents.length);
+    return (int) crc.getValue();
+  }
+
+  private static File segmentFile(File directory, long firstPosition) {
+    return new File(directory, String.format("%020d%s", firstPosition, SEGMENT_SUFFIX));
+  }
+
+  @VisibleForTesting
+  static class SegmentedStream implements Log.Stream, Closeable {
+    private final AtomicLong appendedBytes = Stats.exportLong("local_log_appended_bytes");
+    private final AtomicLong syncs = Stats.exportLong("local_log_syncs");
+    private final AtomicLong segmentsDeleted = Stats.exportLong("local_log_segments_deleted");
+    private final AtomicLong tornRecords = Stats.exportLong("local_log_torn_records");
+    private final SlidingStats appendTiming = new SlidingStats("local_log_append", "nanos");
+
+    private final File directory;
+    private final long segmentSize;
+    private final SyncPolicy syncPolicy;
+    private final List<Segment> segments = Lists.newArrayList();
+    private final Optional<ScheduledExecutorService> syncExecutor;
+    private FileChannel writer;
+    private boolean dirty = false;
+
+    // Position of the first record that has not been truncated.  Records preceding it may still
+    // be held by the first segment.
+    private long startPosition;
+
+    SegmentedStream(File directory, Settings settings) throws IOException {
+      this.directory = directory;
+      this.segmentSize = settings.segmentSize.as(Data.BYTES);
+      this.syncPolicy = settings.syncPolicy;
+
+      recover();
+      if (syncPolicy == SyncPolicy.INTERVAL) {
+        ScheduledExecutorService executor =
+            AsyncUtil.singleThreadLoggingScheduledExecutor("LocalLogSync-%d", LOG);
+        long intervalMs = settings.syncInterval.as(Time.MILLISECONDS);
+        executor.scheduleWithFixedDelay(
+            this::syncIfDirty,
+            intervalMs,
+            intervalMs,
+            TimeUnit.MILLISECONDS);
+        syncExecutor = Optional.of(executor);
+      } else {
+        syncExecutor = Optional.absent();
+      }
+    }
+
+    private void recover() throws IOException {
+      File[] files = directory.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+      List<File> sorted = Lists.newArrayList(requireNonNull(files));
+      sorted.sort((a, b) -> a.getName().compareTo(b.getName()));
+
+      for (File file : sorted) {
+        String name = file.getName();
+        long firstPosition = Long.parseLong(name.substring(0, name.length() - 4));
+        Segment segment = new Segment(file, firstPosition);
+        if (!segments.isEmpty()
+            && segments.get(segments.size() - 1).nextPosition() != firstPosition) {
+          throw new IOException("Log segment " + file + " does not follow the previous segment.");
+        }
+        index(segment, file == sorted.get(sorted.size() - 1));
+        segments.add(segment);
+      }
+
+      long nextPosition = segments.isEmpty() ? 0 : lastSegment().nextPosition();
+      if (segments.isEmpty()) {
+        segments.add(new Segment(segmentFile(directory, nextPosition), nextPosition));
+      }
+      writer = FileChannel.open(
+          lastSegment().file.toPath(),
+          StandardOpenOption.CREATE,
+          StandardOpenOption.WRITE);
+      writer.position(lastSegment().size);
+
+      startPosition = Math.max(segments.get(0).firstPosition, readStartPosition());
+    }
+
+    private long readStartPosition() throws IOException {
+      File file = new File(directory, START_FILE);
+      if (!file.exists()) {
+        return 0;
+      }
+
+      byte[] contents = Files.readAllBytes(file.toPath());
+      if (contents.length != Longs.BYTES) {
+        throw new IOException("Corrupt log start position in " + file);
+      }
+      return Longs.fromByteArray(contents);
+    }
+
+    /**
+     * Persists the start position.  The position is written to a temporary file that then
+     * replaces the previous one, so that a crash leaves either the old or the new position.
+     */
+    private void writeStartPosition(long position) throws IOException {
+      File temporary = new File(directory, START_FILE + ".tmp");
+      try (FileChannel channel = FileChannel.open(
+          temporary.toPath(),
+          StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING,
+          StandardOpenOption.WRITE)) {
+
+        ByteBuffer buffer = ByteBuffer.wrap(Longs.toByteArray(position));
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+        channel.force(false);
+      }
+      Files.move(
+          temporary.toPath(),
+          new File(directory, START_FILE).toPath(),
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Scans a segment to build its record index.  A record that fails its length or checksum
+     * validation is only tolerated at the tail of the last segment, where it represents a write
+     * torn by a crash, and is discarded.
+     */
+    private void index(Segment segment, boolean last) throws IOException {
+      try (RandomAccessFile file = new RandomAccessFile(segment.file, "rw")) {
+        long length = file.length();
+        long offset = 0;
+        while (offset < length) {
+          boolean valid = false;
+          if (length - offset >= HEADER_BYTES) {
+            file.seek(offset);
+            int size = file.readInt();
+            int crc = file.readInt();
+            if (size >= 0 && size <= length - offset - HEADER_BYTES) {
+              byte[] contents = new byte[size];
+              file.readFully(contents);
+              valid = checksum(contents) == crc;
+              if (valid) {
+                segment.offsets.add(offset);
+                offset += HEADER_BYTES + size;
+              }
+            }
+          }
+
+          if (!valid) {
+            if (!last) {
+              throw new IOException("Corrupt record in log segment " + segment.file
+                  + " at offset " + offset);
+            }
+            LOG.warn("Discarding torn record at offset {} of {}", offset, segment.file);
+            tornRecords.incrementAndGet();
+            file.setLength(offset);
+            break;
+          }
+        }
+        segment.size = offset;
+      }
+    }
+
+    private Segment lastSegment() {
+      return segments.get(segments.size() - 1);
+    }
+
+    private synchronized void syncIfDirty() {
+      if (dirty) {
+        try {
+          writer.force(false);
+          syncs.incrementAndGet();
+          dirty = false;
+        } catch (IOException e) {
+          LOG.error("Failed to sync local log.", e);
+        }
+      }
+    }
+
+    private void roll() throws IOException {
+      writer.force(false);
+      writer.close();
+      long nextPosition = lastSegment().nextPosition();
+      segments.add(new Segment(segmentFile(directory, nextPosition), nextPosition));
+      writer = FileChannel.open(
+          lastSegment().file.toPath(),
+          StandardOpenOption.CREATE_NEW,
+          StandardOpenOption.WRITE);
+      dirty = false;
+    }
+
+    @Override
+    public synchronized Position append(byte[] contents) throws StreamAccessException {
+      requireNonNull(contents);
+
+      long start = System.nanoTime();
+      try {
+        Segment segment = lastSegment();
+        int recordSize = HEADER_BYTES + contents.length;
+        if (segment.size > 0 && segment.size + recordSize > segmentSize) {
+          roll();
+          segment = lastSegment();
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(contents.length).putInt(checksum(contents)).flip();
+        ByteBuffer[] record = {header, ByteBuffer.wrap(contents)};
+        long remaining = recordSize;
+        while (remaining > 0) {
+          remaining -= writer.write(record);
+        }
+
+        long position = segment.nextPosition();
+        segment.offsets.add(segment.size);
+        segment.size += recordSize;
+        appendedBytes.addAndGet(recordSize);
+
+        if (syncPolicy == SyncPolicy.ALWAYS) {
+          writer.force(false);
+          syncs.incrementAndGet();
+        } else {
+          dirty = true;
+        }
+        return new LocalPosition(position);
+      } catch (IOException e) {
+        throw new StreamAccessException("Failed to append to local log.", e);
+      } finally {
+        appendTiming.accumulate(System.nanoTime() - start);
+      }
+    }
+
+    @Override
+    public synchronized Iterator<Entry> readAll() throws StreamAccessException {
+      return new SegmentIterator(snapshotIndex(), startPosition);
+    }
+
+    @Override
+    public synchronized Iterator<Entry> readAfter(Optional<Position> position)
+        throws InvalidPositionException, StreamAccessException {
+
+      long from = startPosition;
+      if (position.isPresent()) {
+        if (!(position.get() instanceof LocalPosition)) {
+          throw new InvalidPositionException("Not a local log position: " + position.get());
+        }
+        long after = ((LocalPosition) position.get()).get();
+        if (after + 1 < from) {
+          throw new InvalidPositionException(
+              "Entries following position " + after + " have been truncated.");
+        }
+        if (after >= lastSegment().nextPosition()) {
+          throw new InvalidPositionException(
+              "Position " + after + " is beyond the end of the log.");
+        }
+        from = after + 1;
+      }
+      return new SegmentIterator(snapshotIndex(), from);
+    }
+
+    /**
+     * Copies the segment index so that concurrent appends do not affect an iteration.
+     */
+    private List<Segment> snapshotIndex() {
+      ImmutableList.Builder<Segment> snapshot = ImmutableList.builder();
+      for (Segment segment : segments) {
+        Segment copy = new Segment(segment.file, segment.firstPosition);
+        copy.offsets.addAll(segment.offsets);
+        copy.size = segment.size;
+        snapshot.add(copy);
+      }
+      return snapshot.build();
+    }
+
+    @Override
+    public synchronized void truncateBefore(Position position)
+        throws InvalidPositionException, StreamAccessException {
+
+      if (!(position instanceof LocalPosition)) {
+        throw new InvalidPositionException("Not a local log position: " + position);
+      }
+      long before = ((LocalPosition) position).get();
+      if (before > lastSegment().nextPosition()) {
+        throw new InvalidPositionException("Position " + before + " is beyond the end of the log.");
+      }
+
+      if (before <= startPosition) {
+        return;
+      }
+
+      // The start position is persisted before any segment is deleted, so that a crash in between
+      // cannot expose truncated records.  Records preceding the position may remain in the
+      // segment that contains it, and are skipped by reads.  The active segment is never removed.
+      try {
+        writeStartPosition(before);
+      } catch (IOException e) {
+        throw new StreamAccessException("Failed to persist the start of the local log.", e);
+      }
+      startPosition = before;
+      while (segments.size() > 1 && segments.get(1).firstPosition <= before) {
+        Segment removed = segments.remove(0);
+        if (!removed.file.delete()) {
+          throw new StreamAccessException(
+              "Failed to delete log segment " + removed.file,
+              new IOException("Delete failed."));
+        }
+        segmentsDeleted.incrementAndGet();
+      }
+    }
+
+    /**
+     * Stops the periodic sync, forces any records appended since the last sync and closes the
+     * active segment.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+      if (syncExecutor.isPresent()) {
+        // Not interrupted, as an interrupt during a sync would close the channel.
+        syncExecutor.get().shutdown();
+      }
+      if (dirty) {
+        writer.force(false);
+        syncs.incrementAndGet();
+        dirty = false;
+      }
+      writer.close();
+    }
+
+    private static class LocalEntry implements Entry {
+      private final long position;
+      private final byte[] contents;
+
+      LocalEntry(long position, byte[] contents) {
+        this.position = position;
+        this.contents = contents;
+      }
+
+      @Override
+      public byte[] contents() {
+        return contents;
+      }
+
+      @Override
+      public Position position() {
+        return new LocalPosition(position);
+      }
+    }
+
+    private static class SegmentIterator extends UnmodifiableIterator<Entry> {
+      private final Iterator<Segment> segments;
+      private final long from;
+      private Segment segment;
+      private MappedByteBuffer mapped;
+      private int record;
+
+      SegmentIterator(List<Segment> segments, long from) {
+        this.segments = segments.iterator();
+        this.from = from;
+      }
+
+      @Override
+      public boolean hasNext() {
+        while (segment == null || record >= segment.offsets.size()) {
+          if (!segments.hasNext()) {
+            return false;
+          }
+          segment = segments.next();
+          record = (int) Math.max(0, from - segment.firstPosition);
+          mapped = null;
+        }
+        return true;
+      }
+
+      private MappedByteBuffer map() {
+        if (mapped == null) {
+          try (FileChannel channel = FileChannel.open(segment.file.toPath())) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, segment.size);
+          } catch (IOException e) {
+            throw new StreamAccessException("Failed to map log segment " + segment.file, e);
+          }
+        }
+        return mapped;
+      }
+
+      @Override
+      public Entry next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+
+        ByteBuffer buffer = map();
+        int offset = segment.offsets.get(record).intValue();
+        int size = buffer.getInt(offset);
+        int crc = buffer.getInt(offset + 4);
+        byte[] contents = new byte[size];
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset + HEADER_BYTES);
+        view.get(contents);
+        if (checksum(contents) != crc) {
+          throw new StreamAccessException(
+              "Checksum mismatch in log segment " + segment.file + " at offset " + offset,
+              new IOException("Corrupt record."));
+        }
+        long position = segment.firstPosition + record;
+        record++;
+        return new LocalEntry(position, contents);
+      }
+    }
+  }
+}
@@ -13,11 +13,14 @@
  */
 package org.apache.aurora.scheduler.log.mesos;
 
+import java.io.Closeable;
 import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
@@ -31,9 +34,10 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Iterables;
+import com.google.common.base.Throwables;
 import com.google.common.collect.UnmodifiableIterator;
 import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.Uninterruptibles;
 
 import org.apache.aurora.common.application.Lifecycle;
 import org.apache.aurora.common.base.MorePreconditions;
@@ -84,10 +88,28 @@ public class MesosLog implements org.apache.aurora.scheduler.log.Log {
   @Target({ PARAMETER, METHOD })
   public @interface WriteTimeout { }
 
+  /**
+   * Binding annotation for the number of log positions to fetch in a single read.
+   */
+  @Qualifier
+  @Retention(RUNTIME)
+  @Target({ PARAMETER, METHOD })
+  public @interface ReadBatchSize { }
+
+  /**
+   * Binding annotation for the maximum number of entries buffered ahead of the log reader.
+   */
+  @Qualifier
+  @Retention(RUNTIME)
+  @Target({ PARAMETER, METHOD })
+  public @interface ReadAheadEntries { }
+
   private final Provider<LogInterface> logFactory;
 
   private final Provider<ReaderInterface> readerFactory;
   private final Amount<Long, Time> readTimeout;
+  private final int readBatchSize;
+  private final int readAheadEntries;
 
   private final Provider<WriterInterface> writerFactory;
   private final Amount<Long, Time> writeTimeout;
@@ -102,6 +124,8 @@ public class MesosLog implements org.apache.aurora.scheduler.log.Log {
    * @param logFactory Factory to provide access to log.
    * @param readerFactory Factory to provide access to log readers.
    * @param readTimeout Log read timeout.
+   * @param readBatchSize Number of log positions to fetch in a single read.
+   * @param readAheadEntries Maximum number of entries to buffer ahead of the log reader.
    * @param writerFactory Factory to provide access to log writers.
    * @param writeTimeout Log write timeout.
    * @param noopEntry A no-op log entry blob.
@@ -112,6 +136,8 @@ public class MesosLog implements org.apache.aurora.scheduler.log.Log {
       Provider<LogInterface> logFactory,
       Provider<ReaderInterface> readerFactory,
       @ReadTimeout Amount<Long, Time> readTimeout,
+      @ReadBatchSize int readBatchSize,
+      @ReadAheadEntries int readAheadEntries,
       Provider<WriterInterface> writerFactory,
       @WriteTimeout Amount<Long, Time> writeTimeout,
       @NoopEntry byte[] noopEntry,
@@ -121,6 +147,10 @@ public class MesosLog implements org.apache.aurora.scheduler.log.Log {
 
     this.readerFactory = requireNonNull(readerFactory);
     this.readTimeout = requireNonNull(readTimeout);
+    Preconditions.checkArgument(readBatchSize > 0);
+    this.readBatchSize = readBatchSize;
+    Preconditions.checkArgument(readAheadEntries > 0);
+    this.readAheadEntries = readAheadEntries;
 
     this.writerFactory = requireNonNull(writerFactory);
     this.writeTimeout = requireNonNull(writeTimeout);
@@ -136,6 +166,8 @@ public class MesosLog implements org.apache.aurora.scheduler.log.Log {
         logFactory.get(),
         readerFactory.get(),
         readTimeout,
+        readBatchSize,
+        readAheadEntries,
         writerFactory,
         writeTimeout,
         noopEntry,
@@ -166,17 +198,30 @@ public class MesosLog implements org.apache.aurora.scheduler.log.Log {
     private static final Function<Log.Entry, LogEntry> MESOS_ENTRY_TO_ENTRY =
         LogEntry::new;
 
+    // How long the prefetch thread waits for room in a full buffer before checking whether the
+    // consumer has closed the iterator.
+    private static final long BUFFER_OFFER_TIMEOUT_MS = 100;
+
     private final OpStats readStats = new OpStats("read");
     private final OpStats appendStats = new OpStats("append");
     private final OpStats truncateStats = new OpStats("truncate");
     private final AtomicLong entriesSkipped =
         Stats.exportLong("scheduler_log_native_native_entries_skipped");
+    private final AtomicLong entriesRead = Stats.exportLong("scheduler_log_native_entries_read");
+    private final AtomicLong readAheadDepth =
+        Stats.exportLong("scheduler_log_native_read_ahead_depth");
+    private final AtomicLong readAheadStalls =
+        Stats.exportLong("scheduler_log_native_read_ahead_stalls");
+    private final AtomicLong replayEntriesPerSec =
+        Stats.exportLong("scheduler_log_native_replay_entries_per_sec");
 
     private final LogInterface log;
 
     private final ReaderInterface reader;
     private final long readTimeout;
     private final TimeUnit readTimeUnit;
+    private final int readBatchSize;
+    private final int readAheadEntries;
 
     private final Provider<WriterInterface> writerFactory;
     private final long writeTimeout;
@@ -203,6 +248,8 @@ public class MesosLog implements org.apache.aurora.scheduler.log.Log {
         LogInterface log,
         ReaderInterface reader,
         Amount<Long, Time> readTimeout,
+        int readBatchSize,
+        int readAheadEntries,
         Provider<WriterInterface> writerFactory,
         Amount<Long, Time> writeTimeout,
         byte[] noopEntry,
@@ -213,6 +260,8 @@ public class MesosLog implements org.apache.aurora.scheduler.log.Log {
       this.reader = reader;
       this.readTimeout = readTimeout.getValue();
       this.readTimeUnit = readTimeout.getUnit().getTimeUnit();
+      this.readBatchSize = readBatchSize;
+      this.readAheadEntries = readAheadEntries;
 
       this.writerFactory = writerFactory;
       this.writeTimeout = writeTimeout.getValue();
@@ -238,67 +287,187 @@ public class MesosLog implements org.apache.aurora.scheduler.log.Log {
       final Log.Position from = reader.beginning();
       final Log.Position to = end().unwrap();
 
-      // Reading all the entries at once may cause large garbage collections. Instead, we
-      // lazily read the entries one by one as they are requested.
+      return readAhead(Longs.fromByteArray(from.identity()), Longs.fromByteArray(to.identity()));
+    }
+
+    @Override
+    public Iterator<Entry> readAfter(Optional<Position> position)
+        throws InvalidPositionException, StreamAccessException {
+
+      // No noop is appended here, so the read reflects only the entries this replica has learned
+      // of so far.
+      long beginning = Longs.fromByteArray(reader.beginning().identity());
+      long from = beginning;
+      if (position.isPresent()) {
+        Preconditions.checkArgument(position.get() instanceof LogPosition);
+        from = Longs.fromByteArray(((LogPosition) position.get()).unwrap().identity()) + 1;
+        if (from < beginning) {
+          throw new InvalidPositionException(
+              "Entries following position " + (from - 1) + " have been truncated.");
+        }
+      }
+
+      return readAhead(from, Longs.fromByteArray(end().unwrap().identity()));
+    }
+
+    private Iterator<Entry> readAhead(long from, long to) {
+      // Reading all the entries at once may cause large garbage collections. Instead, we read
+      // ranges of positions on a separate thread into a bounded buffer, overlapping log reads with
+      // the caller's processing of the entries.  Entries are handed over as raw bytes: decoding
+      // them is left to the consumer of the stream, as this log, like any Log, is not aware of
+      // the format of its entries.
       // TODO(Benjamin Hindman): Eventually replace this functionality with functionality
       // from the Mesos Log.
-      return new UnmodifiableIterator<Entry>() {
-        private long position = Longs.fromByteArray(from.identity());
-        private final long endPosition = Longs.fromByteArray(to.identity());
-        private Entry entry = null;
-
-        @Override
-        public boolean hasNext() {
-          if (entry != null) {
-            return true;
+      ReadAheadIterator iterator = new ReadAheadIterator(from, to);
+      Thread prefetcher = new Thread(iterator, "MesosLogReadAhead");
+      prefetcher.setDaemon(true);
+      prefetcher.start();
+      return iterator;
+    }
+
+    /**
+     * Reads log entries in batches of positions on a prefetch thread, handing them to the
+     * consuming thread through a bounded buffer.  Read failures are passed through the buffer and
+     * surfaced to the consumer in the order they occurred.  Closing the iterator stops the
+     * prefetch thread, which would otherwise wait for room in the buffer indefinitely.
+     */
+    private class ReadAheadIterator extends UnmodifiableIterator<Entry>
+        implements Runnable, Closeable {
+
+      private final BlockingQueue<Object> buffer = new ArrayBlockingQueue<>(readAheadEntries);
+      private final long startPosition;
+      private final long endPosition;
+      private final long startNanos = System.nanoTime();
+      private long consumed = 0;
+      private boolean exhausted = false;
+      private Entry entry = null;
+      private volatile boolean closed = false;
+
+      ReadAheadIterator(long startPosition, long endPosition) {
+        this.startPosition = startPosition;
+        this.endPosition = endPosition;
+      }
+
+      private List<Log.Entry> readRange(long from, long to) {
+        long start = System.nanoTime();
+        try {
+          LOG.debug("Reading positions {} to {} from the log", from, to);
+          Log.Position fromPosition = log.position(Longs.toByteArray(from));
+          return reader.read(
+              fromPosition,
+              from == to ? fromPosition : log.position(Longs.toByteArray(to)),
+              readTimeout,
+              readTimeUnit);
+        } catch (TimeoutException e) {
+          readStats.timeouts.getAndIncrement();
+          throw new StreamAccessException("Timeout reading from log.", e);
+        } catch (Log.OperationFailedException e) {
+          readStats.failures.getAndIncrement();
+          throw new StreamAccessException("Problem reading from log", e);
+        } finally {
+          readStats.timing.accumulate(System.nanoTime() - start);
+        }
+      }
+
+      private boolean buffer(Object item) {
+        try {
+          while (!closed) {
+            if (buffer.offer(item, BUFFER_OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+              readAheadDepth.set(buffer.size());
+              return true;
+            }
           }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          closed = true;
+        }
+        return false;
+      }
 
-          while (position <= endPosition) {
-            long start = System.nanoTime();
-            try {
-              Log.Position p = log.position(Longs.toByteArray(position));
-              LOG.debug("Reading position {} from the log", position);
-              List<Log.Entry> entries = reader.read(p, p, readTimeout, readTimeUnit);
-
-              // N.B. HACK! There is currently no way to "increment" a position. Until the Mesos
-              // Log actually provides a way to "stream" the log, we approximate as much by
-              // using longs via Log.Position.identity and Log.position.
-              position++;
-
-              // Reading positions in this way means it's possible that we get an "invalid" entry
-              // (e.g., in the underlying log terminology this would be anything but an append)
-              // which will be removed from the returned entries resulting in an empty list.
-              // We skip these.
-              if (entries.isEmpty()) {
-                entriesSkipped.getAndIncrement();
-              } else {
-                entry = MESOS_ENTRY_TO_ENTRY.apply(Iterables.getOnlyElement(entries));
-                return true;
+      @Override
+      public void run() {
+        try {
+          // N.B. HACK! There is currently no way to "increment" a position. Until the Mesos
+          // Log actually provides a way to "stream" the log, we approximate as much by
+          // using longs via Log.Position.identity and Log.position.
+          long position = startPosition;
+          while (position <= endPosition && !closed) {
+            long batchEnd = Math.min(endPosition, position + readBatchSize - 1);
+            List<Log.Entry> entries = readRange(position, batchEnd);
+
+            // Reading positions in this way means it's possible that we encounter "invalid"
+            // entries (e.g., in the underlying log terminology this would be anything but an
+            // append) which are omitted from the returned entries.  We skip these.
+            entriesSkipped.getAndAdd(batchEnd - position + 1 - entries.size());
+            for (Log.Entry logEntry : entries) {
+              if (!buffer(MESOS_ENTRY_TO_ENTRY.apply(logEntry))) {
+                return;
               }
-            } catch (TimeoutException e) {
-              readStats.timeouts.getAndIncrement();
-              throw new StreamAccessException("Timeout reading from log.", e);
-            } catch (Log.OperationFailedException e) {
-              readStats.failures.getAndIncrement();
-              throw new StreamAccessException("Problem reading from log", e);
-            } finally {
-              readStats.timing.accumulate(System.nanoTime() - start);
             }
+            position = batchEnd + 1;
           }
+          buffer(EndOfStream.INSTANCE);
+        } catch (RuntimeException | Error e) {
+          buffer(e);
+        }
+      }
+
+      @Override
+      public boolean hasNext() {
+        if (entry != null) {
+          return true;
+        }
+        if (exhausted) {
           return false;
         }
 
-        @Override
-        public Entry next() {
-          if (entry == null && !hasNext()) {
-            throw new NoSuchElementException();
-          }
+        if (buffer.isEmpty()) {
+          readAheadStalls.getAndIncrement();
+        }
+        Object item = Uninterruptibles.takeUninterruptibly(buffer);
+        readAheadDepth.set(buffer.size());
+
+        if (item instanceof Entry) {
+          entry = (Entry) item;
+          consumed++;
+          entriesRead.getAndIncrement();
+          return true;
+        }
+
+        exhausted = true;
+        if (item instanceof Throwable) {
+          throw Throwables.propagate((Throwable) item);
+        }
+
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        replayEntriesPerSec.set(consumed * 1000 / Math.max(1, elapsedMs));
+        LOG.info("Read {} log entries in {} ms", consumed, elapsedMs);
+        return false;
+      }
 
-          Entry result = requireNonNull(entry);
-          entry = null;
-          return result;
+      @Override
+      public Entry next() {
+        if (entry == null && !hasNext()) {
+          throw new NoSuchElementException();
         }
-      };
+
+        Entry result = requireNonNull(entry);
+        entry = null;
+        return result;
+      }
+
+      @Override
+      public void close() {
+        closed = true;
+        exhausted = true;
+        entry = null;
+        buffer.clear();
+        readAheadDepth.set(0);
+      }
+    }
+
+    private enum EndOfStream {
+      INSTANCE
     }
 
     @Override
@@ -395,6 +564,11 @@ public class MesosLog implements org.apache.aurora.scheduler.log.Log {
       public byte[] contents() {
         return underlying.data;
       }
+
+      @Override
+      public Position position() {
+        return LogPosition.wrap(underlying.position);
+      }
     }
   }
 }
@@ -30,6 +30,7 @@ import com.google.inject.TypeLiteral;
 import org.apache.aurora.codec.ThriftBinaryCodec;
 import org.apache.aurora.common.args.Arg;
 import org.apache.aurora.common.args.CmdLine;
+import org.apache.aurora.common.args.constraints.Positive;
 import org.apache.aurora.common.net.InetSocketAddressHelper;
 import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Time;
@@ -89,6 +90,17 @@ public class MesosLogStreamModule extends PrivateModule {
   private static final Arg<Amount<Long, Time>> READ_TIMEOUT =
       Arg.create(Amount.of(5L, Time.SECONDS));
 
+  @Positive
+  @CmdLine(name = "native_log_read_batch_size",
+           help = "The number of log positions to fetch in a single read while recovering from "
+               + "the log.")
+  private static final Arg<Integer> READ_BATCH_SIZE = Arg.create(100);
+
+  @Positive
+  @CmdLine(name = "native_log_read_ahead_entries",
+           help = "The maximum number of log entries to buffer ahead of log recovery.")
+  private static final Arg<Integer> READ_AHEAD_ENTRIES = Arg.create(1000);
+
   @CmdLine(name = "native_log_write_timeout",
            help = "The timeout for doing log appends and truncations.")
   private static final Arg<Amount<Long, Time>> WRITE_TIMEOUT =
@@ -128,6 +140,10 @@ public class MesosLogStreamModule extends PrivateModule {
   protected void configure() {
     bind(new TypeLiteral<Amount<Long, Time>>() { }).annotatedWith(MesosLog.ReadTimeout.class)
         .toInstance(READ_TIMEOUT.get());
+    bind(Integer.class).annotatedWith(MesosLog.ReadBatchSize.class)
+        .toInstance(READ_BATCH_SIZE.get());
+    bind(Integer.class).annotatedWith(MesosLog.ReadAheadEntries.class)
+        .toInstance(READ_AHEAD_ENTRIES.get());
     bind(new TypeLiteral<Amount<Long, Time>>() { }).annotatedWith(MesosLog.WriteTimeout.class)
         .toInstance(WRITE_TIMEOUT.get());
 
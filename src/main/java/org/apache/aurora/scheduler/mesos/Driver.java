@@ -33,13 +33,13 @@ import org.apache.mesos.Protos.TaskStatus;
 public interface Driver extends Service {
 
   /**
-   * Launches a task.
+   * Launches tasks with a single resource offer.  Launching no tasks declines the offer.
    *
-   * @param offerId ID of the resource offer to accept with the task.
-   * @param task Task to launch.
+   * @param offerId ID of the resource offer to accept with the tasks.
+   * @param tasks Tasks to launch.
    * @param filter offer filter applied to unused resources in this offer.
    */
-  void launchTask(OfferID offerId, TaskInfo task, Filters filter);
+  void launchTasks(OfferID offerId, Collection<TaskInfo> tasks, Filters filter);
 
   /**
    * Declines a resource offer.
@@ -79,6 +79,16 @@ public interface MesosTaskFactory {
    */
   TaskInfo createFrom(IAssignedTask task, Offer offer) throws SchedulerException;
 
+  /**
+   * Computes the resources of an offer that remain once a task is launched with it.
+   *
+   * @param task Assigned task to allocate resources for.
+   * @param offer Resource offer the task is being assigned to.
+   * @return A copy of {@code offer} without the resources allocated to the task and its executor.
+   * @throws SchedulerException If the offer does not hold the resources of the task.
+   */
+  Offer getRemainder(IAssignedTask task, Offer offer) throws SchedulerException;
+
   // TODO(wfarner): Move this class to its own file to reduce visibility to package private.
   class MesosTaskFactoryImpl implements MesosTaskFactory {
     private static final Logger LOG = LoggerFactory.getLogger(MesosTaskFactoryImpl.class);
@@ -137,16 +147,9 @@ public interface MesosTaskFactory {
       }
     }
 
-    @Override
-    public TaskInfo createFrom(IAssignedTask task, Offer offer) throws SchedulerException {
-      requireNonNull(task);
-      requireNonNull(offer);
-
-      ITaskConfig config = task.getTask();
-      AcceptedOffer acceptedOffer;
-      // TODO(wfarner): Re-evaluate if/why we need to continue handling unset assignedPorts field.
+    private AcceptedOffer allocate(IAssignedTask task, Offer offer) throws SchedulerException {
       try {
-        acceptedOffer = AcceptedOffer.create(
+        return AcceptedOffer.create(
             offer,
             task,
             executorSettings.getExecutorOverhead(),
@@ -154,6 +157,24 @@ public interface MesosTaskFactory {
       } catch (ResourceManager.InsufficientResourcesException e) {
         throw new SchedulerException(e);
       }
+    }
+
+    @Override
+    public Offer getRemainder(IAssignedTask task, Offer offer) throws SchedulerException {
+      requireNonNull(task);
+      requireNonNull(offer);
+
+      return allocate(task, offer).subtractFrom(offer);
+    }
+
+    @Override
+    public TaskInfo createFrom(IAssignedTask task, Offer offer) throws SchedulerException {
+      requireNonNull(task);
+      requireNonNull(offer);
+
+      ITaskConfig config = task.getTask();
+      // TODO(wfarner): Re-evaluate if/why we need to continue handling unset assignedPorts field.
+      AcceptedOffer acceptedOffer = allocate(task, offer);
       Iterable<Resource> resources = acceptedOffer.getTaskResources();
 
       LOG.debug(
@@ -116,10 +116,13 @@ class SchedulerDriverService extends AbstractIdleService implements Driver {
   }
 
   @Override
-  public void launchTask(Protos.OfferID offerId, Protos.TaskInfo task, Protos.Filters filter) {
+  public void launchTasks(
+      Protos.OfferID offerId,
+      Collection<Protos.TaskInfo> tasks,
+      Protos.Filters filter) {
+
     ensureRunning();
-    Futures.getUnchecked(driverFuture)
-        .launchTasks(ImmutableList.of(offerId), ImmutableList.of(task), filter);
+    Futures.getUnchecked(driverFuture).launchTasks(ImmutableList.of(offerId), tasks, filter);
   }
 
   @Override
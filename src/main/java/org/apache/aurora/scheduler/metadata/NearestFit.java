@@ -121,14 +121,6 @@ public class NearestFit implements EventSubscriber {
   private static class Fit {
     private ImmutableSet<Veto> vetoes;
 
-    private static int score(Iterable<Veto> vetoes) {
-      int total = 0;
-      for (Veto veto : vetoes) {
-        total += veto.getScore();
-      }
-      return total;
-    }
-
     private void update(Iterable<Veto> newVetoes) {
       vetoes = ImmutableSet.copyOf(newVetoes);
     }
@@ -147,7 +139,7 @@ public class NearestFit implements EventSubscriber {
         return;
       }
 
-      if (score(newVetoes) < score(vetoes)) {
+      if (Veto.aggregateScore(newVetoes) < Veto.aggregateScore(vetoes)) {
         update(newVetoes);
       }
     }
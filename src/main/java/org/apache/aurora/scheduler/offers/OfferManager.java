@@ -14,8 +14,10 @@
 package org.apache.aurora.scheduler.offers;
 
 import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -31,11 +33,14 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Ordering;
+import com.google.common.collect.Sets;
 import com.google.common.eventbus.Subscribe;
 
 import org.apache.aurora.common.inject.TimedInterceptor.Timed;
 import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.stats.SlidingStats;
 import org.apache.aurora.common.stats.Stats;
+import org.apache.aurora.common.util.Clock;
 import org.apache.aurora.gen.MaintenanceMode;
 import org.apache.aurora.scheduler.HostOffer;
 import org.apache.aurora.scheduler.async.AsyncModule.AsyncExecutor;
@@ -89,13 +94,42 @@ public interface OfferManager extends EventSubscriber {
   void banOffer(OfferID offerId, TaskGroupKey groupKey);
 
   /**
-   * Launches the task matched against the offer.
+   * Removes an offer from the pool so that it may be used to launch tasks.  A claimed offer is no
+   * longer returned by {@link #getOffers()}, and is not declined after the offer return delay.
    *
    * @param offerId Matched offer ID.
-   * @param task Matched task info.
-   * @throws LaunchException If there was an error launching the task.
+   * @return {@code true} if the offer was claimed, or {@code false} if it no longer exists in the
+   *         pool.
    */
-  void launchTask(OfferID offerId, Protos.TaskInfo task) throws LaunchException;
+  boolean claimOffer(OfferID offerId);
+
+  /**
+   * Returns the unused remainder of a claimed offer to the pool, so that more tasks may be packed
+   * onto it and launched with the same offer.  Unlike offers added with {@link #addOffer}, a
+   * remainder is never declined after the offer return delay.  It stays in the pool until it is
+   * claimed again, or withdrawn with {@link #cancelOffer(OfferID)} once the tasks packed onto the
+   * offer are launched.
+   *
+   * @param remainder Offer holding the resources of a claimed offer that were not used.
+   */
+  void addPackedOffer(HostOffer remainder);
+
+  /**
+   * Returns an offer claimed with {@link #claimOffer(OfferID)} to the pool without using it, for
+   * instance when the task it was claimed for could not be assigned to it.
+   *
+   * @param offer Claimed offer.
+   */
+  void releaseOffer(HostOffer offer);
+
+  /**
+   * Launches tasks with an offer previously claimed with {@link #claimOffer(OfferID)}.
+   *
+   * @param offerId Claimed offer ID.
+   * @param tasks Matched task infos.
+   * @throws LaunchException If there was an error launching the tasks.
+   */
+  void launchTasks(OfferID offerId, List<Protos.TaskInfo> tasks) throws LaunchException;
 
   /**
    * Notifies the offer queue that a host's attributes have changed.
@@ -147,21 +181,28 @@ public interface OfferManager extends EventSubscriber {
 
     private final HostOffers hostOffers = new HostOffers();
     private final AtomicLong offerRaces = Stats.exportLong("offer_accept_races");
+    private final SlidingStats placementLatency =
+        new SlidingStats("offer_placement_latency", "ms");
+    // Time each offer was received at, until the offer is declined, canceled or launched.
+    private final ConcurrentMap<OfferID, Long> receivedAtMs = Maps.newConcurrentMap();
 
     private final Driver driver;
     private final OfferSettings offerSettings;
     private final DelayExecutor executor;
+    private final Clock clock;
 
     @Inject
     @VisibleForTesting
     public OfferManagerImpl(
         Driver driver,
         OfferSettings offerSettings,
-        @AsyncExecutor DelayExecutor executor) {
+        @AsyncExecutor DelayExecutor executor,
+        Clock clock) {
 
       this.driver = requireNonNull(driver);
       this.offerSettings = requireNonNull(offerSettings);
       this.executor = requireNonNull(executor);
+      this.clock = requireNonNull(clock);
     }
 
     @Override
@@ -180,6 +221,7 @@ public interface OfferManager extends EventSubscriber {
         decline(offer.getOffer().getId());
         removeAndDecline(sameSlave.get().getOffer().getId());
       } else {
+        receivedAtMs.put(offer.getOffer().getId(), clock.nowMillis());
         hostOffers.add(offer);
         executor.execute(
             () -> removeAndDecline(offer.getOffer().getId()),
@@ -188,7 +230,9 @@ public interface OfferManager extends EventSubscriber {
     }
 
     void removeAndDecline(OfferID id) {
-      if (removeFromHostOffers(id)) {
+      // Packed offers are held until their tasks are launched, and must not be declined.
+      if (hostOffers.removeUnlessPacked(id)) {
+        receivedAtMs.remove(id);
         decline(id);
       }
     }
@@ -207,6 +251,7 @@ public interface OfferManager extends EventSubscriber {
     @Override
     public void cancelOffer(final OfferID offerId) {
       removeFromHostOffers(offerId);
+      receivedAtMs.remove(offerId);
     }
 
     private boolean removeFromHostOffers(final OfferID offerId) {
@@ -254,6 +299,7 @@ public interface OfferManager extends EventSubscriber {
     public void driverDisconnected(DriverDisconnected event) {
       LOG.info("Clearing stale offers since the driver is disconnected.");
       hostOffers.clear();
+      receivedAtMs.clear();
     }
 
     /**
@@ -279,7 +325,14 @@ public interface OfferManager extends EventSubscriber {
       // TODO(maxim): Expose via a debug endpoint. AURORA-1136.
       // Keep track of offer->groupKey mappings that will never be matched to avoid redundant
       // scheduling attempts. See VetoGroup for more details on static ban.
-      private final Multimap<OfferID, TaskGroupKey> staticallyBannedOffers = HashMultimap.create();
+      // Bans are indexed by group, so that filtering the offers for a group costs a single set
+      // probe per offer. The inverse index is only used to clean up bans when an offer goes away.
+      private final Map<TaskGroupKey, Set<OfferID>> staticallyBannedOffers = Maps.newHashMap();
+      private final Multimap<OfferID, TaskGroupKey> staticallyBannedGroups = HashMultimap.create();
+      // Offers returned to the pool with the remainder of a claimed offer.
+      private final Set<OfferID> packedOffers = Sets.newHashSet();
+      // Packed offers that are claimed, so that they stay packed if they are released.
+      private final Set<OfferID> claimedPackedOffers = Sets.newHashSet();
 
       HostOffers() {
         // Potential gotcha - since this is a ConcurrentSkipListSet, size() is more expensive.
@@ -298,13 +351,55 @@ public interface OfferManager extends EventSubscriber {
         offersByHost.put(offer.getOffer().getHostname(), offer);
       }
 
+      synchronized void addPacked(HostOffer offer) {
+        add(offer);
+        packedOffers.add(offer.getOffer().getId());
+      }
+
+      synchronized boolean claim(OfferID id) {
+        boolean packed = packedOffers.contains(id);
+        if (remove(id)) {
+          if (packed) {
+            claimedPackedOffers.add(id);
+          }
+          return true;
+        }
+        return false;
+      }
+
+      /**
+       * Returns a claimed offer to the pool.
+       *
+       * @return {@code true} if the offer was packed when it was claimed.
+       */
+      synchronized boolean release(HostOffer offer) {
+        if (claimedPackedOffers.remove(offer.getOffer().getId())) {
+          addPacked(offer);
+          return true;
+        }
+        add(offer);
+        return false;
+      }
+
+      synchronized boolean removeUnlessPacked(OfferID id) {
+        return !packedOffers.contains(id) && remove(id);
+      }
+
       synchronized boolean remove(OfferID id) {
         HostOffer removed = offersById.remove(id);
+        packedOffers.remove(id);
+        claimedPackedOffers.remove(id);
         if (removed != null) {
           offers.remove(removed);
           offersBySlave.remove(removed.getOffer().getSlaveId());
           offersByHost.remove(removed.getOffer().getHostname());
-          staticallyBannedOffers.removeAll(id);
+          for (TaskGroupKey groupKey : staticallyBannedGroups.removeAll(id)) {
+            Set<OfferID> banned = staticallyBannedOffers.get(groupKey);
+            banned.remove(id);
+            if (banned.isEmpty()) {
+              staticallyBannedOffers.remove(groupKey);
+            }
+          }
         }
         return removed != null;
       }
@@ -313,8 +408,13 @@ public interface OfferManager extends EventSubscriber {
         HostOffer offer = offersByHost.remove(attributes.getHost());
         if (offer != null) {
           // Remove and re-add a host's offer to re-sort based on its new hostStatus
+          boolean packed = packedOffers.contains(offer.getOffer().getId());
           remove(offer.getOffer().getId());
-          add(new HostOffer(offer.getOffer(), attributes));
+          if (packed) {
+            addPacked(new HostOffer(offer.getOffer(), attributes));
+          } else {
+            add(new HostOffer(offer.getOffer(), attributes));
+          }
         }
       }
 
@@ -323,13 +423,26 @@ public interface OfferManager extends EventSubscriber {
       }
 
       synchronized Iterable<HostOffer> getWeaklyConsistentOffers(TaskGroupKey groupKey) {
+        Set<OfferID> banned = staticallyBannedOffers.get(groupKey);
+        if (banned == null) {
+          return Iterables.unmodifiableIterable(offers);
+        }
+
+        // Copy the bans, since the returned iterable is consumed outside of the lock.
+        Set<OfferID> bannedSnapshot = ImmutableSet.copyOf(banned);
         return Iterables.unmodifiableIterable(FluentIterable.from(offers).filter(
-            e -> !staticallyBannedOffers.containsEntry(e.getOffer().getId(), groupKey)));
+            e -> !bannedSnapshot.contains(e.getOffer().getId())));
       }
 
       synchronized void addStaticGroupBan(OfferID offerId, TaskGroupKey groupKey) {
         if (offersById.containsKey(offerId)) {
-          staticallyBannedOffers.put(offerId, groupKey);
+          Set<OfferID> banned = staticallyBannedOffers.get(groupKey);
+          if (banned == null) {
+            banned = Sets.newHashSet();
+            staticallyBannedOffers.put(groupKey, banned);
+          }
+          banned.add(offerId);
+          staticallyBannedGroups.put(offerId, groupKey);
         }
       }
 
@@ -339,6 +452,9 @@ public interface OfferManager extends EventSubscriber {
         offersBySlave.clear();
         offersByHost.clear();
         staticallyBannedOffers.clear();
+        staticallyBannedGroups.clear();
+        packedOffers.clear();
+        claimedPackedOffers.clear();
       }
     }
 
@@ -347,26 +463,49 @@ public interface OfferManager extends EventSubscriber {
       hostOffers.addStaticGroupBan(offerId, groupKey);
     }
 
-    @Timed("offer_manager_launch_task")
     @Override
-    public void launchTask(OfferID offerId, Protos.TaskInfo task) throws LaunchException {
+    public boolean claimOffer(OfferID offerId) {
       // Guard against an offer being removed after we grabbed it from the iterator.
-      // If that happens, the offer will not exist in hostOffers, and we can immediately
-      // send it back to LOST for quick reschedule.
       // Removing while iterating counts on the use of a weakly-consistent iterator being used,
       // which is a feature of ConcurrentSkipListSet.
-      if (hostOffers.remove(offerId)) {
-        try {
-          driver.launchTask(offerId, task, getOfferFilter());
-        } catch (IllegalStateException e) {
-          // TODO(William Farner): Catch only the checked exception produced by Driver
-          // once it changes from throwing IllegalStateException when the driver is not yet
-          // registered.
-          throw new LaunchException("Failed to launch task.", e);
+      if (hostOffers.claim(offerId)) {
+        Long received = receivedAtMs.get(offerId);
+        if (received != null) {
+          placementLatency.accumulate(clock.nowMillis() - received);
         }
-      } else {
-        offerRaces.incrementAndGet();
-        throw new LaunchException("Offer no longer exists in offer queue, likely data race.");
+        return true;
+      }
+
+      offerRaces.incrementAndGet();
+      return false;
+    }
+
+    @Override
+    public void addPackedOffer(HostOffer remainder) {
+      hostOffers.addPacked(remainder);
+    }
+
+    @Override
+    public void releaseOffer(HostOffer offer) {
+      if (!hostOffers.release(offer)) {
+        // The return delay may have elapsed while the offer was claimed, so it is restarted.
+        executor.execute(
+            () -> removeAndDecline(offer.getOffer().getId()),
+            offerSettings.getOfferReturnDelay());
+      }
+    }
+
+    @Timed("offer_manager_launch_task")
+    @Override
+    public void launchTasks(OfferID offerId, List<Protos.TaskInfo> tasks) throws LaunchException {
+      receivedAtMs.remove(offerId);
+      try {
+        driver.launchTasks(offerId, tasks, getOfferFilter());
+      } catch (IllegalStateException e) {
+        // TODO(William Farner): Catch only the checked exception produced by Driver
+        // once it changes from throwing IllegalStateException when the driver is not yet
+        // registered.
+        throw new LaunchException("Failed to launch tasks.", e);
       }
     }
   }
@@ -13,22 +13,24 @@
  */
 package org.apache.aurora.scheduler.preemptor;
 
+import java.util.Collections;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
-import com.google.common.base.Ticker;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.RemovalListener;
-import com.google.common.cache.RemovalNotification;
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Multimap;
+import com.google.common.collect.ForwardingMap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Time;
@@ -37,9 +39,15 @@ import org.apache.aurora.common.util.Clock;
 
 import static java.util.Objects.requireNonNull;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 /**
  * A bi-directional cache of items. Entries are purged from cache after
  * {@link BiCacheSettings#expireAfter}.
+ * <p>
+ * Lookups by key and by value are constant time and never copy the cache contents.  Expired
+ * entries are invisible to lookups immediately, and are purged by a timer wheel that is advanced
+ * opportunistically on access rather than by a cleanup pass over the whole cache.
  *
  * @param <K> Key type.
  * @param <V> Value type.
@@ -48,43 +56,108 @@ public class BiCache<K, V> {
 
   public static class BiCacheSettings {
     private final Amount<Long, Time> expireAfter;
-    private final String cacheSizeStatName;
+    private final String statPrefix;
 
-    public BiCacheSettings(Amount<Long, Time> expireAfter, String cacheSizeStatName) {
+    /**
+     * Creates cache settings.
+     *
+     * @param expireAfter Time after which entries expire.
+     * @param statPrefix Prefix of the exported stats, e.g. {@code <prefix>_size}.
+     */
+    public BiCacheSettings(Amount<Long, Time> expireAfter, String statPrefix) {
       this.expireAfter = requireNonNull(expireAfter);
-      this.cacheSizeStatName = requireNonNull(cacheSizeStatName);
+      this.statPrefix = requireNonNull(statPrefix);
+    }
+  }
+
+  @VisibleForTesting
+  static final int WHEEL_SIZE = 64;
+
+  private static final class Entry<V> {
+    private final V value;
+    private final long expiresAtNanos;
+
+    Entry(V value, long expiresAtNanos) {
+      this.value = value;
+      this.expiresAtNanos = expiresAtNanos;
     }
   }
 
-  private final Cache<K, V> cache;
-  private final Multimap<V, K> inverse = HashMultimap.create();
+  private static final class Expiration<K, V> {
+    private final K key;
+    private final Entry<V> entry;
+
+    Expiration(K key, Entry<V> entry) {
+      this.key = key;
+      this.entry = entry;
+    }
+  }
+
+  private final Clock clock;
+  private final long expireAfterNanos;
+  private final long tickNanos;
+  private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+  private final Map<V, Set<K>> inverse = new ConcurrentHashMap<>();
+  private final Map<K, V> view;
+
+  // Each bucket holds the entries expiring in the ticks that map to it.  Only the thread holding
+  // wheelLock advances the wheel, other threads skip expiration rather than wait.
+  private final Queue<Expiration<K, V>>[] wheel;
+  private final Lock wheelLock = new ReentrantLock();
+  private volatile long lastTick;
+
+  private final AtomicLong hits;
+  private final AtomicLong misses;
+  private final AtomicLong expirations;
 
+  @SuppressWarnings("unchecked")
   @Inject
   public BiCache(
       StatsProvider statsProvider,
       BiCacheSettings settings,
-      final Clock clock) {
-
-    requireNonNull(clock);
-    this.cache = CacheBuilder.newBuilder()
-        .expireAfterWrite(settings.expireAfter.as(Time.MINUTES), TimeUnit.MINUTES)
-        .ticker(new Ticker() {
-          @Override
-          public long read() {
-            return clock.nowNanos();
-          }
-        })
-        .removalListener(new RemovalListener<K, V>() {
-          @Override
-          public void onRemoval(RemovalNotification<K, V> notification) {
-            inverse.remove(notification.getValue(), notification.getKey());
-          }
-        })
-        .build();
+      Clock clock) {
+
+    this.clock = requireNonNull(clock);
+    this.expireAfterNanos = settings.expireAfter.as(Time.NANOSECONDS);
+    checkArgument(expireAfterNanos > 0, "Entries must expire after a positive duration.");
+    this.tickNanos = Math.max(1, expireAfterNanos / WHEEL_SIZE);
+    this.wheel = new Queue[WHEEL_SIZE];
+    for (int i = 0; i < WHEEL_SIZE; i++) {
+      wheel[i] = new ConcurrentLinkedQueue<>();
+    }
+    this.lastTick = tick(clock.nowNanos());
+
+    Map<K, V> live = Collections.unmodifiableMap(Maps.transformValues(
+        Maps.filterValues(entries, this::isLive),
+        entry -> entry.value));
+    // Lookups through the view are counted like those through get().
+    this.view = new ForwardingMap<K, V>() {
+      @Override
+      protected Map<K, V> delegate() {
+        return live;
+      }
+
+      @Override
+      public V get(@Nullable Object key) {
+        return lookup(key);
+      }
+
+      @Override
+      public boolean containsKey(@Nullable Object key) {
+        return lookup(key) != null;
+      }
+    };
 
     statsProvider.makeGauge(
-        settings.cacheSizeStatName,
-        cache::size);
+        settings.statPrefix + "_size",
+        () -> {
+          expire();
+          // Entries that expired within the current tick of the wheel are not yet purged.
+          return entries.values().stream().filter(this::isLive).count();
+        });
+    this.hits = statsProvider.makeCounter(settings.statPrefix + "_hits");
+    this.misses = statsProvider.makeCounter(settings.statPrefix + "_misses");
+    this.expirations = statsProvider.makeCounter(settings.statPrefix + "_expirations");
   }
 
   /**
@@ -93,11 +166,20 @@ public class BiCache<K, V> {
    * @param key Key to add.
    * @param value Value to add.
    */
-  public synchronized void put(K key, V value) {
+  public void put(K key, V value) {
     requireNonNull(key);
     requireNonNull(value);
-    cache.put(key, value);
-    inverse.put(value, key);
+    expire();
+
+    Entry<V> entry = new Entry<>(value, clock.nowNanos() + expireAfterNanos);
+    entries.compute(key, (k, previous) -> {
+      if (previous != null && !previous.value.equals(value)) {
+        removeInverse(previous.value, k);
+      }
+      addInverse(value, k);
+      return entry;
+    });
+    wheel[bucket(tick(entry.expiresAtNanos))].add(new Expiration<>(key, entry));
   }
 
   /**
@@ -106,21 +188,47 @@ public class BiCache<K, V> {
    * @param key Key to get value for.
    * @return Optional of value.
    */
-  public synchronized Optional<V> get(K key) {
-    return Optional.fromNullable(cache.getIfPresent(key));
+  public Optional<V> get(K key) {
+    return Optional.fromNullable(lookup(key));
+  }
+
+  @Nullable
+  private V lookup(Object key) {
+    expire();
+    Entry<V> entry = entries.get(key);
+    if (entry != null && isLive(entry)) {
+      hits.incrementAndGet();
+      return entry.value;
+    }
+    misses.incrementAndGet();
+    return null;
   }
 
   /**
    * Gets a set of keys for a given value.
    *
    * @param value Value to get all keys for.
-   * @return An {@link Iterable} of keys or empty if value does not exist.
+   * @return A read-only view of the keys for {@code value}, which is empty if value does not
+   *     exist.
    */
-  public synchronized Set<K> getByValue(V value) {
-    // Cache items are lazily removed by routine maintenance operations during get/write access.
-    // Forcing cleanup here to ensure proper data integrity.
-    cache.cleanUp();
-    return ImmutableSet.copyOf(inverse.get(value));
+  public Set<K> getByValue(V value) {
+    expire();
+    Set<K> keys = inverse.get(value);
+    if (keys == null) {
+      misses.incrementAndGet();
+      return Collections.emptySet();
+    }
+
+    Set<K> live = Collections.unmodifiableSet(Sets.filter(keys, key -> {
+      Entry<V> entry = entries.get(key);
+      return entry != null && isLive(entry) && entry.value.equals(value);
+    }));
+    if (live.isEmpty()) {
+      misses.incrementAndGet();
+    } else {
+      hits.incrementAndGet();
+    }
+    return live;
   }
 
   /**
@@ -129,17 +237,99 @@ public class BiCache<K, V> {
    * @param key Key to remove.
    * @param value Value to remove.
    */
-  public synchronized void remove(K key, V value) {
-    inverse.remove(value, key);
-    cache.invalidate(key);
+  public void remove(K key, V value) {
+    requireNonNull(key);
+    entries.computeIfPresent(key, (k, entry) -> {
+      if (entry.value.equals(value)) {
+        removeInverse(value, k);
+        return null;
+      }
+      return entry;
+    });
   }
 
   /**
-   * Returns an immutable copy of entries stored in this cache.
+   * Returns a read-only view of the entries stored in this cache.  The view reflects later
+   * changes to the cache, and lookups through it are constant time and counted in the cache
+   * stats.
    *
-   * @return Immutable map of cache entries.
+   * @return Live map view of cache entries.
+   */
+  public Map<K, V> asMap() {
+    return view;
+  }
+
+  private boolean isLive(Entry<V> entry) {
+    return entry.expiresAtNanos - clock.nowNanos() > 0;
+  }
+
+  private void addInverse(V value, K key) {
+    inverse.compute(value, (v, keys) -> {
+      Set<K> updated = keys == null ? ConcurrentHashMap.newKeySet() : keys;
+      updated.add(key);
+      return updated;
+    });
+  }
+
+  private void removeInverse(V value, K key) {
+    inverse.computeIfPresent(value, (v, keys) -> {
+      keys.remove(key);
+      return keys.isEmpty() ? null : keys;
+    });
+  }
+
+  private long tick(long nanos) {
+    return Math.floorDiv(nanos, tickNanos);
+  }
+
+  private static int bucket(long tick) {
+    return (int) Math.floorMod(tick, (long) WHEEL_SIZE);
+  }
+
+  /**
+   * Advances the timer wheel to the current time, purging the entries that expired in the ticks
+   * passed.  Entries in a passed bucket that expire in a later rotation of the wheel are kept.
    */
-  public synchronized Map<K, V> asMap() {
-    return ImmutableMap.copyOf(cache.asMap());
+  private void expire() {
+    long now = clock.nowNanos();
+    long currentTick = tick(now);
+    if (currentTick == lastTick || !wheelLock.tryLock()) {
+      return;
+    }
+
+    try {
+      // Every bucket is visited at most once, regardless of how many ticks passed.
+      long firstTick = Math.max(lastTick, currentTick - WHEEL_SIZE + 1);
+      for (long t = firstTick; t <= currentTick; t++) {
+        Queue<Expiration<K, V>> queue = wheel[bucket(t)];
+        int pending = queue.size();
+        for (int i = 0; i < pending; i++) {
+          Expiration<K, V> expiration = queue.poll();
+          if (expiration == null) {
+            break;
+          }
+          if (expiration.entry.expiresAtNanos - now > 0) {
+            queue.add(expiration);
+          } else {
+            purge(expiration);
+          }
+        }
+      }
+      lastTick = currentTick;
+    } finally {
+      wheelLock.unlock();
+    }
+  }
+
+  private void purge(Expiration<K, V> expiration) {
+    // Only the entry scheduled here is removed, a key that has been put again since is kept.
+    entries.computeIfPresent(expiration.key, (k, entry) -> {
+      if (entry == expiration.entry) {
+        removeInverse(entry.value, k);
+        expirations.incrementAndGet();
+        return null;
+      }
+      return entry;
+    });
   }
 }
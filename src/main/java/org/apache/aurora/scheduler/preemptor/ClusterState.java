@@ -13,6 +13,8 @@
  */
 package org.apache.aurora.scheduler.preemptor;
 
+import java.util.Map;
+
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Multimap;
 
@@ -31,4 +33,12 @@ public interface ClusterState {
    * @return Active tasks and their associated slave IDs.
    */
   Multimap<String, PreemptionVictim> getSlavesToActiveTasks();
+
+  /**
+   * Gets a snapshot of the resources held by the active tasks in the cluster, summarized per
+   * slave ID.  Slaves without active tasks are omitted.
+   *
+   * @return Summaries of the active tasks on each slave.
+   */
+  Map<String, VictimSummary> getSlavesToVictimSummaries();
 }
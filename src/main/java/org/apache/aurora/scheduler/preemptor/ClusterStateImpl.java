@@ -13,8 +13,12 @@
  */
 package org.apache.aurora.scheduler.preemptor;
 
+import java.util.Map;
+
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.eventbus.Subscribe;
 
@@ -28,6 +32,8 @@ import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
 public class ClusterStateImpl implements ClusterState, PubsubEvent.EventSubscriber {
 
   private final Multimap<String, PreemptionVictim> victims = HashMultimap.create();
+  // Guarded by victims.
+  private final Map<String, VictimSummary> summaries = Maps.newHashMap();
 
   @Override
   public Multimap<String, PreemptionVictim> getSlavesToActiveTasks() {
@@ -36,15 +42,31 @@ public class ClusterStateImpl implements ClusterState, PubsubEvent.EventSubscrib
     }
   }
 
+  @Override
+  public Map<String, VictimSummary> getSlavesToVictimSummaries() {
+    synchronized (victims) {
+      return ImmutableMap.copyOf(summaries);
+    }
+  }
+
   @Subscribe
   public void taskChangedState(TaskStateChange stateChange) {
     synchronized (victims) {
       String slaveId = stateChange.getTask().getAssignedTask().getSlaveId();
       PreemptionVictim victim = PreemptionVictim.fromTask(stateChange.getTask().getAssignedTask());
       if (Tasks.SLAVE_ASSIGNED_STATES.contains(stateChange.getNewState())) {
-        victims.put(slaveId, victim);
-      } else {
-        victims.remove(slaveId, victim);
+        if (victims.put(slaveId, victim)) {
+          summaries.put(
+              slaveId,
+              summaries.getOrDefault(slaveId, VictimSummary.EMPTY).add(victim));
+        }
+      } else if (victims.remove(slaveId, victim)) {
+        VictimSummary summary = summaries.get(slaveId).remove(victim);
+        if (summary.isEmpty()) {
+          summaries.remove(slaveId);
+        } else {
+          summaries.put(slaveId, summary);
+        }
       }
     }
   }
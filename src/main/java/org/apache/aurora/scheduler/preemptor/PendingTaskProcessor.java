@@ -41,6 +41,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Multiset;
+import com.google.common.collect.Ordering;
 import com.google.common.collect.Sets;
 
 import org.apache.aurora.common.quantity.Amount;
@@ -125,6 +126,9 @@ public class PendingTaskProcessor implements Runnable {
         return null;
       }
 
+      Map<String, VictimSummary> slavesToVictimSummaries =
+          clusterState.getSlavesToVictimSummaries();
+
       // Group the offers by slave id so they can be paired with active tasks from the same slave.
       Map<String, HostOffer> slavesToOffers =
           Maps.uniqueIndex(offerManager.getOffers(), OFFER_TO_SLAVE_ID);
@@ -140,6 +144,8 @@ public class PendingTaskProcessor implements Runnable {
       // identical task group instances are removed from further iteration if none of the
       // available slaves could yield a preemption proposal. A consuming iterator is used for
       // task groups to ensure iteration order is preserved after a task group is removed.
+      // Slaves that cannot fit a group's task even after preempting every possible victim are
+      // skipped, and the remaining slaves are searched in order of decreasing fit.
       LoadingCache<IJobKey, AttributeAggregate> jobStates = attributeCache(store);
       List<TaskGroupKey> pendingGroups = fetchIdlePendingGroups(store);
       Iterator<TaskGroupKey> groups = Iterators.consumingIterator(pendingGroups.iterator());
@@ -149,9 +155,9 @@ public class PendingTaskProcessor implements Runnable {
         ITaskConfig task = group.getTask();
 
         metrics.recordPreemptionAttemptFor(task);
-        Iterator<String> slaveIterator = allSlaves.iterator();
-        while (slaveIterator.hasNext()) {
-          String slaveId = slaveIterator.next();
+        List<String> slaves =
+            rankSlaves(task, allSlaves, slavesToVictimSummaries, slavesToOffers);
+        for (String slaveId : slaves) {
           Optional<ImmutableSet<PreemptionVictim>> candidates =
               preemptionVictimFilter.filterPreemptionVictims(
                   task,
@@ -163,7 +169,7 @@ public class PendingTaskProcessor implements Runnable {
           metrics.recordSlotSearchResult(candidates, task);
           if (candidates.isPresent()) {
             // Slot found -> remove slave to avoid multiple task reservations.
-            slaveIterator.remove();
+            allSlaves.remove(slaveId);
             slotCache.put(new PreemptionProposal(candidates.get(), slaveId), group);
             matched = true;
             break;
@@ -179,6 +185,28 @@ public class PendingTaskProcessor implements Runnable {
     });
   }
 
+  private List<String> rankSlaves(
+      ITaskConfig task,
+      Set<String> slaves,
+      Map<String, VictimSummary> slavesToVictimSummaries,
+      Map<String, HostOffer> slavesToOffers) {
+
+    Map<String, Double> fits = Maps.newHashMap();
+    for (String slaveId : slaves) {
+      Optional<Double> fit = preemptionVictimFilter.estimateSlotFit(
+          task,
+          slavesToVictimSummaries.getOrDefault(slaveId, VictimSummary.EMPTY),
+          Optional.fromNullable(slavesToOffers.get(slaveId)));
+      if (fit.isPresent()) {
+        fits.put(slaveId, fit.get());
+      } else {
+        metrics.recordSlavePruned();
+      }
+    }
+    return Ordering.<Double>natural().onResultOf(Functions.forMap(fits)).reverse()
+        .sortedCopy(fits.keySet());
+  }
+
   private List<TaskGroupKey> fetchIdlePendingGroups(StoreProvider store) {
     Multiset<TaskGroupKey> taskGroupCounts = HashMultiset.create(
         FluentIterable.from(store.getTaskStore().fetchTasks(Query.statusScoped(PENDING)))
@@ -14,6 +14,7 @@
 package org.apache.aurora.scheduler.preemptor;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.inject.Inject;
@@ -33,6 +34,7 @@ import org.apache.aurora.scheduler.HostOffer;
 import org.apache.aurora.scheduler.TierManager;
 import org.apache.aurora.scheduler.configuration.executor.ExecutorSettings;
 import org.apache.aurora.scheduler.filter.AttributeAggregate;
+import org.apache.aurora.scheduler.filter.ConstraintEvaluator;
 import org.apache.aurora.scheduler.filter.SchedulingFilter;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.ResourceRequest;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.UnusedResource;
@@ -83,6 +85,22 @@ public interface PreemptionVictimFilter {
       Optional<HostOffer> offer,
       StoreProvider storeProvider);
 
+  /**
+   * Cheaply estimates whether a slave may accommodate a given task, based on the total resources
+   * of the victims the task may preempt rather than individual victims.  A slave rejected here
+   * would also yield no victims from {@link #filterPreemptionVictims}.
+   *
+   * @param pendingTask Task to search preemption slot for.
+   * @param victims Summary of the active tasks on a slave.
+   * @param offer A resource offer for a slave.
+   * @return The fraction of the task's resources that the offer satisfies without preemption, or
+   *     absent if the task does not fit on the slave even after preempting all possible victims.
+   */
+  Optional<Double> estimateSlotFit(
+      ITaskConfig pendingTask,
+      VictimSummary victims,
+      Optional<HostOffer> offer);
+
   class PreemptionVictimFilterImpl implements PreemptionVictimFilter {
     private final SchedulingFilter schedulingFilter;
     private final ExecutorSettings executorSettings;
@@ -109,18 +127,32 @@ public interface PreemptionVictimFilter {
         PreemptionVictim::getSlaveHost;
 
     private final Function<PreemptionVictim, ResourceBag> victimToResources =
-        new Function<PreemptionVictim, ResourceBag>() {
-          @Override
-          public ResourceBag apply(PreemptionVictim victim) {
-            ResourceBag bag = victim.getResourceBag();
-            if (tierManager.getTier(victim.getConfig()).isRevocable()) {
-              // Revocable task CPU cannot be used for preemption purposes as it's a compressible
-              // resource. We can still use RAM, DISK and PORTS as they are not compressible.
-              bag = bag.filter(IS_MESOS_REVOCABLE.negate());
-            }
-            return bag.add(executorSettings.getExecutorOverhead());
-          }
-        };
+        victim -> reclaimableResources(victim.getConfig(), victim.getResourceBag(), 1);
+
+    private ResourceBag reclaimableResources(ITaskConfig config, ResourceBag bag, int victims) {
+      ResourceBag reclaimable = bag;
+      if (tierManager.getTier(config).isRevocable()) {
+        // Revocable task CPU cannot be used for preemption purposes as it's a compressible
+        // resource. We can still use RAM, DISK and PORTS as they are not compressible.
+        reclaimable = reclaimable.filter(IS_MESOS_REVOCABLE.negate());
+      }
+      return reclaimable.add(executorSettings.getExecutorOverhead().scale(victims));
+    }
+
+    private ResourceBag requiredResources(ITaskConfig pendingTask) {
+      return ResourceManager.bagFromResources(pendingTask.getResources())
+          .add(executorSettings.getExecutorOverhead());
+    }
+
+    private static ResourceBag slackResources(Optional<HostOffer> offer) {
+      return offer.asSet().stream()
+          .map(o -> bagFromMesosResources(getNonRevocableOfferResources(o.getOffer())))
+          .reduce((l, r) -> l.add(r))
+          .orElse(EMPTY);
+    }
+
+    // Tolerates the rounding error accumulated by summaries that are maintained incrementally.
+    private static final double FIT_TOLERANCE = 1e-6;
 
     private static final java.util.function.Predicate<Integer> IS_ZERO = e -> e == 0;
 
@@ -174,10 +206,7 @@ public interface PreemptionVictimFilter {
           .addAll(Iterables.transform(possibleVictims, VICTIM_TO_HOST))
           .addAll(Iterables.transform(offer.asSet(), OFFER_TO_HOST)).build();
 
-      ResourceBag slackResources = offer.asSet().stream()
-          .map(o -> bagFromMesosResources(getNonRevocableOfferResources(o.getOffer())))
-          .reduce((l, r) -> l.add(r))
-          .orElse(EMPTY);
+      ResourceBag slackResources = slackResources(offer);
 
       FluentIterable<PreemptionVictim> preemptableTasks = FluentIterable.from(possibleVictims)
           .filter(preemptionFilter(pendingTask));
@@ -197,17 +226,19 @@ public interface PreemptionVictimFilter {
         return Optional.absent();
       }
 
+      // The host attributes are indexed and the task constraints compiled once for all victims.
+      Map<String, Set<String>> indexedAttributes =
+          ConstraintEvaluator.indexAttributes(attributes.get());
+      ResourceRequest request =
+          new ResourceRequest(pendingTask, requiredResources(pendingTask), jobState);
+
       ResourceBag totalResource = slackResources;
       for (PreemptionVictim victim : sortedVictims) {
         toPreemptTasks.add(victim);
         totalResource = totalResource.add(victimToResources.apply(victim));
         Set<Veto> vetoes = schedulingFilter.filter(
-            new UnusedResource(totalResource, attributes.get()),
-            new ResourceRequest(
-                pendingTask,
-                ResourceManager.bagFromResources(pendingTask.getResources())
-                    .add(executorSettings.getExecutorOverhead()),
-                jobState));
+            new UnusedResource(totalResource, attributes.get(), indexedAttributes),
+            request);
 
         if (vetoes.isEmpty()) {
           return Optional.of(ImmutableSet.copyOf(toPreemptTasks));
@@ -216,6 +247,44 @@ public interface PreemptionVictimFilter {
       return Optional.absent();
     }
 
+    @Override
+    public Optional<Double> estimateSlotFit(
+        ITaskConfig pendingTask,
+        VictimSummary victims,
+        Optional<HostOffer> offer) {
+
+      Predicate<PreemptionVictim> filter = preemptionFilter(pendingTask);
+      ResourceBag victimResources = EMPTY;
+      boolean hasVictims = false;
+      for (VictimSummary.VictimGroup group : victims.getGroups()) {
+        if (filter.apply(group.getRepresentative())) {
+          hasVictims = true;
+          victimResources = victimResources.add(reclaimableResources(
+              group.getRepresentative().getConfig(),
+              group.getResources(),
+              group.getCount()));
+        }
+      }
+      if (!hasVictims) {
+        return Optional.absent();
+      }
+
+      ResourceBag slack = slackResources(offer);
+      ResourceBag available = slack.add(victimResources);
+      ResourceBag required = requiredResources(pendingTask);
+      boolean fits = required.streamResourceVectors().allMatch(
+          e -> available.valueOf(e.getKey()) + FIT_TOLERANCE >= e.getValue());
+      if (!fits) {
+        return Optional.absent();
+      }
+
+      return Optional.of(required.streamResourceVectors()
+          .filter(e -> e.getValue() > 0)
+          .mapToDouble(e -> Math.min(1.0, slack.valueOf(e.getKey()) / e.getValue()))
+          .min()
+          .orElse(1.0));
+    }
+
     /**
      * Creates a filter that will find tasks that the provided {@code pendingTask} may preempt.
      *
@@ -37,6 +37,9 @@ public class PreemptorMetrics {
   @VisibleForTesting
   static final String TASK_PROCESSOR_RUN_NAME = "preemptor_task_processor_runs";
 
+  @VisibleForTesting
+  static final String SLAVES_PRUNED_NAME = "preemptor_slot_search_slaves_pruned";
+
   private volatile boolean exported = false;
   private final CachedCounters counters;
 
@@ -72,7 +75,8 @@ public class PreemptorMetrics {
         slotValidationStatName(true),
         slotValidationStatName(false),
         MISSING_ATTRIBUTES_NAME,
-        TASK_PROCESSOR_RUN_NAME);
+        TASK_PROCESSOR_RUN_NAME,
+        SLAVES_PRUNED_NAME);
     for (String stat : allStats) {
       counters.get(stat);
     }
@@ -125,6 +129,10 @@ public class PreemptorMetrics {
     increment(MISSING_ATTRIBUTES_NAME);
   }
 
+  void recordSlavePruned() {
+    increment(SLAVES_PRUNED_NAME);
+  }
+
   void recordTaskProcessorRun() {
     increment(TASK_PROCESSOR_RUN_NAME);
   }
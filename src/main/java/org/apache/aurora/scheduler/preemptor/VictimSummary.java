@@ -0,0 +1,235 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.preemptor;
+
+import java.util.Objects;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import org.apache.aurora.scheduler.resources.ResourceBag;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * An immutable summary of the resources held by the active tasks on a slave, grouped into classes
+ * of tasks that share the properties deciding which pending tasks may preempt them (role, tier and
+ * priority).  A pending task may preempt either all or none of the tasks in a class, which allows
+ * bounding the resources it may reclaim on a slave without visiting individual victims.
+ */
+public final class VictimSummary {
+  public static final VictimSummary EMPTY = new VictimSummary(ImmutableMap.of());
+
+  private final ImmutableMap<VictimClass, VictimGroup> groups;
+
+  private VictimSummary(ImmutableMap<VictimClass, VictimGroup> groups) {
+    this.groups = requireNonNull(groups);
+  }
+
+  /**
+   * Gets the groups of victims in this summary.
+   *
+   * @return Victim groups, one per class of victims present on the slave.
+   */
+  public ImmutableCollection<VictimGroup> getGroups() {
+    return groups.values();
+  }
+
+  public boolean isEmpty() {
+    return groups.isEmpty();
+  }
+
+  /**
+   * Creates a summary that includes an additional victim.
+   *
+   * @param victim Victim to add.
+   * @return A new summary.
+   */
+  public VictimSummary add(PreemptionVictim victim) {
+    VictimClass victimClass = VictimClass.of(victim);
+    VictimGroup group = groups.get(victimClass);
+    VictimGroup updated = group == null
+        ? new VictimGroup(victim, victim.getResourceBag(), 1)
+        : new VictimGroup(
+            group.representative,
+            group.resources.add(victim.getResourceBag()),
+            group.count + 1);
+
+    return new VictimSummary(ImmutableMap.<VictimClass, VictimGroup>builder()
+        .putAll(Maps.filterKeys(groups, key -> !key.equals(victimClass)))
+        .put(victimClass, updated)
+        .build());
+  }
+
+  /**
+   * Creates a summary that excludes a victim previously added.
+   *
+   * @param victim Victim to remove.
+   * @return A new summary.
+   */
+  public VictimSummary remove(PreemptionVictim victim) {
+    VictimClass victimClass = VictimClass.of(victim);
+    VictimGroup group = groups.get(victimClass);
+    if (group == null) {
+      return this;
+    }
+
+    ImmutableMap.Builder<VictimClass, VictimGroup> builder = ImmutableMap.builder();
+    builder.putAll(Maps.filterKeys(groups, key -> !key.equals(victimClass)));
+    if (group.count > 1) {
+      // The representative is kept even if it is the victim removed, as it only stands for the
+      // properties shared by the class.
+      builder.put(victimClass, new VictimGroup(
+          group.representative,
+          group.resources.subtract(victim.getResourceBag()),
+          group.count - 1));
+    }
+    return new VictimSummary(builder.build());
+  }
+
+  /**
+   * Victims on a slave that belong to the same class.
+   */
+  public static final class VictimGroup {
+    private final PreemptionVictim representative;
+    private final ResourceBag resources;
+    private final int count;
+
+    VictimGroup(PreemptionVictim representative, ResourceBag resources, int count) {
+      this.representative = requireNonNull(representative);
+      this.resources = requireNonNull(resources);
+      this.count = count;
+    }
+
+    /**
+     * Gets a victim that stands for the class of this group.  It may no longer be active.
+     *
+     * @return A victim of the same role, tier and priority as all victims in the group.
+     */
+    public PreemptionVictim getRepresentative() {
+      return representative;
+    }
+
+    /**
+     * Gets the total resources reserved by the victims in the group.
+     *
+     * @return Resources of all victims in the group.
+     */
+    public ResourceBag getResources() {
+      return resources;
+    }
+
+    public int getCount() {
+      return count;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof VictimGroup)) {
+        return false;
+      }
+
+      VictimGroup other = (VictimGroup) o;
+      return Objects.equals(VictimClass.of(representative), VictimClass.of(other.representative))
+          && Objects.equals(resources, other.resources)
+          && count == other.count;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(VictimClass.of(representative), resources, count);
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+          .add("class", VictimClass.of(representative))
+          .add("resources", resources)
+          .add("count", count)
+          .toString();
+    }
+  }
+
+  private static final class VictimClass {
+    private final String role;
+    private final Optional<String> tier;
+    private final int priority;
+
+    private VictimClass(String role, Optional<String> tier, int priority) {
+      this.role = requireNonNull(role);
+      this.tier = requireNonNull(tier);
+      this.priority = priority;
+    }
+
+    static VictimClass of(PreemptionVictim victim) {
+      return new VictimClass(
+          victim.getRole(),
+          victim.getConfig().isSetTier()
+              ? Optional.of(victim.getConfig().getTier())
+              : Optional.absent(),
+          victim.getPriority());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof VictimClass)) {
+        return false;
+      }
+
+      VictimClass other = (VictimClass) o;
+      return Objects.equals(role, other.role)
+          && Objects.equals(tier, other.tier)
+          && priority == other.priority;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(role, tier, priority);
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+          .add("role", role)
+          .add("tier", tier)
+          .add("priority", priority)
+          .toString();
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof VictimSummary)) {
+      return false;
+    }
+
+    VictimSummary other = (VictimSummary) o;
+    return Objects.equals(groups, other.groups);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(groups);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("groups", groups)
+        .toString();
+  }
+}
@@ -0,0 +1,112 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.quota;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multiset;
+import com.google.common.util.concurrent.AbstractScheduledService;
+
+import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.scheduler.base.Query;
+import org.apache.aurora.scheduler.storage.Storage;
+import org.apache.aurora.scheduler.storage.Storage.StoreProvider;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Periodically compares the per-role counts of active task configurations that quota consumption
+ * is computed from against a full scan of the task store.
+ */
+class QuotaConsumptionVerifier extends AbstractScheduledService {
+  private static final Logger LOG = LoggerFactory.getLogger(QuotaConsumptionVerifier.class);
+
+  @VisibleForTesting
+  static final String MISMATCHES_STAT = "quota_consumption_verification_mismatches";
+
+  private final Storage storage;
+  private final Scheduler schedule;
+  private final AtomicLong mismatches;
+
+  @Inject
+  QuotaConsumptionVerifier(Storage storage, Scheduler schedule, StatsProvider statsProvider) {
+    this.storage = requireNonNull(storage);
+    this.schedule = requireNonNull(schedule);
+    this.mismatches = statsProvider.makeCounter(MISMATCHES_STAT);
+  }
+
+  @Override
+  protected Scheduler scheduler() {
+    return schedule;
+  }
+
+  @VisibleForTesting
+  @Override
+  public void runOneIteration() {
+    int mismatchedRoles = storage.read(this::verify);
+    if (mismatchedRoles == 0) {
+      LOG.info("Active task counts for quota consumption match the task store.");
+    }
+  }
+
+  private int verify(StoreProvider storeProvider) {
+    Map<String, Multiset<ITaskConfig>> expectedByRole = Maps.newHashMap();
+    for (IScheduledTask task
+        : storeProvider.getTaskStore().fetchTasks(Query.unscoped().active())) {
+
+      ITaskConfig config = task.getAssignedTask().getTask();
+      expectedByRole
+          .computeIfAbsent(config.getJob().getRole(), role -> HashMultiset.create())
+          .add(config);
+    }
+
+    // Roles whose tasks are all inactive or that only have a quota are checked as well, since
+    // their counts are expected to be empty.
+    Set<String> roles = ImmutableSet.<String>builder()
+        .addAll(expectedByRole.keySet())
+        .addAll(storeProvider.getQuotaStore().fetchQuotas().keySet())
+        .addAll(Iterables.transform(storeProvider.getTaskStore().getJobKeys(), IJobKey::getRole))
+        .build();
+    int mismatchedRoles = 0;
+    for (String role : roles) {
+      Multiset<ITaskConfig> expected = expectedByRole.getOrDefault(role, ImmutableMultiset.of());
+      Multiset<ITaskConfig> actual = storeProvider.getTaskStore().getActiveTaskConfigs(role);
+      if (!expected.equals(actual)) {
+        mismatchedRoles++;
+        mismatches.incrementAndGet();
+        LOG.warn(
+            "Active task counts for role {} do not match the task store. Counted {}, found {}.",
+            role,
+            actual.size(),
+            expected.size());
+      }
+    }
+    return mismatchedRoles;
+  }
+}
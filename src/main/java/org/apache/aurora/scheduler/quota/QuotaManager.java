@@ -27,7 +27,7 @@ import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Multimap;
+import com.google.common.collect.Multiset;
 import com.google.common.collect.RangeSet;
 
 import org.apache.aurora.gen.JobUpdateQuery;
@@ -270,10 +270,6 @@ public interface QuotaManager {
         Optional<IJobUpdate> requestedUpdate,
         StoreProvider storeProvider) {
 
-      FluentIterable<IAssignedTask> tasks = FluentIterable
-          .from(storeProvider.getTaskStore().fetchTasks(Query.roleScoped(role).active()))
-          .transform(IScheduledTask::getAssignedTask);
-
       Map<IJobKey, IJobUpdateInstructions> updates = Maps.newHashMap(
           fetchActiveJobUpdates(storeProvider.getJobUpdateStore(), role));
 
@@ -291,24 +287,48 @@ public interface QuotaManager {
               .filter(compose(equalTo(role), JobKeys::getRole))
               .uniqueIndex(IJobConfiguration::getKey);
 
+      // Active tasks are aggregated from the task store's per-role counts of task configurations.
+      // Only the tasks of jobs with active updates are fetched individually, since their
+      // consumption depends on whether each instance is affected by the update.
+      Multiset<ITaskConfig> activeConfigs = storeProvider.getTaskStore().getActiveTaskConfigs(role);
+      FluentIterable<IAssignedTask> updatingTasks = FluentIterable
+          .from(updates.isEmpty()
+              ? ImmutableSet.<IScheduledTask>of()
+              : storeProvider.getTaskStore().fetchTasks(Query.jobScoped(updates.keySet()).active()))
+          .transform(IScheduledTask::getAssignedTask);
+
       return new QuotaInfo(
           storeProvider.getQuotaStore().fetchQuota(role)
               .transform(ResourceManager::bagFromAggregate)
               .or(EMPTY),
-          getConsumption(tasks, updates, cronTemplates, PROD_SHARED),
-          getConsumption(tasks, updates, cronTemplates, PROD_DEDICATED),
-          getConsumption(tasks, updates, cronTemplates, NON_PROD_SHARED),
-          getConsumption(tasks, updates, cronTemplates, NON_PROD_DEDICATED));
+          getConsumption(activeConfigs, updatingTasks, updates, cronTemplates, PROD_SHARED),
+          getConsumption(activeConfigs, updatingTasks, updates, cronTemplates, PROD_DEDICATED),
+          getConsumption(activeConfigs, updatingTasks, updates, cronTemplates, NON_PROD_SHARED),
+          getConsumption(activeConfigs, updatingTasks, updates, cronTemplates, NON_PROD_DEDICATED));
     }
 
     private ResourceBag getConsumption(
-        FluentIterable<IAssignedTask> tasks,
+        Multiset<ITaskConfig> activeConfigs,
+        FluentIterable<IAssignedTask> updatingTasks,
         Map<IJobKey, IJobUpdateInstructions> updatesByKey,
         Map<IJobKey, IJobConfiguration> cronTemplatesByKey,
         Predicate<ITaskConfig> filter) {
 
-      FluentIterable<IAssignedTask> filteredTasks =
-          tasks.filter(compose(filter, IAssignedTask::getTask));
+      // Tasks of jobs that are neither cron jobs nor being updated are counted in full, while the
+      // consumption of cron tasks is tallied per job to be compared against their templates.
+      ResourceBag nonUpdatingConsumption = EMPTY;
+      Map<IJobKey, ResourceBag> cronTaskConsumption = Maps.newHashMap();
+      for (Multiset.Entry<ITaskConfig> entry : activeConfigs.entrySet()) {
+        ITaskConfig config = entry.getElement();
+        if (filter.apply(config)) {
+          ResourceBag resources = scale(config, entry.getCount());
+          if (cronTemplatesByKey.containsKey(config.getJob())) {
+            cronTaskConsumption.merge(config.getJob(), resources, ResourceBag::add);
+          } else if (!updatesByKey.containsKey(config.getJob())) {
+            nonUpdatingConsumption = nonUpdatingConsumption.add(resources);
+          }
+        }
+      }
 
       Predicate<IAssignedTask> excludeCron = compose(
           not(in(cronTemplatesByKey.keySet())),
@@ -316,16 +336,16 @@ public interface QuotaManager {
 
       ResourceBag nonCronConsumption = getNonCronConsumption(
           updatesByKey,
-          filteredTasks.filter(excludeCron),
+          updatingTasks.filter(compose(filter, IAssignedTask::getTask)).filter(excludeCron),
           filter);
 
       ResourceBag cronConsumption = getCronConsumption(
           Iterables.filter(
               cronTemplatesByKey.values(),
               compose(filter, IJobConfiguration::getTaskConfig)),
-          filteredTasks.transform(IAssignedTask::getTask));
+          cronTaskConsumption);
 
-      return nonCronConsumption.add(cronConsumption);
+      return nonUpdatingConsumption.add(nonCronConsumption).add(cronConsumption);
     }
 
     private static ResourceBag getNonCronConsumption(
@@ -333,11 +353,11 @@ public interface QuotaManager {
         FluentIterable<IAssignedTask> tasks,
         final Predicate<ITaskConfig> configFilter) {
 
-      // 1. Get all active tasks that belong to jobs without active updates OR unaffected by an
-      //    active update working set. An example of the latter would be instances not updated by
-      //    the update due to being already in desired state or outside of update range (e.g.
-      //    not in JobUpdateInstructions.updateOnlyTheseInstances). Calculate consumed resources
-      //    as "nonUpdateConsumption".
+      // 1. Get all active tasks of jobs with active updates that are unaffected by the update
+      //    working set. An example would be instances not updated by the update due to being
+      //    already in desired state or outside of update range (e.g. not in
+      //    JobUpdateInstructions.updateOnlyTheseInstances). Calculate consumed resources as
+      //    "nonUpdateConsumption".
       //
       // 2. Calculate consumed resources from instances affected by the active job updates as
       //    "updateConsumption".
@@ -359,7 +379,7 @@ public interface QuotaManager {
 
     private static ResourceBag getCronConsumption(
         Iterable<IJobConfiguration> cronTemplates,
-        FluentIterable<ITaskConfig> tasks) {
+        Map<IJobKey, ResourceBag> taskConsumptionByKey) {
 
       // Calculate the overall cron consumption as MAX between cron template resources and active
       // cron tasks. This is required to account for a case when a running cron task has higher
@@ -369,12 +389,11 @@ public interface QuotaManager {
       // cron scheduling, it's the simplest approach possible given the system constraints (e.g.:
       // lack of enforcement on a cron job run duration).
 
-      final Multimap<IJobKey, ITaskConfig> taskConfigsByKey = tasks.index(ITaskConfig::getJob);
       return addAll(Iterables.transform(
           cronTemplates,
           config ->
               scale(config.getTaskConfig(), config.getInstanceCount())
-                  .max(fromTasks(taskConfigsByKey.get(config.getKey())))));
+                  .max(taskConsumptionByKey.getOrDefault(config.getKey(), EMPTY))));
     }
 
     private static Predicate<IAssignedTask> buildNonUpdatingTasksFilter(
@@ -15,8 +15,15 @@ package org.apache.aurora.scheduler.quota;
 
 import javax.inject.Singleton;
 
+import com.google.common.util.concurrent.AbstractScheduledService;
 import com.google.inject.AbstractModule;
+import com.google.inject.PrivateModule;
 
+import org.apache.aurora.common.args.Arg;
+import org.apache.aurora.common.args.CmdLine;
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.scheduler.SchedulerServicesModule;
 import org.apache.aurora.scheduler.quota.QuotaManager.QuotaManagerImpl;
 import org.apache.aurora.scheduler.storage.Storage;
 
@@ -25,11 +32,39 @@ import org.apache.aurora.scheduler.storage.Storage;
  */
 public class QuotaModule extends AbstractModule {
 
+  @CmdLine(name = "enable_quota_consumption_verification",
+      help = "Periodically verify the active task counts that quota consumption is computed from "
+          + "against a full scan of the task store.")
+  private static final Arg<Boolean> ENABLE_CONSUMPTION_VERIFICATION = Arg.create(false);
+
+  @CmdLine(name = "quota_consumption_verification_interval",
+      help = "Interval on which to verify quota consumption, when enabled.")
+  private static final Arg<Amount<Long, Time>> CONSUMPTION_VERIFICATION_INTERVAL =
+      Arg.create(Amount.of(1L, Time.HOURS));
+
   @Override
   protected void configure() {
     requireBinding(Storage.class);
 
     bind(QuotaManager.class).to(QuotaManagerImpl.class);
     bind(QuotaManagerImpl.class).in(Singleton.class);
+
+    if (ENABLE_CONSUMPTION_VERIFICATION.get()) {
+      install(new PrivateModule() {
+        @Override
+        protected void configure() {
+          Amount<Long, Time> interval = CONSUMPTION_VERIFICATION_INTERVAL.get();
+          bind(AbstractScheduledService.Scheduler.class).toInstance(
+              AbstractScheduledService.Scheduler.newFixedDelaySchedule(
+                  interval.getValue(),
+                  interval.getValue(),
+                  interval.getUnit().getTimeUnit()));
+          bind(QuotaConsumptionVerifier.class).in(Singleton.class);
+          expose(QuotaConsumptionVerifier.class);
+        }
+      });
+      SchedulerServicesModule.addSchedulerActiveServiceBinding(binder())
+          .to(QuotaConsumptionVerifier.class);
+    }
   }
 }
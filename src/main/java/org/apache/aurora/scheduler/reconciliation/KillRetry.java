@@ -18,6 +18,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import javax.inject.Inject;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
 import com.google.common.collect.Iterables;
 import com.google.common.eventbus.Subscribe;
 
@@ -31,8 +32,9 @@ import org.apache.aurora.scheduler.async.DelayExecutor;
 import org.apache.aurora.scheduler.base.Query;
 import org.apache.aurora.scheduler.events.PubsubEvent.EventSubscriber;
 import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
-import org.apache.aurora.scheduler.mesos.Driver;
+import org.apache.aurora.scheduler.state.KillDispatcher;
 import org.apache.aurora.scheduler.storage.Storage;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,7 +42,7 @@ import static java.util.Objects.requireNonNull;
 
 /**
  * Watches for task transitions into {@link ScheduleStatus#KILLING KILLING} and periodically
- * retries {@link Driver#killTask(String)} until the task transitions.
+ * retries {@link KillDispatcher#killTask(String, Optional)} until the task transitions.
  */
 public class KillRetry implements EventSubscriber {
   private static final Logger LOG = LoggerFactory.getLogger(KillRetry.class);
@@ -48,7 +50,7 @@ public class KillRetry implements EventSubscriber {
   @VisibleForTesting
   static final String RETRIES_COUNTER = "task_kill_retries";
 
-  private final Driver driver;
+  private final KillDispatcher killDispatcher;
   private final Storage storage;
   private final DelayExecutor executor;
   private final BackoffStrategy backoffStrategy;
@@ -56,13 +58,13 @@ public class KillRetry implements EventSubscriber {
 
   @Inject
   KillRetry(
-      Driver driver,
+      KillDispatcher killDispatcher,
       Storage storage,
       @AsyncExecutor DelayExecutor executor,
       BackoffStrategy backoffStrategy,
       StatsProvider statsProvider) {
 
-    this.driver = requireNonNull(driver);
+    this.killDispatcher = requireNonNull(killDispatcher);
     this.storage = requireNonNull(storage);
     this.executor = requireNonNull(executor);
     this.backoffStrategy = requireNonNull(backoffStrategy);
@@ -92,11 +94,16 @@ public class KillRetry implements EventSubscriber {
     @Override
     public void run() {
       Query.Builder query = Query.taskScoped(taskId).byStatus(ScheduleStatus.KILLING);
-      if (!Iterables.isEmpty(Storage.Util.fetchTasks(storage, query))) {
+      IScheduledTask task = Iterables.getOnlyElement(
+          Storage.Util.fetchTasks(storage, query),
+          null);
+      if (task != null) {
         LOG.info("Task " + taskId + " not yet killed, retrying.");
 
         // Kill did not yet take effect, try again.
-        driver.killTask(taskId);
+        killDispatcher.killTask(
+            taskId,
+            Optional.fromNullable(task.getAssignedTask().getSlaveId()));
         killRetries.incrementAndGet();
         tryLater();
       }
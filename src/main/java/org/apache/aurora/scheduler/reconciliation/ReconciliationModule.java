@@ -95,10 +95,18 @@ public class ReconciliationModule extends AbstractModule {
 
   @Positive
   @CmdLine(name = "reconciliation_explicit_batch_interval",
-      help = "Interval between explicit batch reconciliation requests.")
+      help = "Minimum interval between explicit reconciliation requests. Each explicit "
+          + "reconciliation cycle is spread across the explicit interval in host slices at least "
+          + "this far apart.")
   private static final Arg<Amount<Long, Time>> RECONCILIATION_BATCH_INTERVAL =
       Arg.create(Amount.of(5L, Time.SECONDS));
 
+  @CmdLine(name = "reconciliation_explicit_confirmation_window",
+      help = "Explicit reconciliation skips tasks whose state was confirmed by a status update "
+          + "within this amount of time.")
+  private static final Arg<Amount<Long, Time>> RECONCILIATION_CONFIRMATION_WINDOW =
+      Arg.create(Amount.of(5L, Time.MINUTES));
+
   @Qualifier
   @Target({ FIELD, PARAMETER, METHOD }) @Retention(RUNTIME)
   @interface BackgroundWorker { }
@@ -140,13 +148,15 @@ public class ReconciliationModule extends AbstractModule {
             RECONCILIATION_IMPLICIT_INTERVAL.get(),
             RECONCILIATION_SCHEDULE_SPREAD.get(),
             RECONCILIATION_BATCH_INTERVAL.get(),
-            RECONCILIATION_BATCH_SIZE.get()));
+            RECONCILIATION_BATCH_SIZE.get(),
+            RECONCILIATION_CONFIRMATION_WINDOW.get()));
         bind(ScheduledExecutorService.class).annotatedWith(BackgroundWorker.class)
             .toInstance(AsyncUtil.loggingScheduledExecutor(1, "TaskReconciler-%d", LOG));
         bind(TaskReconciler.class).in(Singleton.class);
         expose(TaskReconciler.class);
       }
     });
+    PubsubEventModule.bindSubscriber(binder(), TaskReconciler.class);
     SchedulerServicesModule.addSchedulerActiveServiceBinding(binder()).to(TaskReconciler.class);
   }
 }
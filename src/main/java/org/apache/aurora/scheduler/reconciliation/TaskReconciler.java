@@ -14,7 +14,11 @@
 package org.apache.aurora.scheduler.reconciliation;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import javax.inject.Inject;
@@ -25,16 +29,25 @@ import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Ordering;
+import com.google.common.collect.Sets;
+import com.google.common.eventbus.Subscribe;
 import com.google.common.util.concurrent.AbstractIdleService;
 
 import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.common.util.Clock;
+import org.apache.aurora.gen.ScheduleStatus;
 import org.apache.aurora.scheduler.base.Query;
 import org.apache.aurora.scheduler.base.Tasks;
+import org.apache.aurora.scheduler.events.PubsubEvent.EventSubscriber;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.events.PubsubEvent.TasksDeleted;
 import org.apache.aurora.scheduler.mesos.Driver;
 import org.apache.aurora.scheduler.reconciliation.ReconciliationModule.BackgroundWorker;
 import org.apache.aurora.scheduler.storage.Storage;
+import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.apache.mesos.Protos;
 import org.apache.mesos.Protos.TaskStatus;
@@ -43,6 +56,7 @@ import static java.util.Objects.requireNonNull;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
+import static org.apache.aurora.common.quantity.Time.MILLISECONDS;
 import static org.apache.aurora.common.quantity.Time.MINUTES;
 import static org.apache.aurora.common.quantity.Time.SECONDS;
 
@@ -50,8 +64,15 @@ import static org.apache.aurora.common.quantity.Time.SECONDS;
  * A task reconciler that periodically triggers Mesos (implicit) and Aurora (explicit) task
  * reconciliation to synchronize global task states. More on task reconciliation:
  * http://mesos.apache.org/documentation/latest/reconciliation.
+ *
+ * <p>Explicit reconciliation walks the task store incrementally by agent host rather than
+ * fetching every active task at once.  Each cycle splits the known hosts into slices that are
+ * spread evenly across the explicit interval, and each slice only queries the tasks assigned to
+ * its hosts.  The last slice also covers tasks assigned to hosts without stored attributes.  The
+ * status batches of a slice are sent one batch interval apart.  Tasks whose state was confirmed by
+ * a status update within the confirmation window are skipped.
  */
-public class TaskReconciler extends AbstractIdleService {
+public class TaskReconciler extends AbstractIdleService implements EventSubscriber {
 
   @VisibleForTesting
   static final String EXPLICIT_STAT_NAME = "reconciliation_explicit_runs";
@@ -59,12 +80,48 @@ public class TaskReconciler extends AbstractIdleService {
   @VisibleForTesting
   static final String IMPLICIT_STAT_NAME = "reconciliation_implicit_runs";
 
+  @VisibleForTesting
+  static final String EXPLICIT_TASKS_STAT_NAME = "reconciliation_explicit_tasks";
+
+  @VisibleForTesting
+  static final String EXPLICIT_SKIPPED_STAT_NAME = "reconciliation_explicit_tasks_skipped";
+
+  @VisibleForTesting
+  static final String CYCLE_PROGRESS_STAT_NAME = "reconciliation_explicit_cycle_progress_percent";
+
+  @VisibleForTesting
+  static final String CYCLE_HOSTS_STAT_NAME = "reconciliation_explicit_cycle_hosts";
+
+  @VisibleForTesting
+  static final String CYCLE_COVERAGE_STAT_NAME = "reconciliation_explicit_cycle_tasks_covered";
+
+  @VisibleForTesting
+  static final String CONFIRMED_TASKS_STAT_NAME = "reconciliation_recently_confirmed_tasks";
+
   private final TaskReconcilerSettings settings;
   private final Storage storage;
   private final Driver driver;
   private final ScheduledExecutorService executor;
+  private final Clock clock;
   private final AtomicLong explicitRuns;
   private final AtomicLong implicitRuns;
+  private final AtomicLong explicitTasks;
+  private final AtomicLong explicitSkipped;
+
+  // Progress of the current explicit cycle.  Only mutated from the background worker thread, but
+  // read concurrently by exported stats.
+  private final AtomicInteger cycleSlices = new AtomicInteger();
+  private final AtomicInteger cycleSlicesDone = new AtomicInteger();
+  private final AtomicInteger cycleHosts = new AtomicInteger();
+  private final AtomicLong cycleTasksCovered = new AtomicLong();
+
+  // Slave-assigned states that are only entered through status updates reported by Mesos, unlike
+  // scheduler-driven states such as ASSIGNED and KILLING.
+  private static final Set<ScheduleStatus> MESOS_REPORTED_STATES =
+      Sets.immutableEnumSet(ScheduleStatus.STARTING, ScheduleStatus.RUNNING);
+
+  // Task ID -> epoch millis of the most recent status confirmation.
+  private final Map<String, Long> recentlyConfirmed = new ConcurrentHashMap<>();
 
   static class TaskReconcilerSettings {
     private final Amount<Long, Time> explicitInterval;
@@ -73,6 +130,7 @@ public class TaskReconciler extends AbstractIdleService {
     private final long implicitDelayMinutes;
     private final long explicitBatchDelaySeconds;
     private final int explicitBatchSize;
+    private final long confirmationWindowMillis;
 
     @VisibleForTesting
     TaskReconcilerSettings(
@@ -81,7 +139,8 @@ public class TaskReconciler extends AbstractIdleService {
         Amount<Long, Time> implicitInterval,
         Amount<Long, Time> scheduleSpread,
         Amount<Long, Time> explicitBatchInterval,
-        int explicitBatchSize) {
+        int explicitBatchSize,
+        Amount<Long, Time> confirmationWindow) {
 
       this.explicitInterval = requireNonNull(explicitInterval);
       this.implicitInterval = requireNonNull(implicitInterval);
@@ -89,6 +148,7 @@ public class TaskReconciler extends AbstractIdleService {
       implicitDelayMinutes = initialDelay.as(MINUTES) + scheduleSpread.as(MINUTES);
       explicitBatchDelaySeconds = explicitBatchInterval.as(SECONDS);
       this.explicitBatchSize = explicitBatchSize;
+      confirmationWindowMillis = requireNonNull(confirmationWindow).as(MILLISECONDS);
 
       checkArgument(
           explicitDelayMinutes >= 0,
@@ -100,6 +160,20 @@ public class TaskReconciler extends AbstractIdleService {
           explicitBatchDelaySeconds >= 0L,
           "Invalid explicit batch reconciliation delay: " + explicitBatchDelaySeconds
       );
+      checkArgument(
+          confirmationWindowMillis >= 0L,
+          "Invalid reconciliation confirmation window: " + confirmationWindowMillis);
+    }
+
+    /**
+     * Gets the maximum number of slices an explicit cycle is divided into, such that consecutive
+     * slices are at least one batch interval apart.
+     */
+    int maxSlicesPerCycle() {
+      if (explicitBatchDelaySeconds == 0) {
+        return 1;
+      }
+      return (int) Math.max(1L, explicitInterval.as(SECONDS) / explicitBatchDelaySeconds);
     }
   }
 
@@ -109,36 +183,32 @@ public class TaskReconciler extends AbstractIdleService {
       Storage storage,
       Driver driver,
       @BackgroundWorker ScheduledExecutorService executor,
+      Clock clock,
       StatsProvider stats) {
 
     this.settings = requireNonNull(settings);
     this.storage = requireNonNull(storage);
     this.driver = requireNonNull(driver);
     this.executor = requireNonNull(executor);
+    this.clock = requireNonNull(clock);
     this.explicitRuns = stats.makeCounter(EXPLICIT_STAT_NAME);
     this.implicitRuns = stats.makeCounter(IMPLICIT_STAT_NAME);
+    this.explicitTasks = stats.makeCounter(EXPLICIT_TASKS_STAT_NAME);
+    this.explicitSkipped = stats.makeCounter(EXPLICIT_SKIPPED_STAT_NAME);
+    stats.makeGauge(CYCLE_PROGRESS_STAT_NAME, () -> {
+      int slices = cycleSlices.get();
+      return slices == 0 ? 100 : cycleSlicesDone.get() * 100 / slices;
+    });
+    stats.makeGauge(CYCLE_HOSTS_STAT_NAME, cycleHosts::get);
+    stats.makeGauge(CYCLE_COVERAGE_STAT_NAME, cycleTasksCovered::get);
+    stats.makeGauge(CONFIRMED_TASKS_STAT_NAME, recentlyConfirmed::size);
   }
 
   @Override
   protected void startUp() {
     // Schedule explicit reconciliation.
     executor.scheduleAtFixedRate(
-        () -> {
-          ImmutableList<TaskStatus> active = FluentIterable
-              .from(Storage.Util.fetchTasks(
-                  storage,
-                  Query.unscoped().byStatus(Tasks.SLAVE_ASSIGNED_STATES)))
-              .transform(TASK_TO_PROTO)
-              .toList();
-
-          List<List<TaskStatus>> batches = Lists.partition(active, settings.explicitBatchSize);
-          long delay = 0;
-          for (List<TaskStatus> batch : batches) {
-            executor.schedule(() -> driver.reconcileTasks(batch), delay, SECONDS.getTimeUnit());
-            delay += settings.explicitBatchDelaySeconds;
-          }
-          explicitRuns.incrementAndGet();
-        },
+        this::startExplicitCycle,
         settings.explicitDelayMinutes,
         settings.explicitInterval.as(MINUTES),
         MINUTES.getTimeUnit());
@@ -158,6 +228,121 @@ public class TaskReconciler extends AbstractIdleService {
     // Nothing to do - await VM shutdown.
   }
 
+  /**
+   * Records a status confirmation for tasks that transition into a state only entered through a
+   * status update reported by Mesos, and forgets the confirmation of tasks that transition into
+   * any other state.  Tasks loaded from storage have not been confirmed by Mesos, and are ignored.
+   *
+   * @param stateChange State change notification.
+   */
+  @Subscribe
+  public void taskChangedState(TaskStateChange stateChange) {
+    if (!stateChange.isTransition()) {
+      return;
+    }
+
+    if (MESOS_REPORTED_STATES.contains(stateChange.getNewState())) {
+      recentlyConfirmed.put(stateChange.getTaskId(), clock.nowMillis());
+    } else {
+      recentlyConfirmed.remove(stateChange.getTaskId());
+    }
+  }
+
+  /**
+   * Forgets confirmations of deleted tasks.
+   *
+   * @param event Tasks deleted notification.
+   */
+  @Subscribe
+  public void tasksDeleted(TasksDeleted event) {
+    for (IScheduledTask task : event.getTasks()) {
+      recentlyConfirmed.remove(Tasks.id(task));
+    }
+  }
+
+  private void startExplicitCycle() {
+    long now = clock.nowMillis();
+    recentlyConfirmed.values().removeIf(
+        confirmedAt -> now - confirmedAt >= settings.confirmationWindowMillis);
+
+    List<String> hosts = storage.read(storeProvider -> FluentIterable
+        .from(storeProvider.getAttributeStore().getHostAttributes())
+        .transform(IHostAttributes::getHost)
+        .toSortedList(Ordering.natural()));
+    Set<String> knownHosts = ImmutableSet.copyOf(hosts);
+
+    int numSlices = Math.max(1, Math.min(hosts.size(), settings.maxSlicesPerCycle()));
+    long sliceDelayMillis = settings.explicitInterval.as(MILLISECONDS) / numSlices;
+    cycleSlices.set(numSlices);
+    cycleSlicesDone.set(0);
+    cycleHosts.set(hosts.size());
+    cycleTasksCovered.set(0);
+
+    for (int i = 0; i < numSlices; i++) {
+      List<String> slice = hosts.subList(
+          (int) ((long) i * hosts.size() / numSlices),
+          (int) ((long) (i + 1) * hosts.size() / numSlices));
+      boolean last = i == numSlices - 1;
+      executor.schedule(
+          () -> {
+            reconcileHosts(slice);
+            if (last) {
+              reconcileUnknownHosts(knownHosts);
+            }
+            cycleSlicesDone.incrementAndGet();
+          },
+          i * sliceDelayMillis,
+          MILLISECONDS.getTimeUnit());
+    }
+    explicitRuns.incrementAndGet();
+  }
+
+  private void reconcileHosts(List<String> hosts) {
+    if (!hosts.isEmpty()) {
+      reconcile(Storage.Util.fetchTasks(
+          storage,
+          Query.slaveScoped(hosts).byStatus(Tasks.SLAVE_ASSIGNED_STATES)));
+    }
+  }
+
+  private void reconcileUnknownHosts(Set<String> knownHosts) {
+    // Tasks may be assigned to a host whose attributes were never stored, which the host slices
+    // do not cover.
+    reconcile(FluentIterable
+        .from(Storage.Util.fetchTasks(
+            storage,
+            Query.unscoped().byStatus(Tasks.SLAVE_ASSIGNED_STATES)))
+        .filter(task -> !knownHosts.contains(task.getAssignedTask().getSlaveHost())));
+  }
+
+  private void reconcile(Iterable<IScheduledTask> tasks) {
+    long now = clock.nowMillis();
+    ImmutableList.Builder<TaskStatus> toReconcile = ImmutableList.builder();
+    int skipped = 0;
+    for (IScheduledTask task : tasks) {
+      if (isRecentlyConfirmed(Tasks.id(task), now)) {
+        skipped++;
+      } else {
+        toReconcile.add(TASK_TO_PROTO.apply(task));
+      }
+    }
+
+    List<TaskStatus> statuses = toReconcile.build();
+    long delay = 0;
+    for (List<TaskStatus> batch : Lists.partition(statuses, settings.explicitBatchSize)) {
+      executor.schedule(() -> driver.reconcileTasks(batch), delay, SECONDS.getTimeUnit());
+      delay += settings.explicitBatchDelaySeconds;
+    }
+    explicitTasks.addAndGet(statuses.size());
+    explicitSkipped.addAndGet(skipped);
+    cycleTasksCovered.addAndGet(statuses.size() + skipped);
+  }
+
+  private boolean isRecentlyConfirmed(String taskId, long now) {
+    Long confirmedAt = recentlyConfirmed.get(taskId);
+    return confirmedAt != null && now - confirmedAt < settings.confirmationWindowMillis;
+  }
+
   @VisibleForTesting
   static final Function<IScheduledTask, TaskStatus> TASK_TO_PROTO = t -> TaskStatus.newBuilder()
       // TODO(maxim): State is required by protobuf but ignored by Mesos for reconciliation
@@ -14,20 +14,26 @@
 package org.apache.aurora.scheduler.resources;
 
 import java.util.List;
+import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.StreamSupport;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
 
 import org.apache.aurora.scheduler.TierInfo;
+import org.apache.aurora.scheduler.base.Numbers;
 import org.apache.aurora.scheduler.storage.entities.IAssignedTask;
 import org.apache.mesos.Protos.Offer;
 import org.apache.mesos.Protos.Resource;
+import org.apache.mesos.Protos.Value;
 
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
 
+import static org.apache.aurora.scheduler.base.Numbers.RANGE_TRANSFORM;
 import static org.apache.aurora.scheduler.resources.ResourceManager.getOfferResources;
 
 /**
@@ -56,6 +62,69 @@ public final class AcceptedOffer {
     return executorResources;
   }
 
+  /**
+   * Computes what is left of an offer once the task and executor resources are allocated from it.
+   *
+   * @param offer The offer the resources were allocated from.
+   * @return A copy of {@code offer} holding only the resources that were not allocated.
+   */
+  public Offer subtractFrom(Offer offer) {
+    List<Resource.Builder> remaining = offer.getResourcesList().stream()
+        .map(Resource::toBuilder)
+        .collect(toList());
+
+    for (Resource used : Iterables.concat(taskResources, executorResources)) {
+      double scalar = used.getScalar().getValue();
+      Set<Integer> members = toMembers(used);
+      for (Resource.Builder available : remaining) {
+        if (!isSameResource(available, used)) {
+          continue;
+        }
+
+        if (used.getType() == Value.Type.SCALAR) {
+          double taken = Math.min(scalar, available.getScalar().getValue());
+          available.getScalarBuilder().setValue(available.getScalar().getValue() - taken);
+          scalar -= taken;
+        } else if (used.getType() == Value.Type.RANGES) {
+          Set<Integer> unused = Sets.difference(toMembers(available.build()), members);
+          available.setRanges(Value.Ranges.newBuilder()
+              .addAllRange(Iterables.transform(Numbers.toRanges(unused), RANGE_TRANSFORM)));
+        }
+      }
+    }
+
+    return offer.toBuilder()
+        .clearResources()
+        .addAllResources(remaining.stream()
+            .filter(resource -> !isEmpty(resource))
+            .map(Resource.Builder::build)
+            .collect(toList()))
+        .build();
+  }
+
+  private static Set<Integer> toMembers(Resource resource) {
+    return Sets.newHashSet(Iterables.concat(
+        Iterables.transform(resource.getRanges().getRangeList(), Numbers.RANGE_TO_MEMBERS)));
+  }
+
+  private static boolean isSameResource(Resource.Builder available, Resource used) {
+    return available.getName().equals(used.getName())
+        && available.getType() == used.getType()
+        && available.getRole().equals(used.getRole())
+        && available.hasRevocable() == used.hasRevocable();
+  }
+
+  private static boolean isEmpty(Resource.Builder resource) {
+    switch (resource.getType()) {
+      case SCALAR:
+        return resource.getScalar().getValue() < 1e-6;
+      case RANGES:
+        return resource.getRanges().getRangeCount() == 0;
+      default:
+        return false;
+    }
+  }
+
   private final Iterable<Resource> taskResources;
   private final Iterable<Resource> executorResources;
 
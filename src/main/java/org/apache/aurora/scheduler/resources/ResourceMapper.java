@@ -25,7 +25,6 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Range;
 
-import org.apache.aurora.gen.AssignedTask;
 import org.apache.aurora.scheduler.storage.entities.IAssignedTask;
 import org.apache.mesos.Protos.Offer;
 
@@ -86,9 +85,7 @@ public interface ResourceMapper<T> {
       Map<String, Integer> portMap =
           requestedPorts.stream().collect(Collectors.toMap(key -> key, value -> ports.next()));
 
-      AssignedTask builder = task.newBuilder();
-      builder.setAssignedPorts(ImmutableMap.copyOf(portMap));
-      return IAssignedTask.build(builder);
+      return task.withAssignedPorts(ImmutableMap.copyOf(portMap));
     }
 
     @Override
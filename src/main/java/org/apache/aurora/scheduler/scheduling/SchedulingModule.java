@@ -30,6 +30,9 @@ import org.apache.aurora.scheduler.base.TaskGroupKey;
 import org.apache.aurora.scheduler.events.PubsubEventModule;
 import org.apache.aurora.scheduler.preemptor.BiCache;
 import org.apache.aurora.scheduler.scheduling.RescheduleCalculator.RescheduleCalculatorImpl;
+import org.apache.aurora.scheduler.state.StateModule;
+
+import static com.google.common.base.Preconditions.checkArgument;
 
 /**
  * Binding module for task scheduling logic.
@@ -40,6 +43,19 @@ public class SchedulingModule extends AbstractModule {
       help = "Maximum number of scheduling attempts to make per second.")
   private static final Arg<Double> MAX_SCHEDULE_ATTEMPTS_PER_SEC = Arg.create(40D);
 
+  @Positive
+  @CmdLine(name = "max_schedule_round_size",
+      help = "Maximum number of task groups to attempt to schedule in a single scheduling round.")
+  private static final Arg<Integer> MAX_SCHEDULE_ROUND_SIZE = Arg.create(20);
+
+  @Positive
+  @CmdLine(name = "scheduling_worker_threads",
+      help = "Number of threads used to match the task groups of a scheduling round against "
+          + "offers. With more than one thread, offers are matched and claimed outside of storage "
+          + "write transactions, and assignments are committed in batches. Cannot be combined with "
+          + "-enable_offer_packing.")
+  private static final Arg<Integer> SCHEDULING_WORKER_THREADS = Arg.create(1);
+
   @CmdLine(name = "flapping_task_threshold",
       help = "A task that repeatedly runs for less than this time is considered to be flapping.")
   private static final Arg<Amount<Long, Time>> FLAPPING_THRESHOLD =
@@ -85,6 +101,12 @@ public class SchedulingModule extends AbstractModule {
 
   @Override
   protected void configure() {
+    // A packed offer remainder claimed outside of a storage transaction may be assigned after the
+    // launch of the offer is sent, so parallel placement relies on offers being used only once.
+    checkArgument(
+        SCHEDULING_WORKER_THREADS.get() == 1 || !StateModule.ENABLE_OFFER_PACKING.get(),
+        "-scheduling_worker_threads above 1 cannot be combined with -enable_offer_packing.");
+
     install(new PrivateModule() {
       @Override
       protected void configure() {
@@ -93,7 +115,9 @@ public class SchedulingModule extends AbstractModule {
             new TruncatedBinaryBackoff(
                 INITIAL_SCHEDULE_PENALTY.get(),
                 MAX_SCHEDULE_PENALTY.get()),
-            RateLimiter.create(MAX_SCHEDULE_ATTEMPTS_PER_SEC.get())));
+            RateLimiter.create(MAX_SCHEDULE_ATTEMPTS_PER_SEC.get()),
+            MAX_SCHEDULE_ROUND_SIZE.get(),
+            SCHEDULING_WORKER_THREADS.get()));
 
         bind(RescheduleCalculatorImpl.RescheduleCalculatorSettings.class)
             .toInstance(new RescheduleCalculatorImpl.RescheduleCalculatorSettings(
@@ -114,7 +138,10 @@ public class SchedulingModule extends AbstractModule {
       protected void configure() {
         bind(new TypeLiteral<BiCache<String, TaskGroupKey>>() { }).in(Singleton.class);
         bind(BiCache.BiCacheSettings.class).toInstance(
-            new BiCache.BiCacheSettings(RESERVATION_DURATION.get(), "reservation_cache_size"));
+            new BiCache.BiCacheSettings(RESERVATION_DURATION.get(), "reservation_cache"));
+        bind(TaskScheduler.TaskSchedulerImpl.TaskSchedulerSettings.class).toInstance(
+            new TaskScheduler.TaskSchedulerImpl.TaskSchedulerSettings(
+                SCHEDULING_WORKER_THREADS.get() > 1));
         bind(TaskScheduler.class).to(TaskScheduler.TaskSchedulerImpl.class);
         bind(TaskScheduler.TaskSchedulerImpl.class).in(Singleton.class);
         expose(TaskScheduler.class);
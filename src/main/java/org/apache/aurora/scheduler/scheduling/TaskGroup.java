@@ -13,12 +13,13 @@
  */
 package org.apache.aurora.scheduler.scheduling;
 
-import java.util.Queue;
+import java.util.Map;
 import java.util.Set;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Lists;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
 
 import org.apache.aurora.scheduler.base.TaskGroupKey;
 
@@ -27,22 +28,45 @@ import org.apache.aurora.scheduler.base.TaskGroupKey;
  */
 class TaskGroup {
   private final TaskGroupKey key;
+  private final String tier;
+  private final int tierRank;
   private long penaltyMs;
-  private final Queue<String> tasks;
+  private long readyAtMs;
+  private long waitingSinceMs;
+  // Task IDs in the order they were added, mapped to the time they were added at.
+  private final Map<String, Long> tasks;
 
-  TaskGroup(TaskGroupKey key, String initialTaskId) {
+  TaskGroup(TaskGroupKey key, String tier, int tierRank, String initialTaskId, long nowMs) {
     this.key = key;
+    this.tier = tier;
+    this.tierRank = tierRank;
     this.penaltyMs = 0;
-    this.tasks = Lists.newLinkedList();
-    this.tasks.add(initialTaskId);
+    this.tasks = Maps.newLinkedHashMap();
+    this.tasks.put(initialTaskId, nowMs);
   }
 
   synchronized TaskGroupKey getKey() {
     return key;
   }
 
+  String tier() {
+    return tier;
+  }
+
+  int tierRank() {
+    return tierRank;
+  }
+
+  int priority() {
+    return key.getTask().getPriority();
+  }
+
   synchronized Optional<String> peek() {
-    return Optional.fromNullable(tasks.peek());
+    return Optional.fromNullable(Iterables.getFirst(tasks.keySet(), null));
+  }
+
+  synchronized Optional<Long> addedAtMs(String taskId) {
+    return Optional.fromNullable(tasks.get(taskId));
   }
 
   synchronized boolean hasMore() {
@@ -53,14 +77,42 @@ class TaskGroup {
     tasks.remove(taskId);
   }
 
-  synchronized void offer(String taskId) {
-    tasks.offer(taskId);
+  synchronized void offer(String taskId, long nowMs) {
+    tasks.putIfAbsent(taskId, nowMs);
   }
 
   synchronized void setPenaltyMs(long penaltyMs) {
     this.penaltyMs = penaltyMs;
   }
 
+  /**
+   * Sets the time the group becomes eligible for scheduling, after its penalty expires.
+   *
+   * @param readyAtMs Time the group is ready at.
+   */
+  synchronized void setReadyAtMs(long readyAtMs) {
+    this.readyAtMs = readyAtMs;
+  }
+
+  synchronized long readyAtMs() {
+    return readyAtMs;
+  }
+
+  /**
+   * Records how long the group has waited for when it becomes ready, which is the time its
+   * oldest task was added at.  This is only updated as the group enters the ready queue, so that
+   * the queue ordering is stable while the group is in it.
+   *
+   * @param defaultMs Time to use if the group has no tasks.
+   */
+  synchronized void markReady(long defaultMs) {
+    waitingSinceMs = Iterables.getFirst(tasks.values(), defaultMs);
+  }
+
+  synchronized long waitingSinceMs() {
+    return waitingSinceMs;
+  }
+
   // Begin methods used for debug interfaces.
 
   public synchronized String getName() {
@@ -68,7 +120,7 @@ class TaskGroup {
   }
 
   public synchronized Set<String> getTaskIds() {
-    return ImmutableSet.copyOf(tasks);
+    return ImmutableSet.copyOf(tasks.keySet());
   }
 
   public synchronized long getPenaltyMs() {
@@ -13,31 +13,52 @@
  */
 package org.apache.aurora.scheduler.scheduling;
 
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import javax.inject.Inject;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.common.eventbus.Subscribe;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.RateLimiter;
 
 import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.common.stats.SlidingStats;
+import org.apache.aurora.common.stats.StatsProvider;
 import org.apache.aurora.common.util.BackoffStrategy;
+import org.apache.aurora.common.util.Clock;
+import org.apache.aurora.scheduler.TierInfo;
+import org.apache.aurora.scheduler.TierManager;
 import org.apache.aurora.scheduler.async.AsyncModule.AsyncExecutor;
 import org.apache.aurora.scheduler.async.DelayExecutor;
+import org.apache.aurora.scheduler.base.AsyncUtil;
 import org.apache.aurora.scheduler.base.TaskGroupKey;
 import org.apache.aurora.scheduler.base.Tasks;
 import org.apache.aurora.scheduler.events.PubsubEvent.EventSubscriber;
 import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
 import org.apache.aurora.scheduler.events.PubsubEvent.TasksDeleted;
 import org.apache.aurora.scheduler.storage.entities.IAssignedTask;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import static java.util.Objects.requireNonNull;
 
@@ -52,34 +73,78 @@ import static org.apache.aurora.gen.ScheduleStatus.PENDING;
  * This is used to prevent redundant work in trying to schedule tasks as well as to provide
  * nearly-equal responsiveness when scheduling across jobs.  In other words, a 1000 instance job
  * cannot starve a 1 instance job.
+ * <p>
+ * Groups are scheduled by a single loop that runs in rounds.  Each group waits out its own
+ * backoff, after which it enters a queue of ready groups ordered by tier, priority and the time
+ * its oldest task has been waiting.  Each round takes up to a bounded number of groups from the
+ * head of the queue, and attempts to schedule one task from each against the current offers.
+ * With more than one worker thread, the groups in a round are scheduled concurrently.  A round
+ * then holds at most one group of each job, so that tasks of a job are never placed concurrently.
  */
 public class TaskGroups implements EventSubscriber {
 
-  private final ConcurrentMap<TaskGroupKey, TaskGroup> groups = Maps.newConcurrentMap();
+  private static final Logger LOG = LoggerFactory.getLogger(TaskGroups.class);
+
+  @VisibleForTesting
+  static final String READY_GROUPS_GAUGE = "schedule_queue_ready_groups";
+
+  @VisibleForTesting
+  static final String WAITING_GROUPS_GAUGE = "schedule_queue_waiting_groups";
+
+  private static final Comparator<TaskGroup> SCHEDULING_ORDER =
+      Comparator.comparingInt(TaskGroup::tierRank)
+          .thenComparing(Comparator.comparingInt(TaskGroup::priority).reversed())
+          .thenComparingLong(TaskGroup::waitingSinceMs);
+
+  // Guarded by this.
+  private final Map<TaskGroupKey, TaskGroup> groups = Maps.newHashMap();
+  // Groups waiting for their penalty to expire, ordered by the time they become ready.
+  private final PriorityQueue<TaskGroup> waiting =
+      new PriorityQueue<>(Comparator.comparingLong(TaskGroup::readyAtMs));
+  // Groups whose penalty has expired, in the order they should be scheduled.
+  private final PriorityQueue<TaskGroup> ready = new PriorityQueue<>(SCHEDULING_ORDER);
+  private long nextRoundAtMs = Long.MAX_VALUE;
+
+  private final Object roundLock = new Object();
   private final DelayExecutor executor;
   private final TaskScheduler taskScheduler;
+  private final TierManager tierManager;
+  private final Clock clock;
   private final long firstScheduleDelay;
   private final BackoffStrategy backoff;
+  private final RateLimiter rateLimiter;
+  private final int maxRoundSize;
+  private final Optional<ExecutorService> workers;
   private final RescheduleCalculator rescheduleCalculator;
 
   // Track the penalties of tasks at the time they were scheduled. This is to provide data that
   // may influence the selection of a different backoff strategy.
   private final SlidingStats scheduledTaskPenalties =
       new SlidingStats("scheduled_task_penalty", "ms");
+  private final SlidingStats roundDuration = new SlidingStats("schedule_round", "ns");
+  private final ConcurrentMap<String, SlidingStats> tierWaitTimes = Maps.newConcurrentMap();
 
   public static class TaskGroupsSettings {
     private final Amount<Long, Time> firstScheduleDelay;
     private final BackoffStrategy taskGroupBackoff;
     private final RateLimiter rateLimiter;
+    private final int maxRoundSize;
+    private final int workerThreads;
 
     public TaskGroupsSettings(
         Amount<Long, Time> firstScheduleDelay,
         BackoffStrategy taskGroupBackoff,
-        RateLimiter rateLimiter) {
+        RateLimiter rateLimiter,
+        int maxRoundSize,
+        int workerThreads) {
 
       this.firstScheduleDelay = requireNonNull(firstScheduleDelay);
       this.taskGroupBackoff = requireNonNull(taskGroupBackoff);
       this.rateLimiter = requireNonNull(rateLimiter);
+      Preconditions.checkArgument(maxRoundSize > 0);
+      this.maxRoundSize = maxRoundSize;
+      Preconditions.checkArgument(workerThreads > 0);
+      this.workerThreads = workerThreads;
     }
   }
 
@@ -88,57 +153,188 @@ public class TaskGroups implements EventSubscriber {
       @AsyncExecutor DelayExecutor executor,
       TaskGroupsSettings settings,
       TaskScheduler taskScheduler,
-      RescheduleCalculator rescheduleCalculator) {
+      RescheduleCalculator rescheduleCalculator,
+      TierManager tierManager,
+      Clock clock,
+      StatsProvider statsProvider) {
 
     requireNonNull(settings.firstScheduleDelay);
     Preconditions.checkArgument(settings.firstScheduleDelay.getValue() > 0);
 
     this.executor = requireNonNull(executor);
-    requireNonNull(settings.rateLimiter);
-    requireNonNull(taskScheduler);
+    this.rateLimiter = requireNonNull(settings.rateLimiter);
+    this.taskScheduler = requireNonNull(taskScheduler);
     this.firstScheduleDelay = settings.firstScheduleDelay.as(Time.MILLISECONDS);
     this.backoff = requireNonNull(settings.taskGroupBackoff);
+    this.maxRoundSize = settings.maxRoundSize;
+    this.workers = settings.workerThreads > 1
+        ? Optional.of(AsyncUtil.loggingExecutor(
+            settings.workerThreads,
+            settings.workerThreads,
+            new LinkedBlockingQueue<>(),
+            "TaskGroupsWorker-%d",
+            LOG))
+        : Optional.absent();
     this.rescheduleCalculator = requireNonNull(rescheduleCalculator);
+    this.tierManager = requireNonNull(tierManager);
+    this.clock = requireNonNull(clock);
+
+    statsProvider.makeGauge(READY_GROUPS_GAUGE, this::getReadyGroupCount);
+    statsProvider.makeGauge(WAITING_GROUPS_GAUGE, this::getWaitingGroupCount);
+  }
+
+  private synchronized int getReadyGroupCount() {
+    return ready.size();
+  }
 
-    this.taskScheduler = taskId -> {
-      settings.rateLimiter.acquire();
-      return taskScheduler.schedule(taskId);
-    };
+  private synchronized int getWaitingGroupCount() {
+    return waiting.size();
   }
 
-  private synchronized void evaluateGroupLater(Runnable evaluate, TaskGroup group) {
+  private synchronized void enqueue(TaskGroup group, long penaltyMs) {
     // Avoid check-then-act by holding the intrinsic lock.  If not done atomically, we could
     // remove a group while a task is being added to it.
     if (group.hasMore()) {
-      executor.execute(evaluate, Amount.of(group.getPenaltyMs(), Time.MILLISECONDS));
+      group.setReadyAtMs(clock.nowMillis() + penaltyMs);
+      waiting.add(group);
+      scheduleRound();
     } else {
       groups.remove(group.getKey());
     }
   }
 
-  private void startGroup(final TaskGroup group) {
-    Runnable monitor = new Runnable() {
-      @Override
-      public void run() {
-        Optional<String> taskId = group.peek();
-        long penaltyMs = 0;
-        if (taskId.isPresent()) {
-          if (taskScheduler.schedule(taskId.get())) {
-            scheduledTaskPenalties.accumulate(group.getPenaltyMs());
-            group.remove(taskId.get());
-            if (group.hasMore()) {
-              penaltyMs = firstScheduleDelay;
-            }
-          } else {
-            penaltyMs = backoff.calculateBackoffMs(group.getPenaltyMs());
-          }
-        }
+  private synchronized void scheduleRound() {
+    long nowMs = clock.nowMillis();
+    long nextMs;
+    if (!ready.isEmpty()) {
+      nextMs = nowMs;
+    } else if (!waiting.isEmpty()) {
+      nextMs = Math.max(nowMs, waiting.peek().readyAtMs());
+    } else {
+      return;
+    }
+
+    // Only one wakeup is needed for the earliest round, later wakeups are scheduled by the
+    // rounds themselves.
+    if (nextMs < nextRoundAtMs) {
+      nextRoundAtMs = nextMs;
+      if (nextMs == nowMs) {
+        executor.execute(this::runRound);
+      } else {
+        executor.execute(this::runRound, Amount.of(nextMs - nowMs, Time.MILLISECONDS));
+      }
+    }
+  }
+
+  private synchronized List<TaskGroup> startRound() {
+    nextRoundAtMs = Long.MAX_VALUE;
+    long nowMs = clock.nowMillis();
+    while (!waiting.isEmpty() && waiting.peek().readyAtMs() <= nowMs) {
+      TaskGroup group = waiting.poll();
+      group.markReady(nowMs);
+      ready.add(group);
+    }
+
+    List<TaskGroup> round = Lists.newArrayList();
+    List<TaskGroup> deferred = Lists.newArrayList();
+    Set<IJobKey> jobs = Sets.newHashSet();
+    while (!ready.isEmpty() && round.size() < maxRoundSize) {
+      TaskGroup group = ready.poll();
+      if (!workers.isPresent() || jobs.add(group.getKey().getTask().getJob())) {
+        round.add(group);
+      } else {
+        deferred.add(group);
+      }
+    }
+    ready.addAll(deferred);
+    return round;
+  }
+
+  @VisibleForTesting
+  void runRound() {
+    synchronized (roundLock) {
+      long startNanos = System.nanoTime();
+      List<TaskGroup> round = startRound();
+      if (!round.isEmpty()) {
+        rateLimiter.acquire(round.size());
+      }
 
-        group.setPenaltyMs(penaltyMs);
-        evaluateGroupLater(this, group);
+      List<Long> penalties = evaluateRound(round);
+      for (int i = 0; i < round.size(); i++) {
+        enqueue(round.get(i), penalties.get(i));
       }
-    };
-    evaluateGroupLater(monitor, group);
+
+      if (!round.isEmpty()) {
+        roundDuration.accumulate(System.nanoTime() - startNanos);
+      }
+      scheduleRound();
+    }
+  }
+
+  private List<Long> evaluateRound(List<TaskGroup> round) {
+    List<Long> penalties = Lists.newArrayListWithCapacity(round.size());
+    if (workers.isPresent()) {
+      List<Future<Long>> results = Lists.newArrayListWithCapacity(round.size());
+      for (TaskGroup group : round) {
+        results.add(workers.get().submit(() -> evaluate(group)));
+      }
+      for (Future<Long> result : results) {
+        penalties.add(Futures.getUnchecked(result));
+      }
+    } else {
+      for (TaskGroup group : round) {
+        penalties.add(evaluate(group));
+      }
+    }
+    return penalties;
+  }
+
+  private long evaluate(TaskGroup group) {
+    Optional<String> taskId = group.peek();
+    long penaltyMs = 0;
+    if (taskId.isPresent()) {
+      if (taskScheduler.schedule(taskId.get())) {
+        scheduledTaskPenalties.accumulate(group.getPenaltyMs());
+        Optional<Long> addedAtMs = group.addedAtMs(taskId.get());
+        if (addedAtMs.isPresent()) {
+          getTierWaitTime(group.tier()).accumulate(clock.nowMillis() - addedAtMs.get());
+        }
+        group.remove(taskId.get());
+        if (group.hasMore()) {
+          penaltyMs = firstScheduleDelay;
+        }
+      } else {
+        penaltyMs = backoff.calculateBackoffMs(group.getPenaltyMs());
+      }
+    }
+
+    group.setPenaltyMs(penaltyMs);
+    return penaltyMs;
+  }
+
+  private SlidingStats getTierWaitTime(String tier) {
+    return tierWaitTimes.computeIfAbsent(
+        tier,
+        name -> new SlidingStats("schedule_wait_" + name, "ms"));
+  }
+
+  private String getTierName(ITaskConfig task) {
+    return task.isSetTier() ? task.getTier() : tierManager.getDefaultTierName();
+  }
+
+  private int getTierRank(String tierName) {
+    // Tiers that may not be preempted are scheduled ahead of preemptible tiers, which in turn are
+    // scheduled ahead of tiers using revocable resources.
+    TierInfo tier = tierManager.getTiers().get(tierName);
+    if (tier == null) {
+      return 0;
+    } else if (tier.isRevocable()) {
+      return 2;
+    } else if (tier.isPreemptible()) {
+      return 1;
+    } else {
+      return 0;
+    }
   }
 
   /**
@@ -154,9 +350,12 @@ public class TaskGroups implements EventSubscriber {
     if (stateChange.getNewState() == PENDING) {
       IScheduledTask task = stateChange.getTask();
       TaskGroupKey key = TaskGroupKey.from(task.getAssignedTask().getTask());
-      TaskGroup newGroup = new TaskGroup(key, Tasks.id(task));
-      TaskGroup existing = groups.putIfAbsent(key, newGroup);
+      TaskGroup existing = groups.get(key);
       if (existing == null) {
+        String tier = getTierName(key.getTask());
+        TaskGroup newGroup =
+            new TaskGroup(key, tier, getTierRank(tier), Tasks.id(task), clock.nowMillis());
+        groups.put(key, newGroup);
         long penaltyMs;
         if (stateChange.isTransition()) {
           penaltyMs = firstScheduleDelay;
@@ -164,9 +363,9 @@ public class TaskGroups implements EventSubscriber {
           penaltyMs = rescheduleCalculator.getStartupScheduleDelayMs(task);
         }
         newGroup.setPenaltyMs(penaltyMs);
-        startGroup(newGroup);
+        enqueue(newGroup, penaltyMs);
       } else {
-        existing.offer(Tasks.id(task));
+        existing.offer(Tasks.id(task), clock.nowMillis());
       }
     }
   }
@@ -187,7 +386,7 @@ public class TaskGroups implements EventSubscriber {
     }
   }
 
-  public Iterable<TaskGroup> getGroups() {
+  public synchronized Iterable<TaskGroup> getGroups() {
     return ImmutableSet.copyOf(groups.values());
   }
 
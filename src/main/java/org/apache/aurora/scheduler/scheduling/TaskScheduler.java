@@ -15,6 +15,9 @@ package org.apache.aurora.scheduler.scheduling;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicLong;
 
 import javax.inject.Inject;
@@ -23,10 +26,15 @@ import javax.inject.Qualifier;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.eventbus.Subscribe;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
 
 import org.apache.aurora.common.inject.TimedInterceptor.Timed;
+import org.apache.aurora.common.stats.SlidingStats;
 import org.apache.aurora.common.stats.Stats;
+import org.apache.aurora.scheduler.HostOffer;
 import org.apache.aurora.scheduler.base.Query;
 import org.apache.aurora.scheduler.base.TaskGroupKey;
 import org.apache.aurora.scheduler.configuration.executor.ExecutorSettings;
@@ -34,11 +42,14 @@ import org.apache.aurora.scheduler.events.PubsubEvent.EventSubscriber;
 import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
 import org.apache.aurora.scheduler.filter.AttributeAggregate;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.ResourceRequest;
+import org.apache.aurora.scheduler.offers.OfferManager;
 import org.apache.aurora.scheduler.preemptor.BiCache;
 import org.apache.aurora.scheduler.preemptor.Preemptor;
 import org.apache.aurora.scheduler.state.TaskAssigner;
 import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.Storage.MutableStoreProvider;
+import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult;
+import org.apache.aurora.scheduler.storage.Storage.StoreProvider;
 import org.apache.aurora.scheduler.storage.entities.IAssignedTask;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
@@ -85,15 +96,51 @@ public interface TaskScheduler extends EventSubscriber {
 
     private static final Logger LOG = LoggerFactory.getLogger(TaskSchedulerImpl.class);
 
+    public static class TaskSchedulerSettings {
+      private final boolean optimisticAssignment;
+
+      /**
+       * Creates task scheduler settings.
+       *
+       * @param optimisticAssignment Whether offers are matched and claimed outside of storage
+       *     write transactions, so that several tasks may be scheduled concurrently.  Tasks of the
+       *     same job should not be scheduled concurrently in this mode, since the job's active
+       *     tasks used to evaluate limit constraints are read before the assignment is committed.
+       */
+      public TaskSchedulerSettings(boolean optimisticAssignment) {
+        this.optimisticAssignment = optimisticAssignment;
+      }
+    }
+
+    private static class PendingAssignment {
+      private final String taskId;
+      private final HostOffer offer;
+      private final SettableFuture<Boolean> assigned = SettableFuture.create();
+      // Written and read by the thread committing the assignment.
+      private boolean taskPending;
+
+      PendingAssignment(String taskId, HostOffer offer) {
+        this.taskId = taskId;
+        this.offer = offer;
+      }
+    }
+
     private final Storage storage;
     private final TaskAssigner assigner;
     private final Preemptor preemptor;
     private final ExecutorSettings executorSettings;
     private final BiCache<String, TaskGroupKey> reservations;
+    private final OfferManager offerManager;
+    private final boolean optimisticAssignment;
+    private final Queue<PendingAssignment> pendingAssignments = new ConcurrentLinkedQueue<>();
 
     private final AtomicLong attemptsFired = Stats.exportLong("schedule_attempts_fired");
     private final AtomicLong attemptsFailed = Stats.exportLong("schedule_attempts_failed");
     private final AtomicLong attemptsNoMatch = Stats.exportLong("schedule_attempts_no_match");
+    private final AtomicLong assignmentsAbandoned =
+        Stats.exportLong("schedule_optimistic_assignments_abandoned");
+    private final SlidingStats commitBatchSize =
+        new SlidingStats("schedule_optimistic_commit_batch_size", "assignments");
 
     @Inject
     TaskSchedulerImpl(
@@ -101,13 +148,17 @@ public interface TaskScheduler extends EventSubscriber {
         TaskAssigner assigner,
         Preemptor preemptor,
         ExecutorSettings executorSettings,
-        BiCache<String, TaskGroupKey> reservations) {
+        BiCache<String, TaskGroupKey> reservations,
+        OfferManager offerManager,
+        TaskSchedulerSettings settings) {
 
       this.storage = requireNonNull(storage);
       this.assigner = requireNonNull(assigner);
       this.preemptor = requireNonNull(preemptor);
       this.executorSettings = requireNonNull(executorSettings);
       this.reservations = requireNonNull(reservations);
+      this.offerManager = requireNonNull(offerManager);
+      this.optimisticAssignment = settings.optimisticAssignment;
     }
 
     @Timed("task_schedule_attempt")
@@ -115,6 +166,9 @@ public interface TaskScheduler extends EventSubscriber {
     public boolean schedule(final String taskId) {
       attemptsFired.incrementAndGet();
       try {
+        if (optimisticAssignment) {
+          return scheduleOptimistically(taskId);
+        }
         return storage.write(store -> scheduleTask(store, taskId));
       } catch (RuntimeException e) {
         // We catch the generic unchecked exception here to ensure tasks are not abandoned
@@ -125,14 +179,25 @@ public interface TaskScheduler extends EventSubscriber {
       }
     }
 
-    @Timed("task_schedule_attempt_locked")
-    protected boolean scheduleTask(MutableStoreProvider store, String taskId) {
-      LOG.debug("Attempting to schedule task " + taskId);
-      IAssignedTask assignedTask = Iterables.getOnlyElement(
+    private static IAssignedTask fetchPending(StoreProvider store, String taskId) {
+      return Iterables.getOnlyElement(
           Iterables.transform(
               store.getTaskStore().fetchTasks(Query.taskScoped(taskId).byStatus(PENDING)),
               IScheduledTask::getAssignedTask),
           null);
+    }
+
+    private ResourceRequest getResourceRequest(ITaskConfig task, AttributeAggregate aggregate) {
+      return new ResourceRequest(
+          task,
+          bagFromResources(task.getResources()).add(executorSettings.getExecutorOverhead()),
+          aggregate);
+    }
+
+    @Timed("task_schedule_attempt_locked")
+    protected boolean scheduleTask(MutableStoreProvider store, String taskId) {
+      LOG.debug("Attempting to schedule task " + taskId);
+      IAssignedTask assignedTask = fetchPending(store, taskId);
 
       if (assignedTask == null) {
         LOG.warn("Failed to look up task " + taskId + ", it may have been deleted.");
@@ -142,10 +207,7 @@ public interface TaskScheduler extends EventSubscriber {
 
         boolean launched = assigner.maybeAssign(
             store,
-            new ResourceRequest(
-                task,
-                bagFromResources(task.getResources()).add(executorSettings.getExecutorOverhead()),
-                aggregate),
+            getResourceRequest(task, aggregate),
             TaskGroupKey.from(task),
             taskId,
             reservations.asMap());
@@ -164,6 +226,103 @@ public interface TaskScheduler extends EventSubscriber {
       return true;
     }
 
+    private boolean scheduleOptimistically(String taskId) {
+      LOG.debug("Attempting to schedule task " + taskId);
+      // Storage reads do not take the write lock, so the offer is matched and claimed
+      // concurrently with other scheduling attempts and storage writes.
+      Optional<IAssignedTask> assignedTask = Optional.fromNullable(
+          storage.read(store -> fetchPending(store, taskId)));
+      if (!assignedTask.isPresent()) {
+        LOG.warn("Failed to look up task " + taskId + ", it may have been deleted.");
+        return true;
+      }
+
+      ITaskConfig task = assignedTask.get().getTask();
+      Optional<HostOffer> offer = storage.read(store -> assigner.claimMatchingOffer(
+          getResourceRequest(task, AttributeAggregate.getJobActiveState(store, task.getJob())),
+          TaskGroupKey.from(task),
+          taskId,
+          reservations.asMap()));
+
+      if (offer.isPresent()) {
+        if (!commit(new PendingAssignment(taskId, offer.get()))) {
+          // The task left PENDING since it was read, so there is nothing left to schedule.
+          LOG.info("Task " + taskId + " is no longer pending, releasing its offer.");
+        }
+        return true;
+      }
+
+      if (reservations.getByValue(TaskGroupKey.from(task)).isEmpty()) {
+        storage.write((NoResult.Quiet) store -> {
+          IAssignedTask pending = fetchPending(store, taskId);
+          if (pending != null) {
+            maybePreemptFor(
+                pending,
+                AttributeAggregate.getJobActiveState(store, task.getJob()),
+                store);
+          }
+        });
+      }
+      attemptsNoMatch.incrementAndGet();
+      return false;
+    }
+
+    /**
+     * Commits an assignment made with a claimed offer.  Assignments are queued, and each write
+     * transaction commits all assignments queued when it starts, so that concurrent scheduling
+     * attempts share write transactions.
+     *
+     * @param assignment Assignment to commit.
+     * @return {@code true} if the task was assigned, {@code false} if it was no longer pending.
+     */
+    private boolean commit(PendingAssignment assignment) {
+      pendingAssignments.add(assignment);
+      List<PendingAssignment> batch = Lists.newArrayList();
+      try {
+        storage.write((NoResult.Quiet) store -> {
+          try {
+            PendingAssignment next = pendingAssignments.poll();
+            while (next != null) {
+              batch.add(next);
+              next.taskPending = fetchPending(store, next.taskId) != null;
+              if (next.taskPending) {
+                assigner.assignClaimed(store, next.offer, next.taskId);
+              }
+              next = pendingAssignments.poll();
+            }
+          } catch (RuntimeException e) {
+            // All assignments of the batch are rolled back, so the launches already requested
+            // are withdrawn before the transaction completes and sends them.
+            for (PendingAssignment failed : batch) {
+              if (failed.taskPending) {
+                assigner.withdrawClaimed(failed.offer);
+              }
+            }
+            throw e;
+          }
+        });
+      } catch (RuntimeException e) {
+        for (PendingAssignment failed : batch) {
+          offerManager.releaseOffer(failed.offer);
+          failed.assigned.setException(e);
+        }
+        throw e;
+      }
+
+      if (!batch.isEmpty()) {
+        commitBatchSize.accumulate(batch.size());
+      }
+      for (PendingAssignment committed : batch) {
+        if (!committed.taskPending) {
+          assignmentsAbandoned.incrementAndGet();
+          offerManager.releaseOffer(committed.offer);
+        }
+        // Assignments are only reported once the transaction is complete.
+        committed.assigned.set(committed.taskPending);
+      }
+      return Futures.getUnchecked(assignment.assigned);
+    }
+
     private void maybePreemptFor(
         IAssignedTask task,
         AttributeAggregate jobState,
@@ -13,8 +13,6 @@
  */
 package org.apache.aurora.scheduler.sla;
 
-import java.util.Collection;
-import java.util.List;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
@@ -22,27 +20,18 @@ import java.util.concurrent.atomic.AtomicReference;
 import javax.inject.Inject;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.base.Predicate;
-import com.google.common.base.Predicates;
 import com.google.common.base.Supplier;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
-import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.Multimap;
-import com.google.common.collect.Range;
 
 import org.apache.aurora.common.inject.TimedInterceptor.Timed;
 import org.apache.aurora.common.stats.StatsProvider;
-import org.apache.aurora.common.util.Clock;
-import org.apache.aurora.scheduler.base.Query;
-import org.apache.aurora.scheduler.base.Tasks;
 import org.apache.aurora.scheduler.sla.SlaAlgorithm.AlgorithmType;
 import org.apache.aurora.scheduler.sla.SlaGroup.GroupType;
-import org.apache.aurora.scheduler.storage.Storage;
-import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
-import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
+import org.apache.aurora.scheduler.stats.StatsPipeline;
 
 import static java.util.Objects.requireNonNull;
 
@@ -61,7 +50,7 @@ import static org.apache.aurora.scheduler.sla.SlaGroup.GroupType.RESOURCE_DISK;
 import static org.apache.aurora.scheduler.sla.SlaGroup.GroupType.RESOURCE_RAM;
 
 /**
- * Responsible for calculating and exporting SLA metrics.
+ * Responsible for exporting SLA metrics calculated by the {@link SlaMetricTracker}.
  */
 class MetricCalculator implements Runnable {
 
@@ -102,13 +91,9 @@ class MetricCalculator implements Runnable {
     }
   }
 
-  private static final Predicate<ITaskConfig> IS_SERVICE =
-      ITaskConfig::isIsService;
-
   private final LoadingCache<String, Counter> metricCache;
-  private final Storage storage;
-  private final Clock clock;
-  private final MetricCalculatorSettings settings;
+  private final SlaMetricTracker tracker;
+  private final StatsPipeline pipeline;
 
   static class MetricCalculatorSettings {
     private final long refreshRateMs;
@@ -129,6 +114,13 @@ class MetricCalculator implements Runnable {
       return refreshRateMs;
     }
 
+    Set<MetricCategory> getProdMetrics() {
+      return prodMetrics;
+    }
+
+    Set<MetricCategory> getNonProdMetrics() {
+      return nonProdMetrics;
+    }
   }
 
   private static class Counter implements Supplier<Number> {
@@ -156,14 +148,12 @@ class MetricCalculator implements Runnable {
 
   @Inject
   MetricCalculator(
-      Storage storage,
-      Clock clock,
-      MetricCalculatorSettings settings,
+      SlaMetricTracker tracker,
+      StatsPipeline pipeline,
       final StatsProvider statsProvider) {
 
-    this.storage = requireNonNull(storage);
-    this.clock = requireNonNull(clock);
-    this.settings = requireNonNull(settings);
+    this.tracker = requireNonNull(tracker);
+    this.pipeline = requireNonNull(pipeline);
 
     requireNonNull(statsProvider);
     this.metricCache = CacheBuilder.newBuilder().build(
@@ -177,41 +167,8 @@ class MetricCalculator implements Runnable {
   @Timed("sla_stats_computation")
   @Override
   public void run() {
-    FluentIterable<IScheduledTask> tasks =
-        FluentIterable.from(Storage.Util.fetchTasks(storage, Query.unscoped()));
-
-    List<IScheduledTask> prodTasks = tasks.filter(Predicates.compose(
-        Predicates.and(ITaskConfig::isProduction, IS_SERVICE),
-        Tasks::getConfig)).toList();
-
-    List<IScheduledTask> nonProdTasks = tasks.filter(Predicates.compose(
-        Predicates.and(Predicates.not(ITaskConfig::isProduction), IS_SERVICE),
-        Tasks::getConfig)).toList();
-
-    long nowMs = clock.nowMillis();
-    Range<Long> timeRange = Range.closedOpen(nowMs - settings.refreshRateMs, nowMs);
-
-    runAlgorithms(prodTasks, settings.prodMetrics, timeRange, NAME_QUALIFIER_PROD);
-    runAlgorithms(nonProdTasks, settings.nonProdMetrics, timeRange, NAME_QUALIFIER_NON_PROD);
-  }
-
-  private void runAlgorithms(
-      List<IScheduledTask> tasks,
-      Set<MetricCategory> categories,
-      Range<Long> timeRange,
-      String nameQualifier) {
-
-    for (MetricCategory category : categories) {
-      for (Entry<AlgorithmType, GroupType> slaMetric : category.getMetrics().entries()) {
-        for (Entry<String, Collection<IScheduledTask>> namedGroup
-            : slaMetric.getValue().getSlaGroup().createNamedGroups(tasks).asMap().entrySet()) {
-
-          AlgorithmType algoType = slaMetric.getKey();
-          String metricName = namedGroup.getKey() + algoType.getAlgorithmName() + nameQualifier;
-          metricCache.getUnchecked(metricName)
-              .set(metricName, algoType.getAlgorithm().calculate(namedGroup.getValue(), timeRange));
-        }
-      }
+    for (Entry<String, Number> metric : tracker.calculate(pipeline).entrySet()) {
+      metricCache.getUnchecked(metric.getKey()).set(metric.getKey(), metric.getValue());
     }
   }
 }
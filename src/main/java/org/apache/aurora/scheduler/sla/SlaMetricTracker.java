@@ -0,0 +1,619 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.sla;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import javax.inject.Inject;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.Ordering;
+import com.google.common.collect.Range;
+import com.google.common.collect.Sets;
+import com.google.common.collect.TreeMultiset;
+import com.google.common.eventbus.Subscribe;
+
+import org.apache.aurora.common.collections.Pair;
+import org.apache.aurora.common.util.Clock;
+import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.scheduler.base.Tasks;
+import org.apache.aurora.scheduler.events.PubsubEvent.EventSubscriber;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.events.PubsubEvent.TasksDeleted;
+import org.apache.aurora.scheduler.sla.MetricCalculator.MetricCalculatorSettings;
+import org.apache.aurora.scheduler.sla.MetricCalculator.MetricCategory;
+import org.apache.aurora.scheduler.sla.SlaAlgorithm.AlgorithmType;
+import org.apache.aurora.scheduler.sla.SlaAlgorithm.SlaState;
+import org.apache.aurora.scheduler.sla.SlaGroup.GroupType;
+import org.apache.aurora.scheduler.stats.StatsPipeline;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.storage.entities.ITaskEvent;
+
+import static java.util.Objects.requireNonNull;
+
+import static org.apache.aurora.gen.ScheduleStatus.ASSIGNED;
+import static org.apache.aurora.gen.ScheduleStatus.PENDING;
+import static org.apache.aurora.gen.ScheduleStatus.RUNNING;
+import static org.apache.aurora.scheduler.sla.MetricCalculator.NAME_QUALIFIER_NON_PROD;
+import static org.apache.aurora.scheduler.sla.MetricCalculator.NAME_QUALIFIER_PROD;
+
+/**
+ * Maintains SLA metric state from task events, so that metrics are calculated without fetching
+ * and replaying the history of every task in the cluster.
+ * <p>
+ * For each service task the tracker keeps its SLA groups and the time it started RUNNING.  For
+ * each instance it keeps the {@link SlaState} transitions that may overlap the sliding time frame,
+ * and the number of instances in each state is kept per group.  Times to ASSIGNED and RUNNING are
+ * recorded as tasks reach these states.  Calculating the metrics then takes time proportional to
+ * the number of groups and to the number of changes within the time frame, for each of the
+ * {@link AlgorithmType} metrics.
+ */
+class SlaMetricTracker implements EventSubscriber {
+
+  private static final Set<ScheduleStatus> WAIT_STATUSES = Sets.immutableEnumSet(ASSIGNED, RUNNING);
+
+  private final Clock clock;
+  private final long timeFrameMs;
+  private final Set<MetricCategory> prodMetrics;
+  private final Set<MetricCategory> nonProdMetrics;
+
+  private final Map<String, TrackedTask> tasks = Maps.newHashMap();
+  private final Map<InstanceKey, Instance> instances = Maps.newHashMap();
+  private final Multiset<GroupKey> groupSizes = HashMultiset.create();
+  private final Map<GroupKey, TreeMultiset<Long>> runningSince = Maps.newHashMap();
+  private final Multiset<Pair<GroupKey, SlaState>> instanceStates = HashMultiset.create();
+  private final Set<InstanceKey> changedInstances = Sets.newHashSet();
+  private final PriorityQueue<WaitSample> waitSamples =
+      new PriorityQueue<>(Comparator.comparingLong((WaitSample sample) -> sample.timestampMs));
+
+  @Inject
+  SlaMetricTracker(Clock clock, MetricCalculatorSettings settings) {
+    this.clock = requireNonNull(clock);
+    this.timeFrameMs = settings.getRefreshRateMs();
+    this.prodMetrics = settings.getProdMetrics();
+    this.nonProdMetrics = settings.getNonProdMetrics();
+  }
+
+  private static final class GroupKey {
+    private final boolean production;
+    private final GroupType type;
+    private final String name;
+
+    GroupKey(boolean production, GroupType type, String name) {
+      this.production = production;
+      this.type = requireNonNull(type);
+      this.name = requireNonNull(name);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof GroupKey)) {
+        return false;
+      }
+
+      GroupKey other = (GroupKey) o;
+      return production == other.production
+          && type == other.type
+          && name.equals(other.name);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(production, type, name);
+    }
+  }
+
+  private static final class InstanceKey {
+    private final boolean production;
+    private final IJobKey job;
+    private final int instanceId;
+
+    InstanceKey(IScheduledTask task) {
+      this.production = task.getAssignedTask().getTask().isProduction();
+      this.job = task.getAssignedTask().getTask().getJob();
+      this.instanceId = task.getAssignedTask().getInstanceId();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof InstanceKey)) {
+        return false;
+      }
+
+      InstanceKey other = (InstanceKey) o;
+      return production == other.production
+          && job.equals(other.job)
+          && instanceId == other.instanceId;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(production, job, instanceId);
+    }
+  }
+
+  private static final class TrackedTask {
+    private final InstanceKey instance;
+    private final List<GroupKey> groups;
+    private IScheduledTask task;
+    private Optional<Long> runningSinceMs = Optional.absent();
+
+    TrackedTask(IScheduledTask task, List<GroupKey> groups) {
+      this.instance = new InstanceKey(task);
+      this.groups = requireNonNull(groups);
+      this.task = requireNonNull(task);
+    }
+  }
+
+  private static final class Instance {
+    private final List<GroupKey> groups;
+    private final Set<String> taskIds = new LinkedHashSet<>();
+    // Ordered by time, with the last transition holding the current state.
+    private final LinkedList<Pair<SlaState, Long>> transitions = Lists.newLinkedList();
+
+    Instance(List<GroupKey> groups) {
+      this.groups = requireNonNull(groups);
+      transitions.add(Pair.of(SlaState.REMOVED, 0L));
+    }
+
+    SlaState getState() {
+      return transitions.getLast().getFirst();
+    }
+
+    long getLastTransitionMs() {
+      return transitions.getLast().getSecond();
+    }
+  }
+
+  private static final class WaitSample {
+    private final String taskId;
+    private final ScheduleStatus status;
+    private final long timestampMs;
+    private final long waitMs;
+
+    WaitSample(String taskId, ScheduleStatus status, long timestampMs, long waitMs) {
+      this.taskId = requireNonNull(taskId);
+      this.status = requireNonNull(status);
+      this.timestampMs = timestampMs;
+      this.waitMs = waitMs;
+    }
+  }
+
+  private static List<GroupKey> getGroups(IScheduledTask task) {
+    boolean production = task.getAssignedTask().getTask().isProduction();
+    ImmutableList.Builder<GroupKey> groups = ImmutableList.builder();
+    for (GroupType type : GroupType.values()) {
+      for (String name
+          : type.getSlaGroup().createNamedGroups(ImmutableList.of(task)).keySet()) {
+
+        groups.add(new GroupKey(production, type, name));
+      }
+    }
+    return groups.build();
+  }
+
+  private static boolean isInstanceGroup(GroupKey group) {
+    return group.type == GroupType.JOB || group.type == GroupType.CLUSTER;
+  }
+
+  /**
+   * Tracks task state changes.  Tasks loaded from storage rebuild the timelines of their
+   * instances from all known task events, while transitions apply every event not yet applied.
+   * Changes that carry no more task events than the tracked task are stale and ignored.
+   *
+   * @param change Task state change.
+   */
+  @Subscribe
+  public synchronized void taskChangedState(TaskStateChange change) {
+    IScheduledTask task = change.getTask();
+    if (!task.getAssignedTask().getTask().isIsService()) {
+      return;
+    }
+
+    TrackedTask tracked = tasks.get(change.getTaskId());
+    if (tracked == null) {
+      track(task, change.isTransition());
+    } else {
+      // Events are delivered asynchronously and may arrive out of order, in which case the task
+      // snapshot of a late event is older than the one already applied.  A newer snapshot may in
+      // turn carry several events not applied yet, which are replayed in order.
+      int applied = tracked.task.getTaskEvents().size();
+      if (task.getTaskEvents().size() <= applied) {
+        return;
+      }
+
+      tracked.task = task;
+      Instance instance = instances.get(tracked.instance);
+      for (ITaskEvent event : task.getTaskEvents().subList(applied, task.getTaskEvents().size())) {
+        applyEvent(tracked.instance, instance, event);
+        maybeAddWaitSample(task, event);
+      }
+      updateRunningSince(tracked);
+    }
+  }
+
+  /**
+   * Stops tracking deleted tasks, and instances without remaining tasks.
+   *
+   * @param deleted Deleted tasks.
+   */
+  @Subscribe
+  public synchronized void tasksDeleted(TasksDeleted deleted) {
+    for (IScheduledTask task : deleted.getTasks()) {
+      TrackedTask tracked = tasks.remove(Tasks.id(task));
+      if (tracked == null) {
+        continue;
+      }
+
+      for (GroupKey group : tracked.groups) {
+        groupSizes.remove(group);
+      }
+      setRunningSince(tracked, Optional.absent());
+
+      Instance instance = instances.get(tracked.instance);
+      instance.taskIds.remove(Tasks.id(task));
+      if (instance.taskIds.isEmpty()) {
+        for (GroupKey group : instance.groups) {
+          instanceStates.remove(Pair.of(group, instance.getState()));
+        }
+        instances.remove(tracked.instance);
+        changedInstances.remove(tracked.instance);
+      }
+    }
+  }
+
+  private void track(IScheduledTask task, boolean transition) {
+    List<GroupKey> groups = getGroups(task);
+    TrackedTask tracked = new TrackedTask(task, groups);
+    tasks.put(Tasks.id(task), tracked);
+    groupSizes.addAll(groups);
+
+    Instance instance = instances.get(tracked.instance);
+    boolean newInstance = instance == null;
+    if (newInstance) {
+      instance = new Instance(
+          FluentIterable.from(groups).filter(SlaMetricTracker::isInstanceGroup).toList());
+      instances.put(tracked.instance, instance);
+      for (GroupKey group : instance.groups) {
+        instanceStates.add(Pair.of(group, instance.getState()));
+      }
+    }
+    instance.taskIds.add(Tasks.id(task));
+
+    if (transition && !newInstance) {
+      // A new task of a known instance, whose events follow those already applied.
+      for (ITaskEvent event : task.getTaskEvents()) {
+        applyEvent(tracked.instance, instance, event);
+      }
+    } else {
+      rebuildTimeline(tracked.instance, instance);
+    }
+
+    updateRunningSince(tracked);
+    for (ITaskEvent event : task.getTaskEvents()) {
+      maybeAddWaitSample(task, event);
+    }
+  }
+
+  private void setState(InstanceKey key, Instance instance, SlaState state, long timestampMs) {
+    SlaState current = instance.getState();
+    if (current == state) {
+      return;
+    }
+
+    // Events are expected in time order; a late event is applied at the latest known time.
+    instance.transitions.add(
+        Pair.of(state, Math.max(timestampMs, instance.getLastTransitionMs())));
+    for (GroupKey group : instance.groups) {
+      instanceStates.remove(Pair.of(group, current));
+      instanceStates.add(Pair.of(group, state));
+    }
+    changedInstances.add(key);
+  }
+
+  private void applyEvent(InstanceKey key, Instance instance, ITaskEvent event) {
+    setState(
+        key,
+        instance,
+        SlaAlgorithm.nextState(instance.getState(), event.getStatus()),
+        event.getTimestamp());
+  }
+
+  private void rebuildTimeline(InstanceKey key, Instance instance) {
+    List<ITaskEvent> events = Lists.newArrayList();
+    for (String taskId : instance.taskIds) {
+      events.addAll(tasks.get(taskId).task.getTaskEvents());
+    }
+
+    SlaState previous = instance.getState();
+    instance.transitions.clear();
+    instance.transitions.add(Pair.of(SlaState.REMOVED, 0L));
+    for (ITaskEvent event
+        : Ordering.natural().onResultOf(ITaskEvent::getTimestamp).sortedCopy(events)) {
+
+      SlaState state = SlaAlgorithm.nextState(instance.getState(), event.getStatus());
+      if (state != instance.getState()) {
+        instance.transitions.add(Pair.of(state, event.getTimestamp()));
+      }
+    }
+
+    for (GroupKey group : instance.groups) {
+      instanceStates.remove(Pair.of(group, previous));
+      instanceStates.add(Pair.of(group, instance.getState()));
+    }
+    changedInstances.add(key);
+  }
+
+  private void updateRunningSince(TrackedTask tracked) {
+    setRunningSince(
+        tracked,
+        tracked.task.getStatus() == RUNNING
+            ? Optional.of(Tasks.getLatestEvent(tracked.task).getTimestamp())
+            : Optional.absent());
+  }
+
+  private void setRunningSince(TrackedTask tracked, Optional<Long> sinceMs) {
+    if (tracked.runningSinceMs.equals(sinceMs)) {
+      return;
+    }
+
+    for (GroupKey group : tracked.groups) {
+      if (group.type == GroupType.JOB) {
+        TreeMultiset<Long> since = runningSince.computeIfAbsent(group, k -> TreeMultiset.create());
+        if (tracked.runningSinceMs.isPresent()) {
+          since.remove(tracked.runningSinceMs.get());
+        }
+        if (sinceMs.isPresent()) {
+          since.add(sinceMs.get());
+        }
+        if (since.isEmpty()) {
+          runningSince.remove(group);
+        }
+      }
+    }
+    tracked.runningSinceMs = sinceMs;
+  }
+
+  private void maybeAddWaitSample(IScheduledTask task, ITaskEvent event) {
+    if (!WAIT_STATUSES.contains(event.getStatus())
+        || event.getTimestamp() < clock.nowMillis() - timeFrameMs) {
+
+      return;
+    }
+
+    // The wait is measured from the latest PENDING event preceding the event.
+    long pendingMs = 0;
+    for (ITaskEvent previous : task.getTaskEvents()) {
+      if (previous.equals(event)) {
+        break;
+      } else if (previous.getStatus() == PENDING) {
+        pendingMs = previous.getTimestamp();
+      }
+    }
+
+    if (pendingMs != 0) {
+      waitSamples.add(new WaitSample(
+          Tasks.id(task),
+          event.getStatus(),
+          event.getTimestamp(),
+          event.getTimestamp() - pendingMs));
+    }
+  }
+
+  /**
+   * Calculates the SLA metrics of the configured categories over the time frame ending now.  The
+   * metrics of each group are calculated in parallel on the pipeline.
+   *
+   * @param pipeline Pipeline to run the calculation on.
+   * @return Metric values by metric name.
+   */
+  synchronized Map<String, Number> calculate(StatsPipeline pipeline) {
+    long nowMs = clock.nowMillis();
+    Range<Long> timeFrame = Range.closedOpen(nowMs - timeFrameMs, nowMs);
+    Map<Pair<GroupKey, ScheduleStatus>, List<Long>> waitTimes =
+        pipeline.time("sla_wait_times", () -> collectWaitTimes(timeFrame));
+    Map<GroupKey, long[]> uptimeCorrections =
+        pipeline.time("sla_uptime_corrections", () -> collectUptimeCorrections(timeFrame));
+
+    // Groups are only read from the pipeline threads.  Events are not applied until this
+    // thread releases the monitor, after all groups are calculated.
+    List<Map<String, Number>> groupMetrics = pipeline.fanOut(
+        "sla_groups",
+        ImmutableList.copyOf(groupSizes.elementSet()),
+        group -> calculate(group, nowMs, waitTimes, uptimeCorrections));
+
+    ImmutableMap.Builder<String, Number> metrics = ImmutableMap.builder();
+    groupMetrics.forEach(metrics::putAll);
+    return metrics.build();
+  }
+
+  private Map<String, Number> calculate(
+      GroupKey group,
+      long nowMs,
+      Map<Pair<GroupKey, ScheduleStatus>, List<Long>> waitTimes,
+      Map<GroupKey, long[]> uptimeCorrections) {
+
+    String qualifier = group.production ? NAME_QUALIFIER_PROD : NAME_QUALIFIER_NON_PROD;
+    ImmutableMap.Builder<String, Number> metrics = ImmutableMap.builder();
+    for (MetricCategory category : group.production ? prodMetrics : nonProdMetrics) {
+      for (Map.Entry<AlgorithmType, GroupType> metric : category.getMetrics().entries()) {
+        if (metric.getValue() != group.type) {
+          continue;
+        }
+
+        AlgorithmType type = metric.getKey();
+        metrics.put(
+            group.name + type.getAlgorithmName() + qualifier,
+            calculateMetric(type, group, nowMs, waitTimes, uptimeCorrections));
+      }
+    }
+    return metrics.build();
+  }
+
+  private Number calculateMetric(
+      AlgorithmType type,
+      GroupKey group,
+      long nowMs,
+      Map<Pair<GroupKey, ScheduleStatus>, List<Long>> waitTimes,
+      Map<GroupKey, long[]> uptimeCorrections) {
+
+    switch (type) {
+      case JOB_UPTIME_99:
+        return getJobUptime(group, 99f, nowMs);
+      case JOB_UPTIME_95:
+        return getJobUptime(group, 95f, nowMs);
+      case JOB_UPTIME_90:
+        return getJobUptime(group, 90f, nowMs);
+      case JOB_UPTIME_75:
+        return getJobUptime(group, 75f, nowMs);
+      case JOB_UPTIME_50:
+        return getJobUptime(group, 50f, nowMs);
+      case AGGREGATE_PLATFORM_UPTIME:
+        return getPlatformUptime(group, uptimeCorrections.get(group));
+      case MEDIAN_TIME_TO_ASSIGNED:
+        return getMedianWaitTime(waitTimes.get(Pair.of(group, ASSIGNED)));
+      case MEDIAN_TIME_TO_RUNNING:
+        return getMedianWaitTime(waitTimes.get(Pair.of(group, RUNNING)));
+      default:
+        throw new IllegalArgumentException("Unsupported SLA algorithm: " + type);
+    }
+  }
+
+  private static Long getMedianWaitTime(List<Long> waitTimes) {
+    return SlaUtil.percentile(waitTimes == null ? ImmutableList.<Long>of() : waitTimes, 50.0);
+  }
+
+  private int getJobUptime(GroupKey group, float percentile, long nowMs) {
+    // Mirrors SlaUtil.percentile over uptimes sorted in a non-descending order, which is the
+    // order of descending RUNNING timestamps.
+    TreeMultiset<Long> since = runningSince.get(group);
+    if (since == null) {
+      return 0;
+    }
+
+    int total = since.size();
+    int index = total - (int) Math.floor((double) percentile / 100 * total) - 1;
+    if (index < 0) {
+      return 0;
+    }
+
+    Iterator<Long> descending = since.descendingMultiset().iterator();
+    for (int i = 0; i < index; i++) {
+      descending.next();
+    }
+    return (int) Math.floor((double) (nowMs - descending.next()) / 1000);
+  }
+
+  private Map<Pair<GroupKey, ScheduleStatus>, List<Long>> collectWaitTimes(
+      Range<Long> timeFrame) {
+
+    while (!waitSamples.isEmpty()
+        && waitSamples.peek().timestampMs < timeFrame.lowerEndpoint()) {
+
+      waitSamples.poll();
+    }
+
+    Map<Pair<GroupKey, ScheduleStatus>, List<Long>> waitTimes = Maps.newHashMap();
+    for (WaitSample sample : waitSamples) {
+      TrackedTask tracked = tasks.get(sample.taskId);
+      if (timeFrame.contains(sample.timestampMs)
+          && tracked != null
+          && Tasks.isActive(tracked.task.getStatus())) {
+
+        for (GroupKey group : tracked.groups) {
+          waitTimes.computeIfAbsent(Pair.of(group, sample.status), k -> Lists.newArrayList())
+              .add(sample.waitMs);
+        }
+      }
+    }
+    return waitTimes;
+  }
+
+  /**
+   * Instances in an unchanged state over the time frame contribute the full time frame to their
+   * state.  For instances that changed state within the time frame, this gets the difference
+   * between the exact uptime and total time, and the contribution of their current state.
+   */
+  private Map<GroupKey, long[]> collectUptimeCorrections(Range<Long> timeFrame) {
+    Map<GroupKey, long[]> corrections = Maps.newHashMap();
+    Iterator<InstanceKey> changed = changedInstances.iterator();
+    while (changed.hasNext()) {
+      Instance instance = instances.get(changed.next());
+      LinkedList<Pair<SlaState, Long>> transitions = instance.transitions;
+      long lowerMs = timeFrame.lowerEndpoint();
+      long upperMs = timeFrame.upperEndpoint();
+      while (transitions.size() > 1 && transitions.get(1).getSecond() <= lowerMs) {
+        transitions.removeFirst();
+      }
+      if (instance.getLastTransitionMs() <= lowerMs) {
+        changed.remove();
+        continue;
+      }
+
+      long uptime = timeFrameMs;
+      long total = timeFrameMs;
+      Iterator<Pair<SlaState, Long>> intervals = transitions.iterator();
+      Pair<SlaState, Long> current = intervals.next();
+      while (current != null) {
+        Pair<SlaState, Long> next = intervals.hasNext() ? intervals.next() : null;
+        long endMs = next == null ? Long.MAX_VALUE : next.getSecond();
+        long intersection =
+            Math.max(0, Math.min(endMs, upperMs) - Math.max(current.getSecond(), lowerMs));
+        if (current.getFirst() == SlaState.REMOVED) {
+          uptime -= intersection;
+          total -= intersection;
+        } else if (current.getFirst() == SlaState.DOWN) {
+          uptime -= intersection;
+        }
+        current = next;
+      }
+
+      SlaState state = instance.getState();
+      long assumedUptime = state == SlaState.UP ? timeFrameMs : 0;
+      long assumedTotal = state == SlaState.REMOVED ? 0 : timeFrameMs;
+      for (GroupKey group : instance.groups) {
+        long[] correction = corrections.computeIfAbsent(group, k -> new long[2]);
+        correction[0] += uptime - assumedUptime;
+        correction[1] += total - assumedTotal;
+      }
+    }
+    return corrections;
+  }
+
+  private double getPlatformUptime(GroupKey group, long[] correction) {
+    long up = instanceStates.count(Pair.of(group, SlaState.UP));
+    long down = instanceStates.count(Pair.of(group, SlaState.DOWN));
+    long aggregateUptime = timeFrameMs * up + (correction == null ? 0 : correction[0]);
+    long aggregateTotal = timeFrameMs * (up + down) + (correction == null ? 0 : correction[1]);
+
+    // Default to 100.0 if no instances are running yet.
+    return aggregateTotal > 0 ? (double) aggregateUptime * 100 / aggregateTotal : 100.0;
+  }
+}
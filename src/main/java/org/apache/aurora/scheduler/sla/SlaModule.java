@@ -35,8 +35,10 @@ import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.scheduler.SchedulerServicesModule;
 import org.apache.aurora.scheduler.base.AsyncUtil;
+import org.apache.aurora.scheduler.events.PubsubEventModule;
 import org.apache.aurora.scheduler.sla.MetricCalculator.MetricCalculatorSettings;
 import org.apache.aurora.scheduler.sla.MetricCalculator.MetricCategory;
+import org.apache.aurora.scheduler.stats.StatsPipeline;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -98,12 +100,16 @@ public class SlaModule extends AbstractModule {
 
   @Override
   protected void configure() {
+    requireBinding(StatsPipeline.class);
+
     bind(MetricCalculatorSettings.class)
         .toInstance(new MetricCalculatorSettings(
             refreshInterval.as(Time.MILLISECONDS),
             prodMetrics,
             nonProdMetrics));
 
+    bind(SlaMetricTracker.class).in(Singleton.class);
+    PubsubEventModule.bindSubscriber(binder(), SlaMetricTracker.class);
     bind(MetricCalculator.class).in(Singleton.class);
     bind(ScheduledExecutorService.class)
         .annotatedWith(SlaExecutor.class)
@@ -0,0 +1,32 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.state;
+
+import com.google.common.base.Optional;
+
+/**
+ * Sends task kill requests to the Mesos driver on behalf of the scheduler.
+ */
+public interface KillDispatcher {
+
+  /**
+   * Requests that a task be killed.  When called within a storage transaction, the kill will not
+   * be sent until the outermost transaction completes.  Requests for a task that already has a
+   * kill waiting to be sent are ignored.
+   *
+   * @param taskId Task to kill.
+   * @param agentId Agent the task is assigned to, if known.
+   */
+  void killTask(String taskId, Optional<String> agentId);
+}
@@ -0,0 +1,353 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.state;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.inject.Inject;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.AbstractExecutionThreadService;
+import com.google.common.util.concurrent.RateLimiter;
+
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.stats.SlidingStats;
+import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.common.util.Clock;
+import org.apache.aurora.scheduler.async.AsyncModule.AsyncExecutor;
+import org.apache.aurora.scheduler.async.DelayExecutor;
+import org.apache.aurora.scheduler.mesos.Driver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.util.Objects.requireNonNull;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A {@link KillDispatcher} that defers kills until after the requesting storage transaction
+ * completes and feeds them to the driver through a bounded queue, shaped by a global rate limit
+ * and a per-agent rate limit.
+ * <p>
+ * Kills for an agent that has exhausted its rate are held back in a per-agent queue, without
+ * blocking the dispatch of kills destined for other agents, and released in order as the
+ * agent's next permit becomes available.  An agent's throttle is discarded once it holds no
+ * deferred kills and its permit interval has passed.  When the queue is full, kills are held back
+ * until the queue has room, so that every kill is shaped by the rate limits.
+ */
+public class KillDispatcherImpl extends AbstractExecutionThreadService implements KillDispatcher {
+  private static final Logger LOG = LoggerFactory.getLogger(KillDispatcherImpl.class);
+
+  @VisibleForTesting
+  static final String QUEUE_SIZE_GAUGE = "kill_dispatch_queue_size";
+
+  @VisibleForTesting
+  static final String DISPATCHED_COUNTER = "kill_dispatch_sent";
+
+  @VisibleForTesting
+  static final String DEDUPLICATED_COUNTER = "kill_dispatch_deduplicated";
+
+  @VisibleForTesting
+  static final String AGENT_THROTTLED_COUNTER = "kill_dispatch_agent_throttled";
+
+  @VisibleForTesting
+  static final String QUEUE_FULL_COUNTER = "kill_dispatch_queue_full";
+
+  @VisibleForTesting
+  static final String AGENT_THROTTLES_GAUGE = "kill_dispatch_agent_throttles";
+
+  public static class KillDispatcherSettings {
+    private final int maxQueueSize;
+    private final double maxKillsPerSecond;
+    private final double maxKillsPerAgentPerSecond;
+
+    public KillDispatcherSettings(
+        int maxQueueSize,
+        double maxKillsPerSecond,
+        double maxKillsPerAgentPerSecond) {
+
+      checkArgument(maxQueueSize > 0);
+      checkArgument(maxKillsPerSecond > 0);
+      checkArgument(maxKillsPerAgentPerSecond > 0);
+      this.maxQueueSize = maxQueueSize;
+      this.maxKillsPerSecond = maxKillsPerSecond;
+      this.maxKillsPerAgentPerSecond = maxKillsPerAgentPerSecond;
+    }
+  }
+
+  private static class KillRequest {
+    private final String taskId;
+    private final Optional<String> agentId;
+    private final long requestedAtMs;
+    private final boolean agentAdmitted;
+
+    KillRequest(
+        String taskId,
+        Optional<String> agentId,
+        long requestedAtMs,
+        boolean agentAdmitted) {
+
+      this.taskId = taskId;
+      this.agentId = agentId;
+      this.requestedAtMs = requestedAtMs;
+      this.agentAdmitted = agentAdmitted;
+    }
+
+    KillRequest admitted() {
+      return new KillRequest(taskId, agentId, requestedAtMs, true);
+    }
+  }
+
+  /**
+   * Admits kills for a single agent at a fixed rate.  Kills that exceed the rate are deferred in
+   * arrival order, and drained one at a time when the next permit becomes available.
+   */
+  private class AgentThrottle {
+    private final String agentId;
+    private final Deque<KillRequest> deferred = new ArrayDeque<>();
+    private long nextPermitMs;
+    private boolean drainScheduled;
+    private boolean evictionScheduled;
+
+    AgentThrottle(String agentId) {
+      this.agentId = agentId;
+    }
+
+    /**
+     * Consumes a permit for a kill, or defers the kill if no permit is available.
+     *
+     * @param request Kill to admit.
+     * @return {@code true} if the kill may be sent now, {@code false} if it was deferred.
+     */
+    synchronized boolean admitOrDefer(KillRequest request) {
+      long nowMs = clock.nowMillis();
+      if (deferred.isEmpty() && nowMs >= nextPermitMs) {
+        nextPermitMs = nowMs + agentPermitIntervalMs;
+        scheduleEviction(nowMs);
+        return true;
+      }
+
+      deferred.add(request);
+      scheduleDrain(nowMs);
+      return false;
+    }
+
+    private void scheduleEviction(long nowMs) {
+      if (!evictionScheduled) {
+        evictionScheduled = true;
+        executor.execute(
+            () -> agentThrottles.computeIfPresent(
+                agentId,
+                (id, throttle) -> throttle.isIdle() ? null : throttle),
+            Amount.of(Math.max(1, nextPermitMs - nowMs), Time.MILLISECONDS));
+      }
+    }
+
+    /**
+     * Checks whether the throttle may be discarded.  Called atomically with the removal of the
+     * throttle, so that kills are never admitted or deferred by a discarded throttle.
+     *
+     * @return {@code true} if the throttle holds no deferred kills and its permit interval passed.
+     */
+    private synchronized boolean isIdle() {
+      evictionScheduled = false;
+      if (!deferred.isEmpty()) {
+        // The throttle is checked again once drained.
+        return false;
+      }
+
+      long nowMs = clock.nowMillis();
+      if (nowMs < nextPermitMs) {
+        scheduleEviction(nowMs);
+        return false;
+      }
+      return true;
+    }
+
+    private void scheduleDrain(long nowMs) {
+      if (!drainScheduled) {
+        drainScheduled = true;
+        executor.execute(
+            this::drain,
+            Amount.of(Math.max(1, nextPermitMs - nowMs), Time.MILLISECONDS));
+      }
+    }
+
+    private void drain() {
+      KillRequest request;
+      synchronized (this) {
+        drainScheduled = false;
+        long nowMs = clock.nowMillis();
+        if (nowMs < nextPermitMs) {
+          scheduleDrain(nowMs);
+          return;
+        }
+
+        request = deferred.remove();
+        nextPermitMs = nowMs + agentPermitIntervalMs;
+        if (deferred.isEmpty()) {
+          scheduleEviction(nowMs);
+        } else {
+          scheduleDrain(nowMs);
+        }
+      }
+      enqueue(request.admitted());
+    }
+  }
+
+  private final Driver driver;
+  private final DelayExecutor executor;
+  private final Clock clock;
+  private final BlockingQueue<KillRequest> queue;
+  private final Set<String> pendingTaskIds = Sets.newConcurrentHashSet();
+  private final RateLimiter globalLimiter;
+  private final Map<String, AgentThrottle> agentThrottles = new ConcurrentHashMap<>();
+  private final long agentPermitIntervalMs;
+  private final AtomicLong dispatched;
+  private final AtomicLong deduplicated;
+  private final AtomicLong agentThrottled;
+  private final AtomicLong queueFull;
+  private final SlidingStats dispatchLatency = new SlidingStats("kill_dispatch_latency", "ms");
+
+  private final AtomicReference<Thread> threadReference = new AtomicReference<>();
+
+  @Inject
+  KillDispatcherImpl(
+      Driver driver,
+      @AsyncExecutor DelayExecutor executor,
+      Clock clock,
+      KillDispatcherSettings settings,
+      StatsProvider statsProvider) {
+
+    this.driver = requireNonNull(driver);
+    this.executor = requireNonNull(executor);
+    this.clock = requireNonNull(clock);
+    this.queue = new LinkedBlockingQueue<>(settings.maxQueueSize);
+    this.globalLimiter = RateLimiter.create(settings.maxKillsPerSecond);
+    this.agentPermitIntervalMs = (long) Math.ceil(1000 / settings.maxKillsPerAgentPerSecond);
+    this.dispatched = statsProvider.makeCounter(DISPATCHED_COUNTER);
+    this.deduplicated = statsProvider.makeCounter(DEDUPLICATED_COUNTER);
+    this.agentThrottled = statsProvider.makeCounter(AGENT_THROTTLED_COUNTER);
+    this.queueFull = statsProvider.makeCounter(QUEUE_FULL_COUNTER);
+    statsProvider.makeGauge(QUEUE_SIZE_GAUGE, queue::size);
+    statsProvider.makeGauge(AGENT_THROTTLES_GAUGE, agentThrottles::size);
+  }
+
+  @Override
+  public void killTask(String taskId, Optional<String> agentId) {
+    requireNonNull(taskId);
+    requireNonNull(agentId);
+
+    if (!pendingTaskIds.add(taskId)) {
+      deduplicated.incrementAndGet();
+      return;
+    }
+
+    // The async executor holds work submitted within a storage transaction until the
+    // transaction completes, which keeps driver calls out of the storage write lock.
+    KillRequest request = new KillRequest(taskId, agentId, clock.nowMillis(), false);
+    executor.execute(() -> enqueue(request));
+  }
+
+  private void enqueue(KillRequest request) {
+    if (queue.offer(request)) {
+      return;
+    }
+
+    // Hold the submitting thread back until the dispatch thread frees up room.
+    queueFull.incrementAndGet();
+    try {
+      queue.put(request);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      pendingTaskIds.remove(request.taskId);
+      // Tasks in KILLING are retried by KillRetry, so the kill is not lost.
+      LOG.warn("Interrupted while queueing kill for " + request.taskId);
+    }
+  }
+
+  private boolean admitOrDefer(String agentId, KillRequest request) {
+    // Admission is atomic with the eviction of the agent's throttle.
+    AtomicBoolean admitted = new AtomicBoolean();
+    agentThrottles.compute(agentId, (id, throttle) -> {
+      AgentThrottle current = throttle == null ? new AgentThrottle(id) : throttle;
+      admitted.set(current.admitOrDefer(request));
+      return current;
+    });
+    return admitted.get();
+  }
+
+  private void dispatch(KillRequest request) {
+    pendingTaskIds.remove(request.taskId);
+    try {
+      driver.killTask(request.taskId);
+      dispatched.incrementAndGet();
+    } catch (RuntimeException e) {
+      // Tasks in KILLING are retried by KillRetry, so a failed attempt is not fatal.
+      LOG.error("Failed to kill task " + request.taskId, e);
+    }
+    dispatchLatency.accumulate(clock.nowMillis() - request.requestedAtMs);
+  }
+
+  @VisibleForTesting
+  void dispatchNext() throws InterruptedException {
+    KillRequest request = queue.take();
+    if (request.agentId.isPresent()
+        && !request.agentAdmitted
+        && !admitOrDefer(request.agentId.get(), request)) {
+
+      // The throttle holds back this kill without blocking kills destined for other agents.
+      agentThrottled.incrementAndGet();
+      return;
+    }
+
+    globalLimiter.acquire();
+    dispatch(request);
+  }
+
+  @Override
+  protected void triggerShutdown() {
+    Thread thread = threadReference.get();
+
+    if (thread != null) {
+      thread.interrupt();
+    }
+  }
+
+  @Override
+  protected void run() {
+    threadReference.set(Thread.currentThread());
+
+    while (isRunning()) {
+      try {
+        dispatchNext();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+  }
+}
@@ -0,0 +1,49 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.state;
+
+import org.apache.aurora.scheduler.HostOffer;
+import org.apache.aurora.scheduler.storage.entities.IAssignedTask;
+import org.apache.mesos.Protos.OfferID;
+
+/**
+ * Sends task launch requests to the Mesos driver on behalf of the scheduler.
+ */
+public interface LaunchDispatcher {
+
+  /**
+   * Requests that an assigned task be launched with an offer that was claimed from the offer
+   * pool.  When called within a storage transaction, the launch will not be sent until the
+   * outermost transaction completes.  Tasks launched with the same offer are sent to the driver
+   * together.  Tasks that fail to launch are moved to {@code LOST}.
+   * <p>
+   * When offer packing is enabled, the resources of the offer that the task does not use are
+   * returned to the offer pool, and the launch is held until the packing window of the offer
+   * closes so that tasks assigned to the remainder are launched with it.
+   *
+   * @param offer Claimed offer to launch the task with.
+   * @param task Task that was assigned to the offer.
+   */
+  void launch(HostOffer offer, IAssignedTask task);
+
+  /**
+   * Withdraws the launches requested with an offer within a storage transaction that failed, so
+   * that tasks whose assignment is rolled back are not launched.  Since launches are only sent
+   * once the outermost transaction completes, this must be called within the failed transaction.
+   * The offer is not returned to the offer pool.
+   *
+   * @param offerId Offer whose launches are withdrawn.
+   */
+  void withdraw(OfferID offerId);
+}
@@ -0,0 +1,365 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.state;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.inject.Inject;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.AbstractExecutionThreadService;
+
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.stats.SlidingStats;
+import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.common.util.Clock;
+import org.apache.aurora.scheduler.HostOffer;
+import org.apache.aurora.scheduler.async.AsyncModule.AsyncExecutor;
+import org.apache.aurora.scheduler.async.DelayExecutor;
+import org.apache.aurora.scheduler.mesos.MesosTaskFactory;
+import org.apache.aurora.scheduler.offers.OfferManager;
+import org.apache.aurora.scheduler.offers.OfferManager.LaunchException;
+import org.apache.aurora.scheduler.storage.Storage;
+import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult;
+import org.apache.aurora.scheduler.storage.entities.IAssignedTask;
+import org.apache.mesos.Protos.Offer;
+import org.apache.mesos.Protos.OfferID;
+import org.apache.mesos.Protos.TaskInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.util.Objects.requireNonNull;
+
+import static org.apache.aurora.gen.ScheduleStatus.ASSIGNED;
+import static org.apache.aurora.gen.ScheduleStatus.LOST;
+
+/**
+ * A {@link LaunchDispatcher} that defers launches until after the requesting storage transaction
+ * completes, and builds and sends them to the driver on a dedicated thread.  This keeps the
+ * construction of {@link TaskInfo}s and the driver call out of the storage write lock.
+ * <p>
+ * Launches are grouped by offer, so that all tasks assigned to an offer are sent to the driver in
+ * a single call.  With offer packing enabled, the unused remainder of an offer is returned to the
+ * offer pool after each assignment, and the launch is held for a packing window so that further
+ * tasks may be assigned to the remainder before the offer is accepted.
+ */
+public class LaunchDispatcherImpl
+    extends AbstractExecutionThreadService
+    implements LaunchDispatcher {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LaunchDispatcherImpl.class);
+
+  @VisibleForTesting
+  static final Optional<String> LAUNCH_FAILED_MSG =
+      Optional.of("Unknown exception attempting to schedule task.");
+
+  @VisibleForTesting
+  static final String QUEUE_SIZE_GAUGE = "launch_dispatch_queue_size";
+
+  @VisibleForTesting
+  static final String TASKS_LAUNCHED_COUNTER = "launch_dispatch_tasks_sent";
+
+  @VisibleForTesting
+  static final String OFFERS_ACCEPTED_COUNTER = "launch_dispatch_offers_accepted";
+
+  @VisibleForTesting
+  static final String LAUNCH_FAILURES_COUNTER = "launch_dispatch_failures";
+
+  public static class LaunchDispatcherSettings {
+    private final Optional<Amount<Long, Time>> packingWindow;
+
+    public LaunchDispatcherSettings(Optional<Amount<Long, Time>> packingWindow) {
+      this.packingWindow = requireNonNull(packingWindow);
+    }
+  }
+
+  private static class Placement {
+    private final IAssignedTask task;
+    // The offer as it was when the task was assigned, which excludes resources allocated to tasks
+    // assigned to it earlier.
+    private final Offer offer;
+
+    Placement(IAssignedTask task, Offer offer) {
+      this.task = task;
+      this.offer = offer;
+    }
+  }
+
+  private static class LaunchBatch {
+    private final OfferID offerId;
+    private final long requestedAtMs;
+    private final List<Placement> placements = Lists.newArrayList();
+
+    LaunchBatch(OfferID offerId, long requestedAtMs) {
+      this.offerId = offerId;
+      this.requestedAtMs = requestedAtMs;
+    }
+  }
+
+  private final MesosTaskFactory taskFactory;
+  private final OfferManager offerManager;
+  private final StateManager stateManager;
+  private final Storage storage;
+  private final DelayExecutor executor;
+  private final Clock clock;
+  private final Optional<Amount<Long, Time>> packingWindow;
+  private final BlockingQueue<LaunchBatch> queue = new LinkedBlockingQueue<>();
+  // Batches that have been requested but not yet dispatched, guarded by itself.
+  private final Map<OfferID, LaunchBatch> pendingBatches = Maps.newHashMap();
+  private final AtomicLong tasksLaunched;
+  private final AtomicLong offersAccepted;
+  private final AtomicLong launchFailures;
+  private final SlidingStats dispatchLatency = new SlidingStats("launch_dispatch_latency", "ms");
+  private final SlidingStats buildTime = new SlidingStats("launch_dispatch_build_task_infos", "ns");
+  private final SlidingStats tasksPerOffer =
+      new SlidingStats("launch_dispatch_tasks_per_offer", "tasks");
+
+  private final AtomicReference<Thread> threadReference = new AtomicReference<>();
+
+  @Inject
+  LaunchDispatcherImpl(
+      MesosTaskFactory taskFactory,
+      OfferManager offerManager,
+      StateManager stateManager,
+      Storage storage,
+      @AsyncExecutor DelayExecutor executor,
+      Clock clock,
+      StatsProvider statsProvider,
+      LaunchDispatcherSettings settings) {
+
+    this.taskFactory = requireNonNull(taskFactory);
+    this.offerManager = requireNonNull(offerManager);
+    this.stateManager = requireNonNull(stateManager);
+    this.storage = requireNonNull(storage);
+    this.executor = requireNonNull(executor);
+    this.clock = requireNonNull(clock);
+    this.packingWindow = settings.packingWindow;
+    this.tasksLaunched = statsProvider.makeCounter(TASKS_LAUNCHED_COUNTER);
+    this.offersAccepted = statsProvider.makeCounter(OFFERS_ACCEPTED_COUNTER);
+    this.launchFailures = statsProvider.makeCounter(LAUNCH_FAILURES_COUNTER);
+    statsProvider.makeGauge(QUEUE_SIZE_GAUGE, queue::size);
+  }
+
+  @Override
+  public void launch(HostOffer offer, IAssignedTask task) {
+    requireNonNull(offer);
+    requireNonNull(task);
+
+    OfferID offerId = offer.getOffer().getId();
+    Optional<HostOffer> remainder = Optional.absent();
+    if (packingWindow.isPresent()) {
+      remainder = getRemainder(offer, task);
+    }
+
+    LaunchBatch batch;
+    boolean created;
+    synchronized (pendingBatches) {
+      batch = pendingBatches.get(offerId);
+      created = batch == null;
+      if (created) {
+        batch = new LaunchBatch(offerId, clock.nowMillis());
+        pendingBatches.put(offerId, batch);
+      }
+      batch.placements.add(new Placement(task, offer.getOffer()));
+      if (remainder.isPresent()) {
+        offerManager.addPackedOffer(remainder.get());
+      }
+    }
+
+    // The async executor holds work submitted within a storage transaction until the
+    // transaction completes, so tasks assigned to the offer later in the same transaction
+    // join this batch.
+    LaunchBatch closing = batch;
+    if (remainder.isPresent()) {
+      if (created) {
+        executor.execute(() -> close(closing), packingWindow.get());
+      }
+    } else if (created || packingWindow.isPresent()) {
+      // Nothing more can be packed onto the offer, so there is no need to wait.
+      executor.execute(() -> close(closing));
+    }
+  }
+
+  @Override
+  public void withdraw(OfferID offerId) {
+    requireNonNull(offerId);
+
+    synchronized (pendingBatches) {
+      if (pendingBatches.remove(offerId) != null && packingWindow.isPresent()) {
+        // The remainder of the offer is in the offer pool.
+        offerManager.cancelOffer(offerId);
+      }
+    }
+  }
+
+  private Optional<HostOffer> getRemainder(HostOffer offer, IAssignedTask task) {
+    Offer remainder;
+    try {
+      remainder = taskFactory.getRemainder(task, offer.getOffer());
+    } catch (RuntimeException e) {
+      // The launch will fail the same way, leave it to the dispatch to handle.
+      LOG.warn("Failed to allocate resources from offer for " + task.getTaskId(), e);
+      return Optional.absent();
+    }
+
+    return remainder.getResourcesCount() == 0
+        ? Optional.absent()
+        : Optional.of(new HostOffer(remainder, offer.getAttributes()));
+  }
+
+  private void close(LaunchBatch batch) {
+    if (packingWindow.isPresent()) {
+      // Tasks are only assigned within storage transactions, so closing the batch within one
+      // guarantees that no task is being assigned to the remainder of the offer.
+      storage.write((NoResult.Quiet) storeProvider -> enqueue(batch));
+    } else {
+      enqueue(batch);
+    }
+  }
+
+  private void enqueue(LaunchBatch batch) {
+    synchronized (pendingBatches) {
+      if (!pendingBatches.remove(batch.offerId, batch)) {
+        // Already closed.
+        return;
+      }
+      if (packingWindow.isPresent()) {
+        offerManager.cancelOffer(batch.offerId);
+      }
+    }
+    queue.add(batch);
+  }
+
+  @VisibleForTesting
+  void dispatchNext() throws InterruptedException {
+    LaunchBatch batch = queue.take();
+    List<Placement> placements;
+    synchronized (pendingBatches) {
+      placements = ImmutableList.copyOf(batch.placements);
+    }
+
+    try {
+      dispatch(batch, placements);
+    } catch (RuntimeException e) {
+      // An unexpected failure is confined to its batch, so that it does not stop the dispatch
+      // thread and strand the batches queued behind it.
+      LOG.error("Failed to dispatch launch for offer " + batch.offerId.getValue(), e);
+      List<String> taskIds = Lists.newArrayList();
+      for (Placement placement : placements) {
+        taskIds.add(placement.task.getTaskId());
+      }
+      launchFailures.addAndGet(taskIds.size());
+      markLost(taskIds);
+      decline(batch.offerId);
+    }
+  }
+
+  private void dispatch(LaunchBatch batch, List<Placement> placements) {
+    List<String> failed = Lists.newArrayList();
+    List<String> built = Lists.newArrayList();
+    ImmutableList.Builder<TaskInfo> taskInfos = ImmutableList.builder();
+    long buildStart = System.nanoTime();
+    for (Placement placement : placements) {
+      String taskId = placement.task.getTaskId();
+      try {
+        taskInfos.add(taskFactory.createFrom(placement.task, placement.offer));
+        built.add(taskId);
+      } catch (RuntimeException e) {
+        LOG.warn("Failed to create task info for " + taskId, e);
+        failed.add(taskId);
+      }
+    }
+    buildTime.accumulate(System.nanoTime() - buildStart);
+
+    // If no task info could be built, launching an empty list declines the offer.
+    try {
+      offerManager.launchTasks(batch.offerId, taskInfos.build());
+      offersAccepted.incrementAndGet();
+      tasksLaunched.addAndGet(built.size());
+      tasksPerOffer.accumulate(built.size());
+    } catch (LaunchException e) {
+      LOG.warn("Failed to launch tasks.", e);
+      failed.addAll(built);
+    }
+    dispatchLatency.accumulate(clock.nowMillis() - batch.requestedAtMs);
+
+    if (!failed.isEmpty()) {
+      launchFailures.addAndGet(failed.size());
+      markLost(failed);
+    }
+  }
+
+  private void decline(OfferID offerId) {
+    // Launching an empty list declines the offer.
+    try {
+      offerManager.launchTasks(offerId, ImmutableList.of());
+    } catch (LaunchException | RuntimeException e) {
+      LOG.error("Failed to decline offer " + offerId.getValue(), e);
+    }
+  }
+
+  private void markLost(List<String> taskIds) {
+    // The attempt to launch the tasks failed, so we need to backpedal on the assignment.
+    // They are moved to LOST and new tasks will move to PENDING to replace them.
+    // Should the state change fail due to storage issues, that's okay.  The tasks will
+    // time out in the ASSIGNED state and be moved to LOST.
+    try {
+      storage.write((NoResult.Quiet) storeProvider -> {
+        for (String taskId : taskIds) {
+          stateManager.changeState(
+              storeProvider,
+              taskId,
+              Optional.of(ASSIGNED),
+              LOST,
+              LAUNCH_FAILED_MSG);
+        }
+      });
+    } catch (RuntimeException e) {
+      LOG.error("Failed to move tasks that failed to launch to LOST: " + taskIds, e);
+    }
+  }
+
+  @Override
+  protected void triggerShutdown() {
+    Thread thread = threadReference.get();
+
+    if (thread != null) {
+      thread.interrupt();
+    }
+  }
+
+  @Override
+  protected void run() {
+    threadReference.set(Thread.currentThread());
+
+    while (isRunning()) {
+      try {
+        dispatchNext();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+  }
+}
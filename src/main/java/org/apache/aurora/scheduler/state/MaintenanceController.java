@@ -13,6 +13,7 @@
  */
 package org.apache.aurora.scheduler.state;
 
+import java.util.Map;
 import java.util.Set;
 
 import javax.inject.Inject;
@@ -20,10 +21,9 @@ import javax.inject.Inject;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
-import com.google.common.base.Predicates;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.eventbus.Subscribe;
 
@@ -32,15 +32,17 @@ import org.apache.aurora.gen.MaintenanceMode;
 import org.apache.aurora.gen.ScheduleStatus;
 import org.apache.aurora.scheduler.base.Query;
 import org.apache.aurora.scheduler.base.Tasks;
+import org.apache.aurora.scheduler.events.PubsubEvent.DriverRegistered;
 import org.apache.aurora.scheduler.events.PubsubEvent.EventSubscriber;
+import org.apache.aurora.scheduler.events.PubsubEvent.HostAttributesChanged;
 import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
 import org.apache.aurora.scheduler.storage.AttributeStore;
 import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.Storage.MutableStoreProvider;
 import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult;
+import org.apache.aurora.scheduler.storage.Storage.StoreProvider;
 import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
 import org.apache.aurora.scheduler.storage.entities.IHostStatus;
-import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -107,26 +109,49 @@ public interface MaintenanceController {
     private final Storage storage;
     private final StateManager stateManager;
 
+    /**
+     * Active task IDs on each DRAINING host.  This allows terminal task transitions to be matched
+     * against draining hosts without a storage operation, and a write to be made only once a
+     * draining host has no active tasks left.  Guarded by its own monitor.
+     */
+    private final Map<String, Set<String>> drainingHosts = Maps.newHashMap();
+
     @Inject
     public MaintenanceControllerImpl(Storage storage, StateManager stateManager) {
       this.storage = requireNonNull(storage);
       this.stateManager = requireNonNull(stateManager);
     }
 
+    private static Set<String> fetchActiveTaskIds(StoreProvider store, String host) {
+      return FluentIterable.from(store.getTaskStore().fetchTasks(Query.slaveScoped(host).active()))
+          .transform(Tasks::id)
+          .toSet();
+    }
+
+    private void trackDrainingHost(String host, Set<String> activeTasks) {
+      synchronized (drainingHosts) {
+        drainingHosts.put(host, Sets.newHashSet(activeTasks));
+      }
+    }
+
+    private void untrackDrainingHost(String host) {
+      synchronized (drainingHosts) {
+        drainingHosts.remove(host);
+      }
+    }
+
     private Set<IHostStatus> watchDrainingTasks(MutableStoreProvider store, Set<String> hosts) {
       LOG.info("Hosts to drain: " + hosts);
       Set<String> emptyHosts = Sets.newHashSet();
       for (String host : hosts) {
         // If there are no tasks on the host, immediately transition to DRAINED.
-        Query.Builder query = Query.slaveScoped(host).active();
-        Set<String> activeTasks = FluentIterable.from(store.getTaskStore().fetchTasks(query))
-            .transform(Tasks::id)
-            .toSet();
+        Set<String> activeTasks = fetchActiveTaskIds(store, host);
         if (activeTasks.isEmpty()) {
           LOG.info("No tasks to drain for host: " + host);
           emptyHosts.add(host);
         } else {
           LOG.info("Draining tasks: {} on host: {}", activeTasks, host);
+          trackDrainingHost(host, activeTasks);
           for (String taskId : activeTasks) {
             stateManager.changeState(
                 store,
@@ -145,30 +170,101 @@ public interface MaintenanceController {
     }
 
     /**
-     * Notifies the MaintenanceController that a task has changed state.
+     * Moves a draining host into DRAINED if it no longer has active tasks.  The host is tracked
+     * again if active tasks were found, since the tracked tasks may have been incomplete.
+     *
+     * @param store Store provider.
+     * @param host Host whose tracked tasks all terminated.
+     */
+    private void maybeCompleteDrain(MutableStoreProvider store, String host) {
+      Optional<IHostAttributes> attributes = store.getAttributeStore().getHostAttributes(host);
+      if (attributes.isPresent() && attributes.get().getMode() == DRAINING) {
+        Set<String> activeTasks = fetchActiveTaskIds(store, host);
+        if (activeTasks.isEmpty()) {
+          LOG.info("Moving host {} into DRAINED", host);
+          setMaintenanceMode(store, ImmutableSet.of(host), DRAINED);
+        } else {
+          LOG.info("Host {} is DRAINING with active tasks: {}", host, activeTasks);
+          trackDrainingHost(host, activeTasks);
+        }
+      }
+    }
+
+    /**
+     * Rebuilds the tracked draining hosts from storage, and completes drains of hosts that no
+     * longer have active tasks.  Task and host events are not replayed when storage is recovered,
+     * so this happens each time the driver registers.
+     *
+     * @param event Registration event.
+     */
+    @Subscribe
+    public void driverRegistered(DriverRegistered event) {
+      storage.write((NoResult.Quiet) (MutableStoreProvider store) -> {
+        for (IHostAttributes attributes : store.getAttributeStore().getHostAttributes()) {
+          if (attributes.getMode() == DRAINING) {
+            untrackDrainingHost(attributes.getHost());
+            maybeCompleteDrain(store, attributes.getHost());
+          }
+        }
+      });
+    }
+
+    /**
+     * Tracks hosts entering DRAINING outside of {@link #drain(Set)}, and stops tracking hosts
+     * that leave DRAINING.
+     *
+     * @param change Host attributes change.
+     */
+    @Subscribe
+    public void hostAttributesChanged(HostAttributesChanged change) {
+      String host = change.getAttributes().getHost();
+      if (change.getAttributes().getMode() != DRAINING) {
+        untrackDrainingHost(host);
+        return;
+      }
+
+      synchronized (drainingHosts) {
+        if (drainingHosts.containsKey(host)) {
+          return;
+        }
+      }
+      storage.write(
+          (NoResult.Quiet) (MutableStoreProvider store) -> maybeCompleteDrain(store, host));
+    }
+
+    /**
+     * Notifies the MaintenanceController that a task has changed state.  Storage is only written
+     * when the last active task on a draining host terminates.  Tasks are never added to a draining
+     * host from events, since events may be delivered out of order.  Tasks that became active on
+     * the host after it started draining are found when storage is checked before the drain
+     * completes.
      *
      * @param change Event
      */
     @Subscribe
     public void taskChangedState(final TaskStateChange change) {
-      if (Tasks.isTerminated(change.getNewState())) {
-        final String host = change.getTask().getAssignedTask().getSlaveHost();
-        storage.write((NoResult.Quiet) (MutableStoreProvider store) -> {
-          // If the task _was_ associated with a draining host, and it was the last task on the
-          // host.
-          Optional<IHostAttributes> attributes =
-              store.getAttributeStore().getHostAttributes(host);
-          if (attributes.isPresent() && attributes.get().getMode() == DRAINING) {
-            Query.Builder builder = Query.slaveScoped(host).active();
-            Iterable<IScheduledTask> activeTasks = store.getTaskStore().fetchTasks(builder);
-            if (Iterables.isEmpty(activeTasks)) {
-              LOG.info("Moving host {} into DRAINED", host);
-              setMaintenanceMode(store, ImmutableSet.of(host), DRAINED);
-            } else {
-              LOG.info("Host {} is DRAINING with active tasks: {}", host, Tasks.ids(activeTasks));
-            }
-          }
-        });
+      String host = change.getTask().getAssignedTask().getSlaveHost();
+      if (host == null || !Tasks.isTerminated(change.getNewState())) {
+        return;
+      }
+
+      String taskId = change.getTaskId();
+      boolean drained;
+      synchronized (drainingHosts) {
+        Set<String> activeTasks = drainingHosts.get(host);
+        if (activeTasks == null) {
+          return;
+        }
+
+        drained = activeTasks.remove(taskId) && activeTasks.isEmpty();
+        if (drained) {
+          drainingHosts.remove(host);
+        }
+      }
+
+      if (drained) {
+        storage.write(
+            (NoResult.Quiet) (MutableStoreProvider store) -> maybeCompleteDrain(store, host));
       }
     }
 
@@ -187,9 +283,6 @@ public interface MaintenanceController {
       return storage.write(store -> watchDrainingTasks(store, hosts));
     }
 
-    private static final Function<IHostAttributes, String> HOST_NAME =
-        IHostAttributes::getHost;
-
     private static final Function<IHostAttributes, IHostStatus> ATTRS_TO_STATUS =
         attributes -> IHostStatus.build(
             new HostStatus().setHost(attributes.getHost()).setMode(attributes.getMode()));
@@ -207,12 +300,12 @@ public interface MaintenanceController {
     @Override
     public Set<IHostStatus> getStatus(final Set<String> hosts) {
       return storage.read(storeProvider -> {
-        // Warning - this is filtering _all_ host attributes.  If using this to frequently query
-        // for a small set of hosts, a getHostAttributes variant should be added.
-        return FluentIterable.from(storeProvider.getAttributeStore().getHostAttributes())
-            .filter(Predicates.compose(Predicates.in(hosts), HOST_NAME))
-            .transform(ATTRS_TO_STATUS)
-            .toSet();
+        AttributeStore store = storeProvider.getAttributeStore();
+        ImmutableSet.Builder<IHostStatus> statuses = ImmutableSet.builder();
+        for (String host : hosts) {
+          statuses.addAll(store.getHostAttributes(host).transform(ATTRS_TO_STATUS).asSet());
+        }
+        return statuses.build();
       });
     }
 
@@ -231,6 +324,9 @@ public interface MaintenanceController {
       ImmutableSet.Builder<IHostStatus> statuses = ImmutableSet.builder();
       for (String host : hosts) {
         LOG.info("Setting maintenance mode to {} for host {}", mode, host);
+        if (mode != DRAINING) {
+          untrackDrainingHost(host);
+        }
         Optional<IHostAttributes> toSave = AttributeStore.Util.mergeMode(store, host, mode);
         if (toSave.isPresent()) {
           store.saveHostAttributes(toSave.get());
@@ -47,7 +47,6 @@ import org.apache.aurora.scheduler.base.Tasks;
 import org.apache.aurora.scheduler.events.EventSink;
 import org.apache.aurora.scheduler.events.PubsubEvent;
 import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
-import org.apache.aurora.scheduler.mesos.Driver;
 import org.apache.aurora.scheduler.scheduling.RescheduleCalculator;
 import org.apache.aurora.scheduler.state.SideEffect.Action;
 import org.apache.aurora.scheduler.storage.Storage.MutableStoreProvider;
@@ -55,6 +54,7 @@ import org.apache.aurora.scheduler.storage.TaskStore;
 import org.apache.aurora.scheduler.storage.entities.IAssignedTask;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
+import org.apache.aurora.scheduler.storage.entities.ITaskEvent;
 import org.apache.mesos.Protos.SlaveID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -77,7 +77,7 @@ public class StateManagerImpl implements StateManager {
   private static final Logger LOG = LoggerFactory.getLogger(StateManagerImpl.class);
 
   private final Clock clock;
-  private final Driver driver;
+  private final KillDispatcher killDispatcher;
   private final TaskIdGenerator taskIdGenerator;
   private final EventSink eventSink;
   private final RescheduleCalculator rescheduleCalculator;
@@ -85,26 +85,25 @@ public class StateManagerImpl implements StateManager {
   @Inject
   StateManagerImpl(
       final Clock clock,
-      Driver driver,
+      KillDispatcher killDispatcher,
       TaskIdGenerator taskIdGenerator,
       EventSink eventSink,
       RescheduleCalculator rescheduleCalculator) {
 
     this.clock = requireNonNull(clock);
-    this.driver = requireNonNull(driver);
+    this.killDispatcher = requireNonNull(killDispatcher);
     this.taskIdGenerator = requireNonNull(taskIdGenerator);
     this.eventSink = requireNonNull(eventSink);
     this.rescheduleCalculator = requireNonNull(rescheduleCalculator);
   }
 
   private IScheduledTask createTask(int instanceId, ITaskConfig template) {
-    AssignedTask assigned = new AssignedTask()
+    // The template is attached with a structural-sharing mutator to avoid a deep copy.
+    IAssignedTask assigned = IAssignedTask.build(new AssignedTask()
         .setTaskId(taskIdGenerator.generate(template, instanceId))
-        .setInstanceId(instanceId)
-        .setTask(template.newBuilder());
-    return IScheduledTask.build(new ScheduledTask()
-        .setStatus(INIT)
-        .setAssignedTask(assigned));
+        .setInstanceId(instanceId))
+        .withTask(template);
+    return IScheduledTask.build(new ScheduledTask().setStatus(INIT)).withAssignedTask(assigned);
   }
 
   @Override
@@ -173,14 +172,9 @@ public class StateManagerImpl implements StateManager {
     requireNonNull(resourceAssigner);
 
     IScheduledTask mutated = storeProvider.getUnsafeTaskStore().mutateTask(taskId,
-        task -> {
-          ScheduledTask builder = task.newBuilder();
-          builder.setAssignedTask(resourceAssigner.apply(task.getAssignedTask()).newBuilder());
-          builder.getAssignedTask()
-              .setSlaveHost(slaveHost)
-              .setSlaveId(slaveId.getValue());
-          return IScheduledTask.build(builder);
-        }).get();
+        task -> task.withAssignedTask(resourceAssigner.apply(task.getAssignedTask())
+            .withSlaveHost(slaveHost)
+            .withSlaveId(slaveId.getValue()))).get();
 
     StateChangeResult changeResult = updateTaskAndExternalState(
         storeProvider.getUnsafeTaskStore(),
@@ -279,8 +273,9 @@ public class StateManagerImpl implements StateManager {
 
       switch (sideEffect.getAction()) {
         case INCREMENT_FAILURES:
-          taskStore.mutateTask(taskId, task1 -> IScheduledTask.build(
-              task1.newBuilder().setFailureCount(task1.getFailureCount() + 1)));
+          taskStore.mutateTask(
+              taskId,
+              task1 -> task1.withFailureCount(task1.getFailureCount() + 1));
           break;
 
         case SAVE_STATE:
@@ -288,16 +283,19 @@ public class StateManagerImpl implements StateManager {
               upToDateTask.isPresent(),
               "Operation expected task " + taskId + " to be present.");
 
-          Optional<IScheduledTask> mutated = taskStore.mutateTask(taskId, task1 -> {
-            ScheduledTask mutableTask = task1.newBuilder();
-            mutableTask.setStatus(targetState.get());
-            mutableTask.addToTaskEvents(new TaskEvent()
-                .setTimestamp(clock.nowMillis())
-                .setStatus(targetState.get())
-                .setMessage(transitionMessage.orNull())
-                .setScheduler(LOCAL_HOST_SUPPLIER.get()));
-            return IScheduledTask.build(mutableTask);
-          });
+          ITaskEvent taskEvent = ITaskEvent.build(new TaskEvent()
+              .setTimestamp(clock.nowMillis())
+              .setStatus(targetState.get())
+              .setMessage(transitionMessage.orNull())
+              .setScheduler(LOCAL_HOST_SUPPLIER.get()));
+          Optional<IScheduledTask> mutated = taskStore.mutateTask(
+              taskId,
+              task1 -> task1
+                  .withStatus(targetState.get())
+                  .withTaskEvents(ImmutableList.<ITaskEvent>builder()
+                      .addAll(task1.getTaskEvents())
+                      .add(taskEvent)
+                      .build()));
           events.add(TaskStateChange.transition(mutated.get(), stateMachine.getPreviousState()));
           break;
 
@@ -319,12 +317,11 @@ public class StateManagerImpl implements StateManager {
             auditMessage = "Rescheduled";
           }
 
-          IScheduledTask newTask = IScheduledTask.build(createTask(
+          IScheduledTask newTask = createTask(
               upToDateTask.get().getAssignedTask().getInstanceId(),
               upToDateTask.get().getAssignedTask().getTask())
-              .newBuilder()
-              .setFailureCount(upToDateTask.get().getFailureCount())
-              .setAncestorId(taskId));
+              .withFailureCount(upToDateTask.get().getFailureCount())
+              .withAncestorId(taskId);
           taskStore.saveTasks(ImmutableSet.of(newTask));
           updateTaskAndExternalState(
               taskStore,
@@ -335,7 +332,12 @@ public class StateManagerImpl implements StateManager {
           break;
 
         case KILL:
-          driver.killTask(taskId);
+          // Kills are sent by the dispatcher once the enclosing transaction completes.
+          killDispatcher.killTask(
+              taskId,
+              upToDateTask.isPresent()
+                  ? Optional.fromNullable(upToDateTask.get().getAssignedTask().getSlaveId())
+                  : Optional.absent());
           break;
 
         case DELETE:
@@ -16,21 +16,75 @@ package org.apache.aurora.scheduler.state;
 import javax.inject.Singleton;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
 import com.google.inject.AbstractModule;
 import com.google.inject.Binder;
 
+import org.apache.aurora.common.args.Arg;
+import org.apache.aurora.common.args.CmdLine;
+import org.apache.aurora.common.args.constraints.Positive;
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.scheduler.SchedulerServicesModule;
 import org.apache.aurora.scheduler.events.PubsubEventModule;
 import org.apache.aurora.scheduler.mesos.MesosTaskFactory;
 import org.apache.aurora.scheduler.mesos.MesosTaskFactory.MesosTaskFactoryImpl;
+import org.apache.aurora.scheduler.state.KillDispatcherImpl.KillDispatcherSettings;
+import org.apache.aurora.scheduler.state.LaunchDispatcherImpl.LaunchDispatcherSettings;
 import org.apache.aurora.scheduler.state.MaintenanceController.MaintenanceControllerImpl;
 import org.apache.aurora.scheduler.state.TaskAssigner.TaskAssignerImpl;
 import org.apache.aurora.scheduler.state.UUIDGenerator.UUIDGeneratorImpl;
 
+import static java.util.Objects.requireNonNull;
+
 /**
  * Binding module for scheduling logic and higher-level state management.
  */
 public class StateModule extends AbstractModule {
 
+  @Positive
+  @CmdLine(name = "max_kill_queue_size",
+      help = "Maximum number of task kills waiting to be sent to Mesos. Kills beyond this limit "
+          + "are held back until the queue has room.")
+  private static final Arg<Integer> MAX_KILL_QUEUE_SIZE = Arg.create(100000);
+
+  @Positive
+  @CmdLine(name = "max_kills_per_sec",
+      help = "Maximum number of task kills to send to Mesos per second.")
+  private static final Arg<Double> MAX_KILLS_PER_SEC = Arg.create(1000D);
+
+  @Positive
+  @CmdLine(name = "max_kills_per_agent_per_sec",
+      help = "Maximum number of task kills to send to Mesos per second for tasks on a single "
+          + "agent.")
+  private static final Arg<Double> MAX_KILLS_PER_AGENT_PER_SEC = Arg.create(50D);
+
+  @CmdLine(name = "enable_offer_packing",
+      help = "Return the unused resources of an offer to the offer pool after a task is assigned "
+          + "to it, so that more tasks may be packed onto the offer and launched with it in a "
+          + "single call. Cannot be combined with -scheduling_worker_threads above 1.")
+  public static final Arg<Boolean> ENABLE_OFFER_PACKING = Arg.create(false);
+
+  @Positive
+  @CmdLine(name = "offer_packing_window",
+      help = "Amount of time to keep packing tasks onto an offer after the first task is assigned "
+          + "to it, before the tasks are launched. Only used with -enable_offer_packing.")
+  private static final Arg<Amount<Long, Time>> OFFER_PACKING_WINDOW =
+      Arg.create(Amount.of(1L, Time.SECONDS));
+
+  private final LaunchDispatcherSettings launchDispatcherSettings;
+
+  @VisibleForTesting
+  public StateModule(LaunchDispatcherSettings launchDispatcherSettings) {
+    this.launchDispatcherSettings = requireNonNull(launchDispatcherSettings);
+  }
+
+  public StateModule() {
+    this(new LaunchDispatcherSettings(ENABLE_OFFER_PACKING.get()
+        ? Optional.of(OFFER_PACKING_WINDOW.get())
+        : Optional.absent()));
+  }
+
   @Override
   protected void configure() {
     bind(TaskAssigner.class).to(TaskAssignerImpl.class);
@@ -40,6 +94,21 @@ public class StateModule extends AbstractModule {
     bind(StateManager.class).to(StateManagerImpl.class);
     bind(StateManagerImpl.class).in(Singleton.class);
 
+    bind(KillDispatcherSettings.class).toInstance(new KillDispatcherSettings(
+        MAX_KILL_QUEUE_SIZE.get(),
+        MAX_KILLS_PER_SEC.get(),
+        MAX_KILLS_PER_AGENT_PER_SEC.get()));
+    bind(KillDispatcher.class).to(KillDispatcherImpl.class);
+    bind(KillDispatcherImpl.class).in(Singleton.class);
+    SchedulerServicesModule.addSchedulerActiveServiceBinding(binder())
+        .to(KillDispatcherImpl.class);
+
+    bind(LaunchDispatcherSettings.class).toInstance(launchDispatcherSettings);
+    bind(LaunchDispatcher.class).to(LaunchDispatcherImpl.class);
+    bind(LaunchDispatcherImpl.class).in(Singleton.class);
+    SchedulerServicesModule.addSchedulerActiveServiceBinding(binder())
+        .to(LaunchDispatcherImpl.class);
+
     bind(UUIDGenerator.class).to(UUIDGeneratorImpl.class);
     bind(UUIDGeneratorImpl.class).in(Singleton.class);
     bind(LockManager.class).to(LockManagerImpl.class);
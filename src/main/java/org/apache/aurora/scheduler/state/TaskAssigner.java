@@ -28,24 +28,22 @@ import org.apache.aurora.scheduler.HostOffer;
 import org.apache.aurora.scheduler.TierInfo;
 import org.apache.aurora.scheduler.TierManager;
 import org.apache.aurora.scheduler.base.TaskGroupKey;
+import org.apache.aurora.scheduler.events.EventSink;
+import org.apache.aurora.scheduler.events.PubsubEvent.Vetoed;
 import org.apache.aurora.scheduler.filter.SchedulingFilter;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.ResourceRequest;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.UnusedResource;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.Veto;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.VetoGroup;
-import org.apache.aurora.scheduler.mesos.MesosTaskFactory;
 import org.apache.aurora.scheduler.offers.OfferManager;
 import org.apache.aurora.scheduler.resources.ResourceManager;
 import org.apache.aurora.scheduler.resources.ResourceType;
 import org.apache.aurora.scheduler.storage.entities.IAssignedTask;
-import org.apache.mesos.Protos.TaskInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import static java.util.Objects.requireNonNull;
 
-import static org.apache.aurora.gen.ScheduleStatus.LOST;
-import static org.apache.aurora.gen.ScheduleStatus.PENDING;
 import static org.apache.aurora.scheduler.storage.Storage.MutableStoreProvider;
 import static org.apache.mesos.Protos.Offer;
 
@@ -55,7 +53,8 @@ import static org.apache.mesos.Protos.Offer;
 public interface TaskAssigner {
   /**
    * Tries to match a task against an offer.  If a match is found, the assigner makes the
-   * appropriate changes to the task and requests task launch.
+   * appropriate changes to the task and requests task launch.  The launch is sent once the
+   * storage transaction completes.
    *
    * @param storeProvider Storage provider.
    * @param resourceRequest The request for resources being scheduled.
@@ -71,34 +70,69 @@ public interface TaskAssigner {
       String taskId,
       Map<String, TaskGroupKey> slaveReservations);
 
+  /**
+   * Finds an offer that a task may be assigned to, and claims it from the offer pool.  This does
+   * not modify storage, and may be called concurrently outside of storage transactions.  If
+   * another caller claims a matching offer first, the next matching offer is tried.
+   *
+   * @param resourceRequest The request for resources being scheduled.
+   * @param groupKey Task group key.
+   * @param taskId Task id to find an offer for.
+   * @param slaveReservations Slave reservations.
+   * @return The claimed offer, or absent if no offer matched.
+   */
+  Optional<HostOffer> claimMatchingOffer(
+      ResourceRequest resourceRequest,
+      TaskGroupKey groupKey,
+      String taskId,
+      Map<String, TaskGroupKey> slaveReservations);
+
+  /**
+   * Assigns a task to an offer claimed with {@link #claimMatchingOffer}, and requests the task
+   * launch.  The launch is sent once the storage transaction completes.
+   *
+   * @param storeProvider Storage provider.
+   * @param offer Claimed offer.
+   * @param taskId Task id to assign.
+   */
+  void assignClaimed(MutableStoreProvider storeProvider, HostOffer offer, String taskId);
+
+  /**
+   * Withdraws the launch requested by {@link #assignClaimed} within a storage transaction that
+   * failed.  Must be called within the failed transaction, before the launch is sent.
+   *
+   * @param offer Claimed offer.
+   */
+  void withdrawClaimed(HostOffer offer);
+
   class TaskAssignerImpl implements TaskAssigner {
     private static final Logger LOG = LoggerFactory.getLogger(TaskAssignerImpl.class);
 
-    @VisibleForTesting
-    static final Optional<String> LAUNCH_FAILED_MSG =
-        Optional.of("Unknown exception attempting to schedule task.");
-
-    private final AtomicLong launchFailures = Stats.exportLong("assigner_launch_failures");
+    private final AtomicLong vetoEvents = Stats.exportLong("assigner_veto_events");
+    private final AtomicLong vetoEventsAvoided = Stats.exportLong("assigner_veto_events_avoided");
 
     private final StateManager stateManager;
     private final SchedulingFilter filter;
-    private final MesosTaskFactory taskFactory;
     private final OfferManager offerManager;
+    private final LaunchDispatcher launchDispatcher;
     private final TierManager tierManager;
+    private final EventSink eventSink;
 
     @Inject
     public TaskAssignerImpl(
         StateManager stateManager,
         SchedulingFilter filter,
-        MesosTaskFactory taskFactory,
         OfferManager offerManager,
-        TierManager tierManager) {
+        LaunchDispatcher launchDispatcher,
+        TierManager tierManager,
+        EventSink eventSink) {
 
       this.stateManager = requireNonNull(stateManager);
       this.filter = requireNonNull(filter);
-      this.taskFactory = requireNonNull(taskFactory);
       this.offerManager = requireNonNull(offerManager);
+      this.launchDispatcher = requireNonNull(launchDispatcher);
       this.tierManager = requireNonNull(tierManager);
+      this.eventSink = requireNonNull(eventSink);
     }
 
     @VisibleForTesting
@@ -112,7 +146,7 @@ public interface TaskAssigner {
       return assigned;
     }
 
-    private TaskInfo assign(
+    private IAssignedTask assign(
         MutableStoreProvider storeProvider,
         Offer offer,
         String taskId) {
@@ -127,7 +161,16 @@ public interface TaskAssigner {
       LOG.info(
           "Offer on agent {} (id {}) is being assigned task for {}.",
           host, offer.getSlaveId().getValue(), taskId);
-      return taskFactory.createFrom(assigned, offer);
+      return assigned;
+    }
+
+    private void publishVetoes(VetoAccumulator vetoes) {
+      Optional<Vetoed> summary = vetoes.summarize();
+      if (summary.isPresent()) {
+        eventSink.post(summary.get());
+        vetoEvents.incrementAndGet();
+        vetoEventsAvoided.addAndGet(vetoes.size() - 1);
+      }
     }
 
     @Timed("assigner_maybe_assign")
@@ -139,6 +182,43 @@ public interface TaskAssigner {
         String taskId,
         Map<String, TaskGroupKey> slaveReservations) {
 
+      Optional<HostOffer> offer =
+          claimMatchingOffer(resourceRequest, groupKey, taskId, slaveReservations);
+      if (offer.isPresent()) {
+        try {
+          assignClaimed(storeProvider, offer.get(), taskId);
+        } catch (RuntimeException e) {
+          // The claimed offer would otherwise be withheld from the pool until it is rescinded.
+          offerManager.releaseOffer(offer.get());
+          throw e;
+        }
+        return true;
+      }
+      return false;
+    }
+
+    @Override
+    public void assignClaimed(MutableStoreProvider storeProvider, HostOffer offer, String taskId) {
+      // Only the assignment is made within the transaction.  The task info is built and
+      // launched with the offer after the transaction completes.
+      IAssignedTask assigned = assign(storeProvider, offer.getOffer(), taskId);
+      launchDispatcher.launch(offer, assigned);
+    }
+
+    @Override
+    public void withdrawClaimed(HostOffer offer) {
+      launchDispatcher.withdraw(offer.getOffer().getId());
+    }
+
+    @Override
+    public Optional<HostOffer> claimMatchingOffer(
+        ResourceRequest resourceRequest,
+        TaskGroupKey groupKey,
+        String taskId,
+        Map<String, TaskGroupKey> slaveReservations) {
+
+      // Vetoes are summarized into a single event per attempt rather than one event per offer.
+      VetoAccumulator vetoAccumulator = new VetoAccumulator(groupKey);
       for (HostOffer offer : offerManager.getOffers(groupKey)) {
         Optional<TaskGroupKey> reservedGroup = Optional.fromNullable(
             slaveReservations.get(offer.getOffer().getSlaveId().getValue()));
@@ -150,46 +230,35 @@ public interface TaskAssigner {
 
         TierInfo tierInfo = tierManager.getTier(groupKey.getTask());
         Set<Veto> vetoes = filter.filter(
-            new UnusedResource(offer.getResourceBag(tierInfo), offer.getAttributes()),
+            new UnusedResource(
+                offer.getResourceBag(tierInfo),
+                offer.getAttributes(),
+                offer.getIndexedAttributes()),
             resourceRequest);
 
         if (vetoes.isEmpty()) {
-          TaskInfo taskInfo = assign(
-              storeProvider,
-              offer.getOffer(),
-              taskId);
-
-          try {
-            offerManager.launchTask(offer.getOffer().getId(), taskInfo);
-            return true;
-          } catch (OfferManager.LaunchException e) {
-            LOG.warn("Failed to launch task.", e);
-            launchFailures.incrementAndGet();
-
-            // The attempt to schedule the task failed, so we need to backpedal on the
-            // assignment.
-            // It is in the LOST state and a new task will move to PENDING to replace it.
-            // Should the state change fail due to storage issues, that's okay.  The task will
-            // time out in the ASSIGNED state and be moved to LOST.
-            stateManager.changeState(
-                storeProvider,
-                taskId,
-                Optional.of(PENDING),
-                LOST,
-                LAUNCH_FAILED_MSG);
-            return false;
+          if (!offerManager.claimOffer(offer.getOffer().getId())) {
+            // The offer was used or removed since it was fetched, likely a data race.
+            LOG.debug("Offer {} is no longer available.", offer.getOffer().getId().getValue());
+            continue;
           }
+
+          // Vetoes from offers tried before this one still count towards the veto stats.
+          publishVetoes(vetoAccumulator);
+          return Optional.of(offer);
         } else {
           if (Veto.identifyGroup(vetoes) == VetoGroup.STATIC) {
             // Never attempt to match this offer/groupKey pair again.
             offerManager.banOffer(offer.getOffer().getId(), groupKey);
           }
 
+          vetoAccumulator.record(vetoes);
           LOG.debug("Agent " + offer.getOffer().getHostname()
               + " vetoed task " + taskId + ": " + vetoes);
         }
       }
-      return false;
+      publishVetoes(vetoAccumulator);
+      return Optional.absent();
     }
   }
 }
@@ -0,0 +1,88 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.state;
+
+import java.util.Set;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.EnumMultiset;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multiset;
+
+import org.apache.aurora.scheduler.base.TaskGroupKey;
+import org.apache.aurora.scheduler.events.PubsubEvent.Vetoed;
+import org.apache.aurora.scheduler.filter.SchedulingFilter.Veto;
+import org.apache.aurora.scheduler.filter.SchedulingFilter.VetoGroup;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Collects the vetoes produced while matching a single task group against a round of offers,
+ * keeping only the closest fit (lowest aggregate score) and a count of vetoes per
+ * {@link VetoGroup}.
+ * <p>
+ * This allows a scheduling attempt to publish one summarized {@link Vetoed} event rather than one
+ * event per rejecting offer. Instances are not thread-safe and are meant to be confined to a
+ * single scheduling attempt.
+ */
+class VetoAccumulator {
+  private final TaskGroupKey groupKey;
+  private final Multiset<VetoGroup> vetoGroups = EnumMultiset.create(VetoGroup.class);
+  private Set<Veto> bestVetoes;
+  private int bestScore = Integer.MAX_VALUE;
+
+  VetoAccumulator(TaskGroupKey groupKey) {
+    this.groupKey = requireNonNull(groupKey);
+  }
+
+  /**
+   * Records the vetoes an offer produced for the task group.
+   *
+   * @param vetoes Non-empty vetoes from a single offer.
+   */
+  void record(Set<Veto> vetoes) {
+    vetoGroups.add(Veto.identifyGroup(vetoes));
+    int score = Veto.aggregateScore(vetoes);
+    if (bestVetoes == null || score < bestScore) {
+      bestVetoes = vetoes;
+      bestScore = score;
+    }
+  }
+
+  /**
+   * Gets the number of offer vetoes recorded so far.
+   *
+   * @return Recorded veto count.
+   */
+  int size() {
+    return vetoGroups.size();
+  }
+
+  /**
+   * Produces the summarized veto event for the attempt, if any veto was recorded.
+   *
+   * @return A veto event carrying the closest fit and the veto group counts.
+   */
+  Optional<Vetoed> summarize() {
+    if (bestVetoes == null) {
+      return Optional.absent();
+    }
+
+    return Optional.of(new Vetoed(
+        groupKey,
+        ImmutableSet.copyOf(bestVetoes),
+        ImmutableMultiset.copyOf(vetoGroups)));
+  }
+}
@@ -24,6 +24,7 @@ import com.google.inject.PrivateModule;
 
 import org.apache.aurora.common.args.Arg;
 import org.apache.aurora.common.args.CmdLine;
+import org.apache.aurora.common.args.constraints.Positive;
 import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.scheduler.HostOffer;
@@ -56,8 +57,14 @@ public class AsyncStatsModule extends AbstractModule {
   private static final Arg<Amount<Long, Time>> SLOT_STAT_INTERVAL =
       Arg.create(Amount.of(1L, Time.MINUTES));
 
+  @Positive
+  @CmdLine(name = "async_stat_parallelism",
+      help = "Maximum number of threads used to calculate task, slot and SLA stats in parallel.")
+  private static final Arg<Integer> STAT_PARALLELISM = Arg.create(2);
+
   @Override
   protected void configure() {
+    bind(StatsPipeline.class).toInstance(new StatsPipeline(STAT_PARALLELISM.get()));
     bind(TaskStatCalculator.class).in(Singleton.class);
     bind(CachedCounters.class).in(Singleton.class);
     bind(MachineResourceProvider.class).to(OfferAdapter.class);
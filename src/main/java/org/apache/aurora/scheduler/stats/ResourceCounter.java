@@ -13,6 +13,7 @@
  */
 package org.apache.aurora.scheduler.stats;
 
+import java.math.RoundingMode;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -28,7 +29,10 @@ import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.math.IntMath;
 
 import org.apache.aurora.scheduler.base.Query;
 import org.apache.aurora.scheduler.base.Tasks;
@@ -70,11 +74,44 @@ public class ResourceCounter {
    * @throws StorageException if there was a problem fetching tasks from storage.
    */
   public List<Metric> computeConsumptionTotals() throws StorageException {
+    return sumConsumption(getTasks(Query.unscoped().active()));
+  }
+
+  /**
+   * Computes totals for each of the {@link MetricType}s, accumulating partitions of the active
+   * tasks in parallel on a statistics pipeline.
+   *
+   * @param pipeline Pipeline to run the calculation on.
+   * @return aggregates for each metric type.
+   * @throws StorageException if there was a problem fetching tasks from storage.
+   */
+  public List<Metric> computeConsumptionTotals(StatsPipeline pipeline) throws StorageException {
+    List<ITaskConfig> tasks = pipeline.time(
+        "consumption_fetch",
+        () -> ImmutableList.copyOf(getTasks(Query.unscoped().active())));
+
+    int partitionSize = Math.max(
+        1,
+        IntMath.divide(tasks.size(), pipeline.getParallelism(), RoundingMode.CEILING));
+    List<Metric> totals = sumConsumption(ImmutableList.of());
+    for (List<Metric> partial : pipeline.fanOut(
+        "consumption_totals",
+        Lists.partition(tasks, partitionSize),
+        ResourceCounter::sumConsumption)) {
+
+      for (int i = 0; i < totals.size(); i++) {
+        totals.get(i).accumulate(partial.get(i));
+      }
+    }
+    return totals;
+  }
+
+  private static List<Metric> sumConsumption(Iterable<ITaskConfig> tasks) {
     List<Metric> counts = FluentIterable.from(Arrays.asList(MetricType.values()))
         .transform(TO_METRIC)
         .toList();
 
-    for (ITaskConfig task : getTasks(Query.unscoped().active())) {
+    for (ITaskConfig task : tasks) {
       for (Metric count : counts) {
         count.accumulate(task);
       }
@@ -169,6 +206,10 @@ public class ResourceCounter {
       bag = bag.add(ResourceManager.bagFromAggregate(aggregate));
     }
 
+    void accumulate(Metric other) {
+      bag = bag.add(other.bag);
+    }
+
     public ResourceBag getBag() {
       return bag;
     }
@@ -13,6 +13,7 @@
  */
 package org.apache.aurora.scheduler.stats;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -58,16 +59,19 @@ class SlotSizeCounter implements Runnable {
   private final Map<String, ResourceBag> slotSizes;
   private final MachineResourceProvider machineResourceProvider;
   private final CachedCounters cachedCounters;
+  private final StatsPipeline pipeline;
 
   @VisibleForTesting
   SlotSizeCounter(
       final Map<String, ResourceBag> slotSizes,
       MachineResourceProvider machineResourceProvider,
-      CachedCounters cachedCounters) {
+      CachedCounters cachedCounters,
+      StatsPipeline pipeline) {
 
     this.slotSizes = requireNonNull(slotSizes);
     this.machineResourceProvider = requireNonNull(machineResourceProvider);
     this.cachedCounters = requireNonNull(cachedCounters);
+    this.pipeline = requireNonNull(pipeline);
   }
 
   static class MachineResource {
@@ -116,8 +120,12 @@ class SlotSizeCounter implements Runnable {
   }
 
   @Inject
-  SlotSizeCounter(MachineResourceProvider machineResourceProvider, CachedCounters cachedCounters) {
-    this(SLOT_SIZES, machineResourceProvider, cachedCounters);
+  SlotSizeCounter(
+      MachineResourceProvider machineResourceProvider,
+      CachedCounters cachedCounters,
+      StatsPipeline pipeline) {
+
+    this(SLOT_SIZES, machineResourceProvider, cachedCounters, pipeline);
   }
 
   private static String getPrefix(boolean dedicated, boolean revocable) {
@@ -145,7 +153,7 @@ class SlotSizeCounter implements Runnable {
     return sum;
   }
 
-  private void updateStats(
+  private Map<String, Integer> computeStats(
       String name,
       Iterable<MachineResource> slots,
       ResourceBag slotSize) {
@@ -157,15 +165,26 @@ class SlotSizeCounter implements Runnable {
 
     ImmutableMultimap<String, ResourceBag> sizes = builder.build();
 
+    ImmutableMap.Builder<String, Integer> stats = ImmutableMap.builder();
     for (String slotGroup : SLOT_GROUPS) {
       String statName = slotGroup + name;
-      cachedCounters.get(statName).set(countSlots(sizes.get(statName), slotSize));
+      stats.put(statName, countSlots(sizes.get(statName), slotSize));
     }
+    return stats.build();
   }
 
   @Override
   public void run() {
-    Iterable<MachineResource> slots = machineResourceProvider.get();
-    slotSizes.entrySet().stream().forEach(e -> updateStats(e.getKey(), slots, e.getValue()));
+    Iterable<MachineResource> slots =
+        pipeline.time("slot_offers", () -> ImmutableList.copyOf(machineResourceProvider.get()));
+
+    // Each slot size is counted in parallel, and the counters are updated once all are counted.
+    List<Map<String, Integer>> stats = pipeline.fanOut(
+        "slot_sizes",
+        slotSizes.entrySet(),
+        e -> computeStats(e.getKey(), slots, e.getValue()));
+    for (Map<String, Integer> sizeStats : stats) {
+      sizeStats.forEach((statName, count) -> cachedCounters.get(statName).set(count));
+    }
   }
 }
@@ -0,0 +1,114 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.stats;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import org.apache.aurora.common.stats.SlidingStats;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Runs the stages of periodic statistics calculations on a dedicated pool of bounded size, so
+ * that expensive calculations cannot starve the threads used for scheduling.  The time taken by
+ * each stage is exported as {@code stats_pipeline_<stage>}.
+ */
+public class StatsPipeline {
+  private final ForkJoinPool pool;
+  private final LoadingCache<String, SlidingStats> stageTimings = CacheBuilder.newBuilder().build(
+      new CacheLoader<String, SlidingStats>() {
+        @Override
+        public SlidingStats load(String stage) {
+          return new SlidingStats("stats_pipeline_" + stage, "nanos");
+        }
+      });
+
+  public StatsPipeline(int parallelism) {
+    checkArgument(parallelism > 0);
+    this.pool = new ForkJoinPool(
+        parallelism,
+        forkJoinPool -> {
+          ForkJoinWorkerThread thread =
+              ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+          thread.setName("StatsPipeline-" + thread.getPoolIndex());
+          return thread;
+        },
+        null,
+        false);
+  }
+
+  /**
+   * Gets the maximum number of inputs processed in parallel.
+   *
+   * @return Parallelism of the pool.
+   */
+  public int getParallelism() {
+    return pool.getParallelism();
+  }
+
+  /**
+   * Runs a stage on the calling thread and records its duration.
+   *
+   * @param stage Name of the stage.
+   * @param work Work to run.
+   * @param <T> Result type.
+   * @return The result of the work.
+   */
+  public <T> T time(String stage, Supplier<T> work) {
+    long startNanos = System.nanoTime();
+    try {
+      return work.get();
+    } finally {
+      stageTimings.getUnchecked(stage).accumulate(System.nanoTime() - startNanos);
+    }
+  }
+
+  /**
+   * Applies a function to each input in parallel on the pool, and records the duration of the
+   * stage.  The calling thread blocks until all inputs are processed.  If the function throws for
+   * any input, the exception is rethrown to the caller.
+   *
+   * @param stage Name of the stage.
+   * @param inputs Inputs to process.
+   * @param function Function to apply.  Must be thread-safe and must not return null.
+   * @param <I> Input type.
+   * @param <O> Output type.
+   * @return The outputs, in the order of the inputs.
+   */
+  public <I, O> List<O> fanOut(String stage, Collection<I> inputs, Function<I, O> function) {
+    return time(stage, () -> {
+      List<ForkJoinTask<O>> tasks = Lists.newArrayListWithCapacity(inputs.size());
+      for (I input : inputs) {
+        tasks.add(pool.submit(() -> function.apply(input)));
+      }
+      ImmutableList.Builder<O> outputs = ImmutableList.builder();
+      for (ForkJoinTask<O> task : tasks) {
+        outputs.add(task.join());
+      }
+      return outputs.build();
+    });
+  }
+}
@@ -33,11 +33,17 @@ class TaskStatCalculator implements Runnable {
 
   private final CachedCounters counters;
   private final ResourceCounter resourceCounter;
+  private final StatsPipeline pipeline;
 
   @Inject
-  TaskStatCalculator(ResourceCounter resourceCounter, CachedCounters counters) {
+  TaskStatCalculator(
+      ResourceCounter resourceCounter,
+      CachedCounters counters,
+      StatsPipeline pipeline) {
+
     this.resourceCounter = requireNonNull(resourceCounter);
     this.counters = requireNonNull(counters);
+    this.pipeline = requireNonNull(pipeline);
   }
 
   private void update(String prefix, Metric metric) {
@@ -52,10 +58,12 @@ class TaskStatCalculator implements Runnable {
   @Override
   public void run() {
     try {
-      for (Metric metric : resourceCounter.computeConsumptionTotals()) {
+      for (Metric metric : resourceCounter.computeConsumptionTotals(pipeline)) {
         update("resources_" + metric.type.name(), metric);
       }
-      update("resources_allocated_quota", resourceCounter.computeQuotaAllocationTotals());
+      update(
+          "resources_allocated_quota",
+          pipeline.time("quota_totals", resourceCounter::computeQuotaAllocationTotals));
     } catch (StorageException e) {
       LOG.debug("Unable to fetch metrics, storage is likely not ready.");
     }
@@ -18,6 +18,7 @@ import java.util.Set;
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
+import com.google.common.collect.Multiset;
 
 import org.apache.aurora.scheduler.base.Query;
 import org.apache.aurora.scheduler.base.Tasks;
@@ -57,6 +58,15 @@ public interface TaskStore {
    */
   Set<IJobKey> getJobKeys();
 
+  /**
+   * Fetches the configurations of a role's active tasks, counting the active tasks that use each
+   * configuration.
+   *
+   * @param role Role to fetch active task configurations for.
+   * @return The number of active tasks in {@code role} per task configuration.
+   */
+  Multiset<ITaskConfig> getActiveTaskConfigs(String role);
+
   interface Mutable extends TaskStore {
 
     /**
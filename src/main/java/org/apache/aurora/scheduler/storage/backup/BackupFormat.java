@@ -0,0 +1,325 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.storage.backup;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
+
+import org.apache.aurora.codec.ThriftBinaryCodec;
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Data;
+import org.apache.aurora.gen.ScheduledTask;
+import org.apache.aurora.gen.storage.Snapshot;
+import org.apache.aurora.gen.storage.SnapshotDelta;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TField;
+import org.apache.thrift.protocol.TList;
+import org.apache.thrift.protocol.TMap;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.protocol.TProtocolException;
+import org.apache.thrift.protocol.TProtocolUtil;
+import org.apache.thrift.protocol.TSet;
+import org.apache.thrift.protocol.TType;
+import org.apache.thrift.transport.TIOStreamTransport;
+import org.apache.thrift.transport.TMemoryBuffer;
+
+/**
+ * The on-disk format of storage backups.  A full backup is a binary-encoded {@link Snapshot}, and
+ * a delta backup is a binary-encoded {@link SnapshotDelta}.  Either may be gzip-compressed, which
+ * is detected when reading.
+ */
+final class BackupFormat {
+
+  /**
+   * Suffix of the names of delta backups.
+   */
+  static final String DELTA_SUFFIX = "-delta";
+
+  /**
+   * Suffix of the names of compressed backups.
+   */
+  static final String COMPRESSED_SUFFIX = ".gz";
+
+  private static final int BUFFER_SIZE = Amount.of(256, Data.KB).as(Data.BYTES);
+
+  private static final short DELTA_BASE_FIELD =
+      SnapshotDelta._Fields.BASE_BACKUP.getThriftFieldId();
+  private static final short DELTA_SNAPSHOT_FIELD =
+      SnapshotDelta._Fields.SNAPSHOT.getThriftFieldId();
+  private static final short DELTA_REMOVED_FIELD =
+      SnapshotDelta._Fields.REMOVED_TASK_IDS.getThriftFieldId();
+  private static final short SNAPSHOT_TASKS_FIELD = Snapshot._Fields.TASKS.getThriftFieldId();
+
+  private BackupFormat() {
+    // Utility class.
+  }
+
+  /**
+   * Receives the tasks of a backup as they are read.
+   */
+  interface TaskSink {
+    void add(ScheduledTask task) throws IOException;
+  }
+
+  /**
+   * Determines whether a backup is a delta backup, based on its name.
+   *
+   * @param backupName Name of the backup.
+   * @return {@code true} if the backup holds a {@link SnapshotDelta}.
+   */
+  static boolean isDelta(String backupName) {
+    return backupName.endsWith(DELTA_SUFFIX)
+        || backupName.endsWith(DELTA_SUFFIX + COMPRESSED_SUFFIX);
+  }
+
+  /**
+   * Opens a buffered stream to write a backup to.
+   *
+   * @param file File to write.
+   * @param compress Whether to gzip-compress the backup.
+   * @return Backup output stream.
+   * @throws IOException If the file could not be opened.
+   */
+  static OutputStream openOutput(File file, boolean compress) throws IOException {
+    OutputStream out = new FileOutputStream(file);
+    if (compress) {
+      try {
+        out = new GZIPOutputStream(out, BUFFER_SIZE);
+      } catch (IOException e) {
+        out.close();
+        throw e;
+      }
+    }
+    return new BufferedOutputStream(out, BUFFER_SIZE);
+  }
+
+  /**
+   * Opens a buffered stream to read a backup from, decompressing it if needed.
+   *
+   * @param file File to read.
+   * @return Backup input stream.
+   * @throws IOException If the file could not be opened.
+   */
+  static InputStream openInput(File file) throws IOException {
+    InputStream in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+    try {
+      // A thrift struct never starts with the gzip magic bytes, since they are not a valid type.
+      in.mark(2);
+      int magic = in.read() | (in.read() << 8);
+      in.reset();
+      if (magic == GZIPInputStream.GZIP_MAGIC) {
+        return new BufferedInputStream(new GZIPInputStream(in, BUFFER_SIZE), BUFFER_SIZE);
+      }
+      return in;
+    } catch (IOException e) {
+      in.close();
+      throw e;
+    }
+  }
+
+  static TProtocol protocol(InputStream in) {
+    return ThriftBinaryCodec.PROTOCOL_FACTORY.getProtocol(new TIOStreamTransport(in));
+  }
+
+  static TProtocol protocol(OutputStream out) {
+    return ThriftBinaryCodec.PROTOCOL_FACTORY.getProtocol(new TIOStreamTransport(out));
+  }
+
+  /**
+   * Reads the name of the full backup that a delta backup applies to, without reading the rest of
+   * the delta.
+   *
+   * @param file Delta backup file.
+   * @return The base backup name, or absent if the delta does not name one.
+   * @throws IOException If the file could not be read.
+   * @throws TException If the file could not be decoded.
+   */
+  static Optional<String> readDeltaBase(File file) throws IOException, TException {
+    try (InputStream in = openInput(file)) {
+      TProtocol protocol = protocol(in);
+      protocol.readStructBegin();
+      TField field = protocol.readFieldBegin();
+      if (field.id == DELTA_BASE_FIELD && field.type == TType.STRING) {
+        return Optional.of(protocol.readString());
+      }
+      return Optional.absent();
+    }
+  }
+
+  /**
+   * Reads a full backup, passing each task to {@code tasks} rather than retaining it.
+   *
+   * @param in Protocol to read from.
+   * @param tasks Receives the tasks of the snapshot.
+   * @return The snapshot, without its tasks.
+   * @throws IOException If {@code tasks} failed.
+   * @throws TException If the snapshot could not be decoded.
+   */
+  static Snapshot readSnapshot(TProtocol in, TaskSink tasks) throws IOException, TException {
+    // All other fields are copied to a buffer, and decoded from it once the tasks are skipped.
+    TMemoryBuffer buffer = new TMemoryBuffer(BUFFER_SIZE);
+    TProtocol out = ThriftBinaryCodec.PROTOCOL_FACTORY.getProtocol(buffer);
+
+    out.writeStructBegin(in.readStructBegin());
+    while (true) {
+      TField field = in.readFieldBegin();
+      if (field.type == TType.STOP) {
+        break;
+      }
+      if (field.id == SNAPSHOT_TASKS_FIELD && field.type == TType.SET) {
+        TSet set = in.readSetBegin();
+        for (int i = 0; i < set.size; i++) {
+          ScheduledTask task = new ScheduledTask();
+          task.read(in);
+          tasks.add(task);
+        }
+        in.readSetEnd();
+      } else {
+        out.writeFieldBegin(field);
+        copy(in, out, field.type);
+        out.writeFieldEnd();
+      }
+      in.readFieldEnd();
+    }
+    in.readStructEnd();
+    out.writeFieldStop();
+    out.writeStructEnd();
+
+    Snapshot snapshot = new Snapshot();
+    snapshot.read(ThriftBinaryCodec.PROTOCOL_FACTORY.getProtocol(buffer));
+    return snapshot;
+  }
+
+  /**
+   * Reads a delta backup, passing each added or changed task to {@code tasks} rather than
+   * retaining it.
+   *
+   * @param in Protocol to read from.
+   * @param tasks Receives the tasks of the delta.
+   * @return The delta, without the tasks of its snapshot.
+   * @throws IOException If {@code tasks} failed.
+   * @throws TException If the delta could not be decoded.
+   */
+  static SnapshotDelta readDelta(TProtocol in, TaskSink tasks) throws IOException, TException {
+    SnapshotDelta delta = new SnapshotDelta().setRemovedTaskIds(ImmutableSet.of());
+    in.readStructBegin();
+    while (true) {
+      TField field = in.readFieldBegin();
+      if (field.type == TType.STOP) {
+        break;
+      }
+      if (field.id == DELTA_BASE_FIELD && field.type == TType.STRING) {
+        delta.setBaseBackup(in.readString());
+      } else if (field.id == DELTA_SNAPSHOT_FIELD && field.type == TType.STRUCT) {
+        delta.setSnapshot(readSnapshot(in, tasks));
+      } else if (field.id == DELTA_REMOVED_FIELD && field.type == TType.SET) {
+        TSet set = in.readSetBegin();
+        ImmutableSet.Builder<String> removed = ImmutableSet.builder();
+        for (int i = 0; i < set.size; i++) {
+          removed.add(in.readString());
+        }
+        in.readSetEnd();
+        delta.setRemovedTaskIds(removed.build());
+      } else {
+        TProtocolUtil.skip(in, field.type);
+      }
+      in.readFieldEnd();
+    }
+    in.readStructEnd();
+    return delta;
+  }
+
+  private static void copy(TProtocol in, TProtocol out, byte type) throws TException {
+    switch (type) {
+      case TType.BOOL:
+        out.writeBool(in.readBool());
+        break;
+      case TType.BYTE:
+        out.writeByte(in.readByte());
+        break;
+      case TType.I16:
+        out.writeI16(in.readI16());
+        break;
+      case TType.I32:
+        out.writeI32(in.readI32());
+        break;
+      case TType.I64:
+        out.writeI64(in.readI64());
+        break;
+      case TType.DOUBLE:
+        out.writeDouble(in.readDouble());
+        break;
+      case TType.STRING:
+        out.writeBinary(in.readBinary());
+        break;
+      case TType.STRUCT:
+        out.writeStructBegin(in.readStructBegin());
+        while (true) {
+          TField field = in.readFieldBegin();
+          if (field.type == TType.STOP) {
+            break;
+          }
+          out.writeFieldBegin(field);
+          copy(in, out, field.type);
+          out.writeFieldEnd();
+          in.readFieldEnd();
+        }
+        in.readStructEnd();
+        out.writeFieldStop();
+        out.writeStructEnd();
+        break;
+      case TType.MAP:
+        TMap map = in.readMapBegin();
+        out.writeMapBegin(map);
+        for (int i = 0; i < map.size; i++) {
+          copy(in, out, map.keyType);
+          copy(in, out, map.valueType);
+        }
+        in.readMapEnd();
+        out.writeMapEnd();
+        break;
+      case TType.SET:
+        TSet set = in.readSetBegin();
+        out.writeSetBegin(set);
+        for (int i = 0; i < set.size; i++) {
+          copy(in, out, set.elemType);
+        }
+        in.readSetEnd();
+        out.writeSetEnd();
+        break;
+      case TType.LIST:
+        TList list = in.readListBegin();
+        out.writeListBegin(list);
+        for (int i = 0; i < list.size; i++) {
+          copy(in, out, list.elemType);
+        }
+        in.readListEnd();
+        out.writeListEnd();
+        break;
+      default:
+        throw new TProtocolException(TProtocolException.INVALID_DATA, "Unknown type " + type);
+    }
+  }
+}
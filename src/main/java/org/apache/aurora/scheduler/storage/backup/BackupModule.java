@@ -20,7 +20,6 @@ import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.base.Function;
 import com.google.inject.PrivateModule;
 import com.google.inject.Provides;
 import com.google.inject.TypeLiteral;
@@ -28,6 +27,7 @@ import com.google.inject.TypeLiteral;
 import org.apache.aurora.common.application.Lifecycle;
 import org.apache.aurora.common.args.Arg;
 import org.apache.aurora.common.args.CmdLine;
+import org.apache.aurora.common.args.constraints.NotNegative;
 import org.apache.aurora.common.args.constraints.NotNull;
 import org.apache.aurora.common.base.Command;
 import org.apache.aurora.common.quantity.Amount;
@@ -38,14 +38,13 @@ import org.apache.aurora.scheduler.storage.SnapshotStore;
 import org.apache.aurora.scheduler.storage.backup.Recovery.RecoveryImpl;
 import org.apache.aurora.scheduler.storage.backup.StorageBackup.StorageBackupImpl;
 import org.apache.aurora.scheduler.storage.backup.StorageBackup.StorageBackupImpl.BackupConfig;
-import org.apache.aurora.scheduler.storage.backup.TemporaryStorage.TemporaryStorageFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import static java.util.Objects.requireNonNull;
 
 /**
- * A module that will periodically save full storage backups to local disk and makes those backups
+ * A module that will periodically save storage backups to local disk and makes those backups
  * available for on-line recovery.
  */
 public class BackupModule extends PrivateModule {
@@ -59,6 +58,15 @@ public class BackupModule extends PrivateModule {
       help = "Maximum number of backups to retain before deleting the oldest backups.")
   private static final Arg<Integer> MAX_SAVED_BACKUPS = Arg.create(48);
 
+  @CmdLine(name = "compress_backups", help = "Whether to gzip-compress storage backups.")
+  private static final Arg<Boolean> COMPRESS_BACKUPS = Arg.create(true);
+
+  @NotNegative
+  @CmdLine(name = "backup_deltas_per_full",
+      help = "Number of delta backups, holding only the tasks changed since the most recent full "
+          + "backup, to write between full backups. Zero writes only full backups.")
+  private static final Arg<Integer> BACKUP_DELTAS_PER_FULL = Arg.create(0);
+
   @NotNull
   @CmdLine(name = "backup_dir",
       help = "Directory to store backups under. Will be created if it does not exist.")
@@ -102,9 +110,6 @@ public class BackupModule extends PrivateModule {
     expose(type);
     expose(StorageBackup.class);
 
-    bind(new TypeLiteral<Function<Snapshot, TemporaryStorage>>() { })
-        .to(TemporaryStorageFactory.class);
-
     bind(Command.class).to(LifecycleHook.class);
     bind(Recovery.class).to(RecoveryImpl.class);
     bind(RecoveryImpl.class).in(Singleton.class);
@@ -145,6 +150,11 @@ public class BackupModule extends PrivateModule {
 
   @Provides
   BackupConfig provideBackupConfig(File backupDir) {
-    return new BackupConfig(backupDir, MAX_SAVED_BACKUPS.get(), BACKUP_INTERVAL.get());
+    return new BackupConfig(
+        backupDir,
+        MAX_SAVED_BACKUPS.get(),
+        BACKUP_INTERVAL.get(),
+        COMPRESS_BACKUPS.get(),
+        BACKUP_DELTAS_PER_FULL.get());
   }
 }
@@ -21,20 +21,19 @@ import java.util.concurrent.atomic.AtomicReference;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 
-import com.google.common.base.Function;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.io.Files;
 import com.google.common.util.concurrent.Atomics;
 
-import org.apache.aurora.codec.ThriftBinaryCodec;
 import org.apache.aurora.codec.ThriftBinaryCodec.CodingException;
 import org.apache.aurora.common.base.Command;
-import org.apache.aurora.gen.storage.Snapshot;
 import org.apache.aurora.scheduler.base.Query;
 import org.apache.aurora.scheduler.storage.DistributedSnapshotStore;
 import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult;
+import org.apache.aurora.scheduler.storage.backup.TemporaryStorage.TemporaryStorageFactory;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.thrift.TException;
 
 import static java.util.Objects.requireNonNull;
 
@@ -52,7 +51,8 @@ public interface Recovery {
   Set<String> listBackups();
 
   /**
-   * Loads a backup in 'staging' so that it may be queried and modified prior to committing.
+   * Loads a backup in 'staging' so that it may be queried and modified prior to committing.  A
+   * delta backup is loaded over the full backup that it was taken against.
    *
    * @param backupName Name of the backup to load.
    * @throws RecoveryException If the backup could not be found or loaded.
@@ -104,7 +104,7 @@ public interface Recovery {
 
   class RecoveryImpl implements Recovery {
     private final File backupDir;
-    private final Function<Snapshot, TemporaryStorage> tempStorageFactory;
+    private final TemporaryStorageFactory tempStorageFactory;
     private final AtomicReference<PendingRecovery> recovery;
     private final Storage primaryStorage;
     private final DistributedSnapshotStore distributedStore;
@@ -113,7 +113,7 @@ public interface Recovery {
     @Inject
     RecoveryImpl(
         File backupDir,
-        Function<Snapshot, TemporaryStorage> tempStorageFactory,
+        TemporaryStorageFactory tempStorageFactory,
         Storage primaryStorage,
         DistributedSnapshotStore distributedStore,
         Command shutDownNow) {
@@ -137,18 +137,34 @@ public interface Recovery {
       if (!backupFile.exists()) {
         throw new RecoveryException("Backup " + backupName + " does not exist.");
       }
+      if (recovery.get() != null) {
+        throw new RecoveryException("Another backup is already loaded.");
+      }
 
-      Snapshot snapshot;
+      TemporaryStorage tempStorage;
       try {
-        snapshot = ThriftBinaryCodec.decode(Snapshot.class, Files.toByteArray(backupFile));
-      } catch (CodingException e) {
+        if (BackupFormat.isDelta(backupName)) {
+          Optional<String> baseName = BackupFormat.readDeltaBase(backupFile);
+          if (!baseName.isPresent()) {
+            throw new RecoveryException("Delta backup " + backupName + " names no full backup.");
+          }
+          File baseFile = new File(backupDir, baseName.get());
+          if (!baseFile.exists()) {
+            throw new RecoveryException(
+                "Full backup " + baseName.get() + " of delta " + backupName + " does not exist.");
+          }
+          tempStorage = tempStorageFactory.load(baseFile, Optional.of(backupFile));
+        } else {
+          tempStorage = tempStorageFactory.load(backupFile, Optional.absent());
+        }
+      } catch (TException e) {
         throw new RecoveryException("Failed to decode backup " + e, e);
       } catch (IOException e) {
         throw new RecoveryException("Failed to read backup " + e, e);
       }
-      boolean applied =
-          recovery.compareAndSet(null, new PendingRecovery(tempStorageFactory.apply(snapshot)));
+      boolean applied = recovery.compareAndSet(null, new PendingRecovery(tempStorage));
       if (!applied) {
+        tempStorage.close();
         throw new RecoveryException("Another backup is already loaded.");
       }
     }
@@ -173,7 +189,10 @@ public interface Recovery {
 
     @Override
     public void unload() {
-      recovery.set(null);
+      @Nullable PendingRecovery unloaded = recovery.getAndSet(null);
+      if (unloaded != null) {
+        unloaded.tempStorage.close();
+      }
     }
 
     @Override
@@ -13,9 +13,7 @@
  */
 package org.apache.aurora.scheduler.storage.backup;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -26,6 +24,8 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -34,21 +34,28 @@ import javax.inject.Qualifier;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Ordering;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
 import com.google.common.io.Files;
 
+import org.apache.aurora.GuavaUtils;
+import org.apache.aurora.codec.ThriftBinaryCodec;
+import org.apache.aurora.codec.ThriftBinaryCodec.CodingException;
 import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.common.stats.Stats;
 import org.apache.aurora.common.util.Clock;
+import org.apache.aurora.gen.ScheduledTask;
 import org.apache.aurora.gen.storage.Snapshot;
+import org.apache.aurora.gen.storage.SnapshotDelta;
 import org.apache.aurora.scheduler.storage.SnapshotStore;
 import org.apache.thrift.TException;
-import org.apache.thrift.protocol.TBinaryProtocol;
-import org.apache.thrift.protocol.TProtocol;
-import org.apache.thrift.transport.TIOStreamTransport;
-import org.apache.thrift.transport.TTransport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -58,9 +65,12 @@ import static java.lang.annotation.ElementType.PARAMETER;
 import static java.lang.annotation.RetentionPolicy.RUNTIME;
 import static java.util.Objects.requireNonNull;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 /**
  * A backup routine that layers over a snapshot store and periodically writes snapshots to
- * local disk.
+ * local disk.  Backups are either full snapshots, or deltas that hold the tasks changed since the
+ * most recent full backup.
  */
 public interface StorageBackup {
 
@@ -79,11 +89,26 @@ public interface StorageBackup {
       private final File dir;
       private final int maxBackups;
       private final Amount<Long, Time> interval;
+      private final boolean compress;
+      private final int deltasPerFull;
 
       BackupConfig(File dir, int maxBackups, Amount<Long, Time> interval) {
+        this(dir, maxBackups, interval, false, 0);
+      }
+
+      BackupConfig(
+          File dir,
+          int maxBackups,
+          Amount<Long, Time> interval,
+          boolean compress,
+          int deltasPerFull) {
+
+        checkArgument(deltasPerFull >= 0);
         this.dir = requireNonNull(dir);
         this.maxBackups = maxBackups;
         this.interval = requireNonNull(interval);
+        this.compress = compress;
+        this.deltasPerFull = deltasPerFull;
       }
 
       @VisibleForTesting
@@ -106,6 +131,12 @@ public interface StorageBackup {
     private final DateFormat backupDateFormat;
     private final Executor executor;
 
+    // The most recent full backup, and fingerprints of its tasks, that deltas are taken against.
+    // Only accessed while saving a backup.
+    private Optional<String> baseBackup = Optional.absent();
+    private Map<String, Long> baseFingerprints = ImmutableMap.of();
+    private int deltasSinceFull;
+
     private final AtomicLong successes = Stats.exportLong("scheduler_backup_success");
     @VisibleForTesting
     AtomicLong getSuccesses() {
@@ -118,6 +149,12 @@ public interface StorageBackup {
       return failures;
     }
 
+    private final AtomicLong deltas = Stats.exportLong("scheduler_backup_delta_success");
+    @VisibleForTesting
+    AtomicLong getDeltas() {
+      return deltas;
+    }
+
     @Inject
     StorageBackupImpl(
         @SnapshotDelegate SnapshotStore<Snapshot> delegate,
@@ -153,25 +190,42 @@ public interface StorageBackup {
       return FILE_PREFIX + backupDateFormat.format(new Date(clock.nowMillis()));
     }
 
-    private void save(Snapshot snapshot) {
+    private synchronized void save(Snapshot snapshot) {
       lastBackupMs = clock.nowMillis();
 
-      String backupName = createBackupName();
+      boolean delta = baseBackup.isPresent() && deltasSinceFull < config.deltasPerFull;
+      String backupName = createBackupName()
+          + (delta ? BackupFormat.DELTA_SUFFIX : "")
+          + (config.compress ? BackupFormat.COMPRESSED_SUFFIX : "");
       String tempBackupName = "temp_" + backupName;
       File tempFile = new File(config.dir, tempBackupName);
       LOG.info("Saving backup to " + tempFile);
-      try (
-          OutputStream tempFileStream = new BufferedOutputStream(new FileOutputStream(tempFile))) {
-
-        TTransport transport = new TIOStreamTransport(tempFileStream);
-        TProtocol protocol = new TBinaryProtocol(transport);
-        snapshot.write(protocol);
+      try {
+        Map<String, Long> fingerprints = config.deltasPerFull > 0
+            ? fingerprint(snapshot.getTasks())
+            : ImmutableMap.of();
+        try (OutputStream out = BackupFormat.openOutput(tempFile, config.compress)) {
+          if (delta) {
+            createDelta(snapshot, fingerprints).write(BackupFormat.protocol(out));
+          } else {
+            snapshot.write(BackupFormat.protocol(out));
+          }
+        }
         Files.move(tempFile, new File(config.dir, backupName));
+
+        if (delta) {
+          deltasSinceFull++;
+          deltas.incrementAndGet();
+        } else if (config.deltasPerFull > 0) {
+          baseBackup = Optional.of(backupName);
+          baseFingerprints = fingerprints;
+          deltasSinceFull = 0;
+        }
         successes.incrementAndGet();
       } catch (IOException e) {
         failures.incrementAndGet();
         LOG.error("Failed to prepare backup " + backupName + ": " + e, e);
-      } catch (TException e) {
+      } catch (CodingException | TException e) {
         LOG.error("Failed to encode backup " + backupName + ": " + e, e);
         failures.incrementAndGet();
       } finally {
@@ -187,13 +241,75 @@ public interface StorageBackup {
       } else {
         int backupsToDelete = backups.length - config.maxBackups;
         if (backupsToDelete > 0) {
+          // The current delta base is retained even when it is among the oldest backups, since
+          // later deltas are unusable without it.
+          List<File> candidates = ImmutableList.copyOf(backups).stream()
+              .filter(file -> !Optional.of(file.getName()).equals(baseBackup))
+              .collect(GuavaUtils.toImmutableList());
           List<File> toDelete = Ordering.natural()
               .onResultOf(FILE_NAME)
-              .sortedCopy(ImmutableList.copyOf(backups)).subList(0, backupsToDelete);
-          LOG.info("Deleting " + backupsToDelete + " outdated backups: " + toDelete);
+              .sortedCopy(candidates)
+              .subList(0, Math.min(backupsToDelete, candidates.size()));
+          LOG.info("Deleting " + toDelete.size() + " outdated backups: " + toDelete);
           for (File outdated : toDelete) {
             tryDelete(outdated);
           }
+          deleteOrphanedDeltas();
+        }
+      }
+    }
+
+    private static final HashFunction FINGERPRINT = Hashing.murmur3_128();
+
+    private static Map<String, Long> fingerprint(Iterable<ScheduledTask> tasks)
+        throws CodingException {
+
+      ImmutableMap.Builder<String, Long> fingerprints = ImmutableMap.builder();
+      for (ScheduledTask task : tasks) {
+        fingerprints.put(
+            task.getAssignedTask().getTaskId(),
+            FINGERPRINT.hashBytes(ThriftBinaryCodec.encodeNonNull(task)).asLong());
+      }
+      return fingerprints.build();
+    }
+
+    private SnapshotDelta createDelta(Snapshot snapshot, Map<String, Long> fingerprints) {
+      // A shallow copy of the snapshot, since the snapshot itself is shared with the log.
+      Snapshot changes = new Snapshot();
+      for (Snapshot._Fields field : Snapshot._Fields.values()) {
+        if (field != Snapshot._Fields.TASKS && snapshot.isSet(field)) {
+          changes.setFieldValue(field, snapshot.getFieldValue(field));
+        }
+      }
+      changes.setTasks(snapshot.getTasks().stream()
+          .filter(task -> !fingerprints.get(task.getAssignedTask().getTaskId())
+              .equals(baseFingerprints.get(task.getAssignedTask().getTaskId())))
+          .collect(GuavaUtils.toImmutableSet()));
+
+      Set<String> removed = Sets.difference(baseFingerprints.keySet(), fingerprints.keySet());
+      return new SnapshotDelta()
+          .setBaseBackup(baseBackup.get())
+          .setSnapshot(changes)
+          .setRemovedTaskIds(ImmutableSet.copyOf(removed));
+    }
+
+    private void deleteOrphanedDeltas() {
+      File[] backups = config.dir.listFiles(BACKUP_FILTER);
+      if (backups == null) {
+        return;
+      }
+
+      for (File backup : backups) {
+        if (BackupFormat.isDelta(backup.getName())) {
+          try {
+            Optional<String> base = BackupFormat.readDeltaBase(backup);
+            if (!base.isPresent() || !new File(config.dir, base.get()).exists()) {
+              LOG.info("Deleting delta backup " + backup + " whose full backup was deleted.");
+              tryDelete(backup);
+            }
+          } catch (IOException | TException e) {
+            LOG.error("Failed to read delta backup " + backup + ": " + e, e);
+          }
         }
       }
     }
@@ -13,31 +13,44 @@
  */
 package org.apache.aurora.scheduler.storage.backup;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
 import java.util.Set;
 
-import com.google.common.base.Function;
-import com.google.common.collect.FluentIterable;
+import com.google.common.base.Optional;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 
-import org.apache.aurora.common.util.BuildInfo;
-import org.apache.aurora.common.util.testing.FakeClock;
+import org.apache.aurora.GuavaUtils;
+import org.apache.aurora.codec.ThriftBinaryCodec;
+import org.apache.aurora.codec.ThriftBinaryCodec.CodingException;
+import org.apache.aurora.gen.AssignedTask;
+import org.apache.aurora.gen.JobKey;
+import org.apache.aurora.gen.ScheduledTask;
+import org.apache.aurora.gen.TaskConfig;
 import org.apache.aurora.gen.storage.Snapshot;
+import org.apache.aurora.gen.storage.SnapshotDelta;
 import org.apache.aurora.scheduler.base.Query;
-import org.apache.aurora.scheduler.base.Tasks;
-import org.apache.aurora.scheduler.storage.SnapshotStore;
-import org.apache.aurora.scheduler.storage.Storage;
-import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult;
-import org.apache.aurora.scheduler.storage.db.DbUtil;
+import org.apache.aurora.scheduler.storage.TaskStore;
+import org.apache.aurora.scheduler.storage.backup.Recovery.RecoveryException;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
-import org.apache.aurora.scheduler.storage.log.SnapshotStoreImpl;
 import org.apache.aurora.scheduler.storage.log.ThriftBackfill;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TProtocolException;
 
 import static java.util.Objects.requireNonNull;
 
-import static org.apache.aurora.common.util.testing.FakeBuildInfo.generateBuildInfo;
-
 /**
- * A short-lived in-memory storage system that can be converted to a {@link Snapshot}.
+ * A short-lived storage system that can be converted to a {@link Snapshot}.
  */
 interface TemporaryStorage {
 
@@ -65,9 +78,16 @@ interface TemporaryStorage {
   Snapshot toSnapshot();
 
   /**
-   * A factory that creates temporary storage instances, detached from the rest of the system.
+   * Releases the resources held by the temporary storage.  The storage may not be used after it
+   * is closed.
+   */
+  void close();
+
+  /**
+   * A factory that creates temporary storage instances from backups, detached from the rest of the
+   * system.
    */
-  class TemporaryStorageFactory implements Function<Snapshot, TemporaryStorage> {
+  class TemporaryStorageFactory {
 
     private final ThriftBackfill thriftBackfill;
 
@@ -76,46 +96,196 @@ interface TemporaryStorage {
       this.thriftBackfill = requireNonNull(thriftBackfill);
     }
 
-    @Override
-    public TemporaryStorage apply(Snapshot snapshot) {
-      final Storage storage = DbUtil.createFlaggedStorage();
-      final BuildInfo buildInfo = generateBuildInfo();
-      FakeClock clock = new FakeClock();
-      clock.setNowMillis(snapshot.getTimestamp());
-      final SnapshotStore<Snapshot> snapshotStore = new SnapshotStoreImpl(
-          buildInfo,
-          clock,
-          storage,
-          // Safe to pass false here to default to the non-experimental task store
-          // during restore from backup procedure.
-          false /** useDbSnapshotForTaskStore */,
-          // We can just pass an empty lambda for the MigrationManager as migration is a no-op
-          // when restoring from backup.
-          () -> { } /** migrationManager */,
-          thriftBackfill);
-      snapshotStore.applySnapshot(snapshot);
-
-      return new TemporaryStorage() {
-        @Override
-        public void deleteTasks(final Query.Builder query) {
-          storage.write((NoResult.Quiet) storeProvider -> {
-            Set<String> ids = FluentIterable.from(storeProvider.getTaskStore().fetchTasks(query))
-                .transform(Tasks::id)
-                .toSet();
-            storeProvider.getUnsafeTaskStore().deleteTasks(ids);
-          });
+    /**
+     * Loads a backup into temporary storage.  The backup is streamed, and its tasks are spooled to
+     * a temporary file rather than held in memory.
+     *
+     * @param backup Full backup to load.
+     * @param delta Delta backup to apply over the full backup, if any.
+     * @return Temporary storage holding the contents of the backup.
+     * @throws IOException If a backup could not be read.
+     * @throws TException If a backup could not be decoded.
+     */
+    public TemporaryStorage load(File backup, Optional<File> delta)
+        throws IOException, TException {
+
+      SpooledStorage storage = new SpooledStorage(thriftBackfill);
+      try {
+        Snapshot snapshot;
+        try (InputStream in = BackupFormat.openInput(backup)) {
+          snapshot = BackupFormat.readSnapshot(BackupFormat.protocol(in), storage::add);
         }
 
-        @Override
-        public Iterable<IScheduledTask> fetchTasks(final Query.Builder query) {
-          return storage.read(storeProvider -> storeProvider.getTaskStore().fetchTasks(query));
+        if (delta.isPresent()) {
+          SnapshotDelta changes;
+          try (InputStream in = BackupFormat.openInput(delta.get())) {
+            changes = BackupFormat.readDelta(BackupFormat.protocol(in), storage::add);
+          }
+          if (!changes.isSetSnapshot()) {
+            throw new TProtocolException(
+                TProtocolException.INVALID_DATA,
+                "Delta backup " + delta.get() + " holds no snapshot.");
+          }
+          storage.remove(changes.getRemovedTaskIds());
+          snapshot = changes.getSnapshot();
         }
 
-        @Override
-        public Snapshot toSnapshot() {
-          return snapshotStore.createSnapshot();
+        storage.setSnapshot(snapshot);
+        return storage;
+      } catch (IOException | TException | RuntimeException e) {
+        storage.close();
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * Temporary storage that spools tasks to a file as they are loaded.  Only the task fields that
+   * {@link TaskStore.Util#queryFilter(Query.Builder)} examines are held in memory, so queries and
+   * deletes are answered from this index, and only matching tasks are read back from the spool.
+   */
+  class SpooledStorage implements TemporaryStorage {
+    private final ThriftBackfill thriftBackfill;
+    private final File spoolFile;
+    private final FileChannel spool;
+    private final Interner<String> strings = Interners.newStrongInterner();
+
+    // Guarded by this.
+    private final Map<String, SpooledTask> tasks = Maps.newLinkedHashMap();
+    private long spoolSize;
+    private Snapshot snapshot;
+
+    SpooledStorage(ThriftBackfill thriftBackfill) throws IOException {
+      this.thriftBackfill = requireNonNull(thriftBackfill);
+      this.spoolFile = File.createTempFile("scheduler-recovery-", ".spool");
+      this.spool = FileChannel.open(
+          spoolFile.toPath(),
+          StandardOpenOption.READ,
+          StandardOpenOption.WRITE,
+          StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private static final class SpooledTask {
+      private final IScheduledTask indexed;
+      private final long offset;
+      private final int length;
+
+      SpooledTask(IScheduledTask indexed, long offset, int length) {
+        this.indexed = indexed;
+        this.offset = offset;
+        this.length = length;
+      }
+    }
+
+    synchronized void add(ScheduledTask task) throws IOException {
+      byte[] encoded;
+      try {
+        encoded = ThriftBinaryCodec.encodeNonNull(task);
+      } catch (CodingException e) {
+        throw new IOException("Failed to encode task " + task.getAssignedTask().getTaskId(), e);
+      }
+
+      ByteBuffer buffer = ByteBuffer.wrap(encoded);
+      while (buffer.hasRemaining()) {
+        spool.write(buffer, spoolSize + buffer.position());
+      }
+
+      AssignedTask assigned = task.getAssignedTask();
+      JobKey job = assigned.getTask().getJob();
+      ScheduledTask indexed = new ScheduledTask()
+          .setStatus(task.getStatus())
+          .setAssignedTask(new AssignedTask()
+              .setTaskId(assigned.getTaskId())
+              .setSlaveHost(intern(assigned.getSlaveHost()))
+              .setInstanceId(assigned.getInstanceId())
+              .setTask(new TaskConfig().setJob(new JobKey(
+                  intern(job.getRole()),
+                  intern(job.getEnvironment()),
+                  intern(job.getName())))));
+      tasks.put(
+          assigned.getTaskId(),
+          new SpooledTask(IScheduledTask.build(indexed), spoolSize, encoded.length));
+      spoolSize += encoded.length;
+    }
+
+    private String intern(String value) {
+      return value == null ? null : strings.intern(value);
+    }
+
+    synchronized void remove(Set<String> taskIds) {
+      tasks.keySet().removeAll(taskIds);
+    }
+
+    synchronized void setSnapshot(Snapshot snapshot) {
+      this.snapshot = snapshot;
+    }
+
+    private synchronized ImmutableList<SpooledTask> match(Query.Builder query) {
+      Predicate<IScheduledTask> filter = TaskStore.Util.queryFilter(query);
+      Set<String> ids = query.get().getTaskIds();
+      Iterable<SpooledTask> candidates = ids.isEmpty()
+          ? tasks.values()
+          : ids.stream()
+              .map(tasks::get)
+              .filter(task -> task != null)
+              .collect(GuavaUtils.toImmutableList());
+      ImmutableList.Builder<SpooledTask> matches = ImmutableList.builder();
+      for (SpooledTask task : candidates) {
+        if (filter.apply(task.indexed)) {
+          matches.add(task);
         }
-      };
+      }
+      return matches.build();
+    }
+
+    private ScheduledTask read(SpooledTask task) {
+      ByteBuffer buffer = ByteBuffer.allocate(task.length);
+      try {
+        while (buffer.hasRemaining()) {
+          if (spool.read(buffer, task.offset + buffer.position()) < 0) {
+            throw new IOException("Unexpected end of recovery spool " + spoolFile);
+          }
+        }
+        return ThriftBinaryCodec.decodeNonNull(ScheduledTask.class, buffer.array());
+      } catch (IOException | CodingException e) {
+        throw new RecoveryException("Failed to read staged task: " + e, e);
+      }
+    }
+
+    @Override
+    public void deleteTasks(Query.Builder query) {
+      Set<String> ids = match(query).stream()
+          .map(task -> task.indexed.getAssignedTask().getTaskId())
+          .collect(GuavaUtils.toImmutableSet());
+      remove(ids);
+    }
+
+    @Override
+    public Iterable<IScheduledTask> fetchTasks(Query.Builder query) {
+      return thriftBackfill.backfillTasks(match(query).stream()
+          .map(this::read)
+          .collect(GuavaUtils.toImmutableSet()));
+    }
+
+    @Override
+    public Snapshot toSnapshot() {
+      Snapshot copy;
+      synchronized (this) {
+        copy = snapshot.deepCopy();
+      }
+      return copy.setTasks(IScheduledTask.toBuildersSet(fetchTasks(Query.unscoped())));
+    }
+
+    @Override
+    public void close() {
+      try {
+        spool.close();
+      } catch (IOException e) {
+        // Nothing more can be done, the file is deleted regardless.
+      }
+      if (!spoolFile.delete()) {
+        spoolFile.deleteOnExit();
+      }
     }
   }
 }
@@ -51,6 +51,7 @@ import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.TaskStore;
 import org.apache.aurora.scheduler.storage.db.typehandlers.TypeHandlers;
 import org.apache.aurora.scheduler.storage.mem.InMemStoresModule;
+import org.apache.aurora.scheduler.storage.mem.MemJobUpdateStore;
 import org.apache.ibatis.migration.JavaMigrationLoader;
 import org.apache.ibatis.migration.MigrationLoader;
 import org.apache.ibatis.session.AutoMappingBehavior;
@@ -73,6 +74,10 @@ public final class DbModule extends PrivateModule {
       help = "Whether to use the experimental database-backed task store.")
   public static final Arg<Boolean> USE_DB_TASK_STORE = Arg.create(false);
 
+  @CmdLine(name = "use_mem_job_update_store",
+      help = "Whether to keep job updates in a heap-resident store rather than the database.")
+  public static final Arg<Boolean> USE_MEM_JOB_UPDATE_STORE = Arg.create(false);
+
   @CmdLine(name = "slow_query_log_threshold",
       help = "Log all queries that take at least this long to execute.")
   private static final Arg<Amount<Long, Time>> SLOW_QUERY_LOG_THRESHOLD =
@@ -117,16 +122,19 @@ public final class DbModule extends PrivateModule {
 
   private final KeyFactory keyFactory;
   private final Module taskStoresModule;
+  private final Class<? extends JobUpdateStore.Mutable> jobUpdateStore;
   private final String jdbcSchema;
 
   private DbModule(
       KeyFactory keyFactory,
       Module taskStoresModule,
+      Class<? extends JobUpdateStore.Mutable> jobUpdateStore,
       String dbName,
       Map<String, String> jdbcUriArgs) {
 
     this.keyFactory = requireNonNull(keyFactory);
     this.taskStoresModule = requireNonNull(taskStoresModule);
+    this.jobUpdateStore = requireNonNull(jobUpdateStore);
 
     Map<String, String> args = ImmutableMap.<String, String>builder()
         .putAll(jdbcUriArgs)
@@ -155,15 +163,35 @@ public final class DbModule extends PrivateModule {
     return new DbModule(
         keyFactory,
         getTaskStoreModule(keyFactory),
+        getJobUpdateStore(),
         "aurora",
         ImmutableMap.of("DB_CLOSE_DELAY", "-1"));
   }
 
   @VisibleForTesting
   public static Module testModule(KeyFactory keyFactory, Optional<Module> taskStoreModule) {
+    return testModule(keyFactory, taskStoreModule, getJobUpdateStore());
+  }
+
+  /**
+   * Creates a module that will prepare a private in-memory database, using specific task store and
+   * job update store implementations.
+   *
+   * @param keyFactory Key factory to use.
+   * @param taskStoreModule Module providing task store bindings.
+   * @param jobUpdateStore Job update store implementation to bind.
+   * @return A new database module for testing.
+   */
+  @VisibleForTesting
+  public static Module testModule(
+      KeyFactory keyFactory,
+      Optional<Module> taskStoreModule,
+      Class<? extends JobUpdateStore.Mutable> jobUpdateStore) {
+
     return new DbModule(
         keyFactory,
         taskStoreModule.isPresent() ? taskStoreModule.get() : getTaskStoreModule(keyFactory),
+        jobUpdateStore,
         "testdb-" + UUID.randomUUID().toString(),
         // A non-zero close delay is used here to avoid eager database cleanup in tests that
         // make use of multiple threads.  Since all test databases are separately scoped by the
@@ -196,6 +224,24 @@ public final class DbModule extends PrivateModule {
       KeyFactory keyFactory,
       Optional<Module> taskStoreModule) {
 
+    return testModuleWithWorkQueue(keyFactory, taskStoreModule, getJobUpdateStore());
+  }
+
+  /**
+   * Same as {@link #testModuleWithWorkQueue(KeyFactory, Optional)} but with a specific job update
+   * store implementation.
+   *
+   * @param keyFactory Key factory to use.
+   * @param taskStoreModule Module providing task store bindings.
+   * @param jobUpdateStore Job update store implementation to bind.
+   * @return A new database module for testing.
+   */
+  @VisibleForTesting
+  public static Module testModuleWithWorkQueue(
+      KeyFactory keyFactory,
+      Optional<Module> taskStoreModule,
+      Class<? extends JobUpdateStore.Mutable> jobUpdateStore) {
+
     return Modules.combine(
         new AbstractModule() {
           @Override
@@ -211,7 +257,7 @@ public final class DbModule extends PrivateModule {
                 });
           }
         },
-        testModule(keyFactory, taskStoreModule)
+        testModule(keyFactory, taskStoreModule, jobUpdateStore)
     );
   }
 
@@ -234,6 +280,10 @@ public final class DbModule extends PrivateModule {
         : new InMemStoresModule(keyFactory);
   }
 
+  private static Class<? extends JobUpdateStore.Mutable> getJobUpdateStore() {
+    return USE_MEM_JOB_UPDATE_STORE.get() ? MemJobUpdateStore.class : DbJobUpdateStore.class;
+  }
+
   private <T> void bindStore(Class<T> binding, Class<? extends T> impl) {
     bind(binding).to(impl);
     bind(impl).in(Singleton.class);
@@ -300,7 +350,7 @@ public final class DbModule extends PrivateModule {
     bindStore(LockStore.Mutable.class, DbLockStore.class);
     bindStore(QuotaStore.Mutable.class, DbQuotaStore.class);
     bindStore(SchedulerStore.Mutable.class, DbSchedulerStore.class);
-    bindStore(JobUpdateStore.Mutable.class, DbJobUpdateStore.class);
+    bindStore(JobUpdateStore.Mutable.class, jobUpdateStore);
 
     Key<Storage> storageKey = keyFactory.create(Storage.class);
     bind(storageKey).to(DbStorage.class);
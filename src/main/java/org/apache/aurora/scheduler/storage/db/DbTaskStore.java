@@ -13,6 +13,8 @@
  */
 package org.apache.aurora.scheduler.storage.db;
 
+import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 
 import com.google.common.base.Function;
@@ -24,8 +26,11 @@ import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultiset;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 
 import org.apache.aurora.common.inject.TimedInterceptor.Timed;
@@ -38,9 +43,11 @@ import org.apache.aurora.scheduler.base.Query.Builder;
 import org.apache.aurora.scheduler.base.Tasks;
 import org.apache.aurora.scheduler.storage.TaskStore;
 import org.apache.aurora.scheduler.storage.db.views.DbScheduledTask;
+import org.apache.aurora.scheduler.storage.entities.IAssignedTask;
 import org.apache.aurora.scheduler.storage.entities.IJobKey;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
+import org.apache.aurora.scheduler.storage.entities.ITaskEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -59,6 +66,9 @@ class DbTaskStore implements TaskStore.Mutable {
 
   private static final Logger LOG = LoggerFactory.getLogger(DbTaskStore.class);
 
+  // Limits the size of the statements used to insert tasks.
+  private static final int INSERT_BATCH_SIZE = 1000;
+
   private final TaskMapper taskMapper;
   private final TaskConfigManager configManager;
   private final Clock clock;
@@ -114,6 +124,16 @@ class DbTaskStore implements TaskStore.Mutable {
     return IJobKey.setFromBuilders(taskMapper.selectJobKeys());
   }
 
+  @Timed("db_storage_get_active_task_configs")
+  @Override
+  public ImmutableMultiset<ITaskConfig> getActiveTaskConfigs(String role) {
+    requireNonNull(role);
+    // Unlike the in-memory store, counts are derived from a role-scoped query of active tasks.
+    return ImmutableMultiset.copyOf(Iterables.transform(
+        fetchTasks(Query.roleScoped(role).active()),
+        task -> task.getAssignedTask().getTask()));
+  }
+
   @Timed("db_storage_save_tasks")
   @Override
   public void saveTasks(Set<IScheduledTask> tasks) {
@@ -135,18 +155,23 @@ class DbTaskStore implements TaskStore.Mutable {
           }
         });
 
-    for (IScheduledTask task : tasks) {
-      InsertResult result = new InsertResult();
-      taskMapper.insertScheduledTask(
-          task,
-          configCache.getUnchecked(task.getAssignedTask().getTask()),
-          result);
+    // Rows are inserted with one multi-row statement per table for each batch of tasks, rather
+    // than one statement per task.
+    for (List<IScheduledTask> batch : Iterables.partition(tasks, INSERT_BATCH_SIZE)) {
+      taskMapper.insertScheduledTasks(
+          Maps.toMap(batch, task -> configCache.getUnchecked(task.getAssignedTask().getTask())));
 
-      if (!task.getTaskEvents().isEmpty()) {
-        taskMapper.insertTaskEvents(result.getId(), task.getTaskEvents());
+      List<IScheduledTask> withEvents = FluentIterable.from(batch)
+          .filter(task -> !task.getTaskEvents().isEmpty())
+          .toList();
+      if (!withEvents.isEmpty()) {
+        taskMapper.insertTaskEvents(withEvents);
       }
-      if (!task.getAssignedTask().getAssignedPorts().isEmpty()) {
-        taskMapper.insertPorts(result.getId(), task.getAssignedTask().getAssignedPorts());
+      List<IScheduledTask> withPorts = FluentIterable.from(batch)
+          .filter(task -> !task.getAssignedTask().getAssignedPorts().isEmpty())
+          .toList();
+      if (!withPorts.isEmpty()) {
+        taskMapper.insertPorts(withPorts);
       }
     }
   }
@@ -181,12 +206,61 @@ class DbTaskStore implements TaskStore.Mutable {
         Preconditions.checkState(
             Tasks.id(original).equals(Tasks.id(maybeMutated)),
             "A task's ID may not be mutated.");
-        saveTasks(ImmutableSet.of(maybeMutated));
+        if (!updateInPlace(original, maybeMutated)) {
+          saveTasks(ImmutableSet.of(maybeMutated));
+        }
       }
       return maybeMutated;
     });
   }
 
+  /**
+   * Stores the changes made to a task by a mutation with statements targeting the changed fields,
+   * rather than rewriting the task along with all of its events and ports.  Mutations made by
+   * state transitions only change the status, failure count and slave assignment, append events
+   * and assign ports to a task that had none.
+   *
+   * @param original Task as stored.
+   * @param mutated Mutated task.
+   * @return {@code false} if the changes can only be stored by rewriting the task.
+   */
+  private boolean updateInPlace(IScheduledTask original, IScheduledTask mutated) {
+    IAssignedTask before = original.getAssignedTask();
+    IAssignedTask after = mutated.getAssignedTask();
+    List<ITaskEvent> events = mutated.getTaskEvents();
+    int storedEvents = original.getTaskEvents().size();
+    boolean portsChanged = !before.getAssignedPorts().equals(after.getAssignedPorts());
+    if (!before.getTask().equals(after.getTask())
+        || before.getInstanceId() != after.getInstanceId()
+        || !Objects.equals(original.getAncestorId(), mutated.getAncestorId())
+        || events.size() < storedEvents
+        || !events.subList(0, storedEvents).equals(original.getTaskEvents())
+        || (portsChanged && !before.getAssignedPorts().isEmpty())) {
+
+      return false;
+    }
+
+    String taskId = Tasks.id(mutated);
+    if (original.getStatus() != mutated.getStatus()) {
+      taskMapper.updateStatus(taskId, mutated.getStatus());
+    }
+    if (!Objects.equals(before.getSlaveId(), after.getSlaveId())
+        || !Objects.equals(before.getSlaveHost(), after.getSlaveHost())) {
+
+      taskMapper.updateSlaveAssignment(taskId, after.getSlaveId(), after.getSlaveHost());
+    }
+    if (original.getFailureCount() != mutated.getFailureCount()) {
+      taskMapper.updateFailureCount(taskId, mutated.getFailureCount());
+    }
+    if (events.size() > storedEvents) {
+      taskMapper.appendTaskEvents(taskId, events.subList(storedEvents, events.size()));
+    }
+    if (portsChanged) {
+      taskMapper.insertPorts(ImmutableList.of(mutated));
+    }
+    return true;
+  }
+
   @Timed("db_storage_unsafe_modify_in_place")
   @Override
   public boolean unsafeModifyInPlace(String taskId, ITaskConfig taskConfiguration) {
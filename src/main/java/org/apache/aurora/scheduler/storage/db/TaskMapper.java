@@ -20,6 +20,7 @@ import java.util.Set;
 import javax.annotation.Nullable;
 
 import org.apache.aurora.gen.JobKey;
+import org.apache.aurora.gen.ScheduleStatus;
 import org.apache.aurora.scheduler.storage.db.views.DbScheduledTask;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.apache.aurora.scheduler.storage.entities.ITaskEvent;
@@ -32,14 +33,11 @@ import org.apache.ibatis.annotations.Param;
 interface TaskMapper {
 
   /**
-   * Inserts a scheduled task.
+   * Inserts scheduled tasks with a single statement.
    *
-   * @param task Task to insert.
+   * @param tasks Tasks to insert, mapped to the row IDs of their configurations.
    */
-  void insertScheduledTask(
-      @Param("task") IScheduledTask task,
-      @Param("configId") long configId,
-      @Param("result") InsertResult result);
+  void insertScheduledTasks(@Param("tasks") Map<IScheduledTask, Long> tasks);
 
   /**
    * Gets tasks based on a query.
@@ -66,24 +64,54 @@ interface TaskMapper {
   Set<JobKey> selectJobKeys();
 
   /**
-   * Inserts the task events association within an
-   * {@link org.apache.aurora.scheduler.storage.entities.IScheduledTask}.
+   * Inserts the task events associations of {@link IScheduledTask}s with a single statement.
    *
-   * @param taskRowId Task row ID.
-   * @param events Events to insert.
+   * @param tasks Tasks to insert events of.  Each task must have at least one event.
    */
-  void insertTaskEvents(
-      @Param("taskRowId") long taskRowId,
-      @Param("events") List<ITaskEvent> events);
+  void insertTaskEvents(@Param("tasks") List<IScheduledTask> tasks);
 
   /**
-   * Inserts the assigned ports association within an
-   * {@link org.apache.aurora.scheduler.storage.entities.IScheduledTask}.
+   * Inserts the assigned ports associations of {@link IScheduledTask}s with a single statement.
    *
-   * @param taskRowId Task row ID.
-   * @param ports Assigned ports to insert.
+   * @param tasks Tasks to insert ports of.  Each task must have at least one assigned port.
    */
-  void insertPorts(@Param("taskRowId") long taskRowId, @Param("ports") Map<String, Integer> ports);
+  void insertPorts(@Param("tasks") List<IScheduledTask> tasks);
+
+  /**
+   * Appends events to a stored task.
+   *
+   * @param taskId ID of the task to append events to.
+   * @param events Events to append.
+   */
+  void appendTaskEvents(@Param("taskId") String taskId, @Param("events") List<ITaskEvent> events);
+
+  /**
+   * Updates the status of a stored task.
+   *
+   * @param taskId ID of the task to update.
+   * @param status New task status.
+   */
+  void updateStatus(@Param("taskId") String taskId, @Param("status") ScheduleStatus status);
+
+  /**
+   * Updates the slave a stored task is assigned to.
+   *
+   * @param taskId ID of the task to update.
+   * @param slaveId New slave ID, or {@code null} if the task is no longer assigned.
+   * @param slaveHost New slave host, or {@code null} if the task is no longer assigned.
+   */
+  void updateSlaveAssignment(
+      @Param("taskId") String taskId,
+      @Param("slaveId") String slaveId,
+      @Param("slaveHost") String slaveHost);
+
+  /**
+   * Updates the failure count of a stored task.
+   *
+   * @param taskId ID of the task to update.
+   * @param failureCount New failure count.
+   */
+  void updateFailureCount(@Param("taskId") String taskId, @Param("failureCount") int failureCount);
 
   /**
    * Deletes all task rows.
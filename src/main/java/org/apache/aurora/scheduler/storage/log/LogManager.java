@@ -46,6 +46,14 @@ public class LogManager {
   @Qualifier
   public @interface LogEntryHashFunction { }
 
+  /**
+   * Whether task configs are written to the log once and referenced by task saves.
+   */
+  @Retention(RetentionPolicy.RUNTIME)
+  @Target({ElementType.METHOD, ElementType.PARAMETER})
+  @Qualifier
+  public @interface DeduplicateTaskConfigs { }
+
   private final Log log;
   private final StreamManagerFactory streamManagerFactory;
 
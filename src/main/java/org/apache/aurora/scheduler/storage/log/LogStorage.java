@@ -18,7 +18,9 @@ import java.util.Date;
 import java.util.Map;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 import javax.inject.Inject;
@@ -34,6 +36,7 @@ import org.apache.aurora.common.inject.TimedInterceptor.Timed;
 import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.common.stats.SlidingStats;
+import org.apache.aurora.common.stats.Stats;
 import org.apache.aurora.gen.HostAttributes;
 import org.apache.aurora.gen.storage.LogEntry;
 import org.apache.aurora.gen.storage.Op;
@@ -46,6 +49,7 @@ import org.apache.aurora.gen.storage.Snapshot;
 import org.apache.aurora.scheduler.base.AsyncUtil;
 import org.apache.aurora.scheduler.base.SchedulerException;
 import org.apache.aurora.scheduler.events.EventSink;
+import org.apache.aurora.scheduler.log.Log;
 import org.apache.aurora.scheduler.log.Log.Stream.InvalidPositionException;
 import org.apache.aurora.scheduler.log.Log.Stream.StreamAccessException;
 import org.apache.aurora.scheduler.storage.AttributeStore;
@@ -176,6 +180,7 @@ public class LogStorage implements NonVolatileStorage, DistributedSnapshotStore
   private final SchedulingService schedulingService;
   private final SnapshotStore<Snapshot> snapshotStore;
   private final Amount<Long, Time> snapshotInterval;
+  private final Optional<Amount<Long, Time>> followInterval;
   private final Storage writeBehindStorage;
   private final SchedulerStore.Mutable writeBehindSchedulerStore;
   private final CronJobStore.Mutable writeBehindJobStore;
@@ -197,8 +202,24 @@ public class LogStorage implements NonVolatileStorage, DistributedSnapshotStore
   private boolean recovered = false;
   private StreamTransaction transaction = null;
 
+  // While following, a standby scheduler tails the log to keep the write-behind stores warm and
+  // tracks the position of the last entry read, so that only the tail needs to be recovered once
+  // it is elected.
+  private boolean following = false;
+  private Optional<Log.Position> followedPosition = Optional.absent();
+
+  private final AtomicLong followerLagEntries =
+      Stats.exportLong("scheduler_log_follower_lag_entries");
+  private final AtomicLong followerEntriesRead =
+      Stats.exportLong("scheduler_log_follower_entries_read");
+  private final AtomicLong followerResyncs = Stats.exportLong("scheduler_log_follower_resyncs");
+  private final AtomicLong followerFailures = Stats.exportLong("scheduler_log_follower_failures");
+  private final AtomicLong catchUpEntries = Stats.exportLong("scheduler_log_catch_up_entries");
+
   private final SlidingStats writerWaitStats =
       new SlidingStats("log_storage_write_lock_wait", "ns");
+  private final SlidingStats writerHoldStats =
+      new SlidingStats("log_storage_write_lock_hold", "ns");
 
   private final Map<LogEntry._Fields, Consumer<LogEntry>> logEntryReplayActions;
   private final Map<Op._Fields, Consumer<Op>> transactionReplayActions;
@@ -225,6 +246,7 @@ public class LogStorage implements NonVolatileStorage, DistributedSnapshotStore
         new ScheduledExecutorSchedulingService(shutdownRegistry, settings.getShutdownGracePeriod()),
         snapshotStore,
         settings.getSnapshotInterval(),
+        settings.getFollowInterval(),
         storage,
         schedulerStore,
         jobStore,
@@ -244,6 +266,7 @@ public class LogStorage implements NonVolatileStorage, DistributedSnapshotStore
       SchedulingService schedulingService,
       SnapshotStore<Snapshot> snapshotStore,
       Amount<Long, Time> snapshotInterval,
+      Optional<Amount<Long, Time>> followInterval,
       Storage delegateStorage,
       SchedulerStore.Mutable schedulerStore,
       CronJobStore.Mutable jobStore,
@@ -260,6 +283,7 @@ public class LogStorage implements NonVolatileStorage, DistributedSnapshotStore
     this.schedulingService = requireNonNull(schedulingService);
     this.snapshotStore = requireNonNull(snapshotStore);
     this.snapshotInterval = requireNonNull(snapshotInterval);
+    this.followInterval = requireNonNull(followInterval);
 
     // Log storage has two distinct operating modes: pre- and post-recovery.  When recovering,
     // we write directly to the writeBehind stores since we are replaying what's already persisted.
@@ -404,6 +428,11 @@ public class LogStorage implements NonVolatileStorage, DistributedSnapshotStore
     } catch (IOException e) {
       throw new IllegalStateException("Failed to open the log, cannot continue", e);
     }
+
+    if (followInterval.isPresent()) {
+      following = true;
+      schedulingService.doEvery(followInterval.get(), this::follow);
+    }
   }
 
   @Override
@@ -412,7 +441,12 @@ public class LogStorage implements NonVolatileStorage, DistributedSnapshotStore
       // Must have the underlying storage started so we can query it for the last checkpoint.
       // We replay these entries in the forwarded storage system's transactions but not ours - we
       // do not want to re-record these ops to the log.
-      recover();
+      if (following) {
+        following = false;
+        catchUp();
+      } else {
+        recover();
+      }
       recovered = true;
 
       // Now that we're recovered we should let any mutations done in initializationLogic append
@@ -437,6 +471,74 @@ public class LogStorage implements NonVolatileStorage, DistributedSnapshotStore
     }
   }
 
+  /**
+   * Recovers the entries appended to the log since it was last followed.
+   *
+   * @throws RecoveryFailedException If the log could not be read.
+   */
+  @Timed("scheduler_log_catch_up")
+  void catchUp() throws RecoveryFailedException {
+    AtomicLong entries = new AtomicLong();
+    try {
+      streamManager.catchUp(followedPosition, countingReplay(entries));
+      catchUpEntries.set(entries.get());
+    } catch (InvalidPositionException e) {
+      LOG.info("Log was truncated past the last entry followed, recovering the full log.");
+      recover();
+    } catch (CodingException | StreamAccessException e) {
+      throw new RecoveryFailedException(e);
+    }
+  }
+
+  /**
+   * Replays the entries appended to the log since the last read.  Each entry is applied in its own
+   * write-behind transaction, and the followed position advances once that transaction completes,
+   * so a read that fails part way through resumes after the last entry applied.
+   */
+  @VisibleForTesting
+  synchronized void follow() {
+    if (!following) {
+      return;
+    }
+
+    AtomicLong entries = new AtomicLong();
+    try {
+      try {
+        followedPosition = streamManager.readAfter(followedPosition, followingReplay(entries));
+      } catch (InvalidPositionException e) {
+        // The first entry remaining after a truncation is the snapshot that triggered it, so
+        // the stores are rebuilt from the beginning of the log.
+        LOG.info("Log was truncated past the last entry followed, replaying the full log.");
+        followerResyncs.incrementAndGet();
+        followedPosition = Optional.absent();
+        followedPosition = streamManager.readAfter(followedPosition, followingReplay(entries));
+      }
+      followerLagEntries.set(entries.get());
+    } catch (CodingException | RuntimeException e) {
+      // Failures are retried on the next run rather than propagated, which would cancel the
+      // periodic follow.
+      followerFailures.incrementAndGet();
+      LOG.warn("Failed to follow the log, will retry.", e);
+    } finally {
+      followerEntriesRead.addAndGet(entries.get());
+    }
+  }
+
+  private BiConsumer<LogEntry, Log.Position> followingReplay(AtomicLong entries) {
+    return (logEntry, position) -> {
+      writeBehindStorage.write((NoResult.Quiet) unused -> replay(logEntry));
+      followedPosition = Optional.of(position);
+      entries.incrementAndGet();
+    };
+  }
+
+  private Consumer<LogEntry> countingReplay(AtomicLong entries) {
+    return logEntry -> {
+      replay(logEntry);
+      entries.incrementAndGet();
+    };
+  }
+
   private static final class RecoveryFailedException extends SchedulerException {
     RecoveryFailedException(Throwable cause) {
       super(cause);
@@ -540,8 +642,9 @@ public class LogStorage implements NonVolatileStorage, DistributedSnapshotStore
   public <T, E extends Exception> T write(final MutateWork<T, E> work) throws StorageException, E {
     long waitStart = System.nanoTime();
     writeLock.lock();
+    long lockedAt = System.nanoTime();
     try {
-      writerWaitStats.accumulate(System.nanoTime() - waitStart);
+      writerWaitStats.accumulate(lockedAt - waitStart);
       // We don't want to use the log when recovering from it, we just want to update the underlying
       // store - so pass mutations straight through to the underlying storage.
       if (!recovered) {
@@ -550,6 +653,10 @@ public class LogStorage implements NonVolatileStorage, DistributedSnapshotStore
 
       return doInTransaction(work);
     } finally {
+      // Only the outermost write releases the lock, so nested writes are not counted.
+      if (writeLock.getHoldCount() == 1) {
+        writerHoldStats.accumulate(System.nanoTime() - lockedAt);
+      }
       writeLock.unlock();
     }
   }
@@ -578,10 +685,24 @@ public class LogStorage implements NonVolatileStorage, DistributedSnapshotStore
   public static class Settings {
     private final Amount<Long, Time> shutdownGracePeriod;
     private final Amount<Long, Time> snapshotInterval;
+    private final Optional<Amount<Long, Time>> followInterval;
+
+    /**
+     * Creates log storage settings.
+     *
+     * @param shutdownGracePeriod Time to wait for scheduled actions to complete on shutdown.
+     * @param snapshotInterval Interval between snapshots while leading.
+     * @param followInterval Interval between reads of the log tail while not leading, or absent
+     *                       to only read the log once elected.
+     */
+    public Settings(
+        Amount<Long, Time> shutdownGracePeriod,
+        Amount<Long, Time> snapshotInterval,
+        Optional<Amount<Long, Time>> followInterval) {
 
-    public Settings(Amount<Long, Time> shutdownGracePeriod, Amount<Long, Time> snapshotInterval) {
       this.shutdownGracePeriod = requireNonNull(shutdownGracePeriod);
       this.snapshotInterval = requireNonNull(snapshotInterval);
+      this.followInterval = requireNonNull(followInterval);
     }
 
     public Amount<Long, Time> getShutdownGracePeriod() {
@@ -591,5 +712,9 @@ public class LogStorage implements NonVolatileStorage, DistributedSnapshotStore
     public Amount<Long, Time> getSnapshotInterval() {
       return snapshotInterval;
     }
+
+    public Optional<Amount<Long, Time>> getFollowInterval() {
+      return followInterval;
+    }
   }
 }
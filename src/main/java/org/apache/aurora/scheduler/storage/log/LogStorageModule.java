@@ -16,6 +16,7 @@ package org.apache.aurora.scheduler.storage.log;
 import javax.inject.Singleton;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
 import com.google.common.hash.HashFunction;
 import com.google.common.hash.Hashing;
 import com.google.inject.PrivateModule;
@@ -32,9 +33,11 @@ import org.apache.aurora.scheduler.storage.DistributedSnapshotStore;
 import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.Storage.NonVolatileStorage;
 import org.apache.aurora.scheduler.storage.db.DbModule;
+import org.apache.aurora.scheduler.storage.log.LogManager.DeduplicateTaskConfigs;
 import org.apache.aurora.scheduler.storage.log.LogManager.MaxEntrySize;
 import org.apache.aurora.scheduler.storage.log.LogStorage.Settings;
 import org.apache.aurora.scheduler.storage.log.SnapshotStoreImpl.ExperimentalTaskStore;
+import org.apache.aurora.scheduler.storage.log.SnapshotStoreImpl.InMemJobUpdateStore;
 
 import static org.apache.aurora.scheduler.storage.log.EntrySerializer.EntrySerializerImpl;
 import static org.apache.aurora.scheduler.storage.log.LogManager.LogEntryHashFunction;
@@ -57,6 +60,17 @@ public class LogStorageModule extends PrivateModule {
   private static final Arg<Amount<Long, Time>> SNAPSHOT_INTERVAL =
       Arg.create(Amount.of(1L, Time.HOURS));
 
+  @CmdLine(name = "enable_dlog_follower",
+           help = "Keep the local storage of standby schedulers up to date by continuously reading "
+                  + "the log, so that only the most recent entries must be recovered on election.")
+  private static final Arg<Boolean> ENABLE_FOLLOWER = Arg.create(false);
+
+  @CmdLine(name = "dlog_follower_poll_interval",
+           help = "Specifies the frequency at which standby schedulers read new entries from the "
+                  + "log when -enable_dlog_follower is set.")
+  private static final Arg<Amount<Long, Time>> FOLLOWER_POLL_INTERVAL =
+      Arg.create(Amount.of(5L, Time.SECONDS));
+
   @CmdLine(name = "dlog_max_entry_size",
            help = "Specifies the maximum entry size to append to the log. Larger entries will be "
                   + "split across entry Frames.")
@@ -64,16 +78,30 @@ public class LogStorageModule extends PrivateModule {
   public static final Arg<Amount<Integer, Data>> MAX_LOG_ENTRY_SIZE =
       Arg.create(Amount.of(512, Data.KB));
 
+  @CmdLine(name = "dlog_deduplicate_task_configs",
+           help = "Write each task config to the log once between snapshots and save tasks with a "
+                  + "reference to it. Logs written with this enabled cannot be read by schedulers "
+                  + "of prior releases.")
+  private static final Arg<Boolean> DEDUPLICATE_TASK_CONFIGS = Arg.create(false);
+
   @Override
   protected void configure() {
-    bind(Settings.class)
-        .toInstance(new Settings(SHUTDOWN_GRACE_PERIOD.get(), SNAPSHOT_INTERVAL.get()));
+    bind(Settings.class).toInstance(new Settings(
+        SHUTDOWN_GRACE_PERIOD.get(),
+        SNAPSHOT_INTERVAL.get(),
+        ENABLE_FOLLOWER.get()
+            ? Optional.of(FOLLOWER_POLL_INTERVAL.get())
+            : Optional.absent()));
 
     bind(new TypeLiteral<Boolean>() { }).annotatedWith(ExperimentalTaskStore.class)
         .toInstance(DbModule.USE_DB_TASK_STORE.get());
+    bind(new TypeLiteral<Boolean>() { }).annotatedWith(InMemJobUpdateStore.class)
+        .toInstance(DbModule.USE_MEM_JOB_UPDATE_STORE.get());
 
     bind(new TypeLiteral<Amount<Integer, Data>>() { }).annotatedWith(MaxEntrySize.class)
         .toInstance(MAX_LOG_ENTRY_SIZE.get());
+    bind(new TypeLiteral<Boolean>() { }).annotatedWith(DeduplicateTaskConfigs.class)
+        .toInstance(DEDUPLICATE_TASK_CONFIGS.get());
     bind(LogManager.class).in(Singleton.class);
     bind(LogStorage.class).in(Singleton.class);
 
@@ -83,6 +111,7 @@ public class LogStorageModule extends PrivateModule {
     expose(NonVolatileStorage.class);
     expose(DistributedSnapshotStore.class);
     expose(new TypeLiteral<Boolean>() { }).annotatedWith(ExperimentalTaskStore.class);
+    expose(new TypeLiteral<Boolean>() { }).annotatedWith(InMemJobUpdateStore.class);
 
     bind(EntrySerializer.class).to(EntrySerializerImpl.class);
     // TODO(ksweeney): We don't need a cryptographic checksum here - assess performance of MD5
@@ -24,6 +24,7 @@ import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.inject.Inject;
 import javax.inject.Qualifier;
@@ -43,6 +44,7 @@ import org.apache.aurora.gen.HostAttributes;
 import org.apache.aurora.gen.JobInstanceUpdateEvent;
 import org.apache.aurora.gen.JobUpdateDetails;
 import org.apache.aurora.gen.JobUpdateEvent;
+import org.apache.aurora.gen.JobUpdateQuery;
 import org.apache.aurora.gen.Lock;
 import org.apache.aurora.gen.storage.QuotaConfiguration;
 import org.apache.aurora.gen.storage.SchedulerMetadata;
@@ -62,6 +64,7 @@ import org.apache.aurora.scheduler.storage.entities.IJobConfiguration;
 import org.apache.aurora.scheduler.storage.entities.IJobInstanceUpdateEvent;
 import org.apache.aurora.scheduler.storage.entities.IJobUpdateEvent;
 import org.apache.aurora.scheduler.storage.entities.IJobUpdateKey;
+import org.apache.aurora.scheduler.storage.entities.IJobUpdateQuery;
 import org.apache.aurora.scheduler.storage.entities.ILock;
 import org.apache.aurora.scheduler.storage.entities.IResourceAggregate;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
@@ -87,6 +90,11 @@ public class SnapshotStoreImpl implements SnapshotStore<Snapshot> {
     return snapshot.isSetDbScript();
   }
 
+  private static boolean hasJobUpdates(JobUpdateStore store) {
+    return !store.fetchJobUpdateSummaries(IJobUpdateQuery.build(new JobUpdateQuery().setLimit(1)))
+        .isEmpty();
+  }
+
   private boolean hasDbTaskStore(Snapshot snapshot) {
     return useDbSnapshotForTaskStore
         && hasDbSnapshot(snapshot)
@@ -315,12 +323,21 @@ public class SnapshotStoreImpl implements SnapshotStore<Snapshot> {
 
         @Override
         public void restoreFromSnapshot(MutableStoreProvider store, Snapshot snapshot) {
-          if (hasDbSnapshot(snapshot)) {
+          JobUpdateStore.Mutable updateStore = store.getJobUpdateStore();
+          Set<StoredJobUpdateDetails> snapshotUpdates = snapshot.isSetJobUpdateDetails()
+              ? snapshot.getJobUpdateDetails()
+              : ImmutableSet.of();
+
+          // Job updates are only restored by the dbsnapshot when they are stored in the
+          // database.  A snapshot written while job updates were held in memory has none in its
+          // dbsnapshot, so fall back to the thrift records if the dbsnapshot restored none.
+          if (hasDbSnapshot(snapshot)
+              && !useMemJobUpdateStore
+              && (snapshotUpdates.isEmpty() || hasJobUpdates(updateStore))) {
             LOG.info("Deferring job update restore to dbsnapshot");
             return;
           }
 
-          JobUpdateStore.Mutable updateStore = store.getJobUpdateStore();
           updateStore.deleteAllUpdatesAndEvents();
 
           if (snapshot.isSetJobUpdateDetails()) {
@@ -355,6 +372,7 @@ public class SnapshotStoreImpl implements SnapshotStore<Snapshot> {
   private final Clock clock;
   private final Storage storage;
   private final boolean useDbSnapshotForTaskStore;
+  private final boolean useMemJobUpdateStore;
   private final MigrationManager migrationManager;
   private final ThriftBackfill thriftBackfill;
 
@@ -366,12 +384,21 @@ public class SnapshotStoreImpl implements SnapshotStore<Snapshot> {
   @Qualifier
   public @interface ExperimentalTaskStore { }
 
+  /**
+   * Identifies if job updates are held in memory rather than in the database.
+   */
+  @Retention(RetentionPolicy.RUNTIME)
+  @Target({ ElementType.PARAMETER, ElementType.METHOD })
+  @Qualifier
+  public @interface InMemJobUpdateStore { }
+
   @Inject
   public SnapshotStoreImpl(
       BuildInfo buildInfo,
       Clock clock,
       @Volatile Storage storage,
       @ExperimentalTaskStore boolean useDbSnapshotForTaskStore,
+      @InMemJobUpdateStore boolean useMemJobUpdateStore,
       MigrationManager migrationManager,
       ThriftBackfill thriftBackfill) {
 
@@ -379,6 +406,7 @@ public class SnapshotStoreImpl implements SnapshotStore<Snapshot> {
     this.clock = requireNonNull(clock);
     this.storage = requireNonNull(storage);
     this.useDbSnapshotForTaskStore = useDbSnapshotForTaskStore;
+    this.useMemJobUpdateStore = useMemJobUpdateStore;
     this.migrationManager = requireNonNull(migrationManager);
     this.thriftBackfill = requireNonNull(thriftBackfill);
   }
@@ -13,8 +13,11 @@
  */
 package org.apache.aurora.scheduler.storage.log;
 
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
+import com.google.common.base.Optional;
+
 import org.apache.aurora.gen.storage.LogEntry;
 import org.apache.aurora.gen.storage.Snapshot;
 import org.apache.aurora.scheduler.log.Log;
@@ -43,6 +46,39 @@ public interface StreamManager {
   void readFromBeginning(Consumer<LogEntry> reader)
       throws CodingException, InvalidPositionException, StreamAccessException;
 
+  /**
+   * Reads the entries in the log stream following the given position without claiming the stream
+   * for writing, allowing a standby scheduler to tail the log.  An entry that is still being
+   * written is left to be read by a later call.
+   *
+   * @param position The position of the last entry already read, or absent to read the whole
+   *     stream.
+   * @param reader A reader that will be handed log entries decoded from the stream, along with
+   *     the position to resume reading after once the entry is applied.
+   * @return The position of the last entry read, to be supplied to the next call.
+   * @throws CodingException if there was a problem decoding a log entry from the stream.
+   * @throws InvalidPositionException if entries following the position have been truncated.
+   * @throws StreamAccessException if there is a problem reading from the log.
+   */
+  Optional<Log.Position> readAfter(
+      Optional<Log.Position> position,
+      BiConsumer<LogEntry, Log.Position> reader)
+      throws CodingException, InvalidPositionException, StreamAccessException;
+
+  /**
+   * Claims the log stream for writing and reads the entries following the given position.  This
+   * lets a scheduler that was tailing the log recover only the entries it has not yet read.
+   *
+   * @param position The position of the last entry already read, or absent to read the whole
+   *     stream.
+   * @param reader A reader that will be handed log entries decoded from the stream.
+   * @throws CodingException if there was a problem decoding a log entry from the stream.
+   * @throws InvalidPositionException if entries following the position have been truncated.
+   * @throws StreamAccessException if there is a problem reading from or writing to the log.
+   */
+  void catchUp(Optional<Log.Position> position, Consumer<LogEntry> reader)
+      throws CodingException, InvalidPositionException, StreamAccessException;
+
   /**
    * Truncates all entries in the log stream occuring before the given position.  The entry at the
    * given position becomes the first entry in the stream when this call completes.
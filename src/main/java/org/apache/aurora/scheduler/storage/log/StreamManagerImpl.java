@@ -13,21 +13,26 @@
  */
 package org.apache.aurora.scheduler.storage.log;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
+import com.google.common.collect.UnmodifiableIterator;
 import com.google.common.hash.HashFunction;
 import com.google.common.hash.Hasher;
 import com.google.common.primitives.Bytes;
@@ -56,6 +61,7 @@ import static org.apache.aurora.codec.ThriftBinaryCodec.CodingException;
 import static org.apache.aurora.common.inject.TimedInterceptor.Timed;
 import static org.apache.aurora.scheduler.log.Log.Stream.InvalidPositionException;
 import static org.apache.aurora.scheduler.log.Log.Stream.StreamAccessException;
+import static org.apache.aurora.scheduler.storage.log.LogManager.DeduplicateTaskConfigs;
 import static org.apache.aurora.scheduler.storage.log.LogManager.LogEntryHashFunction;
 
 class StreamManagerImpl implements StreamManager {
@@ -72,6 +78,10 @@ class StreamManagerImpl implements StreamManager {
     private final AtomicLong deflatedEntriesRead =
         Stats.exportLong("scheduler_log_deflated_entries_read");
     private final AtomicLong snapshots = Stats.exportLong("scheduler_log_snapshots");
+    private final AtomicLong taskConfigsRegistered =
+        Stats.exportLong("scheduler_log_task_configs_registered");
+    private final AtomicLong taskConfigBytesSaved =
+        Stats.exportLong("scheduler_log_task_config_bytes_saved");
   }
   private final Vars vars = new Vars();
 
@@ -80,31 +90,102 @@ class StreamManagerImpl implements StreamManager {
   private final EntrySerializer entrySerializer;
   private final HashFunction hashFunction;
   private final SnapshotDeduplicator snapshotDeduplicator;
+  private final boolean deduplicateTaskConfigs;
+  private final TaskConfigDictionary.Writer taskConfigWriter;
+  private final TaskConfigDictionary.Reader taskConfigReader = new TaskConfigDictionary.Reader();
 
   @Inject
   StreamManagerImpl(
       @Assisted Stream stream,
       EntrySerializer entrySerializer,
       @LogEntryHashFunction HashFunction hashFunction,
-      SnapshotDeduplicator snapshotDeduplicator) {
+      SnapshotDeduplicator snapshotDeduplicator,
+      @DeduplicateTaskConfigs boolean deduplicateTaskConfigs) {
 
     this.stream = requireNonNull(stream);
     this.entrySerializer = requireNonNull(entrySerializer);
     this.hashFunction = requireNonNull(hashFunction);
     this.snapshotDeduplicator = requireNonNull(snapshotDeduplicator);
+    this.deduplicateTaskConfigs = deduplicateTaskConfigs;
+    this.taskConfigWriter = new TaskConfigDictionary.Writer(
+        vars.taskConfigsRegistered,
+        vars.taskConfigBytesSaved);
+  }
+
+  StreamManagerImpl(
+      Stream stream,
+      EntrySerializer entrySerializer,
+      HashFunction hashFunction,
+      SnapshotDeduplicator snapshotDeduplicator) {
+
+    this(stream, entrySerializer, hashFunction, snapshotDeduplicator, false);
   }
 
   @Override
   public void readFromBeginning(Consumer<LogEntry> reader)
       throws CodingException, InvalidPositionException, StreamAccessException {
 
-    Iterator<Log.Entry> entries = stream.readAll();
+    taskConfigReader.clear();
+    read(new EntryCursor(stream.readAll(), false), ignoringPosition(reader));
+  }
+
+  @Override
+  public Optional<Log.Position> readAfter(
+      Optional<Log.Position> position,
+      BiConsumer<LogEntry, Log.Position> reader)
+      throws CodingException, InvalidPositionException, StreamAccessException {
+
+    if (!position.isPresent()) {
+      taskConfigReader.clear();
+    }
+    return read(new EntryCursor(stream.readAfter(position), true), reader).or(position);
+  }
+
+  @Override
+  public void catchUp(Optional<Log.Position> position, Consumer<LogEntry> reader)
+      throws CodingException, InvalidPositionException, StreamAccessException {
+
+    // Appending claims the stream for writing, which guarantees the read that follows observes
+    // every entry committed by a prior writer.
+    appendAndGetPosition(LogEntry.noop(true));
+    if (!position.isPresent()) {
+      taskConfigReader.clear();
+    }
+    read(new EntryCursor(stream.readAfter(position), false), ignoringPosition(reader));
+  }
+
+  private static BiConsumer<LogEntry, Log.Position> ignoringPosition(Consumer<LogEntry> reader) {
+    return (logEntry, position) -> reader.accept(logEntry);
+  }
+
+  private Optional<Log.Position> read(
+      EntryCursor entries,
+      BiConsumer<LogEntry, Log.Position> reader)
+      throws CodingException {
+
+    try {
+      return readEntries(entries, reader);
+    } finally {
+      entries.close();
+    }
+  }
+
+  private Optional<Log.Position> readEntries(
+      EntryCursor entries,
+      BiConsumer<LogEntry, Log.Position> reader)
+      throws CodingException {
 
+    Optional<Log.Position> consumed = Optional.absent();
     while (entries.hasNext()) {
       LogEntry logEntry = decodeLogEntry(entries.next());
       while (logEntry != null && isFrame(logEntry)) {
         logEntry = tryDecodeFrame(logEntry.getFrame(), entries);
       }
+      if (entries.partialFrame) {
+        // The remaining chunks have not been written yet, so the next read starts over from the
+        // header of this frame.
+        break;
+      }
       if (logEntry != null) {
         if (logEntry.isSet(LogEntry._Fields.DEFLATED_ENTRY)) {
           logEntry = Entries.inflate(logEntry);
@@ -116,14 +197,25 @@ class StreamManagerImpl implements StreamManager {
               snapshotDeduplicator.reduplicate(logEntry.getDeduplicatedSnapshot()));
         }
 
-        reader.accept(logEntry);
+        if (logEntry.isSetSnapshot()) {
+          taskConfigReader.clear();
+        } else if (logEntry.isSetTransaction()) {
+          logEntry = LogEntry.transaction(taskConfigReader.expand(logEntry.getTransaction()));
+        }
+
+        // The position is only tracked while tailing, and is null otherwise.
+        reader.accept(logEntry, entries.position);
         vars.entriesRead.incrementAndGet();
       }
+      if (entries.tailing) {
+        consumed = Optional.of(entries.position);
+      }
     }
+    return consumed;
   }
 
   @Nullable
-  private LogEntry tryDecodeFrame(Frame frame, Iterator<Log.Entry> entries) throws CodingException {
+  private LogEntry tryDecodeFrame(Frame frame, EntryCursor entries) throws CodingException {
     if (!isHeader(frame)) {
       LOG.warn("Found a frame with no preceding header, skipping.");
       return null;
@@ -134,7 +226,11 @@ class StreamManagerImpl implements StreamManager {
     Hasher hasher = hashFunction.newHasher();
     for (int i = 0; i < header.getChunkCount(); i++) {
       if (!entries.hasNext()) {
-        logBadFrame(header, i);
+        if (entries.tailing) {
+          entries.partialFrame = true;
+        } else {
+          logBadFrame(header, i);
+        }
         return null;
       }
       LogEntry logEntry = decodeLogEntry(entries.next());
@@ -157,6 +253,51 @@ class StreamManagerImpl implements StreamManager {
     return Entries.thriftBinaryDecode(Bytes.concat(chunks));
   }
 
+  /**
+   * Iterates over the raw entries of a read.  When tailing, the position of the last entry
+   * returned is tracked, and running out of entries in the middle of a frame marks the frame as
+   * partially written rather than aborted.
+   */
+  private static final class EntryCursor extends UnmodifiableIterator<Log.Entry> {
+    private final Iterator<Log.Entry> entries;
+    private final boolean tailing;
+    private Log.Position position;
+    private boolean partialFrame = false;
+
+    EntryCursor(Iterator<Log.Entry> entries, boolean tailing) {
+      this.entries = requireNonNull(entries);
+      this.tailing = tailing;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return entries.hasNext();
+    }
+
+    @Override
+    public Log.Entry next() {
+      Log.Entry entry = entries.next();
+      if (tailing) {
+        position = entry.position();
+      }
+      return entry;
+    }
+
+    /**
+     * Releases the resources backing the entries, which may still be reading ahead if the read
+     * stopped early.
+     */
+    void close() {
+      if (entries instanceof Closeable) {
+        try {
+          ((Closeable) entries).close();
+        } catch (IOException e) {
+          LOG.warn("Failed to close log entries.", e);
+        }
+      }
+    }
+  }
+
   private static boolean isFrame(LogEntry logEntry) {
     return logEntry.getSetField() == LogEntry._Fields.FRAME;
   }
@@ -198,7 +339,13 @@ class StreamManagerImpl implements StreamManager {
 
     LogEntry entry =
         deflate(LogEntry.deduplicatedSnapshot(snapshotDeduplicator.deduplicate(snapshot)));
-    Log.Position position = appendAndGetPosition(entry);
+    Log.Position position;
+    synchronized (writeMutex) {
+      position = appendAndGetPosition(entry);
+      // Entries before the snapshot are about to be truncated, so configs must be registered
+      // again before they are next referenced.
+      taskConfigWriter.clear();
+    }
     vars.snapshots.incrementAndGet();
     vars.unSnapshottedTransactions.set(0);
     stream.truncateBefore(position);
@@ -248,7 +395,21 @@ class StreamManagerImpl implements StreamManager {
         return null;
       }
 
-      Log.Position position = appendAndGetPosition(LogEntry.transaction(transaction));
+      Log.Position position;
+      if (deduplicateTaskConfigs) {
+        synchronized (writeMutex) {
+          try {
+            position = appendAndGetPosition(
+                LogEntry.transaction(taskConfigWriter.compact(transaction)));
+          } catch (CodingException | RuntimeException e) {
+            // Configs registered by this transaction may not have made it into the log.
+            taskConfigWriter.clear();
+            throw e;
+          }
+        }
+      } else {
+        position = appendAndGetPosition(LogEntry.transaction(transaction));
+      }
       vars.unSnapshottedTransactions.incrementAndGet();
       return position;
     }
@@ -0,0 +1,218 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.storage.log;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import org.apache.aurora.codec.ThriftBinaryCodec;
+import org.apache.aurora.codec.ThriftBinaryCodec.CodingException;
+import org.apache.aurora.gen.AssignedTask;
+import org.apache.aurora.gen.ScheduledTask;
+import org.apache.aurora.gen.TaskConfig;
+import org.apache.aurora.gen.storage.ConfigReferencingScheduledTask;
+import org.apache.aurora.gen.storage.Op;
+import org.apache.aurora.gen.storage.SaveDeduplicatedTasks;
+import org.apache.aurora.gen.storage.SaveTaskConfig;
+import org.apache.aurora.gen.storage.SaveTasks;
+import org.apache.aurora.gen.storage.Transaction;
+
+import static java.util.Objects.requireNonNull;
+
+import static org.apache.aurora.gen.AssignedTask._Fields.TASK;
+import static org.apache.aurora.gen.ScheduledTask._Fields.ASSIGNED_TASK;
+
+/**
+ * A dictionary of the task configs written to the log.  Rather than repeating the full config of
+ * every task saved, a transaction registers each config once with a {@link SaveTaskConfig} op and
+ * saves tasks with a {@link SaveDeduplicatedTasks} op that references configs by content hash.
+ *
+ * <p>Registrations only live until the next snapshot: the {@link Writer} forgets them once a
+ * snapshot is written, so that every reference following a snapshot is preceded by its
+ * registration in a log truncated at that snapshot.
+ */
+final class TaskConfigDictionary {
+
+  private TaskConfigDictionary() {
+    // Utility class.
+  }
+
+  private static final HashFunction CONFIG_HASH = Hashing.sha256();
+
+  private static final Set<Op._Fields> DICTIONARY_OPS =
+      Sets.immutableEnumSet(Op._Fields.SAVE_TASK_CONFIG, Op._Fields.SAVE_DEDUPLICATED_TASKS);
+
+  private static final class Registration {
+    private final String configId;
+    private final int encodedSize;
+
+    Registration(String configId, int encodedSize) {
+      this.configId = configId;
+      this.encodedSize = encodedSize;
+    }
+  }
+
+  /**
+   * Replaces {@link SaveTasks} ops with config registrations and references.  Not thread-safe,
+   * callers must serialize access along with the appends of the transactions it compacts.
+   */
+  static class Writer {
+    private final Map<TaskConfig, Registration> registered = Maps.newHashMap();
+    private final AtomicLong configsRegistered;
+    private final AtomicLong bytesSaved;
+
+    Writer(AtomicLong configsRegistered, AtomicLong bytesSaved) {
+      this.configsRegistered = requireNonNull(configsRegistered);
+      this.bytesSaved = requireNonNull(bytesSaved);
+    }
+
+    /**
+     * Rewrites the task saves in a transaction to reference registered configs, registering any
+     * config that has not been registered since the last {@link #clear()}.
+     *
+     * @param transaction Transaction to compact.
+     * @return A transaction equivalent to {@code transaction} once expanded by a {@link Reader}.
+     * @throws CodingException If a config could not be encoded.
+     */
+    Transaction compact(Transaction transaction) throws CodingException {
+      if (!transaction.isSetOps()) {
+        return transaction;
+      }
+
+      List<Op> ops = Lists.newArrayListWithCapacity(transaction.getOpsSize());
+      for (Op op : transaction.getOps()) {
+        if (op.getSetField() != Op._Fields.SAVE_TASKS || !op.getSaveTasks().isSetTasks()) {
+          ops.add(op);
+          continue;
+        }
+
+        List<ConfigReferencingScheduledTask> tasks =
+            Lists.newArrayListWithCapacity(op.getSaveTasks().getTasksSize());
+        for (ScheduledTask task : op.getSaveTasks().getTasks()) {
+          TaskConfig config = task.getAssignedTask().getTask();
+          Registration registration = registered.get(config);
+          if (registration == null) {
+            byte[] encoded = ThriftBinaryCodec.encodeNonNull(config);
+            registration =
+                new Registration(CONFIG_HASH.hashBytes(encoded).toString(), encoded.length);
+            registered.put(config, registration);
+            ops.add(Op.saveTaskConfig(new SaveTaskConfig(registration.configId, config)));
+            configsRegistered.incrementAndGet();
+          } else {
+            bytesSaved.addAndGet(registration.encodedSize);
+          }
+          tasks.add(new ConfigReferencingScheduledTask(
+              withoutConfig(task),
+              registration.configId));
+        }
+        ops.add(Op.saveDeduplicatedTasks(new SaveDeduplicatedTasks(tasks)));
+      }
+      return new Transaction(ops, transaction.getSchemaVersion());
+    }
+
+    /**
+     * Forgets all registrations, which must happen whenever the log may be truncated or a
+     * compacted transaction may have failed to append.
+     */
+    void clear() {
+      registered.clear();
+    }
+
+    private static ScheduledTask withoutConfig(ScheduledTask task) {
+      // Fields are shared rather than copied, the partial task is only serialized.
+      ScheduledTask partial = new ScheduledTask();
+      for (ScheduledTask._Fields field : ScheduledTask._Fields.values()) {
+        if (field != ASSIGNED_TASK && task.isSet(field)) {
+          partial.setFieldValue(field, task.getFieldValue(field));
+        }
+      }
+      AssignedTask assignedTask = new AssignedTask();
+      for (AssignedTask._Fields field : AssignedTask._Fields.values()) {
+        if (field != TASK && task.getAssignedTask().isSet(field)) {
+          assignedTask.setFieldValue(field, task.getAssignedTask().getFieldValue(field));
+        }
+      }
+      return partial.setAssignedTask(assignedTask);
+    }
+  }
+
+  /**
+   * Restores {@link SaveTasks} ops from the config registrations and references read from the
+   * log.  Not thread-safe.
+   */
+  static class Reader {
+    private final Map<String, TaskConfig> configs = Maps.newHashMap();
+
+    /**
+     * Records the configs registered by a transaction and expands its config references.
+     *
+     * @param transaction Transaction read from the log.
+     * @return An equivalent transaction with task saves in the {@link SaveTasks} form.
+     * @throws CodingException If a task references a config that has not been registered.
+     */
+    Transaction expand(Transaction transaction) throws CodingException {
+      if (!transaction.isSetOps() || !Iterables.any(
+          transaction.getOps(),
+          op -> DICTIONARY_OPS.contains(op.getSetField()))) {
+        return transaction;
+      }
+
+      List<Op> ops = Lists.newArrayListWithCapacity(transaction.getOpsSize());
+      for (Op op : transaction.getOps()) {
+        switch (op.getSetField()) {
+          case SAVE_TASK_CONFIG:
+            configs.put(op.getSaveTaskConfig().getConfigId(), op.getSaveTaskConfig().getConfig());
+            break;
+
+          case SAVE_DEDUPLICATED_TASKS:
+            Set<ScheduledTask> tasks = Sets.newHashSet();
+            for (ConfigReferencingScheduledTask partial
+                : op.getSaveDeduplicatedTasks().getTasks()) {
+              TaskConfig config = configs.get(partial.getTaskConfigId());
+              if (config == null) {
+                throw new CodingException(
+                    "Task references unregistered config " + partial.getTaskConfigId());
+              }
+              ScheduledTask task = partial.getPartialScheduledTask();
+              task.getAssignedTask().setTask(config);
+              tasks.add(task);
+            }
+            ops.add(Op.saveTasks(new SaveTasks(tasks)));
+            break;
+
+          default:
+            ops.add(op);
+        }
+      }
+      return new Transaction(ops, transaction.getSchemaVersion());
+    }
+
+    /**
+     * Forgets all registrations, to be called when a snapshot is read or a read starts over from
+     * the beginning of the log.
+     */
+    void clear() {
+      configs.clear();
+    }
+  }
+}
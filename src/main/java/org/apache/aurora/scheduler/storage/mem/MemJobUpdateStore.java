@@ -0,0 +1,482 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.storage.mem;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.inject.Inject;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
+
+import org.apache.aurora.common.base.MorePreconditions;
+import org.apache.aurora.gen.JobUpdate;
+import org.apache.aurora.gen.JobUpdateDetails;
+import org.apache.aurora.gen.JobUpdateState;
+import org.apache.aurora.gen.JobUpdateStatus;
+import org.apache.aurora.gen.JobUpdateSummary;
+import org.apache.aurora.gen.LockKey;
+import org.apache.aurora.gen.storage.StoredJobUpdateDetails;
+import org.apache.aurora.scheduler.stats.CachedCounters;
+import org.apache.aurora.scheduler.storage.JobUpdateStore;
+import org.apache.aurora.scheduler.storage.LockStore;
+import org.apache.aurora.scheduler.storage.Storage.StorageException;
+import org.apache.aurora.scheduler.storage.entities.IInstanceTaskConfig;
+import org.apache.aurora.scheduler.storage.entities.IJobInstanceUpdateEvent;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
+import org.apache.aurora.scheduler.storage.entities.IJobUpdate;
+import org.apache.aurora.scheduler.storage.entities.IJobUpdateDetails;
+import org.apache.aurora.scheduler.storage.entities.IJobUpdateEvent;
+import org.apache.aurora.scheduler.storage.entities.IJobUpdateInstructions;
+import org.apache.aurora.scheduler.storage.entities.IJobUpdateKey;
+import org.apache.aurora.scheduler.storage.entities.IJobUpdateQuery;
+import org.apache.aurora.scheduler.storage.entities.IJobUpdateSummary;
+import org.apache.aurora.scheduler.storage.entities.ILock;
+import org.apache.aurora.scheduler.storage.entities.ILockKey;
+
+import static java.util.Objects.requireNonNull;
+
+import static org.apache.aurora.common.inject.TimedInterceptor.Timed;
+
+/**
+ * An in-memory job update store.
+ * <p>
+ * Instance events are indexed by update and instance, and updates are indexed by job, role and
+ * latest status so that the updater and query paths avoid scanning the full update history.
+ * <p>
+ * Lock tokens are only reported while the associated lock is still held in the {@link LockStore},
+ * matching the behavior of the database-backed store where lock associations are removed along
+ * with the lock.
+ */
+public class MemJobUpdateStore implements JobUpdateStore.Mutable {
+
+  private static final Comparator<StoredUpdate> LAST_MODIFIED_DESC =
+      Comparator.comparingLong((StoredUpdate update) -> update.lastModifiedMs()).reversed();
+
+  private final LockStore lockStore;
+  private final CachedCounters stats;
+
+  // Guarded by 'this'.  Each store operation touches a handful of in-memory structures, so
+  // coarse synchronization is sufficient and keeps the indexes consistent with each other.
+  private final Map<IJobUpdateKey, StoredUpdate> updates = Maps.newHashMap();
+  private final SetMultimap<IJobKey, IJobUpdateKey> updatesByJob = HashMultimap.create();
+  private final SetMultimap<String, IJobUpdateKey> updatesByRole = HashMultimap.create();
+  private final SetMultimap<JobUpdateStatus, IJobUpdateKey> updatesByStatus =
+      HashMultimap.create();
+  private final Map<String, IJobUpdateKey> updatesByLockToken = Maps.newHashMap();
+
+  @Inject
+  MemJobUpdateStore(LockStore.Mutable lockStore, CachedCounters stats) {
+    this.lockStore = requireNonNull(lockStore);
+    this.stats = requireNonNull(stats);
+  }
+
+  private static String statName(JobUpdateStatus status) {
+    return "update_transition_" + status;
+  }
+
+  private static StorageException missingUpdate(IJobUpdateKey key) {
+    return new StorageException("No update exists with key " + key);
+  }
+
+  private boolean isLockHeld(IJobUpdateKey key, String token) {
+    return lockStore.fetchLock(ILockKey.build(LockKey.job(key.getJob().newBuilder())))
+        .map(lock -> lock.getToken().equals(token))
+        .orElse(false);
+  }
+
+  private static IJobUpdate normalize(IJobUpdate update) {
+    // State is derived from events on fetch, and absent collections are stored as empty ones.
+    JobUpdate builder = update.newBuilder();
+    builder.getSummary().unsetState();
+    if (!builder.getInstructions().isSetInitialState()) {
+      builder.getInstructions().setInitialState(ImmutableSet.of());
+    }
+    if (!builder.getInstructions().getSettings().isSetUpdateOnlyTheseInstances()) {
+      builder.getInstructions().getSettings().setUpdateOnlyTheseInstances(ImmutableSet.of());
+    }
+    return IJobUpdate.build(builder);
+  }
+
+  private static void validate(IJobUpdateInstructions instructions) {
+    if (!instructions.isSetDesiredState() && instructions.getInitialState().isEmpty()) {
+      throw new IllegalArgumentException(
+          "Missing both initial and desired states. At least one is required.");
+    }
+
+    if (instructions.isSetDesiredState()) {
+      requireNonNull(instructions.getDesiredState().getTask());
+      MorePreconditions.checkNotBlank(instructions.getDesiredState().getInstances());
+    }
+    for (IInstanceTaskConfig config : instructions.getInitialState()) {
+      requireNonNull(config.getTask());
+      MorePreconditions.checkNotBlank(config.getInstances());
+    }
+  }
+
+  @Timed("mem_storage_job_update_save_update")
+  @Override
+  public synchronized void saveJobUpdate(IJobUpdate update, Optional<String> lockToken) {
+    requireNonNull(update);
+    validate(update.getInstructions());
+
+    IJobUpdateKey key = update.getSummary().getKey();
+    if (updates.containsKey(key)) {
+      throw new StorageException("An update already exists with key " + key);
+    }
+    if (lockToken.isPresent()) {
+      if (!isLockHeld(key, lockToken.get())) {
+        throw new StorageException("No lock exists with token " + lockToken.get());
+      }
+      IJobUpdateKey existing = updatesByLockToken.get(lockToken.get());
+      if (existing != null) {
+        throw new StorageException("Lock " + lockToken.get() + " is in use by " + existing);
+      }
+      updatesByLockToken.put(lockToken.get(), key);
+    }
+
+    updates.put(key, new StoredUpdate(normalize(update), lockToken));
+    updatesByJob.put(key.getJob(), key);
+    updatesByRole.put(key.getJob().getRole(), key);
+  }
+
+  @Timed("mem_storage_job_update_save_event")
+  @Override
+  public synchronized void saveJobUpdateEvent(IJobUpdateKey key, IJobUpdateEvent event) {
+    StoredUpdate update = updates.get(key);
+    if (update == null) {
+      throw missingUpdate(key);
+    }
+
+    stats.get(statName(event.getStatus())).incrementAndGet();
+    Optional<JobUpdateStatus> oldStatus = update.getStatus();
+    update.addEvent(event);
+    if (oldStatus.isPresent()) {
+      updatesByStatus.remove(oldStatus.get(), key);
+    }
+    updatesByStatus.put(update.getStatus().get(), key);
+  }
+
+  @Timed("mem_storage_job_update_save_instance_event")
+  @Override
+  public synchronized void saveJobInstanceUpdateEvent(
+      IJobUpdateKey key,
+      IJobInstanceUpdateEvent event) {
+
+    StoredUpdate update = updates.get(key);
+    if (update == null) {
+      throw missingUpdate(key);
+    }
+    update.addInstanceEvent(event);
+  }
+
+  @Timed("mem_storage_job_update_delete_all")
+  @Override
+  public synchronized void deleteAllUpdatesAndEvents() {
+    updates.clear();
+    updatesByJob.clear();
+    updatesByRole.clear();
+    updatesByStatus.clear();
+    updatesByLockToken.clear();
+  }
+
+  private void remove(IJobUpdateKey key) {
+    StoredUpdate update = updates.remove(key);
+    if (update != null) {
+      updatesByJob.remove(key.getJob(), key);
+      updatesByRole.remove(key.getJob().getRole(), key);
+      if (update.getStatus().isPresent()) {
+        updatesByStatus.remove(update.getStatus().get(), key);
+      }
+      if (update.lockToken.isPresent()) {
+        updatesByLockToken.remove(update.lockToken.get(), key);
+      }
+    }
+  }
+
+  private Set<String> heldLockTokens() {
+    return lockStore.fetchLocks().stream().map(ILock::getToken).collect(Collectors.toSet());
+  }
+
+  @Timed("mem_storage_job_update_prune_history")
+  @Override
+  public synchronized Set<IJobUpdateKey> pruneHistory(
+      int perJobRetainCount,
+      long historyPruneThresholdMs) {
+
+    Set<String> heldTokens = heldLockTokens();
+    ImmutableSet.Builder<IJobUpdateKey> pruned = ImmutableSet.builder();
+    for (IJobKey job : ImmutableSet.copyOf(updatesByJob.keySet())) {
+      // Updates that still hold their lock are active, and updates without events have not
+      // started.  Neither is eligible for pruning.
+      List<StoredUpdate> completed = updatesByJob.get(job).stream()
+          .map(updates::get)
+          .filter(update -> update.hasEvents()
+              && !(update.lockToken.isPresent() && heldTokens.contains(update.lockToken.get())))
+          .sorted(Comparator.comparingLong(StoredUpdate::createdMs).reversed())
+          .collect(Collectors.toList());
+
+      boolean prunable = completed.size() > perJobRetainCount
+          || completed.stream().anyMatch(u -> u.createdMs() < historyPruneThresholdMs);
+      if (prunable) {
+        for (int i = 0; i < completed.size(); i++) {
+          StoredUpdate update = completed.get(i);
+          if (i >= perJobRetainCount || update.createdMs() < historyPruneThresholdMs) {
+            IJobUpdateKey key = update.getKey();
+            remove(key);
+            pruned.add(key);
+          }
+        }
+      }
+    }
+    return pruned.build();
+  }
+
+  private Stream<StoredUpdate> candidates(IJobUpdateQuery query) {
+    Iterable<IJobUpdateKey> keys;
+    if (query.isSetKey()) {
+      keys = ImmutableSet.of(query.getKey());
+    } else if (query.isSetJobKey()) {
+      keys = updatesByJob.get(query.getJobKey());
+    } else if (query.isSetRole()) {
+      keys = updatesByRole.get(query.getRole());
+    } else if (query.isSetUpdateStatuses() && !query.getUpdateStatuses().isEmpty()) {
+      keys = query.getUpdateStatuses().stream()
+          .flatMap(status -> updatesByStatus.get(status).stream())
+          .collect(Collectors.toList());
+    } else {
+      keys = updates.keySet();
+    }
+
+    return ImmutableList.copyOf(keys).stream()
+        .map(updates::get)
+        .filter(update -> update != null && update.hasEvents());
+  }
+
+  private List<StoredUpdate> query(IJobUpdateQuery query) {
+    Stream<StoredUpdate> matches = candidates(query)
+        .filter(update -> !query.isSetKey() || update.getKey().equals(query.getKey()))
+        .filter(update -> !query.isSetJobKey()
+            || update.getKey().getJob().equals(query.getJobKey()))
+        .filter(update -> !query.isSetRole()
+            || update.getKey().getJob().getRole().equals(query.getRole()))
+        .filter(update -> !query.isSetUser()
+            || update.update.getSummary().getUser().equals(query.getUser()))
+        .filter(update -> !query.isSetUpdateStatuses()
+            || query.getUpdateStatuses().isEmpty()
+            || query.getUpdateStatuses().contains(update.getStatus().get()))
+        .sorted(LAST_MODIFIED_DESC)
+        .skip(query.getOffset());
+    if (query.getLimit() != 0) {
+      matches = matches.limit(query.getLimit());
+    }
+    return matches.collect(Collectors.toList());
+  }
+
+  @Timed("mem_storage_job_update_fetch_summaries")
+  @Override
+  public synchronized List<IJobUpdateSummary> fetchJobUpdateSummaries(IJobUpdateQuery query) {
+    return query(query).stream()
+        .map(StoredUpdate::getSummary)
+        .collect(Collectors.collectingAndThen(Collectors.toList(), ImmutableList::copyOf));
+  }
+
+  @Timed("mem_storage_job_update_fetch_details_list")
+  @Override
+  public synchronized List<IJobUpdateDetails> fetchJobUpdateDetails(IJobUpdateQuery query) {
+    return query(query).stream()
+        .map(StoredUpdate::getDetails)
+        .collect(Collectors.collectingAndThen(Collectors.toList(), ImmutableList::copyOf));
+  }
+
+  private Optional<StoredUpdate> fetchStarted(IJobUpdateKey key) {
+    StoredUpdate update = updates.get(key);
+    return update != null && update.hasEvents() ? Optional.of(update) : Optional.absent();
+  }
+
+  @Timed("mem_storage_job_update_fetch_details")
+  @Override
+  public synchronized Optional<IJobUpdateDetails> fetchJobUpdateDetails(IJobUpdateKey key) {
+    return fetchStarted(key).transform(StoredUpdate::getDetails);
+  }
+
+  @Timed("mem_storage_job_update_fetch_update")
+  @Override
+  public synchronized Optional<IJobUpdate> fetchJobUpdate(IJobUpdateKey key) {
+    return fetchStarted(key).transform(StoredUpdate::getUpdate);
+  }
+
+  @Timed("mem_storage_job_update_fetch_instructions")
+  @Override
+  public synchronized Optional<IJobUpdateInstructions> fetchJobUpdateInstructions(
+      IJobUpdateKey key) {
+
+    return Optional.fromNullable(updates.get(key)).transform(u -> u.update.getInstructions());
+  }
+
+  @Timed("mem_storage_job_update_fetch_all_details")
+  @Override
+  public synchronized Set<StoredJobUpdateDetails> fetchAllJobUpdateDetails() {
+    Set<String> heldTokens = heldLockTokens();
+    return updates.values().stream()
+        .filter(StoredUpdate::hasEvents)
+        .map(update -> new StoredJobUpdateDetails(
+            update.getDetails().newBuilder(),
+            update.lockToken.isPresent() && heldTokens.contains(update.lockToken.get())
+                ? update.lockToken.get()
+                : null))
+        .collect(Collectors.toSet());
+  }
+
+  @Timed("mem_storage_job_update_get_lock_token")
+  @Override
+  public synchronized Optional<String> getLockToken(IJobUpdateKey key) {
+    StoredUpdate update = updates.get(key);
+    if (update == null || !update.lockToken.isPresent()) {
+      return Optional.absent();
+    }
+    return isLockHeld(key, update.lockToken.get()) ? update.lockToken : Optional.absent();
+  }
+
+  @Timed("mem_storage_job_update_fetch_instance_events")
+  @Override
+  public synchronized List<IJobInstanceUpdateEvent> fetchInstanceEvents(
+      IJobUpdateKey key,
+      int instanceId) {
+
+    StoredUpdate update = updates.get(key);
+    return update == null
+        ? ImmutableList.of()
+        : ImmutableList.copyOf(update.instanceEventsById.get(instanceId));
+  }
+
+  /**
+   * Inserts an item into a list ordered by timestamp, after any items with the same timestamp.
+   * Events are almost always appended in order, so the scan starts from the end of the list.
+   */
+  private static <T> void insertOrdered(List<T> list, T item, ToLongFunction<T> timestamp) {
+    long itemTimestamp = timestamp.applyAsLong(item);
+    int index = list.size();
+    while (index > 0 && timestamp.applyAsLong(list.get(index - 1)) > itemTimestamp) {
+      index--;
+    }
+    list.add(index, item);
+  }
+
+  /**
+   * A job update along with its events, ordered by timestamp.
+   */
+  private static final class StoredUpdate {
+    private final IJobUpdate update;
+    private final Optional<String> lockToken;
+    private final List<IJobUpdateEvent> events = Lists.newArrayList();
+    private final List<IJobInstanceUpdateEvent> instanceEvents = Lists.newArrayList();
+    private final ListMultimap<Integer, IJobInstanceUpdateEvent> instanceEventsById =
+        ArrayListMultimap.create();
+
+    // Derived views are cached until the next event is saved.
+    private IJobUpdateSummary summary;
+    private IJobUpdateDetails details;
+
+    StoredUpdate(IJobUpdate update, Optional<String> lockToken) {
+      this.update = update;
+      this.lockToken = lockToken;
+    }
+
+    IJobUpdateKey getKey() {
+      return update.getSummary().getKey();
+    }
+
+    boolean hasEvents() {
+      return !events.isEmpty();
+    }
+
+    Optional<JobUpdateStatus> getStatus() {
+      return hasEvents()
+          ? Optional.of(Iterables.getLast(events).getStatus())
+          : Optional.absent();
+    }
+
+    long createdMs() {
+      return events.get(0).getTimestampMs();
+    }
+
+    long lastModifiedMs() {
+      long lastModified = Iterables.getLast(events).getTimestampMs();
+      if (!instanceEvents.isEmpty()) {
+        lastModified = Math.max(lastModified, Iterables.getLast(instanceEvents).getTimestampMs());
+      }
+      return lastModified;
+    }
+
+    void addEvent(IJobUpdateEvent event) {
+      insertOrdered(events, event, IJobUpdateEvent::getTimestampMs);
+      summary = null;
+      details = null;
+    }
+
+    void addInstanceEvent(IJobInstanceUpdateEvent event) {
+      insertOrdered(instanceEvents, event, IJobInstanceUpdateEvent::getTimestampMs);
+      insertOrdered(
+          instanceEventsById.get(event.getInstanceId()),
+          event,
+          IJobInstanceUpdateEvent::getTimestampMs);
+      summary = null;
+      details = null;
+    }
+
+    IJobUpdateSummary getSummary() {
+      if (summary == null) {
+        summary = IJobUpdateSummary.build(new JobUpdateSummary()
+            .setKey(getKey().newBuilder())
+            .setUser(update.getSummary().getUser())
+            .setState(new JobUpdateState()
+                .setStatus(getStatus().get())
+                .setCreatedTimestampMs(createdMs())
+                .setLastModifiedTimestampMs(lastModifiedMs())));
+      }
+      return summary;
+    }
+
+    IJobUpdateDetails getDetails() {
+      if (details == null) {
+        details = IJobUpdateDetails.build(new JobUpdateDetails()
+            .setUpdate(new JobUpdate()
+                .setSummary(getSummary().newBuilder())
+                .setInstructions(update.getInstructions().newBuilder()))
+            .setUpdateEvents(IJobUpdateEvent.toBuildersList(events))
+            .setInstanceEvents(IJobInstanceUpdateEvent.toBuildersList(instanceEvents)));
+      }
+      return details;
+    }
+
+    IJobUpdate getUpdate() {
+      return getDetails().getUpdate();
+    }
+  }
+}
@@ -33,22 +33,23 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
 import com.google.common.base.Supplier;
+import com.google.common.collect.ConcurrentHashMultiset;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultiset;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Multimaps;
+import com.google.common.collect.Multiset;
 
 import org.apache.aurora.common.base.MorePreconditions;
 import org.apache.aurora.common.inject.TimedInterceptor.Timed;
 import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.common.stats.StatsProvider;
-import org.apache.aurora.gen.ScheduledTask;
-import org.apache.aurora.gen.TaskConfig;
 import org.apache.aurora.scheduler.base.JobKeys;
 import org.apache.aurora.scheduler.base.Query;
 import org.apache.aurora.scheduler.base.Tasks;
@@ -100,7 +101,12 @@ class MemTaskStore implements TaskStore.Mutable {
   // An interner is used here to collapse equivalent TaskConfig instances into canonical instances.
   // Ideally this would fall out of the object hierarchy (TaskConfig being associated with the job
   // rather than the task), but we intuit this detail here for performance reasons.
-  private final Interner<TaskConfig, String> configInterner = new Interner<>();
+  private final Interner<ITaskConfig, String> configInterner = new Interner<>();
+
+  // Counts the active tasks of each role by configuration, maintained as tasks are saved, change
+  // state and are deleted.  This allows consumers such as quota checks to aggregate a role's
+  // active tasks without scanning the store.
+  private final Map<String, Multiset<ITaskConfig>> activeConfigsByRole = Maps.newConcurrentMap();
 
   private final AtomicLong taskQueriesById;
   private final AtomicLong taskQueriesAll;
@@ -161,6 +167,33 @@ class MemTaskStore implements TaskStore.Mutable {
         .toSet();
   }
 
+  @Timed("mem_storage_get_active_task_configs")
+  @Override
+  public ImmutableMultiset<ITaskConfig> getActiveTaskConfigs(String role) {
+    requireNonNull(role);
+    Multiset<ITaskConfig> configs = activeConfigsByRole.get(role);
+    return configs == null ? ImmutableMultiset.of() : ImmutableMultiset.copyOf(configs);
+  }
+
+  private void countActive(IScheduledTask task, int delta) {
+    if (Tasks.isActive(task.getStatus())) {
+      ITaskConfig config = task.getAssignedTask().getTask();
+      Multiset<ITaskConfig> configs = activeConfigsByRole.computeIfAbsent(
+          config.getJob().getRole(),
+          role -> ConcurrentHashMultiset.create());
+      if (delta > 0) {
+        configs.add(config, delta);
+      } else {
+        configs.remove(config, -delta);
+      }
+    }
+  }
+
+  private void replaceActive(IScheduledTask old, IScheduledTask replacement) {
+    countActive(old, -1);
+    countActive(replacement, 1);
+  }
+
   private final Function<IScheduledTask, Task> toTask = task -> new Task(task, configInterner);
 
   @Timed("mem_storage_save_tasks")
@@ -171,7 +204,13 @@ class MemTaskStore implements TaskStore.Mutable {
         "Proposed new tasks would create task ID collision.");
 
     Iterable<Task> canonicalized = Iterables.transform(newTasks, toTask);
-    tasks.putAll(Maps.uniqueIndex(canonicalized, TO_ID));
+    for (Task task : Maps.uniqueIndex(canonicalized, TO_ID).values()) {
+      Task replaced = tasks.put(Tasks.id(task.storedTask), task);
+      if (replaced != null) {
+        countActive(replaced.storedTask, -1);
+      }
+      countActive(task.storedTask, 1);
+    }
     for (SecondaryIndex<?> index : secondaryIndices) {
       index.insert(Iterables.transform(canonicalized, TO_SCHEDULED));
     }
@@ -184,6 +223,7 @@ class MemTaskStore implements TaskStore.Mutable {
     for (SecondaryIndex<?> index : secondaryIndices) {
       index.clear();
     }
+    activeConfigsByRole.clear();
     configInterner.clear();
   }
 
@@ -198,9 +238,8 @@ class MemTaskStore implements TaskStore.Mutable {
         for (SecondaryIndex<?> index : secondaryIndices) {
           index.remove(removed.storedTask);
         }
-        configInterner.removeAssociation(
-            removed.storedTask.getAssignedTask().getTask().newBuilder(),
-            id);
+        configInterner.removeAssociation(removed.storedTask.getAssignedTask().getTask(), id);
+        countActive(removed.storedTask, -1);
       }
     }
   }
@@ -218,10 +257,12 @@ class MemTaskStore implements TaskStore.Mutable {
         Preconditions.checkState(
             Tasks.id(original).equals(Tasks.id(maybeMutated)),
             "A task's ID may not be mutated.");
-        tasks.put(Tasks.id(maybeMutated), toTask.apply(maybeMutated));
+        Task mutated = toTask.apply(maybeMutated);
+        tasks.put(Tasks.id(maybeMutated), mutated);
         for (SecondaryIndex<?> index : secondaryIndices) {
           index.replace(original, maybeMutated);
         }
+        replaceActive(original, mutated.storedTask);
       }
       return maybeMutated;
     });
@@ -237,9 +278,11 @@ class MemTaskStore implements TaskStore.Mutable {
     if (stored == null) {
       return false;
     } else {
-      ScheduledTask updated = stored.storedTask.newBuilder();
-      updated.getAssignedTask().setTask(taskConfiguration.newBuilder());
-      tasks.put(taskId, toTask.apply(IScheduledTask.build(updated)));
+      IScheduledTask updated = stored.storedTask.withAssignedTask(
+          stored.storedTask.getAssignedTask().withTask(taskConfiguration));
+      Task replacement = toTask.apply(updated);
+      tasks.put(taskId, replacement);
+      replaceActive(stored.storedTask, replacement.storedTask);
       return true;
     }
   }
@@ -300,16 +343,14 @@ class MemTaskStore implements TaskStore.Mutable {
   private static class Task {
     private final IScheduledTask storedTask;
 
-    Task(IScheduledTask storedTask, Interner<TaskConfig, String> interner) {
-      interner.removeAssociation(
-          storedTask.getAssignedTask().getTask().newBuilder(),
-          Tasks.id(storedTask));
-      TaskConfig canonical = interner.addAssociation(
-          storedTask.getAssignedTask().getTask().newBuilder(),
-          Tasks.id(storedTask));
-      ScheduledTask builder = storedTask.newBuilder();
-      builder.getAssignedTask().setTask(canonical);
-      this.storedTask = IScheduledTask.build(builder);
+    Task(IScheduledTask storedTask, Interner<ITaskConfig, String> interner) {
+      ITaskConfig config = storedTask.getAssignedTask().getTask();
+      interner.removeAssociation(config, Tasks.id(storedTask));
+      ITaskConfig canonical = interner.addAssociation(config, Tasks.id(storedTask));
+      // Re-wrapping is only needed when the task does not already share the canonical config.
+      this.storedTask = canonical == config
+          ? storedTask
+          : storedTask.withAssignedTask(storedTask.getAssignedTask().withTask(canonical));
     }
 
     @Override
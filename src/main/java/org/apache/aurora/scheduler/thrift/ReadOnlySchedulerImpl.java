@@ -82,7 +82,6 @@ import org.apache.aurora.scheduler.configuration.ConfigurationManager;
 import org.apache.aurora.scheduler.configuration.ConfigurationManager.TaskDescriptionException;
 import org.apache.aurora.scheduler.configuration.SanitizedConfiguration;
 import org.apache.aurora.scheduler.cron.CronPredictor;
-import org.apache.aurora.scheduler.cron.CrontabEntry;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.Veto;
 import org.apache.aurora.scheduler.metadata.NearestFit;
 import org.apache.aurora.scheduler.quota.QuotaInfo;
@@ -260,8 +259,7 @@ class ReadOnlySchedulerImpl implements ReadOnlyScheduler.Iface {
           .setStats(Jobs.getJobStats(tasks.get(jobKey)).newBuilder());
 
       if (job.isSetCronSchedule()) {
-        CrontabEntry crontabEntry = CrontabEntry.parse(job.getCronSchedule());
-        Optional<Date> nextRun = cronPredictor.predictNextRun(crontabEntry);
+        Optional<Date> nextRun = cronPredictor.predictNextRun(job.getCronSchedule());
         return nextRun.transform(date -> summary.setNextCronRunMs(date.getTime())).or(summary);
       } else {
         return summary;
@@ -164,6 +164,20 @@ STRUCT_COLLECTION_FIELD_ASSIGNMENT = '''this.%(field)s = wrapped.%(isset)s()
               .to%(collection)s()
         : Immutable%(collection)s.<%(params)s>of();'''
 
+# Constructor that assigns every field directly, used by the field-level "with" mutators to share
+# unchanged immutable field values rather than copying through the mutable thrift builder.
+FIELDS_CONSTRUCTOR_TEMPLATE = '''  private %(name)s(
+      %(params)s) {
+    %(assignments)s
+  }'''
+
+FIELD_CONSTRUCTOR_ASSIGNMENT = 'this.%(field)s = %(field)s;'
+COLLECTION_CONSTRUCTOR_ASSIGNMENT = 'this.%(field)s = Objects.requireNonNull(%(field)s);'
+
+WITH_FIELD_TEMPLATE = '''  public %(name)s with%(capitalized)s(%(type)s %(field)s) {
+    return new %(name)s(%(args)s);
+  }'''
+
 PACKAGE_NAME = 'org.apache.aurora.scheduler.storage.entities'
 
 
@@ -180,7 +194,7 @@ public final class %(name)s {
   private int cachedHashCode = 0;
 %(fields)s
   private %(name)s(%(wrapped)s wrapped) {%(assignments)s
-  }
+  }%(fields_constructor)s
 
   public static %(name)s build(%(wrapped)s wrapped) {
     return new %(name)s(wrapped);
@@ -258,6 +272,7 @@ class GeneratedCode(object):
     self.equals = 'unset'
     self.builder = 'unset'
     self.copy_constructor = 'unset'
+    self.fields_constructor = ''
 
   def add_import(self, import_class):
     self._imports.add(import_class)
@@ -302,6 +317,7 @@ class GeneratedCode(object):
       'equals': self.equals,
       'hashcode': self.hash_code,
       'copy_constructor': self.copy_constructor,
+      'fields_constructor': ('\n\n' + self.fields_constructor) if self.fields_constructor else '',
     }, file=out_file)
 
 
@@ -490,7 +506,7 @@ def generate_union_field(code, struct, field):
                                             'enum_value': field_enum_value})
 
 
-def generate_struct_field(code, field, builder_calls):
+def generate_struct_field(code, field, builder_calls, field_params):
   field_type = field.ttype.codegen_name()
   assignment = SIMPLE_ASSIGNMENT
   assignment_args = {
@@ -555,6 +571,7 @@ def generate_struct_field(code, field, builder_calls):
                        'params': field.ttype.param_names()}
 
   code.add_field(FIELD_DECLARATION % {'field': field.name, 'type': field_type })
+  field_params.append((field, field_type))
 
   nullable = field.ttype.name == 'String' or not isinstance(field.ttype, (PrimitiveType, ParameterizedType))
   if nullable:
@@ -566,6 +583,35 @@ def generate_struct_field(code, field, builder_calls):
     builder_calls.append('.set%s(%s)' % (field.capitalized_name(), builder_assignment))
   code.add_assignment(assignment % assignment_args)
 
+def generate_with_mutators(code, struct, field_params):
+  '''Generates a constructor accepting all field values, and a withX(...) method per field that
+  returns a copy of the wrapper with only that field replaced.
+  '''
+  if not field_params:
+    return
+
+  def constructor_assignment(field):
+    if isinstance(field.ttype, ParameterizedType):
+      return COLLECTION_CONSTRUCTOR_ASSIGNMENT % {'field': field.name}
+    return FIELD_CONSTRUCTOR_ASSIGNMENT % {'field': field.name}
+
+  code.fields_constructor = FIELDS_CONSTRUCTOR_TEMPLATE % {
+    'name': struct.codegen_name(),
+    'params': ',\n      '.join(['%s %s' % (t, f.name) for f, t in field_params]),
+    'assignments': '\n    '.join([constructor_assignment(f) for f, _ in field_params]),
+  }
+  args = ', '.join([f.name for f, _ in field_params])
+  if len('    return new %s(%s);' % (struct.codegen_name(), args)) > 100:
+    args = '\n        ' + ',\n        '.join([f.name for f, _ in field_params])
+  for field, field_type in field_params:
+    code.add_accessor(WITH_FIELD_TEMPLATE % {
+      'name': struct.codegen_name(),
+      'capitalized': field.capitalized_name(),
+      'type': field_type,
+      'field': field.name,
+      'args': args,
+    })
+
 def generate_java(struct):
   code = GeneratedCode(struct.codegen_name(), struct.name)
   code.add_import('java.util.Objects')
@@ -641,8 +687,10 @@ def generate_java(struct):
     code.hash_code = 'setField, value'
   else:
     builder_calls = []
+    field_params = []
     for field in struct.fields:
-      generate_struct_field(code, field, builder_calls)
+      generate_struct_field(code, field, builder_calls, field_params)
+    generate_with_mutators(code, struct, field_params)
 
     field_names = [f.name for f in struct.fields]
     code.copy_constructor = 'return new %s()%s;' % (struct.name, '\n        ' + '\n        '.join(builder_calls))
@@ -40,6 +40,7 @@ import static org.easymock.EasyMock.capture;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.expectLastCall;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public class SchedulerLifecycleTest extends EasyMockTest {
@@ -138,9 +139,11 @@ public class SchedulerLifecycleTest extends EasyMockTest {
     leaderListener.onLeading(leaderControl);
     assertEquals(1, statsProvider.getValue(stateGaugeName(State.LEADER_AWAITING_REGISTRATION)));
     assertEquals(0, statsProvider.getValue(SchedulerLifecycle.REGISTERED_GAUGE));
+    assertEquals(0L, statsProvider.getValue(SchedulerLifecycle.TIME_TO_ACTIVE_GAUGE));
     schedulerLifecycle.registered(new DriverRegistered());
     assertEquals(1, statsProvider.getValue(stateGaugeName(State.ACTIVE)));
     assertEquals(1, statsProvider.getValue(SchedulerLifecycle.REGISTERED_GAUGE));
+    assertTrue(statsProvider.getLongValue(SchedulerLifecycle.TIME_TO_ACTIVE_GAUGE) >= 0);
     triggerFailover.getValue().run();
   }
 
@@ -18,6 +18,7 @@ import java.util.Map;
 
 import com.google.common.base.Optional;
 import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableMultiset;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 
@@ -250,6 +251,27 @@ public class TaskVarsTest extends EasyMockTest {
     assertEquals(1, getValue(MIXED_COUNTER));
   }
 
+  @Test
+  public void testSummarizedVetoGroups() {
+    expectStatusCountersInitialized();
+    expectStatExport(STATIC_COUNTER);
+    expectStatExport(MIXED_COUNTER);
+
+    replayAndBuild();
+    schedulerActivated();
+
+    vars.taskVetoed(new PubsubEvent.Vetoed(
+        TaskGroupKey.from(makeTask(JOB_A, PENDING).getAssignedTask().getTask()),
+        ImmutableSet.of(Veto.insufficientResources("ram", 500)),
+        ImmutableMultiset.<VetoGroup>builder()
+            .addCopies(VetoGroup.STATIC, 3)
+            .add(VetoGroup.MIXED)
+            .build()));
+
+    assertEquals(3, getValue(STATIC_COUNTER));
+    assertEquals(1, getValue(MIXED_COUNTER));
+  }
+
   @Test
   public void testLoadsFromStorage() {
     expectStatusCountersInitialized();
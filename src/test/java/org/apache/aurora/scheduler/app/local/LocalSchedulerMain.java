@@ -83,6 +83,9 @@ public final class LocalSchedulerMain {
         bind(new TypeLiteral<Boolean>() { })
             .annotatedWith(SnapshotStoreImpl.ExperimentalTaskStore.class)
             .toInstance(false);
+        bind(new TypeLiteral<Boolean>() { })
+            .annotatedWith(SnapshotStoreImpl.InMemJobUpdateStore.class)
+            .toInstance(false);
         bind(Storage.class).to(Key.get(Storage.class, Storage.Volatile.class));
         bind(NonVolatileStorage.class).to(FakeNonVolatileStorage.class);
         bind(DistributedSnapshotStore.class).toInstance(snapshot -> { });
@@ -0,0 +1,51 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.base;
+
+import org.apache.aurora.gen.JobKey;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
+import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+public class TaskGroupKeyTest {
+
+  @Test
+  public void testEqualConfigsShareCanonicalKey() {
+    ITaskConfig config = TaskTestUtil.makeConfig(TaskTestUtil.JOB);
+    // An equal but distinct config instance.
+    ITaskConfig copy = ITaskConfig.build(config.newBuilder());
+
+    TaskGroupKey key = TaskGroupKey.from(config);
+    TaskGroupKey other = TaskGroupKey.from(copy);
+
+    assertSame(key, other);
+    assertEquals(key.getId(), other.getId());
+    assertEquals(key.hashCode(), other.hashCode());
+  }
+
+  @Test
+  public void testDistinctConfigsHaveDistinctIds() {
+    TaskGroupKey key = TaskGroupKey.from(TaskTestUtil.makeConfig(TaskTestUtil.JOB));
+    TaskGroupKey other = TaskGroupKey.from(
+        TaskTestUtil.makeConfig(IJobKey.build(new JobKey("role", "env", "other"))));
+
+    assertNotEquals(key, other);
+    assertNotEquals(key.getId(), other.getId());
+    assertEquals(TaskTestUtil.makeConfig(TaskTestUtil.JOB), key.getTask());
+  }
+}
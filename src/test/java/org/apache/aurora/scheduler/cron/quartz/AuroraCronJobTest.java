@@ -16,21 +16,22 @@ package org.apache.aurora.scheduler.cron.quartz;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableSet;
 
-import org.apache.aurora.common.base.ExceptionalSupplier;
 import org.apache.aurora.common.testing.easymock.EasyMockTest;
-import org.apache.aurora.common.util.BackoffHelper;
+import org.apache.aurora.common.util.testing.FakeClock;
 import org.apache.aurora.gen.AssignedTask;
 import org.apache.aurora.gen.CronCollisionPolicy;
 import org.apache.aurora.gen.ScheduleStatus;
 import org.apache.aurora.gen.ScheduledTask;
+import org.apache.aurora.scheduler.base.Query;
 import org.apache.aurora.scheduler.base.TaskTestUtil;
+import org.apache.aurora.scheduler.events.PubsubEvent.TasksDeleted;
 import org.apache.aurora.scheduler.state.StateChangeResult;
 import org.apache.aurora.scheduler.state.StateManager;
 import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult;
 import org.apache.aurora.scheduler.storage.db.DbUtil;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
-import org.easymock.Capture;
+import org.apache.aurora.scheduler.testing.FakeStatsProvider;
 import org.easymock.EasyMock;
 import org.junit.Before;
 import org.junit.Test;
@@ -39,14 +40,13 @@ import org.quartz.JobExecutionException;
 import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.expectLastCall;
-import static org.junit.Assert.assertFalse;
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.assertEquals;
 
 public class AuroraCronJobTest extends EasyMockTest {
   public static final String TASK_ID = "A";
   private Storage storage;
   private StateManager stateManager;
-  private BackoffHelper backoffHelper;
+  private DeferredCronLaunches deferredLaunches;
 
   private AuroraCronJob auroraCronJob;
 
@@ -54,11 +54,12 @@ public class AuroraCronJobTest extends EasyMockTest {
   public void setUp() {
     storage = DbUtil.createStorage();
     stateManager = createMock(StateManager.class);
-    backoffHelper = createMock(BackoffHelper.class);
+    FakeClock clock = new FakeClock();
+    deferredLaunches =
+        new DeferredCronLaunches(storage, stateManager, clock, new FakeStatsProvider());
 
     auroraCronJob = new AuroraCronJob(
-        TaskTestUtil.CONFIGURATION_MANAGER,
-        new AuroraCronJob.Config(backoffHelper), storage, stateManager);
+        TaskTestUtil.CONFIGURATION_MANAGER, storage, stateManager, deferredLaunches, clock);
   }
 
   @Test
@@ -100,8 +101,6 @@ public class AuroraCronJobTest extends EasyMockTest {
 
   @Test
   public void testKillExisting() throws Exception {
-    Capture<ExceptionalSupplier<Boolean, RuntimeException>> capture = createCapture();
-
     expect(stateManager.changeState(
         EasyMock.anyObject(),
         eq(TASK_ID),
@@ -109,7 +108,6 @@ public class AuroraCronJobTest extends EasyMockTest {
         eq(ScheduleStatus.KILLING),
         eq(AuroraCronJob.KILL_AUDIT_MESSAGE)))
         .andReturn(StateChangeResult.SUCCESS);
-    backoffHelper.doUntilSuccess(EasyMock.capture(capture));
     stateManager.insertPendingTasks(
         EasyMock.anyObject(),
         EasyMock.anyObject(),
@@ -120,10 +118,11 @@ public class AuroraCronJobTest extends EasyMockTest {
     populateStorage(CronCollisionPolicy.KILL_EXISTING);
     populateTaskStore();
     auroraCronJob.doExecute(QuartzTestUtil.AURORA_JOB_KEY);
-    assertFalse(capture.getValue().get());
-    storage.write(
-        (NoResult.Quiet) storeProvider -> storeProvider.getUnsafeTaskStore().deleteAllTasks());
-    assertTrue(capture.getValue().get());
+    assertEquals(1, deferredLaunches.pendingLaunches());
+
+    deferredLaunches.tasksDeleted(new TasksDeleted(
+        ImmutableSet.copyOf(Storage.Util.fetchTasks(storage, Query.unscoped()))));
+    assertEquals(0, deferredLaunches.pendingLaunches());
   }
 
   private void populateTaskStore() {
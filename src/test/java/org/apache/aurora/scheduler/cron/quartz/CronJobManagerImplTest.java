@@ -62,7 +62,9 @@ public class CronJobManagerImplTest extends EasyMockTest {
     storage = DbUtil.createStorage();
     scheduler = createMock(Scheduler.class);
 
-    cronJobManager = new CronJobManagerImpl(storage, scheduler, TimeZone.getTimeZone("GMT"));
+    cronJobManager = new CronJobManagerImpl(
+        storage,
+        new QuartzCronEngine(scheduler, TimeZone.getTimeZone("GMT")));
   }
 
   @Test
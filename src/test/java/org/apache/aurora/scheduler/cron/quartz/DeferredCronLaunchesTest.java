@@ -0,0 +1,146 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.cron.quartz;
+
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+
+import org.apache.aurora.common.testing.easymock.EasyMockTest;
+import org.apache.aurora.common.util.testing.FakeClock;
+import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.scheduler.base.TaskTestUtil;
+import org.apache.aurora.scheduler.base.Tasks;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.events.PubsubEvent.TasksDeleted;
+import org.apache.aurora.scheduler.state.StateManager;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
+import org.apache.aurora.scheduler.storage.testing.StorageTestUtil;
+import org.apache.aurora.scheduler.testing.FakeStatsProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.apache.aurora.gen.ScheduleStatus.KILLED;
+import static org.apache.aurora.gen.ScheduleStatus.KILLING;
+import static org.apache.aurora.gen.ScheduleStatus.RUNNING;
+import static org.apache.aurora.scheduler.cron.quartz.DeferredCronLaunches.PENDING_LAUNCHES_STAT;
+import static org.junit.Assert.assertEquals;
+
+public class DeferredCronLaunchesTest extends EasyMockTest {
+  private static final ITaskConfig TASK = QuartzTestUtil.JOB.getTaskConfig();
+  private static final Set<Integer> INSTANCES = ImmutableSet.of(0, 1);
+  private static final IScheduledTask TASK_A = TaskTestUtil.makeTask("a", TASK);
+  private static final IScheduledTask TASK_B = TaskTestUtil.makeTask("b", TASK);
+
+  private StorageTestUtil storageUtil;
+  private StateManager stateManager;
+  private FakeStatsProvider statsProvider;
+  private DeferredCronLaunches deferredLaunches;
+
+  @Before
+  public void setUp() {
+    storageUtil = new StorageTestUtil(this);
+    storageUtil.expectOperations();
+    stateManager = createMock(StateManager.class);
+    statsProvider = new FakeStatsProvider();
+    deferredLaunches = new DeferredCronLaunches(
+        storageUtil.storage,
+        stateManager,
+        new FakeClock(),
+        statsProvider);
+  }
+
+  private void expectLaunch() {
+    stateManager.insertPendingTasks(storageUtil.mutableStoreProvider, TASK, INSTANCES);
+  }
+
+  private void defer(IScheduledTask... ancestors) {
+    deferredLaunches.defer(
+        QuartzTestUtil.AURORA_JOB_KEY,
+        TASK,
+        INSTANCES,
+        Tasks.ids(ancestors),
+        0L);
+  }
+
+  private void changeState(IScheduledTask task, ScheduleStatus from, ScheduleStatus to) {
+    deferredLaunches.taskChangedState(TaskStateChange.transition(
+        IScheduledTask.build(task.newBuilder().setStatus(to)),
+        from));
+  }
+
+  private void assertPending(long expected) {
+    assertEquals(expected, statsProvider.getLongValue(PENDING_LAUNCHES_STAT));
+  }
+
+  @Test
+  public void testLaunchAfterLastAncestorTerminates() {
+    expectLaunch();
+
+    control.replay();
+
+    defer(TASK_A, TASK_B);
+    assertPending(1);
+
+    changeState(TASK_A, RUNNING, KILLING);
+    changeState(TASK_A, KILLING, KILLED);
+    assertPending(1);
+
+    changeState(TASK_B, KILLING, KILLED);
+    assertPending(0);
+
+    // Further events for the ancestors must not trigger another launch.
+    changeState(TASK_B, KILLING, KILLED);
+  }
+
+  @Test
+  public void testLaunchAfterAncestorsDeleted() {
+    expectLaunch();
+
+    control.replay();
+
+    defer(TASK_A, TASK_B);
+    deferredLaunches.tasksDeleted(new TasksDeleted(ImmutableSet.of(TASK_A, TASK_B)));
+    assertPending(0);
+  }
+
+  @Test
+  public void testUnrelatedTasksIgnored() {
+    control.replay();
+
+    defer(TASK_A);
+    changeState(TASK_B, KILLING, KILLED);
+    deferredLaunches.tasksDeleted(new TasksDeleted(ImmutableSet.of(TASK_B)));
+    assertPending(1);
+  }
+
+  @Test
+  public void testRetriggerReplacesLaunch() {
+    expectLaunch();
+
+    control.replay();
+
+    defer(TASK_A);
+    defer(TASK_B);
+    assertPending(1);
+
+    // The replaced launch no longer waits on its ancestors.
+    changeState(TASK_A, KILLING, KILLED);
+    assertPending(1);
+
+    changeState(TASK_B, KILLING, KILLED);
+    assertPending(0);
+  }
+}
@@ -0,0 +1,236 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.cron.quartz;
+
+import java.util.TimeZone;
+import java.util.concurrent.ScheduledExecutorService;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.testing.easymock.EasyMockTest;
+import org.apache.aurora.scheduler.base.JobKeys;
+import org.apache.aurora.scheduler.cron.CronException;
+import org.apache.aurora.scheduler.cron.CrontabEntry;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
+import org.apache.aurora.scheduler.testing.FakeScheduledExecutor;
+import org.apache.aurora.scheduler.testing.FakeStatsProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.apache.aurora.scheduler.cron.quartz.IndexedCronEngine.OVERLAPPING_TRIGGERS_STAT;
+import static org.apache.aurora.scheduler.cron.quartz.IndexedCronEngine.SCHEDULED_JOBS_STAT;
+import static org.apache.aurora.scheduler.cron.quartz.IndexedCronEngine.TRIGGER_BATCHES_STAT;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.junit.Assert.assertEquals;
+
+public class IndexedCronEngineTest extends EasyMockTest {
+  private static final IJobKey JOB_A = QuartzTestUtil.AURORA_JOB_KEY;
+  private static final IJobKey JOB_B = JobKeys.from("role", "env", "b");
+  private static final IJobKey JOB_C = JobKeys.from("role", "env", "c");
+  private static final CrontabEntry EVERY_MINUTE = CrontabEntry.parse("* * * * *");
+  private static final CrontabEntry HOURLY = CrontabEntry.parse("0 * * * *");
+  private static final Amount<Long, Time> ONE_MINUTE = Amount.of(1L, Time.MINUTES);
+
+  private AuroraCronJob cronJob;
+  private ScheduledExecutorService timer;
+  private FakeScheduledExecutor clock;
+  private FakeStatsProvider statsProvider;
+  private IndexedCronEngine engine;
+
+  @Before
+  public void setUp() {
+    cronJob = createMock(AuroraCronJob.class);
+    timer = createMock(ScheduledExecutorService.class);
+    clock = FakeScheduledExecutor.scheduleExecutor(timer);
+    statsProvider = new FakeStatsProvider();
+    engine = new IndexedCronEngine(
+        cronJob,
+        timer,
+        MoreExecutors.newDirectExecutorService(),
+        clock,
+        TimeZone.getTimeZone("GMT"),
+        new IndexedCronEngine.Settings(2),
+        statsProvider);
+  }
+
+  @Test
+  public void testFiresOnSchedule() throws Exception {
+    cronJob.doExecute(JOB_A);
+    expectLastCall().times(2);
+
+    control.replay();
+
+    engine.schedule(JOB_A, EVERY_MINUTE);
+    engine.start();
+    assertEquals(Optional.of(60000L), engine.getNextFireTime(JOB_A));
+
+    clock.advance(ONE_MINUTE);
+    assertEquals(Optional.of(120000L), engine.getNextFireTime(JOB_A));
+
+    clock.advance(ONE_MINUTE);
+    assertEquals(Optional.of(180000L), engine.getNextFireTime(JOB_A));
+  }
+
+  @Test
+  public void testDoesNotFireBeforeStart() throws Exception {
+    cronJob.doExecute(JOB_A);
+
+    control.replay();
+
+    engine.schedule(JOB_A, EVERY_MINUTE);
+    clock.advance(Amount.of(90L, Time.SECONDS));
+
+    engine.start();
+    clock.advance(Amount.of(30L, Time.SECONDS));
+  }
+
+  @Test
+  public void testMissedFireTimesCoalesce() throws Exception {
+    cronJob.doExecute(JOB_A);
+
+    control.replay();
+
+    engine.schedule(JOB_A, EVERY_MINUTE);
+    engine.start();
+    clock.advance(Amount.of(5L, Time.MINUTES));
+    assertEquals(Optional.of(360000L), engine.getNextFireTime(JOB_A));
+  }
+
+  @Test
+  public void testEarlierJobReschedulesWakeup() throws Exception {
+    cronJob.doExecute(JOB_B);
+
+    control.replay();
+
+    engine.start();
+    engine.schedule(JOB_A, HOURLY);
+    engine.schedule(JOB_B, EVERY_MINUTE);
+    engine.deschedule(JOB_B);
+    engine.schedule(JOB_B, EVERY_MINUTE);
+    clock.advance(ONE_MINUTE);
+  }
+
+  @Test
+  public void testDueJobsFiredInBatches() throws Exception {
+    cronJob.doExecute(JOB_A);
+    cronJob.doExecute(JOB_B);
+    cronJob.doExecute(JOB_C);
+
+    control.replay();
+
+    engine.schedule(JOB_A, EVERY_MINUTE);
+    engine.schedule(JOB_B, EVERY_MINUTE);
+    engine.schedule(JOB_C, EVERY_MINUTE);
+    engine.start();
+    clock.advance(ONE_MINUTE);
+    assertEquals(2L, statsProvider.getLongValue(TRIGGER_BATCHES_STAT));
+  }
+
+  @Test
+  public void testDeschedule() throws Exception {
+    control.replay();
+
+    engine.schedule(JOB_A, EVERY_MINUTE);
+    engine.start();
+    assertEquals(1L, statsProvider.getLongValue(SCHEDULED_JOBS_STAT));
+
+    engine.deschedule(JOB_A);
+    assertEquals(0L, statsProvider.getLongValue(SCHEDULED_JOBS_STAT));
+    assertEquals(Optional.absent(), engine.getSchedule(JOB_A));
+    clock.advance(ONE_MINUTE);
+  }
+
+  @Test(expected = CronException.class)
+  public void testScheduleTwiceFails() throws Exception {
+    control.replay();
+
+    engine.schedule(JOB_A, EVERY_MINUTE);
+    engine.schedule(JOB_A, HOURLY);
+  }
+
+  @Test
+  public void testTrigger() throws Exception {
+    cronJob.doExecute(JOB_A);
+
+    control.replay();
+
+    engine.schedule(JOB_A, HOURLY);
+    engine.trigger(JOB_A);
+  }
+
+  @Test(expected = CronException.class)
+  public void testTriggerUnscheduledFails() throws Exception {
+    control.replay();
+
+    engine.trigger(JOB_A);
+  }
+
+  @Test
+  public void testOverlappingTriggerExecutedAfterActiveExecution() throws Exception {
+    cronJob.doExecute(JOB_A);
+    expectLastCall().andAnswer(() -> {
+      engine.trigger(JOB_A);
+      engine.trigger(JOB_A);
+      return null;
+    });
+    cronJob.doExecute(JOB_A);
+
+    control.replay();
+
+    engine.schedule(JOB_A, HOURLY);
+    engine.trigger(JOB_A);
+    assertEquals(2L, statsProvider.getLongValue(OVERLAPPING_TRIGGERS_STAT));
+  }
+
+  @Test
+  public void testFailedExecutionDoesNotBlockJob() throws Exception {
+    cronJob.doExecute(JOB_A);
+    expectLastCall().andThrow(new IllegalStateException());
+    cronJob.doExecute(JOB_A);
+
+    control.replay();
+
+    engine.schedule(JOB_A, HOURLY);
+    engine.trigger(JOB_A);
+    engine.trigger(JOB_A);
+  }
+
+  @Test
+  public void testGetScheduledJobs() throws Exception {
+    control.replay();
+
+    engine.schedule(JOB_A, EVERY_MINUTE);
+    engine.schedule(JOB_B, HOURLY);
+    assertEquals(ImmutableMap.of(JOB_A, EVERY_MINUTE, JOB_B, HOURLY), engine.getScheduledJobs());
+    assertEquals(Optional.of(HOURLY), engine.getSchedule(JOB_B));
+  }
+
+  @Test
+  public void testStop() throws Exception {
+    expect(timer.shutdownNow()).andReturn(ImmutableList.of());
+
+    control.replay();
+
+    engine.schedule(JOB_A, EVERY_MINUTE);
+    engine.start();
+    engine.stop();
+    clock.advance(ONE_MINUTE);
+  }
+}
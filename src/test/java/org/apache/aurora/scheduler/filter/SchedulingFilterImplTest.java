@@ -62,6 +62,7 @@ import static org.apache.aurora.scheduler.resources.ResourceType.DISK_MB;
 import static org.apache.aurora.scheduler.resources.ResourceType.PORTS;
 import static org.apache.aurora.scheduler.resources.ResourceType.RAM_MB;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 public class SchedulingFilterImplTest extends EasyMockTest {
   private static final String HOST_A = "hostA";
@@ -269,6 +270,70 @@ public class SchedulingFilterImplTest extends EasyMockTest {
         Veto.constraintMismatch(DEDICATED_ATTRIBUTE));
   }
 
+  @Test
+  public void testValueConstraintsEvaluatedBeforeLimits() {
+    control.replay();
+
+    // The limit is exceeded on the host, but the value mismatch is reported first.
+    AttributeAggregate jobState = AttributeAggregate.create(
+        Suppliers.ofInstance(ImmutableList.of(host(HOST_A))));
+    assertVetoes(
+        makeTask(JOB_A, limitConstraint("host", 1), makeConstraint("rack", RACK_B)),
+        hostAttributes(HOST_A, host(HOST_A), rack(RACK_A)),
+        jobState,
+        Veto.constraintMismatch("rack"));
+  }
+
+  @Test
+  public void testRequestMatchedAgainstManyHosts() {
+    control.replay();
+
+    ITaskConfig task = makeTask(JOB_A, makeConstraint("rack", RACK_A), limitConstraint("host", 1));
+    ResourceRequest request = new ResourceRequest(task, bag(task), EMPTY);
+    IHostAttributes hostA = hostAttributes(HOST_A, host(HOST_A), rack(RACK_A));
+    IHostAttributes hostB = hostAttributes(HOST_B, host(HOST_B), rack(RACK_B));
+    IHostAttributes hostC = hostAttributes(HOST_C, rack(RACK_A));
+
+    assertEquals(
+        ImmutableSet.of(),
+        defaultFilter.filter(
+            new UnusedResource(
+                DEFAULT_OFFER,
+                hostA,
+                ConstraintEvaluator.indexAttributes(hostA)),
+            request));
+    assertEquals(
+        ImmutableSet.of(Veto.constraintMismatch("rack")),
+        defaultFilter.filter(new UnusedResource(DEFAULT_OFFER, hostB), request));
+    assertEquals(
+        ImmutableSet.of(Veto.constraintMismatch("host")),
+        defaultFilter.filter(new UnusedResource(DEFAULT_OFFER, hostC), request));
+    assertSame(request.getConstraintEvaluator(), request.getConstraintEvaluator());
+    assertSame(
+        request.getConstraintEvaluator(),
+        new ResourceRequest(task, bag(task), EMPTY).getConstraintEvaluator());
+  }
+
+  @Test
+  public void testAttributesWithoutValues() {
+    control.replay();
+
+    IAttribute noDedicatedValues =
+        IAttribute.build(new Attribute(DEDICATED_ATTRIBUTE, ImmutableSet.of()));
+    IAttribute noHostValues = IAttribute.build(new Attribute(HOST_ATTRIBUTE, ImmutableSet.of()));
+
+    // The presence of the attribute alone makes a host dedicated, and satisfies a limit.
+    assertVetoes(
+        makeTask(JOB_A),
+        hostAttributes(HOST_A, noDedicatedValues),
+        Veto.dedicatedHostConstraintMismatch());
+    assertNoVetoes(hostLimitTask(1), hostAttributes(HOST_A, noHostValues));
+    assertVetoes(
+        makeTask(JOB_A, makeConstraint(HOST_ATTRIBUTE, HOST_A)),
+        hostAttributes(HOST_A, noHostValues),
+        Veto.constraintMismatch(HOST_ATTRIBUTE));
+  }
+
   @Test
   public void testUnderLimitNoTasks() {
     control.replay();
@@ -43,6 +43,8 @@ import org.apache.aurora.common.testing.easymock.EasyMockTest;
 import org.apache.aurora.common.thrift.Endpoint;
 import org.apache.aurora.common.thrift.ServiceInstance;
 import org.apache.aurora.common.util.BackoffStrategy;
+import org.apache.aurora.common.util.Clock;
+import org.apache.aurora.common.util.testing.FakeClock;
 import org.apache.aurora.gen.ServerInfo;
 import org.apache.aurora.scheduler.AppStartup;
 import org.apache.aurora.scheduler.SchedulerServicesModule;
@@ -111,6 +113,7 @@ public abstract class AbstractJettyTest extends EasyMockTest {
           @Override
           protected void configure() {
             bind(StatsProvider.class).toInstance(new FakeStatsProvider());
+            bind(Clock.class).toInstance(new FakeClock());
             bind(Storage.class).toInstance(storage.storage);
             bind(IServerInfo.class).toInstance(IServerInfo.build(new ServerInfo()
                 .setClusterName("unittest")
@@ -119,7 +122,9 @@ public abstract class AbstractJettyTest extends EasyMockTest {
                 new TaskGroupsSettings(
                     Amount.of(1L, Time.MILLISECONDS),
                     bindMock(BackoffStrategy.class),
-                    RateLimiter.create(1000)));
+                    RateLimiter.create(1000),
+                    20,
+                    1));
             bind(ServiceGroupMonitor.class).toInstance(serviceGroupMonitor);
             bindMock(CronJobManager.class);
             bindMock(LockManager.class);
@@ -0,0 +1,259 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.log.local;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Data;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.scheduler.log.Log.Entry;
+import org.apache.aurora.scheduler.log.Log.Position;
+import org.apache.aurora.scheduler.log.Log.Stream;
+import org.apache.aurora.scheduler.log.Log.Stream.InvalidPositionException;
+import org.apache.aurora.scheduler.log.local.SegmentedLog.Settings;
+import org.apache.aurora.scheduler.log.local.SegmentedLog.SyncPolicy;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SegmentedLogTest {
+
+  // Each record is an 8 byte header plus contents, so two 3 byte records fill a segment.
+  private static final Settings SETTINGS = new Settings(
+      Amount.of(22, Data.BYTES),
+      SyncPolicy.ALWAYS,
+      Amount.of(1L, Time.SECONDS));
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File directory;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = temporaryFolder.newFolder("log");
+  }
+
+  private Stream open() throws IOException {
+    return new SegmentedLog(directory, SETTINGS).open();
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static List<String> read(Stream stream) {
+    List<String> entries = Lists.newArrayList();
+    stream.readAll().forEachRemaining(
+        entry -> entries.add(new String(entry.contents(), StandardCharsets.UTF_8)));
+    return entries;
+  }
+
+  private int segmentCount() {
+    return directory.listFiles((dir, name) -> name.endsWith(".log")).length;
+  }
+
+  @Test
+  public void testAppendAndRead() throws Exception {
+    Stream stream = open();
+    Position a = stream.append(bytes("a"));
+    Position b = stream.append(bytes("b"));
+    assertTrue(a.compareTo(b) < 0);
+    assertEquals(ImmutableList.of("a", "b"), read(stream));
+  }
+
+  @Test
+  public void testOpenIsIdempotent() throws Exception {
+    SegmentedLog log = new SegmentedLog(directory, SETTINGS);
+    assertSame(log.open(), log.open());
+  }
+
+  @Test
+  public void testReadSnapshot() throws Exception {
+    Stream stream = open();
+    stream.append(bytes("a"));
+    Iterator<Entry> entries = stream.readAll();
+    stream.append(bytes("b"));
+    assertEquals("a", new String(entries.next().contents(), StandardCharsets.UTF_8));
+    assertFalse(entries.hasNext());
+  }
+
+  @Test
+  public void testRecoverAfterReopen() throws Exception {
+    Stream stream = open();
+    stream.append(bytes("abc"));
+    stream.append(bytes("def"));
+    stream.append(bytes("ghi"));
+    assertEquals(2, segmentCount());
+
+    Stream reopened = open();
+    assertEquals(ImmutableList.of("abc", "def", "ghi"), read(reopened));
+    reopened.append(bytes("jkl"));
+    assertEquals(ImmutableList.of("abc", "def", "ghi", "jkl"), read(reopened));
+  }
+
+  @Test
+  public void testTruncate() throws Exception {
+    Stream stream = open();
+    stream.append(bytes("abc"));
+    stream.append(bytes("def"));
+    Position third = stream.append(bytes("ghi"));
+    Position fourth = stream.append(bytes("jkl"));
+    stream.append(bytes("mno"));
+    assertEquals(3, segmentCount());
+
+    // The segment holding the position is retained, but its preceding record is not read.
+    stream.truncateBefore(fourth);
+    assertEquals(2, segmentCount());
+    assertEquals(ImmutableList.of("jkl", "mno"), read(stream));
+
+    // Truncating before an earlier position has no effect.
+    stream.truncateBefore(third);
+    assertEquals(ImmutableList.of("jkl", "mno"), read(stream));
+    assertEquals(ImmutableList.of("jkl", "mno"), read(open()));
+  }
+
+  @Test
+  public void testTruncateWithinSegmentSurvivesReopen() throws Exception {
+    SegmentedLog log = new SegmentedLog(directory, SETTINGS);
+    Stream stream = log.open();
+    Position first = stream.append(bytes("a"));
+    Position second = stream.append(bytes("b"));
+    stream.append(bytes("c"));
+
+    // The first two records share a segment.
+    stream.truncateBefore(second);
+    assertEquals(2, segmentCount());
+    assertEquals(ImmutableList.of("b", "c"), read(stream));
+    log.close();
+
+    Stream reopened = log.open();
+    assertEquals(ImmutableList.of("b", "c"), read(reopened));
+    assertEquals(2, ImmutableList.copyOf(reopened.readAfter(Optional.of(first))).size());
+    log.close();
+  }
+
+  @Test
+  public void testCloseAndReopen() throws Exception {
+    SegmentedLog log = new SegmentedLog(
+        directory,
+        new Settings(Amount.of(22, Data.BYTES), SyncPolicy.INTERVAL, Amount.of(1L, Time.HOURS)));
+    log.open().append(bytes("a"));
+    log.close();
+    assertEquals(ImmutableList.of("a"), read(log.open()));
+    log.close();
+  }
+
+  @Test
+  public void testTruncateNeverRemovesActiveSegment() throws Exception {
+    Stream stream = open();
+    stream.append(bytes("abc"));
+    stream.append(bytes("def"));
+    Position last = stream.append(bytes("ghi"));
+    stream.truncateBefore(last);
+    assertEquals(1, segmentCount());
+    assertEquals(ImmutableList.of("ghi"), read(stream));
+  }
+
+  @Test
+  public void testReadAfter() throws Exception {
+    Stream stream = open();
+    stream.append(bytes("abc"));
+    Position second = stream.append(bytes("def"));
+    Position third = stream.append(bytes("ghi"));
+
+    List<Entry> entries = ImmutableList.copyOf(stream.readAfter(Optional.of(second)));
+    assertEquals(1, entries.size());
+    assertEquals("ghi", new String(entries.get(0).contents(), StandardCharsets.UTF_8));
+    assertEquals(third, entries.get(0).position());
+
+    assertEquals(3, ImmutableList.copyOf(stream.readAfter(Optional.absent())).size());
+    assertFalse(stream.readAfter(Optional.of(third)).hasNext());
+  }
+
+  @Test(expected = InvalidPositionException.class)
+  public void testReadAfterTruncated() throws Exception {
+    Stream stream = open();
+    Position first = stream.append(bytes("abc"));
+    stream.append(bytes("def"));
+    stream.append(bytes("ghi"));
+    Position fourth = stream.append(bytes("jkl"));
+    stream.append(bytes("mno"));
+    stream.truncateBefore(fourth);
+
+    stream.readAfter(Optional.of(first));
+  }
+
+  @Test(expected = InvalidPositionException.class)
+  public void testTruncateForeignPosition() throws Exception {
+    open().truncateBefore(o -> 0);
+  }
+
+  @Test(expected = InvalidPositionException.class)
+  public void testTruncateBeyondEnd() throws Exception {
+    open().truncateBefore(new SegmentedLog.LocalPosition(5));
+  }
+
+  @Test
+  public void testTornTailDiscarded() throws Exception {
+    Stream stream = open();
+    stream.append(bytes("a"));
+    stream.append(bytes("b"));
+
+    File segment = directory.listFiles()[0];
+    try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+      // Simulate a crash in the middle of writing the second record.
+      file.setLength(file.length() - 1);
+    }
+
+    Stream reopened = open();
+    assertEquals(ImmutableList.of("a"), read(reopened));
+    reopened.append(bytes("c"));
+    assertEquals(ImmutableList.of("a", "c"), read(open()));
+  }
+
+  @Test(expected = IOException.class)
+  public void testCorruptRecordInSealedSegment() throws Exception {
+    Stream stream = open();
+    stream.append(bytes("abc"));
+    stream.append(bytes("def"));
+    stream.append(bytes("ghi"));
+
+    File[] segments = directory.listFiles();
+    Arrays.sort(segments);
+    try (RandomAccessFile file = new RandomAccessFile(segments[0], "rw")) {
+      file.seek(8);
+      file.write('x');
+    }
+
+    open();
+  }
+}
@@ -13,14 +13,19 @@
  */
 package org.apache.aurora.scheduler.log.mesos;
 
+import java.io.Closeable;
 import java.lang.reflect.Constructor;
 import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.concurrent.TimeoutException;
 
+import com.google.common.base.Optional;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
@@ -33,6 +38,7 @@ import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.common.testing.easymock.EasyMockTest;
 import org.apache.aurora.scheduler.log.Log.Entry;
+import org.apache.aurora.scheduler.log.Log.Stream.InvalidPositionException;
 import org.apache.aurora.scheduler.log.Log.Stream.StreamAccessException;
 import org.apache.aurora.scheduler.log.mesos.LogInterface.ReaderInterface;
 import org.apache.aurora.scheduler.log.mesos.LogInterface.WriterInterface;
@@ -46,6 +52,7 @@ import static org.apache.aurora.scheduler.log.mesos.MesosLog.LogStream.LogPositi
 import static org.apache.mesos.Log.Position;
 import static org.easymock.EasyMock.expect;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.fail;
 
 public class MesosLogTest extends EasyMockTest {
@@ -74,6 +81,8 @@ public class MesosLogTest extends EasyMockTest {
         bind(ReaderInterface.class).toInstance(logReader);
         bind(new TypeLiteral<Amount<Long, Time>>() { }).annotatedWith(MesosLog.ReadTimeout.class)
             .toInstance(READ_TIMEOUT);
+        bind(Integer.class).annotatedWith(MesosLog.ReadBatchSize.class).toInstance(1);
+        bind(Integer.class).annotatedWith(MesosLog.ReadAheadEntries.class).toInstance(2);
         bind(WriterInterface.class).toInstance(logWriter);
         bind(new TypeLiteral<Amount<Long, Time>>() { }).annotatedWith(MesosLog.WriteTimeout.class)
             .toInstance(WRITE_TIMEOUT);
@@ -210,6 +219,130 @@ public class MesosLogTest extends EasyMockTest {
 
   }
 
+  @Test
+  public void testBatchedLogRead() throws Exception {
+    Position beginning = makePosition(1);
+    Position second = makePosition(2);
+    Position third = makePosition(3);
+    Position fourth = makePosition(4);
+    Position end = expectWrite(DUMMY_CONTENT, 5);
+    expectDiscoverEntryRange(beginning, end);
+    expectSetPosition(beginning);
+    expectSetPosition(second);
+    expect(logReader.read(
+        beginning,
+        second,
+        READ_TIMEOUT.getValue(),
+        READ_TIMEOUT.getUnit().getTimeUnit()))
+        .andReturn(ImmutableList.of(makeEntry(beginning, "a"), makeEntry(second, "b")));
+    expectSetPosition(third);
+    expectSetPosition(fourth);
+    // Non-append positions are omitted from the results of a read.
+    expect(logReader.read(
+        third,
+        fourth,
+        READ_TIMEOUT.getValue(),
+        READ_TIMEOUT.getUnit().getTimeUnit()))
+        .andReturn(ImmutableList.of(makeEntry(fourth, "d")));
+    expectSetPosition(end);
+    expect(logReader.read(
+        end,
+        end,
+        READ_TIMEOUT.getValue(),
+        READ_TIMEOUT.getUnit().getTimeUnit()))
+        .andReturn(ImmutableList.of(makeEntry(end, DUMMY_CONTENT)));
+
+    control.replay();
+
+    logStream = new MesosLog(
+        () -> backingLog,
+        () -> logReader,
+        READ_TIMEOUT,
+        2,
+        1,
+        () -> logWriter,
+        WRITE_TIMEOUT,
+        DUMMY_CONTENT.getBytes(StandardCharsets.UTF_8),
+        new Lifecycle(shutdownHooks))
+        .open();
+    assertEquals(ImmutableList.of("a", "b", "d", DUMMY_CONTENT), readAll());
+  }
+
+  @Test
+  public void testCloseStopsReadAhead() throws Exception {
+    Position beginning = makePosition(1);
+    Position end = expectWrite(DUMMY_CONTENT, 5);
+    expectDiscoverEntryRange(beginning, end);
+    expectRead(beginning, "a");
+    // The prefetch thread may read some of the remaining entries before the iterator is closed.
+    for (long i = 2; i <= 5; i++) {
+      Position position = makePosition(i);
+      expect(backingLog.position(EasyMock.aryEq(position.identity())))
+          .andReturn(position)
+          .times(0, 1);
+      expect(logReader.read(
+          position,
+          position,
+          READ_TIMEOUT.getValue(),
+          READ_TIMEOUT.getUnit().getTimeUnit()))
+          .andReturn(ImmutableList.of(makeEntry(position, "b")))
+          .times(0, 1);
+    }
+
+    control.replay();
+
+    logStream = new MesosLog(
+        () -> backingLog,
+        () -> logReader,
+        READ_TIMEOUT,
+        1,
+        1,
+        () -> logWriter,
+        WRITE_TIMEOUT,
+        DUMMY_CONTENT.getBytes(StandardCharsets.UTF_8),
+        new Lifecycle(shutdownHooks))
+        .open();
+    Set<Thread> existingThreads = ImmutableSet.copyOf(Thread.getAllStackTraces().keySet());
+    Iterator<Entry> entries = logStream.readAll();
+    assertEquals("a", new String(entries.next().contents(), StandardCharsets.UTF_8));
+
+    ((Closeable) entries).close();
+    assertFalse(entries.hasNext());
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      if (!existingThreads.contains(thread) && thread.getName().equals("MesosLogReadAhead")) {
+        thread.join(READ_TIMEOUT.as(Time.MILLISECONDS));
+        assertFalse(thread.isAlive());
+      }
+    }
+  }
+
+  @Test
+  public void testReadAfterDoesNotAppend() throws Exception {
+    Position beginning = makePosition(1);
+    Position middle = makePosition(2);
+    Position end = makePosition(3);
+    expectDiscoverEntryRange(beginning, end);
+    expectRead(middle, "b");
+    expectRead(end, "c");
+
+    control.replay();
+
+    List<Entry> entries =
+        ImmutableList.copyOf(logStream.readAfter(Optional.of(new LogPosition(beginning))));
+    assertEquals(2, entries.size());
+    assertEquals("b", new String(entries.get(0).contents(), StandardCharsets.UTF_8));
+    assertEquals(0, new LogPosition(end).compareTo(entries.get(1).position()));
+  }
+
+  @Test(expected = InvalidPositionException.class)
+  public void testReadAfterTruncatedPosition() throws Exception {
+    expect(logReader.beginning()).andReturn(makePosition(5));
+
+    control.replay();
+
+    logStream.readAfter(Optional.of(new LogPosition(makePosition(2))));
+  }
+
   @Test(expected = StreamAccessException.class)
   public void testInitialAppendFails() throws Exception {
     expectWrite(DUMMY_CONTENT).andThrow(new Log.WriterFailedException("injected"));
@@ -14,6 +14,7 @@
 package org.apache.aurora.scheduler.offers;
 
 import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 
@@ -44,6 +45,7 @@ import static org.apache.aurora.gen.MaintenanceMode.DRAINING;
 import static org.apache.aurora.gen.MaintenanceMode.NONE;
 import static org.easymock.EasyMock.expectLastCall;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class OfferManagerImplTest extends EasyMockTest {
@@ -85,7 +87,7 @@ public class OfferManagerImplTest extends EasyMockTest {
     OfferSettings offerSettings = new OfferSettings(
         Amount.of(OFFER_FILTER_SECONDS, Time.SECONDS),
         () -> RETURN_DELAY);
-    offerManager = new OfferManagerImpl(driver, offerSettings, executorMock);
+    offerManager = new OfferManagerImpl(driver, offerSettings, executorMock, clock);
   }
 
   @Test
@@ -95,7 +97,7 @@ public class OfferManagerImplTest extends EasyMockTest {
     HostOffer offerA = setMode(OFFER_A, DRAINING);
     HostOffer offerC = setMode(OFFER_C, DRAINING);
 
-    driver.launchTask(OFFER_B.getOffer().getId(), TASK_INFO, OFFER_FILTER);
+    driver.launchTasks(OFFER_B.getOffer().getId(), ImmutableList.of(TASK_INFO), OFFER_FILTER);
 
     driver.declineOffer(OFFER_A_ID, OFFER_FILTER);
     driver.declineOffer(offerC.getOffer().getId(), OFFER_FILTER);
@@ -108,7 +110,8 @@ public class OfferManagerImplTest extends EasyMockTest {
     assertEquals(
         ImmutableSet.of(OFFER_B, offerA, offerC),
         ImmutableSet.copyOf(offerManager.getOffers()));
-    offerManager.launchTask(OFFER_B.getOffer().getId(), TASK_INFO);
+    assertTrue(offerManager.claimOffer(OFFER_B.getOffer().getId()));
+    offerManager.launchTasks(OFFER_B.getOffer().getId(), ImmutableList.of(TASK_INFO));
     clock.advance(RETURN_DELAY);
   }
 
@@ -237,7 +240,7 @@ public class OfferManagerImplTest extends EasyMockTest {
 
   @Test(expected = OfferManager.LaunchException.class)
   public void testLaunchTaskDriverThrows() throws OfferManager.LaunchException {
-    driver.launchTask(OFFER_A_ID, TASK_INFO, OFFER_FILTER);
+    driver.launchTasks(OFFER_A_ID, ImmutableList.of(TASK_INFO), OFFER_FILTER);
     expectLastCall().andThrow(new IllegalStateException());
 
     control.replay();
@@ -245,16 +248,85 @@ public class OfferManagerImplTest extends EasyMockTest {
     offerManager.addOffer(OFFER_A);
 
     try {
-      offerManager.launchTask(OFFER_A_ID, TASK_INFO);
+      assertTrue(offerManager.claimOffer(OFFER_A_ID));
+      offerManager.launchTasks(OFFER_A_ID, ImmutableList.of(TASK_INFO));
     } finally {
       clock.advance(RETURN_DELAY);
     }
   }
 
-  @Test(expected = OfferManager.LaunchException.class)
-  public void testLaunchTaskOfferRaceThrows() throws OfferManager.LaunchException {
+  @Test
+  public void testClaimOfferRace() {
+    control.replay();
+    assertFalse(offerManager.claimOffer(OFFER_A_ID));
+  }
+
+  @Test
+  public void testClaimedOfferNotDeclined() {
+    control.replay();
+
+    offerManager.addOffer(OFFER_A);
+    assertTrue(offerManager.claimOffer(OFFER_A_ID));
+    assertEquals(ImmutableSet.of(), ImmutableSet.copyOf(offerManager.getOffers()));
+    assertFalse(offerManager.claimOffer(OFFER_A_ID));
+    clock.advance(RETURN_DELAY);
+  }
+
+  @Test
+  public void testPackedOfferNotDeclined() throws Exception {
+    HostOffer remainder = new HostOffer(
+        OFFER_A.getOffer().toBuilder().clearResources().build(),
+        HOST_ATTRIBUTES_A);
+    driver.launchTasks(OFFER_A_ID, ImmutableList.of(TASK_INFO, TASK_INFO), OFFER_FILTER);
+
     control.replay();
-    offerManager.launchTask(OFFER_A_ID, TASK_INFO);
+
+    offerManager.addOffer(OFFER_A);
+    assertTrue(offerManager.claimOffer(OFFER_A_ID));
+    offerManager.addPackedOffer(remainder);
+    assertEquals(ImmutableSet.of(remainder), ImmutableSet.copyOf(offerManager.getOffers()));
+
+    // The remainder is held past the return delay, until the packed tasks are launched.
+    clock.advance(RETURN_DELAY);
+    assertEquals(ImmutableSet.of(remainder), ImmutableSet.copyOf(offerManager.getOffers()));
+    offerManager.cancelOffer(OFFER_A_ID);
+    assertEquals(ImmutableSet.of(), ImmutableSet.copyOf(offerManager.getOffers()));
+    offerManager.launchTasks(OFFER_A_ID, ImmutableList.of(TASK_INFO, TASK_INFO));
+  }
+
+  @Test
+  public void testReleasedOfferDeclinedAfterReturnDelay() throws Exception {
+    driver.declineOffer(OFFER_A_ID, OFFER_FILTER);
+
+    control.replay();
+
+    offerManager.addOffer(OFFER_A);
+    assertTrue(offerManager.claimOffer(OFFER_A_ID));
+    clock.advance(RETURN_DELAY);
+    offerManager.releaseOffer(OFFER_A);
+    assertEquals(ImmutableSet.of(OFFER_A), ImmutableSet.copyOf(offerManager.getOffers()));
+
+    // The return delay restarts when an offer is released after it elapsed.
+    clock.advance(RETURN_DELAY);
+    assertEquals(ImmutableSet.of(), ImmutableSet.copyOf(offerManager.getOffers()));
+  }
+
+  @Test
+  public void testReleasedPackedOfferStaysPacked() throws Exception {
+    HostOffer remainder = new HostOffer(
+        OFFER_A.getOffer().toBuilder().clearResources().build(),
+        HOST_ATTRIBUTES_A);
+
+    control.replay();
+
+    offerManager.addOffer(OFFER_A);
+    assertTrue(offerManager.claimOffer(OFFER_A_ID));
+    offerManager.addPackedOffer(remainder);
+    assertTrue(offerManager.claimOffer(OFFER_A_ID));
+    offerManager.releaseOffer(remainder);
+
+    clock.advance(RETURN_DELAY);
+    assertEquals(ImmutableSet.of(remainder), ImmutableSet.copyOf(offerManager.getOffers()));
   }
 
   @Test
@@ -31,7 +31,11 @@ import static org.junit.Assert.assertEquals;
 
 public class BiCacheTest {
   private static final Amount<Long, Time> HOLD_DURATION = Amount.of(1L, Time.MINUTES);
-  private static final String STAT_NAME = "cache_size_stat";
+  private static final String STAT_PREFIX = "cache";
+  private static final String STAT_NAME = STAT_PREFIX + "_size";
+  private static final String HITS_STAT_NAME = STAT_PREFIX + "_hits";
+  private static final String MISSES_STAT_NAME = STAT_PREFIX + "_misses";
+  private static final String EXPIRATIONS_STAT_NAME = STAT_PREFIX + "_expirations";
   private static final String KEY_1 = "Key 1";
   private static final String KEY_2 = "Key 2";
   private static final Optional<Integer> NO_VALUE = Optional.absent();
@@ -44,7 +48,7 @@ public class BiCacheTest {
   public void setUp() {
     statsProvider = new FakeStatsProvider();
     clock = new FakeClock();
-    biCache = new BiCache<>(statsProvider, new BiCacheSettings(HOLD_DURATION, STAT_NAME), clock);
+    biCache = new BiCache<>(statsProvider, new BiCacheSettings(HOLD_DURATION, STAT_PREFIX), clock);
   }
 
   @Test
@@ -114,8 +118,88 @@ public class BiCacheTest {
     biCache.put(KEY_1, 1);
     assertEquals(Optional.of(1), biCache.get(KEY_1));
     Map<String, Integer> map = biCache.asMap();
+    assertEquals(ImmutableMap.of(KEY_1, 1), map);
 
     biCache.put(KEY_1, 2);
-    assertEquals(ImmutableMap.of(KEY_1, 1), map);
+    biCache.put(KEY_2, 3);
+    assertEquals(ImmutableMap.of(KEY_1, 2, KEY_2, 3), map);
+
+    clock.advance(HOLD_DURATION);
+    assertEquals(ImmutableMap.of(), map);
+    assertEquals(null, map.get(KEY_1));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testAsMapReadOnly() {
+    biCache.asMap().put(KEY_1, 1);
+  }
+
+  @Test
+  public void testStats() {
+    biCache.put(KEY_1, 1);
+    assertEquals(Optional.of(1), biCache.get(KEY_1));
+    assertEquals(ImmutableSet.of(KEY_1), biCache.getByValue(1));
+    assertEquals(NO_VALUE, biCache.get(KEY_2));
+    assertEquals(ImmutableSet.of(), biCache.getByValue(2));
+    assertEquals(2L, statsProvider.getLongValue(HITS_STAT_NAME));
+    assertEquals(2L, statsProvider.getLongValue(MISSES_STAT_NAME));
+
+    clock.advance(HOLD_DURATION);
+    assertEquals(0L, statsProvider.getLongValue(STAT_NAME));
+    assertEquals(1L, statsProvider.getLongValue(EXPIRATIONS_STAT_NAME));
+  }
+
+  @Test
+  public void testAsMapLookupsCounted() {
+    biCache.put(KEY_1, 1);
+    Map<String, Integer> map = biCache.asMap();
+    assertEquals(Integer.valueOf(1), map.get(KEY_1));
+    assertEquals(null, map.get(KEY_2));
+    assertEquals(1L, statsProvider.getLongValue(HITS_STAT_NAME));
+    assertEquals(1L, statsProvider.getLongValue(MISSES_STAT_NAME));
+  }
+
+  @Test
+  public void testSizeExcludesExpiredEntries() {
+    clock.advance(Amount.of(500L, Time.MILLISECONDS));
+    biCache.put(KEY_1, 1);
+
+    // The wheel reaches the tick the entry expires in shortly before the entry expires.
+    clock.advance(Amount.of(59600L, Time.MILLISECONDS));
+    assertEquals(Optional.of(1), biCache.get(KEY_1));
+
+    // Once expired, the entry is not counted even though it is only purged on the next tick.
+    clock.advance(Amount.of(500L, Time.MILLISECONDS));
+    assertEquals(0L, statsProvider.getLongValue(STAT_NAME));
+    assertEquals(0L, statsProvider.getLongValue(EXPIRATIONS_STAT_NAME));
+  }
+
+  @Test
+  public void testPutAgainExtendsExpiration() {
+    biCache.put(KEY_1, 1);
+    clock.advance(Amount.of(30L, Time.SECONDS));
+    biCache.put(KEY_1, 1);
+    clock.advance(Amount.of(30L, Time.SECONDS));
+
+    assertEquals(Optional.of(1), biCache.get(KEY_1));
+    assertEquals(ImmutableSet.of(KEY_1), biCache.getByValue(1));
+    assertEquals(1L, statsProvider.getLongValue(STAT_NAME));
+    assertEquals(0L, statsProvider.getLongValue(EXPIRATIONS_STAT_NAME));
+
+    clock.advance(Amount.of(30L, Time.SECONDS));
+    assertEquals(NO_VALUE, biCache.get(KEY_1));
+    assertEquals(1L, statsProvider.getLongValue(EXPIRATIONS_STAT_NAME));
+  }
+
+  @Test
+  public void testExpirationAfterManyRotations() {
+    biCache.put(KEY_1, 1);
+    clock.advance(
+        Amount.of(HOLD_DURATION.getValue() * BiCache.WHEEL_SIZE, HOLD_DURATION.getUnit()));
+    biCache.put(KEY_2, 2);
+
+    assertEquals(ImmutableMap.of(KEY_2, 2), biCache.asMap());
+    assertEquals(1L, statsProvider.getLongValue(STAT_NAME));
+    assertEquals(1L, statsProvider.getLongValue(EXPIRATIONS_STAT_NAME));
   }
 }
@@ -13,8 +13,14 @@
  */
 package org.apache.aurora.scheduler.preemptor;
 
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Maps;
 
 import org.apache.aurora.gen.AssignedTask;
 import org.apache.aurora.gen.JobKey;
@@ -22,11 +28,13 @@ import org.apache.aurora.gen.ScheduleStatus;
 import org.apache.aurora.gen.ScheduledTask;
 import org.apache.aurora.gen.TaskConfig;
 import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.resources.ResourceType;
 import org.apache.aurora.scheduler.storage.entities.IAssignedTask;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.junit.Before;
 import org.junit.Test;
 
+import static org.apache.aurora.gen.Resource.numCpus;
 import static org.apache.aurora.gen.ScheduleStatus.ASSIGNED;
 import static org.apache.aurora.gen.ScheduleStatus.FAILED;
 import static org.apache.aurora.gen.ScheduleStatus.FINISHED;
@@ -108,12 +116,48 @@ public class ClusterStateImplTest {
     assertVictims(b, d, f);
   }
 
+  @Test
+  public void testVictimSummaries() {
+    IAssignedTask a = makeTask("a", "s1", 1, 1.0);
+    IAssignedTask b = makeTask("b", "s1", 1, 2.0);
+    IAssignedTask c = makeTask("c", "s1", 2, 4.0);
+    changeState(a, ASSIGNED);
+    changeState(a, RUNNING);
+    changeState(b, RUNNING);
+    changeState(c, RUNNING);
+    assertSummary("s1", ImmutableMap.of(1, 3.0, 2, 4.0));
+
+    changeState(a, FINISHED);
+    assertSummary("s1", ImmutableMap.of(1, 2.0, 2, 4.0));
+
+    changeState(c, KILLED);
+    assertSummary("s1", ImmutableMap.of(1, 2.0));
+
+    changeState(b, FAILED);
+    assertEquals(ImmutableMap.of(), state.getSlavesToVictimSummaries());
+  }
+
+  private void assertSummary(String slaveId, Map<Integer, Double> cpusByPriority) {
+    VictimSummary summary = state.getSlavesToVictimSummaries().get(slaveId);
+    assertEquals(
+        cpusByPriority,
+        summary.getGroups().stream().collect(Collectors.toMap(
+            group -> group.getRepresentative().getPriority(),
+            group -> group.getResources().valueOf(ResourceType.CPUS))));
+  }
+
   private void assertVictims(IAssignedTask... tasks) {
     ImmutableMultimap.Builder<String, PreemptionVictim> victims = ImmutableSetMultimap.builder();
+    Map<String, VictimSummary> summaries = Maps.newHashMap();
     for (IAssignedTask task : tasks) {
-      victims.put(task.getSlaveId(), PreemptionVictim.fromTask(task));
+      PreemptionVictim victim = PreemptionVictim.fromTask(task);
+      victims.put(task.getSlaveId(), victim);
+      summaries.put(
+          task.getSlaveId(),
+          summaries.getOrDefault(task.getSlaveId(), VictimSummary.EMPTY).add(victim));
     }
     assertEquals(victims.build(), state.getSlavesToActiveTasks());
+    assertEquals(summaries, state.getSlavesToVictimSummaries());
   }
 
   private IAssignedTask makeTask(String taskId, String slaveId) {
@@ -124,6 +168,14 @@ public class ClusterStateImplTest {
         .setTask(new TaskConfig().setJob(new JobKey("role", "env", "job"))));
   }
 
+  private IAssignedTask makeTask(String taskId, String slaveId, int priority, double cpus) {
+    return IAssignedTask.build(makeTask(taskId, slaveId).newBuilder()
+        .setTask(new TaskConfig()
+            .setJob(new JobKey("role", "env", "job"))
+            .setPriority(priority)
+            .setResources(ImmutableSet.of(numCpus(cpus)))));
+  }
+
   private void changeState(IAssignedTask assignedTask, ScheduleStatus status) {
     IScheduledTask task = IScheduledTask.build(new ScheduledTask()
         .setStatus(status)
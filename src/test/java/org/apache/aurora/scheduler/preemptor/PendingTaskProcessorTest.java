@@ -14,11 +14,13 @@
 package org.apache.aurora.scheduler.preemptor;
 
 import java.util.Arrays;
+import java.util.Map;
 
 import javax.annotation.Nullable;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Multimaps;
 
@@ -50,6 +52,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import static org.apache.aurora.gen.ScheduleStatus.PENDING;
+import static org.apache.aurora.scheduler.preemptor.PreemptorMetrics.SLAVES_PRUNED_NAME;
 import static org.apache.aurora.scheduler.preemptor.PreemptorMetrics.TASK_PROCESSOR_RUN_NAME;
 import static org.apache.aurora.scheduler.preemptor.PreemptorMetrics.attemptsStatName;
 import static org.apache.aurora.scheduler.preemptor.PreemptorMetrics.slotSearchStatName;
@@ -61,7 +64,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 public class PendingTaskProcessorTest extends EasyMockTest {
-  private static final String CACHE_STAT = "cache_size";
+  private static final String CACHE_STAT_PREFIX = "cache";
+  private static final String CACHE_STAT = CACHE_STAT_PREFIX + "_size";
   private static final String SLAVE_ID_1 = "slave_id_1";
   private static final String SLAVE_ID_2 = "slave_id_2";
   private static final IJobKey JOB_A = JobKeys.from("role_a", "env", "job_a");
@@ -92,7 +96,7 @@ public class PendingTaskProcessorTest extends EasyMockTest {
     clock = new FakeClock();
     slotCache = new BiCache<>(
         statsProvider,
-        new BiCache.BiCacheSettings(EXPIRATION, CACHE_STAT),
+        new BiCache.BiCacheSettings(EXPIRATION, CACHE_STAT_PREFIX),
         clock);
 
     slotFinder = new PendingTaskProcessor(
@@ -113,6 +117,7 @@ public class PendingTaskProcessorTest extends EasyMockTest {
     HostOffer offer1 = makeOffer(SLAVE_ID_1);
     HostOffer offer2 = makeOffer(SLAVE_ID_2);
     expectOffers(offer1, offer2);
+    expectSlotFits();
     expectSlotSearch(TASK_A.getAssignedTask().getTask(), TASK_A);
     expectSlotSearch(TASK_B.getAssignedTask().getTask(), TASK_B);
 
@@ -134,6 +139,7 @@ public class PendingTaskProcessorTest extends EasyMockTest {
     expectGetClusterState(TASK_A);
     HostOffer offer1 = makeOffer(SLAVE_ID_1);
     expectOffers(offer1);
+    expectSlotFits();
     expectSlotSearch(TASK_A.getAssignedTask().getTask());
 
     control.replay();
@@ -180,6 +186,7 @@ public class PendingTaskProcessorTest extends EasyMockTest {
     HostOffer offer1 = makeOffer(SLAVE_ID_1);
     HostOffer offer2 = makeOffer(SLAVE_ID_2);
     expectOffers(offer1, offer2);
+    expectSlotFits();
     expectSlotSearch(task1.getAssignedTask().getTask());
     expectSlotSearch(task4.getAssignedTask().getTask(), TASK_B);
     PreemptionProposal proposal1 = createPreemptionProposal(TASK_B, SLAVE_ID_1);
@@ -204,6 +211,58 @@ public class PendingTaskProcessorTest extends EasyMockTest {
     assertEquals(2L, statsProvider.getLongValue(CACHE_STAT));
   }
 
+  @Test
+  public void testSlavesPruned() throws Exception {
+    ITaskConfig task = TASK_A.getAssignedTask().getTask();
+    expectGetPendingTasks(TASK_A);
+    expectGetClusterState(TASK_A, TASK_B);
+    HostOffer offer1 = makeOffer(SLAVE_ID_1);
+    HostOffer offer2 = makeOffer(SLAVE_ID_2);
+    expectOffers(offer1, offer2);
+    expectSlotFit(task, offer1, Optional.absent());
+    expectSlotFit(task, offer2, Optional.of(0.5));
+    expectSlotSearch(task, TASK_B);
+
+    control.replay();
+
+    clock.advance(PREEMPTION_DELAY);
+
+    slotFinder.run();
+    assertEquals(
+        Optional.of(group(TASK_A)),
+        slotCache.get(createPreemptionProposal(TASK_B, SLAVE_ID_2)));
+    assertEquals(1L, statsProvider.getLongValue(SLAVES_PRUNED_NAME));
+    assertEquals(1L, statsProvider.getLongValue(slotSearchStatName(true, true)));
+    assertEquals(0L, statsProvider.getLongValue(slotSearchStatName(false, true)));
+  }
+
+  @Test
+  public void testSlavesSearchedByFit() throws Exception {
+    ITaskConfig task = TASK_A.getAssignedTask().getTask();
+    expectGetPendingTasks(TASK_A);
+    expectGetClusterState(TASK_A, TASK_B);
+    HostOffer offer1 = makeOffer(SLAVE_ID_1);
+    HostOffer offer2 = makeOffer(SLAVE_ID_2);
+    expectOffers(offer1, offer2);
+    expectSlotFit(task, offer1, Optional.of(0.0));
+    expectSlotFit(task, offer2, Optional.of(1.0));
+    expectSlotSearch(task, TASK_B);
+
+    control.replay();
+
+    clock.advance(PREEMPTION_DELAY);
+
+    slotFinder.run();
+    assertEquals(
+        Optional.of(group(TASK_A)),
+        slotCache.get(createPreemptionProposal(TASK_B, SLAVE_ID_2)));
+    assertEquals(
+        Optional.absent(),
+        slotCache.get(createPreemptionProposal(TASK_B, SLAVE_ID_1)));
+    assertEquals(0L, statsProvider.getLongValue(SLAVES_PRUNED_NAME));
+    assertEquals(1L, statsProvider.getLongValue(slotSearchStatName(true, true)));
+  }
+
   @Test
   public void testNoVictims() throws Exception {
     expectGetClusterState();
@@ -241,7 +300,29 @@ public class PendingTaskProcessorTest extends EasyMockTest {
   }
 
   private void expectGetClusterState(IScheduledTask... returnedTasks) {
-    expect(clusterState.getSlavesToActiveTasks()).andReturn(getVictims(returnedTasks));
+    Multimap<String, PreemptionVictim> victims = getVictims(returnedTasks);
+    expect(clusterState.getSlavesToActiveTasks()).andReturn(victims);
+    if (!victims.isEmpty()) {
+      Map<String, VictimSummary> summaries = Maps.newHashMap();
+      victims.forEach((slaveId, victim) -> summaries.put(
+          slaveId,
+          summaries.getOrDefault(slaveId, VictimSummary.EMPTY).add(victim)));
+      expect(clusterState.getSlavesToVictimSummaries()).andReturn(summaries);
+    }
+  }
+
+  private void expectSlotFits() {
+    expect(preemptionVictimFilter.estimateSlotFit(anyObject(), anyObject(), anyObject()))
+        .andReturn(Optional.of(0.0))
+        .anyTimes();
+  }
+
+  private void expectSlotFit(ITaskConfig config, HostOffer offer, Optional<Double> fit) {
+    expect(preemptionVictimFilter.estimateSlotFit(
+        eq(config),
+        anyObject(),
+        eq(Optional.of(offer))))
+        .andReturn(fit);
   }
 
   private void expectSlotSearch(ITaskConfig config, IScheduledTask... victims) {
@@ -132,6 +132,28 @@ public class PreemptionVictimFilterTest extends EasyMockTest {
         storageUtil.mutableStoreProvider);
   }
 
+  private Optional<Double> estimateSlotFit(
+      ScheduledTask pendingTask,
+      Optional<HostOffer> offer,
+      ScheduledTask... victims) {
+
+    PreemptionVictimFilter.PreemptionVictimFilterImpl filter =
+        new PreemptionVictimFilter.PreemptionVictimFilterImpl(
+            schedulingFilter,
+            TaskExecutors.NO_OVERHEAD_EXECUTOR,
+            preemptorMetrics,
+            tierManager);
+
+    VictimSummary summary = VictimSummary.EMPTY;
+    for (PreemptionVictim victim : preemptionVictims(victims)) {
+      summary = summary.add(victim);
+    }
+    return filter.estimateSlotFit(
+        ITaskConfig.build(pendingTask.getAssignedTask().getTask()),
+        summary,
+        offer);
+  }
+
   @Test
   public void testPreempted() throws Exception {
     setUpHost();
@@ -529,6 +551,69 @@ public class PreemptionVictimFilterTest extends EasyMockTest {
     assertNoVictims(runFilter(task, NO_OFFER, a1));
   }
 
+  @Test
+  public void testEstimateSlotFit() {
+    schedulingFilter = createMock(SchedulingFilter.class);
+    ScheduledTask a1 = makeTask(USER_A, JOB_A, TASK_ID_A + "_a1", 1);
+    setResource(a1, CPUS, 1.0);
+    setResource(a1, RAM_MB, 512.0);
+    assignToHost(a1);
+    ScheduledTask a2 = makeTask(USER_A, JOB_A, TASK_ID_A + "_a2", 1);
+    setResource(a2, CPUS, 1.0);
+    setResource(a2, RAM_MB, 512.0);
+    assignToHost(a2);
+    expectGetTier(a1, DEV_TIER).atLeastOnce();
+
+    ScheduledTask p1 = makeTask(USER_A, JOB_A, TASK_ID_B + "_p1", 100);
+    setResource(p1, CPUS, 2.0);
+    setResource(p1, RAM_MB, 1024.0);
+    expectGetTier(p1, DEV_TIER).atLeastOnce();
+
+    control.replay();
+    assertEquals(Optional.of(0.0), estimateSlotFit(p1, NO_OFFER, a1, a2));
+    assertEquals(
+        Optional.of(0.5),
+        estimateSlotFit(
+            p1,
+            makeOffer(OFFER, 1, Amount.of(512L, Data.MB), Amount.of(0L, Data.MB), 1, false),
+            a1));
+  }
+
+  @Test
+  public void testEstimateSlotFitInsufficientResources() {
+    schedulingFilter = createMock(SchedulingFilter.class);
+    ScheduledTask a1 = makeTask(USER_A, JOB_A, TASK_ID_A + "_a1", 1);
+    setResource(a1, CPUS, 1.0);
+    setResource(a1, RAM_MB, 512.0);
+    assignToHost(a1);
+    expectGetTier(a1, DEV_TIER).atLeastOnce();
+
+    ScheduledTask p1 = makeTask(USER_A, JOB_A, TASK_ID_B + "_p1", 100);
+    setResource(p1, CPUS, 2.0);
+    setResource(p1, RAM_MB, 1024.0);
+    expectGetTier(p1, DEV_TIER).atLeastOnce();
+
+    control.replay();
+    assertEquals(Optional.absent(), estimateSlotFit(p1, NO_OFFER, a1));
+  }
+
+  @Test
+  public void testEstimateSlotFitNoPreemptableVictims() {
+    schedulingFilter = createMock(SchedulingFilter.class);
+    ScheduledTask a1 = makeTask(USER_A, JOB_A, TASK_ID_A + "_a1", 100);
+    setResource(a1, CPUS, 4.0);
+    assignToHost(a1);
+    expectGetTier(a1, DEV_TIER).atLeastOnce();
+
+    ScheduledTask p1 = makeTask(USER_A, JOB_A, TASK_ID_B + "_p1", 1);
+    setResource(p1, CPUS, 1.0);
+    expectGetTier(p1, DEV_TIER).atLeastOnce();
+
+    control.replay();
+    assertEquals(Optional.absent(), estimateSlotFit(p1, NO_OFFER, a1));
+    assertEquals(Optional.absent(), estimateSlotFit(p1, NO_OFFER));
+  }
+
   @Test
   public void testOrder() {
     control.replay();
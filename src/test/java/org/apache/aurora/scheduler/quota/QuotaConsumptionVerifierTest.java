@@ -0,0 +1,101 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.quota;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.AbstractScheduledService.Scheduler;
+
+import org.apache.aurora.common.testing.easymock.EasyMockTest;
+import org.apache.aurora.scheduler.base.JobKeys;
+import org.apache.aurora.scheduler.base.Query;
+import org.apache.aurora.scheduler.base.TaskTestUtil;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
+import org.apache.aurora.scheduler.storage.testing.StorageTestUtil;
+import org.apache.aurora.scheduler.testing.FakeStatsProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.apache.aurora.scheduler.quota.QuotaConsumptionVerifier.MISMATCHES_STAT;
+import static org.apache.aurora.scheduler.resources.ResourceTestUtil.aggregate;
+import static org.easymock.EasyMock.expect;
+import static org.junit.Assert.assertEquals;
+
+public class QuotaConsumptionVerifierTest extends EasyMockTest {
+  private static final IJobKey JOB_A = JobKeys.from("a", "env", "job");
+  private static final IJobKey JOB_B = JobKeys.from("b", "env", "job");
+  private static final ITaskConfig CONFIG_A = TaskTestUtil.makeConfig(JOB_A);
+  private static final ITaskConfig CONFIG_B = TaskTestUtil.makeConfig(JOB_B);
+
+  private StorageTestUtil storageUtil;
+  private FakeStatsProvider statsProvider;
+  private QuotaConsumptionVerifier verifier;
+
+  @Before
+  public void setUp() {
+    storageUtil = new StorageTestUtil(this);
+    storageUtil.expectOperations();
+    statsProvider = new FakeStatsProvider();
+    verifier = new QuotaConsumptionVerifier(
+        storageUtil.storage,
+        Scheduler.newFixedDelaySchedule(1, 1, TimeUnit.HOURS),
+        statsProvider);
+  }
+
+  private void expectTaskScan() {
+    IScheduledTask a1 = TaskTestUtil.makeTask("a1", CONFIG_A);
+    IScheduledTask a2 = TaskTestUtil.makeTask("a2", CONFIG_A);
+    IScheduledTask b1 = TaskTestUtil.makeTask("b1", CONFIG_B);
+    storageUtil.expectTaskFetch(Query.unscoped().active(), a1, a2, b1);
+    expect(storageUtil.taskStore.getJobKeys()).andReturn(ImmutableSet.of(JOB_A, JOB_B));
+    expect(storageUtil.quotaStore.fetchQuotas())
+        .andReturn(ImmutableMap.of("c", aggregate(1, 1, 1)));
+  }
+
+  @Test
+  public void testCountsMatch() {
+    expectTaskScan();
+    expect(storageUtil.taskStore.getActiveTaskConfigs("a"))
+        .andReturn(ImmutableMultiset.of(CONFIG_A, CONFIG_A));
+    expect(storageUtil.taskStore.getActiveTaskConfigs("b"))
+        .andReturn(ImmutableMultiset.of(CONFIG_B));
+    expect(storageUtil.taskStore.getActiveTaskConfigs("c")).andReturn(ImmutableMultiset.of());
+
+    control.replay();
+
+    verifier.runOneIteration();
+    assertEquals(0L, statsProvider.getLongValue(MISMATCHES_STAT));
+  }
+
+  @Test
+  public void testCountsMismatch() {
+    expectTaskScan();
+    expect(storageUtil.taskStore.getActiveTaskConfigs("a"))
+        .andReturn(ImmutableMultiset.of(CONFIG_A));
+    expect(storageUtil.taskStore.getActiveTaskConfigs("b"))
+        .andReturn(ImmutableMultiset.of(CONFIG_B));
+    expect(storageUtil.taskStore.getActiveTaskConfigs("c"))
+        .andReturn(ImmutableMultiset.of(CONFIG_B));
+
+    control.replay();
+
+    verifier.runOneIteration();
+    assertEquals(2L, statsProvider.getLongValue(MISMATCHES_STAT));
+  }
+}
@@ -16,7 +16,9 @@ package org.apache.aurora.scheduler.quota;
 import java.util.List;
 
 import com.google.common.base.Optional;
+import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultiset;
 import com.google.common.collect.ImmutableSet;
 
 import org.apache.aurora.common.testing.easymock.EasyMockTest;
@@ -40,6 +42,7 @@ import org.apache.aurora.scheduler.quota.QuotaManager.QuotaException;
 import org.apache.aurora.scheduler.quota.QuotaManager.QuotaManagerImpl;
 import org.apache.aurora.scheduler.resources.ResourceType;
 import org.apache.aurora.scheduler.storage.JobUpdateStore;
+import org.apache.aurora.scheduler.storage.TaskStore;
 import org.apache.aurora.scheduler.storage.Storage.StoreProvider;
 import org.apache.aurora.scheduler.storage.entities.IJobConfiguration;
 import org.apache.aurora.scheduler.storage.entities.IJobKey;
@@ -66,6 +69,7 @@ import static org.apache.aurora.scheduler.resources.ResourceTestUtil.aggregate;
 import static org.apache.aurora.scheduler.resources.ResourceTestUtil.bag;
 import static org.easymock.EasyMock.anyObject;
 import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.getCurrentArguments;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
@@ -76,7 +80,6 @@ public class QuotaManagerImplTest extends EasyMockTest {
   private static final IJobUpdateKey UPDATE_KEY =
       IJobUpdateKey.build(new JobUpdateKey(JobKeys.from(ROLE, ENV, JOB_NAME).newBuilder(), "u1"));
   private static final IResourceAggregate QUOTA = aggregate(1.0, 100L, 200L);
-  private static final Query.Builder ACTIVE_QUERY = Query.roleScoped(ROLE).active();
 
   private StorageTestUtil storageUtil;
   private JobUpdateStore jobUpdateStore;
@@ -831,7 +834,16 @@ public class QuotaManagerImplTest extends EasyMockTest {
   }
 
   private IExpectationSetters<?> expectTasks(IScheduledTask... tasks) {
-    return storageUtil.expectTaskFetch(ACTIVE_QUERY, tasks);
+    // Tasks of jobs with active updates are fetched by job key.
+    expect(storageUtil.taskStore.fetchTasks(anyObject(Query.Builder.class)))
+        .andAnswer(() -> {
+          Query.Builder query = (Query.Builder) getCurrentArguments()[0];
+          return FluentIterable.of(tasks).filter(TaskStore.Util.queryFilter(query)).toSet();
+        })
+        .anyTimes();
+    return expect(storageUtil.taskStore.getActiveTaskConfigs(ROLE))
+        .andReturn(ImmutableMultiset.copyOf(
+            FluentIterable.of(tasks).transform(task -> task.getAssignedTask().getTask())));
   }
 
   private void expectJobUpdates(ITaskConfig initial, ITaskConfig desired) {
@@ -18,6 +18,7 @@ import java.util.concurrent.Executor;
 
 import javax.inject.Singleton;
 
+import com.google.common.base.Optional;
 import com.google.common.eventbus.EventBus;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.inject.AbstractModule;
@@ -38,7 +39,7 @@ import org.apache.aurora.scheduler.async.DelayExecutor;
 import org.apache.aurora.scheduler.base.Query;
 import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
 import org.apache.aurora.scheduler.events.PubsubEventModule;
-import org.apache.aurora.scheduler.mesos.Driver;
+import org.apache.aurora.scheduler.state.KillDispatcher;
 import org.apache.aurora.scheduler.state.PubsubTestUtil;
 import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
@@ -55,7 +56,7 @@ import static org.junit.Assert.assertEquals;
 
 public class KillRetryTest extends EasyMockTest {
 
-  private Driver driver;
+  private KillDispatcher killDispatcher;
   private StorageTestUtil storageUtil;
   private BackoffStrategy backoffStrategy;
   private FakeScheduledExecutor clock;
@@ -64,7 +65,7 @@ public class KillRetryTest extends EasyMockTest {
 
   @Before
   public void setUp() throws Exception {
-    driver = createMock(Driver.class);
+    killDispatcher = createMock(KillDispatcher.class);
     storageUtil = new StorageTestUtil(this);
     storageUtil.expectOperations();
     backoffStrategy = createMock(BackoffStrategy.class);
@@ -79,7 +80,7 @@ public class KillRetryTest extends EasyMockTest {
         new AbstractModule() {
           @Override
           protected void configure() {
-            bind(Driver.class).toInstance(driver);
+            bind(KillDispatcher.class).toInstance(killDispatcher);
             bind(Storage.class).toInstance(storageUtil.storage);
             bind(DelayExecutor.class).annotatedWith(AsyncExecutor.class).toInstance(executorMock);
             PubsubEventModule.bindSubscriber(binder(), KillRetry.class);
@@ -117,7 +118,7 @@ public class KillRetryTest extends EasyMockTest {
 
   private void expectRetry(String taskId, long prevRetryMs, long nextRetryMs) {
     storageUtil.expectTaskFetch(killingQuery(taskId), makeTask(taskId, KILLING));
-    driver.killTask(taskId);
+    killDispatcher.killTask(taskId, Optional.absent());
     expectGetRetryDelay(prevRetryMs, nextRetryMs);
   }
 
@@ -13,41 +13,52 @@
  */
 package org.apache.aurora.scheduler.reconciliation;
 
-import java.util.List;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.TimeUnit;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Lists;
+import com.google.common.collect.ImmutableSet;
 
 import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Time;
-import org.apache.aurora.common.stats.StatsProvider;
 import org.apache.aurora.common.testing.easymock.EasyMockTest;
 import org.apache.aurora.gen.AssignedTask;
+import org.apache.aurora.gen.HostAttributes;
 import org.apache.aurora.gen.ScheduleStatus;
 import org.apache.aurora.gen.ScheduledTask;
 import org.apache.aurora.gen.TaskEvent;
 import org.apache.aurora.scheduler.base.Query;
 import org.apache.aurora.scheduler.base.TaskTestUtil;
 import org.apache.aurora.scheduler.base.Tasks;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.events.PubsubEvent.TasksDeleted;
 import org.apache.aurora.scheduler.mesos.Driver;
+import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
 import org.apache.aurora.scheduler.storage.testing.StorageTestUtil;
 import org.apache.aurora.scheduler.testing.FakeScheduledExecutor;
-import org.apache.mesos.Protos;
+import org.apache.aurora.scheduler.testing.FakeStatsProvider;
+import org.easymock.Capture;
 import org.easymock.EasyMock;
 import org.junit.Before;
 import org.junit.Test;
 
 import static org.apache.aurora.common.quantity.Time.MINUTES;
 import static org.apache.aurora.common.quantity.Time.SECONDS;
+import static org.apache.aurora.scheduler.reconciliation.TaskReconciler.CONFIRMED_TASKS_STAT_NAME;
+import static org.apache.aurora.scheduler.reconciliation.TaskReconciler.CYCLE_COVERAGE_STAT_NAME;
+import static org.apache.aurora.scheduler.reconciliation.TaskReconciler.CYCLE_HOSTS_STAT_NAME;
+import static org.apache.aurora.scheduler.reconciliation.TaskReconciler.CYCLE_PROGRESS_STAT_NAME;
+import static org.apache.aurora.scheduler.reconciliation.TaskReconciler.EXPLICIT_SKIPPED_STAT_NAME;
 import static org.apache.aurora.scheduler.reconciliation.TaskReconciler.EXPLICIT_STAT_NAME;
+import static org.apache.aurora.scheduler.reconciliation.TaskReconciler.EXPLICIT_TASKS_STAT_NAME;
 import static org.apache.aurora.scheduler.reconciliation.TaskReconciler.IMPLICIT_STAT_NAME;
 import static org.apache.aurora.scheduler.reconciliation.TaskReconciler.TASK_TO_PROTO;
 import static org.apache.aurora.scheduler.reconciliation.TaskReconciler.TaskReconcilerSettings;
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.expectLastCall;
 import static org.junit.Assert.assertEquals;
@@ -59,54 +70,71 @@ public class TaskReconcilerTest extends EasyMockTest {
   private static final Amount<Long, Time> SPREAD = Amount.of(30L, MINUTES);
   private static final Amount<Long, Time> BATCH_DELAY = Amount.of(3L, SECONDS);
   private static final int BATCH_SIZE = 1;
+  private static final Amount<Long, Time> CONFIRMATION_WINDOW = Amount.of(5L, MINUTES);
   private static final TaskReconcilerSettings SETTINGS = new TaskReconcilerSettings(
       INITIAL_DELAY,
       EXPLICIT_SCHEDULE,
       IMPLICT_SCHEDULE,
       SPREAD,
       BATCH_DELAY,
-      BATCH_SIZE);
+      BATCH_SIZE,
+      CONFIRMATION_WINDOW);
+  private static final String HOST_A = "hostA";
+  private static final String HOST_B = "hostB";
+  private static final String HOST_C = "hostC";
 
   private StorageTestUtil storageUtil;
-  private StatsProvider statsProvider;
+  private FakeStatsProvider statsProvider;
   private Driver driver;
   private ScheduledExecutorService executorService;
-  private AtomicLong explicitRuns;
-  private AtomicLong implicitRuns;
 
   @Before
   public void setUp() {
     storageUtil = new StorageTestUtil(this);
-    statsProvider = createMock(StatsProvider.class);
+    statsProvider = new FakeStatsProvider();
     driver = createMock(Driver.class);
     executorService = createMock(ScheduledExecutorService.class);
-    explicitRuns = new AtomicLong();
-    implicitRuns = new AtomicLong();
+  }
+
+  private void expectHosts(String... hosts) {
+    ImmutableSet.Builder<IHostAttributes> attributes = ImmutableSet.builder();
+    for (String host : hosts) {
+      attributes.add(IHostAttributes.build(new HostAttributes().setHost(host)));
+    }
+    expect(storageUtil.attributeStore.getHostAttributes()).andReturn(attributes.build())
+        .anyTimes();
+  }
+
+  private static Query.Builder hostQuery(String host) {
+    return Query.slaveScoped(host).byStatus(Tasks.SLAVE_ASSIGNED_STATES);
+  }
+
+  private static Query.Builder allHostsQuery() {
+    return Query.unscoped().byStatus(Tasks.SLAVE_ASSIGNED_STATES);
   }
 
   @Test
   public void testExecution() {
-    expect(statsProvider.makeCounter(EXPLICIT_STAT_NAME)).andReturn(explicitRuns);
-    expect(statsProvider.makeCounter(IMPLICIT_STAT_NAME)).andReturn(implicitRuns);
     FakeScheduledExecutor clock =
         FakeScheduledExecutor.scheduleAtFixedRateExecutor(executorService, 2, 5);
 
-    IScheduledTask task1 = makeTask("id1", TaskTestUtil.makeConfig(TaskTestUtil.JOB));
-    IScheduledTask task2 = makeTask("id2", TaskTestUtil.makeConfig(TaskTestUtil.JOB));
+    IScheduledTask task1 = makeTask("id1", HOST_A, TaskTestUtil.makeConfig(TaskTestUtil.JOB));
+    IScheduledTask task2 = makeTask("id2", HOST_B, TaskTestUtil.makeConfig(TaskTestUtil.JOB));
+    // HOST_C has no stored attributes.
+    IScheduledTask task3 = makeTask("id3", HOST_C, TaskTestUtil.makeConfig(TaskTestUtil.JOB));
     storageUtil.expectOperations();
-    storageUtil.expectTaskFetch(
-        Query.unscoped().byStatus(Tasks.SLAVE_ASSIGNED_STATES),
-        task1,
-        task2).times(5);
+    expectHosts(HOST_B, HOST_A);
+    storageUtil.expectTaskFetch(hostQuery(HOST_A), task1).times(5);
+    storageUtil.expectTaskFetch(hostQuery(HOST_B), task2).times(5);
+    storageUtil.expectTaskFetch(allHostsQuery(), task1, task2, task3).times(5);
 
-    List<List<Protos.TaskStatus>> batches = Lists.partition(ImmutableList.of(
-        TASK_TO_PROTO.apply(task1),
-        TASK_TO_PROTO.apply(task2)), BATCH_SIZE);
+    driver.reconcileTasks(ImmutableList.of(TASK_TO_PROTO.apply(task1)));
+    expectLastCall().times(5);
 
-    driver.reconcileTasks(batches.get(0));
+    driver.reconcileTasks(ImmutableList.of(TASK_TO_PROTO.apply(task2)));
     expectLastCall().times(5);
 
-    driver.reconcileTasks(batches.get(1));
+    driver.reconcileTasks(ImmutableList.of(TASK_TO_PROTO.apply(task3)));
     expectLastCall().times(5);
 
     driver.reconcileTasks(EasyMock.anyObject());
@@ -119,25 +147,127 @@ public class TaskReconcilerTest extends EasyMockTest {
         storageUtil.storage,
         driver,
         executorService,
+        clock,
         statsProvider);
 
     reconciler.startAsync().awaitRunning();
 
     clock.advance(INITIAL_DELAY);
-    assertEquals(1L, explicitRuns.get());
-    assertEquals(0L, implicitRuns.get());
+    assertEquals(1L, statsProvider.getLongValue(EXPLICIT_STAT_NAME));
+    assertEquals(0L, statsProvider.getLongValue(IMPLICIT_STAT_NAME));
+    assertEquals(2L, statsProvider.getLongValue(CYCLE_HOSTS_STAT_NAME));
+    assertEquals(3L, statsProvider.getLongValue(CYCLE_COVERAGE_STAT_NAME));
+    assertEquals(100L, statsProvider.getLongValue(CYCLE_PROGRESS_STAT_NAME));
 
     clock.advance(SPREAD);
-    assertEquals(1L, explicitRuns.get());
-    assertEquals(1L, implicitRuns.get());
+    assertEquals(1L, statsProvider.getLongValue(EXPLICIT_STAT_NAME));
+    assertEquals(1L, statsProvider.getLongValue(IMPLICIT_STAT_NAME));
 
     clock.advance(EXPLICIT_SCHEDULE);
-    assertEquals(2L, explicitRuns.get());
-    assertEquals(1L, implicitRuns.get());
+    assertEquals(2L, statsProvider.getLongValue(EXPLICIT_STAT_NAME));
+    assertEquals(1L, statsProvider.getLongValue(IMPLICIT_STAT_NAME));
 
     clock.advance(IMPLICT_SCHEDULE);
-    assertEquals(5L, explicitRuns.get());
-    assertEquals(2L, implicitRuns.get());
+    assertEquals(5L, statsProvider.getLongValue(EXPLICIT_STAT_NAME));
+    assertEquals(2L, statsProvider.getLongValue(IMPLICIT_STAT_NAME));
+    assertEquals(15L, statsProvider.getLongValue(EXPLICIT_TASKS_STAT_NAME));
+    assertEquals(0L, statsProvider.getLongValue(EXPLICIT_SKIPPED_STAT_NAME));
+  }
+
+  @Test
+  public void testSkipsRecentlyConfirmedTasks() {
+    FakeScheduledExecutor clock =
+        FakeScheduledExecutor.scheduleAtFixedRateExecutor(executorService, 2, 1);
+
+    IScheduledTask task1 = makeTask("id1", HOST_A, TaskTestUtil.makeConfig(TaskTestUtil.JOB));
+    IScheduledTask task2 = makeTask("id2", HOST_A, TaskTestUtil.makeConfig(TaskTestUtil.JOB));
+    storageUtil.expectOperations();
+    expectHosts(HOST_A);
+    storageUtil.expectTaskFetch(hostQuery(HOST_A), task1, task2).times(2);
+    storageUtil.expectTaskFetch(allHostsQuery(), task1, task2).times(2);
+
+    // The first cycle skips task1, which was confirmed within the window.
+    driver.reconcileTasks(ImmutableList.of(TASK_TO_PROTO.apply(task2)));
+    expectLastCall().times(2);
+
+    // The second cycle happens after the confirmation has expired.
+    driver.reconcileTasks(ImmutableList.of(TASK_TO_PROTO.apply(task1)));
+
+    driver.reconcileTasks(ImmutableSet.of());
+
+    control.replay();
+
+    TaskReconciler reconciler = new TaskReconciler(
+        SETTINGS,
+        storageUtil.storage,
+        driver,
+        executorService,
+        clock,
+        statsProvider);
+
+    reconciler.startAsync().awaitRunning();
+
+    clock.advance(Amount.of(INITIAL_DELAY.getValue() - 1, MINUTES));
+    // Tasks loaded from storage and scheduler-driven transitions are not confirmations.
+    reconciler.taskChangedState(TaskStateChange.initialized(running(task1)));
+    reconciler.taskChangedState(TaskStateChange.transition(task2, ScheduleStatus.PENDING));
+    assertEquals(0L, statsProvider.getLongValue(CONFIRMED_TASKS_STAT_NAME));
+
+    reconciler.taskChangedState(
+        TaskStateChange.transition(running(task1), ScheduleStatus.STARTING));
+    reconciler.taskChangedState(
+        TaskStateChange.transition(running(task2), ScheduleStatus.STARTING));
+    reconciler.tasksDeleted(new TasksDeleted(ImmutableSet.of(task2)));
+    assertEquals(1L, statsProvider.getLongValue(CONFIRMED_TASKS_STAT_NAME));
+
+    clock.advance(Amount.of(1L, MINUTES));
+    assertEquals(1L, statsProvider.getLongValue(EXPLICIT_TASKS_STAT_NAME));
+    assertEquals(1L, statsProvider.getLongValue(EXPLICIT_SKIPPED_STAT_NAME));
+    assertEquals(2L, statsProvider.getLongValue(CYCLE_COVERAGE_STAT_NAME));
+
+    clock.advance(EXPLICIT_SCHEDULE);
+    assertEquals(3L, statsProvider.getLongValue(EXPLICIT_TASKS_STAT_NAME));
+    assertEquals(1L, statsProvider.getLongValue(EXPLICIT_SKIPPED_STAT_NAME));
+    assertEquals(0L, statsProvider.getLongValue(CONFIRMED_TASKS_STAT_NAME));
+  }
+
+  @Test
+  public void testBatchesPaced() {
+    // The second batch is captured rather than run, to observe its spacing from the first.
+    Capture<Runnable> secondBatch = createCapture();
+    executorService.schedule(
+        capture(secondBatch),
+        eq(BATCH_DELAY.as(SECONDS)),
+        eq(TimeUnit.SECONDS));
+    expectLastCall().andReturn(null);
+    FakeScheduledExecutor clock =
+        FakeScheduledExecutor.scheduleAtFixedRateExecutor(executorService, 2, 0);
+
+    IScheduledTask task1 = makeTask("id1", HOST_A, TaskTestUtil.makeConfig(TaskTestUtil.JOB));
+    IScheduledTask task2 = makeTask("id2", HOST_A, TaskTestUtil.makeConfig(TaskTestUtil.JOB));
+    storageUtil.expectOperations();
+    expectHosts(HOST_A);
+    storageUtil.expectTaskFetch(hostQuery(HOST_A), task1, task2);
+    storageUtil.expectTaskFetch(allHostsQuery(), task1, task2);
+
+    driver.reconcileTasks(ImmutableList.of(TASK_TO_PROTO.apply(task1)));
+    driver.reconcileTasks(ImmutableList.of(TASK_TO_PROTO.apply(task2)));
+
+    control.replay();
+
+    TaskReconciler reconciler = new TaskReconciler(
+        SETTINGS,
+        storageUtil.storage,
+        driver,
+        executorService,
+        clock,
+        statsProvider);
+
+    reconciler.startAsync().awaitRunning();
+
+    clock.advance(INITIAL_DELAY);
+    assertEquals(2L, statsProvider.getLongValue(EXPLICIT_TASKS_STAT_NAME));
+    secondBatch.getValue().run();
   }
 
   @Test(expected = IllegalArgumentException.class)
@@ -150,7 +280,8 @@ public class TaskReconcilerTest extends EasyMockTest {
         IMPLICT_SCHEDULE,
         Amount.of(Long.MAX_VALUE, MINUTES),
         BATCH_DELAY,
-        BATCH_SIZE);
+        BATCH_SIZE,
+        CONFIRMATION_WINDOW);
   }
 
   @Test(expected = IllegalArgumentException.class)
@@ -163,10 +294,15 @@ public class TaskReconcilerTest extends EasyMockTest {
         IMPLICT_SCHEDULE,
         SPREAD,
         BATCH_DELAY,
-        BATCH_SIZE);
+        BATCH_SIZE,
+        CONFIRMATION_WINDOW);
+  }
+
+  private static IScheduledTask running(IScheduledTask task) {
+    return IScheduledTask.build(task.newBuilder().setStatus(ScheduleStatus.RUNNING));
   }
 
-  private static IScheduledTask makeTask(String id, ITaskConfig config) {
+  private static IScheduledTask makeTask(String id, String host, ITaskConfig config) {
     return IScheduledTask.build(new ScheduledTask()
         .setStatus(ScheduleStatus.ASSIGNED)
         .setTaskEvents(ImmutableList.of(
@@ -182,6 +318,7 @@ public class TaskReconcilerTest extends EasyMockTest {
             .setInstanceId(2)
             .setTaskId(id)
             .setSlaveId("slave-id")
+            .setSlaveHost(host)
             .setAssignedPorts(ImmutableMap.of("http", 1000))
             .setTask(config.newBuilder())));
   }
@@ -149,4 +149,25 @@ public class AcceptedOfferTest {
         .build();
     assertEquals(executorSet, ImmutableSet.copyOf(offerAllocation.getExecutorResources()));
   }
+
+  @Test
+  public void testSubtractFrom() {
+    int unusedPort = TASK_PORTS[0] + 1;
+    Protos.Offer offer = offer(
+        mesosScalar(CPUS, TOTAL_BAG.valueOf(CPUS) + 1.0),
+        mesosScalar(RAM_MB, TOTAL_BAG.valueOf(RAM_MB)),
+        mesosScalar(DISK_MB, TOTAL_BAG.valueOf(DISK_MB) + 10),
+        mesosRange(PORTS, TASK_PORTS[0], unusedPort));
+
+    Protos.Offer remaining = AcceptedOffer.create(offer, TASK, EXECUTOR_BAG, DEV_TIER)
+        .subtractFrom(offer);
+
+    assertEquals(offer.getId(), remaining.getId());
+    assertEquals(
+        ImmutableSet.of(
+            mesosScalar(CPUS, 1.0),
+            mesosScalar(DISK_MB, 10),
+            mesosRange(PORTS, unusedPort)),
+        ImmutableSet.copyOf(remaining.getResourcesList()));
+  }
 }
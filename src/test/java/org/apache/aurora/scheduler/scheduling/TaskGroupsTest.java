@@ -13,7 +13,12 @@
  */
 package org.apache.aurora.scheduler.scheduling;
 
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.RateLimiter;
 
 import org.apache.aurora.common.quantity.Amount;
@@ -26,6 +31,7 @@ import org.apache.aurora.gen.ScheduleStatus;
 import org.apache.aurora.gen.ScheduledTask;
 import org.apache.aurora.gen.TaskConfig;
 import org.apache.aurora.scheduler.async.DelayExecutor;
+import org.apache.aurora.scheduler.base.TaskTestUtil;
 import org.apache.aurora.scheduler.base.Tasks;
 import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
 import org.apache.aurora.scheduler.events.PubsubEvent.TasksDeleted;
@@ -33,44 +39,66 @@ import org.apache.aurora.scheduler.scheduling.TaskGroups.TaskGroupsSettings;
 import org.apache.aurora.scheduler.storage.entities.IJobKey;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.apache.aurora.scheduler.testing.FakeScheduledExecutor;
+import org.apache.aurora.scheduler.testing.FakeStatsProvider;
 import org.junit.Before;
 import org.junit.Test;
 
 import static org.apache.aurora.gen.ScheduleStatus.ASSIGNED;
 import static org.apache.aurora.gen.ScheduleStatus.INIT;
+import static org.apache.aurora.scheduler.scheduling.TaskGroups.READY_GROUPS_GAUGE;
+import static org.apache.aurora.scheduler.scheduling.TaskGroups.WAITING_GROUPS_GAUGE;
+import static org.easymock.EasyMock.anyString;
 import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.getCurrentArguments;
+import static org.junit.Assert.assertEquals;
 
 public class TaskGroupsTest extends EasyMockTest {
   private static final Amount<Long, Time> FIRST_SCHEDULE_DELAY = Amount.of(1L, Time.MILLISECONDS);
   private static final Amount<Long, Time> RESCHEDULE_DELAY = FIRST_SCHEDULE_DELAY;
   private static final IJobKey JOB_A = IJobKey.build(new JobKey("role", "test", "jobA"));
   private static final String TASK_A_ID = "a";
+  private static final int MAX_ROUND_SIZE = 2;
 
   private BackoffStrategy backoffStrategy;
   private TaskScheduler taskScheduler;
   private RateLimiter rateLimiter;
   private FakeScheduledExecutor clock;
   private RescheduleCalculator rescheduleCalculator;
+  private FakeStatsProvider statsProvider;
+  private DelayExecutor executor;
   private TaskGroups taskGroups;
 
   @Before
   public void setUp() throws Exception {
-    DelayExecutor executor = createMock(DelayExecutor.class);
+    executor = createMock(DelayExecutor.class);
     clock = FakeScheduledExecutor.fromDelayExecutor(executor);
     backoffStrategy = createMock(BackoffStrategy.class);
     taskScheduler = createMock(TaskScheduler.class);
     rateLimiter = createMock(RateLimiter.class);
     rescheduleCalculator = createMock(RescheduleCalculator.class);
-    taskGroups = new TaskGroups(
+    statsProvider = new FakeStatsProvider();
+    taskGroups = createTaskGroups(1);
+  }
+
+  private TaskGroups createTaskGroups(int workerThreads) {
+    return new TaskGroups(
         executor,
-        new TaskGroupsSettings(FIRST_SCHEDULE_DELAY, backoffStrategy, rateLimiter),
+        new TaskGroupsSettings(
+            FIRST_SCHEDULE_DELAY,
+            backoffStrategy,
+            rateLimiter,
+            MAX_ROUND_SIZE,
+            workerThreads),
         taskScheduler,
-        rescheduleCalculator);
+        rescheduleCalculator,
+        TaskTestUtil.TIER_MANAGER,
+        clock,
+        statsProvider);
   }
 
   @Test
   public void testEvaluatedAfterFirstSchedulePenalty() {
-    expect(rateLimiter.acquire()).andReturn(0D);
+    expect(rateLimiter.acquire(1)).andReturn(0D);
     expect(taskScheduler.schedule(TASK_A_ID)).andReturn(true);
 
     control.replay();
@@ -82,7 +110,7 @@ public class TaskGroupsTest extends EasyMockTest {
   @Test
   public void testTaskDeletedBeforeEvaluating() {
     final IScheduledTask task = makeTask(TASK_A_ID);
-    expect(rateLimiter.acquire()).andReturn(0D);
+    expect(rateLimiter.acquire(1)).andReturn(0D);
     expect(taskScheduler.schedule(Tasks.id(task))).andAnswer(() -> {
       // Test a corner case where a task is deleted while it is being evaluated by the task
       // scheduler.  If not handled carefully, this could result in the scheduler trying again
@@ -102,7 +130,7 @@ public class TaskGroupsTest extends EasyMockTest {
 
   @Test
   public void testEvaluatedOnStartup() {
-    expect(rateLimiter.acquire()).andReturn(0D);
+    expect(rateLimiter.acquire(1)).andReturn(0D);
     expect(rescheduleCalculator.getStartupScheduleDelayMs(makeTask(TASK_A_ID))).andReturn(1L);
     expect(taskScheduler.schedule(TASK_A_ID)).andReturn(true);
 
@@ -115,7 +143,7 @@ public class TaskGroupsTest extends EasyMockTest {
 
   @Test
   public void testResistStarvation() {
-    expect(rateLimiter.acquire()).andReturn(0D).times(2);
+    expect(rateLimiter.acquire(2)).andReturn(0D);
     expect(taskScheduler.schedule("a0")).andReturn(true);
     expect(taskScheduler.schedule("b0")).andReturn(true);
 
@@ -130,6 +158,60 @@ public class TaskGroupsTest extends EasyMockTest {
     clock.advance(FIRST_SCHEDULE_DELAY);
   }
 
+  @Test
+  public void testScheduledInTierAndPriorityOrder() {
+    List<String> scheduled = Lists.newArrayList();
+    expect(rateLimiter.acquire(2)).andReturn(0D);
+    expect(rateLimiter.acquire(1)).andReturn(0D);
+    expect(taskScheduler.schedule(anyString())).andAnswer(() -> {
+      scheduled.add((String) getCurrentArguments()[0]);
+      return true;
+    }).times(3);
+
+    control.replay();
+
+    taskGroups.taskChangedState(TaskStateChange.transition(
+        makeTask(JOB_A, "dev", TaskTestUtil.DEV_TIER_NAME, 10), INIT));
+    taskGroups.taskChangedState(TaskStateChange.transition(
+        makeTask(JOB_A, "prod-low", TaskTestUtil.PROD_TIER_NAME, 0), INIT));
+    taskGroups.taskChangedState(TaskStateChange.transition(
+        makeTask(JOB_A, "prod-high", TaskTestUtil.PROD_TIER_NAME, 5), INIT));
+    assertEquals(3L, statsProvider.getLongValue(WAITING_GROUPS_GAUGE));
+
+    // Rounds are bounded to two groups, leaving the preemptible tier for the following round.
+    clock.advance(FIRST_SCHEDULE_DELAY);
+    assertEquals(ImmutableList.of("prod-high", "prod-low", "dev"), scheduled);
+    assertEquals(0L, statsProvider.getLongValue(WAITING_GROUPS_GAUGE));
+    assertEquals(0L, statsProvider.getLongValue(READY_GROUPS_GAUGE));
+  }
+
+  @Test
+  public void testParallelRoundHoldsOneGroupPerJob() {
+    taskGroups = createTaskGroups(2);
+    List<String> scheduled = Collections.synchronizedList(Lists.newArrayList());
+    expect(rateLimiter.acquire(2)).andReturn(0D);
+    expect(rateLimiter.acquire(1)).andReturn(0D);
+    expect(taskScheduler.schedule(anyString())).andAnswer(() -> {
+      scheduled.add((String) getCurrentArguments()[0]);
+      return true;
+    }).times(3);
+
+    control.replay();
+
+    IJobKey jobB = IJobKey.build(JOB_A.newBuilder().setName("jobB"));
+    taskGroups.taskChangedState(TaskStateChange.transition(
+        makeTask(JOB_A, "a-low", TaskTestUtil.PROD_TIER_NAME, 0), INIT));
+    taskGroups.taskChangedState(TaskStateChange.transition(
+        makeTask(JOB_A, "a-high", TaskTestUtil.PROD_TIER_NAME, 5), INIT));
+    taskGroups.taskChangedState(TaskStateChange.transition(
+        makeTask(jobB, "b", TaskTestUtil.PROD_TIER_NAME, 0), INIT));
+
+    // The second group of job A is deferred to the following round.
+    clock.advance(FIRST_SCHEDULE_DELAY);
+    assertEquals(ImmutableSet.of("a-high", "b"), ImmutableSet.copyOf(scheduled.subList(0, 2)));
+    assertEquals("a-low", scheduled.get(2));
+  }
+
   @Test
   public void testNonPendingIgnored() {
     control.replay();
@@ -143,6 +225,12 @@ public class TaskGroupsTest extends EasyMockTest {
     return makeTask(JOB_A, id, 0);
   }
 
+  private static IScheduledTask makeTask(IJobKey jobKey, String id, String tier, int priority) {
+    ScheduledTask task = makeTask(jobKey, id, 0).newBuilder();
+    task.getAssignedTask().getTask().setTier(tier).setPriority(priority);
+    return IScheduledTask.build(task);
+  }
+
   private static IScheduledTask makeTask(IJobKey jobKey, String id, int instanceId) {
     return IScheduledTask.build(new ScheduledTask()
         .setStatus(ScheduleStatus.PENDING)
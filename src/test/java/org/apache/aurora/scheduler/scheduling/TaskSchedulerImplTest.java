@@ -29,7 +29,9 @@ import com.google.inject.TypeLiteral;
 import org.apache.aurora.common.stats.StatsProvider;
 import org.apache.aurora.common.testing.easymock.EasyMockTest;
 import org.apache.aurora.common.util.Clock;
+import org.apache.aurora.gen.HostAttributes;
 import org.apache.aurora.gen.ScheduledTask;
+import org.apache.aurora.scheduler.HostOffer;
 import org.apache.aurora.scheduler.async.AsyncModule.AsyncExecutor;
 import org.apache.aurora.scheduler.base.JobKeys;
 import org.apache.aurora.scheduler.base.Query;
@@ -41,20 +43,26 @@ import org.apache.aurora.scheduler.events.EventSink;
 import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
 import org.apache.aurora.scheduler.events.PubsubEventModule;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.ResourceRequest;
+import org.apache.aurora.scheduler.offers.OfferManager;
+import org.apache.aurora.scheduler.offers.Offers;
 import org.apache.aurora.scheduler.preemptor.BiCache;
 import org.apache.aurora.scheduler.preemptor.Preemptor;
 import org.apache.aurora.scheduler.resources.ResourceBag;
 import org.apache.aurora.scheduler.resources.ResourceManager;
 import org.apache.aurora.scheduler.scheduling.TaskScheduler.TaskSchedulerImpl;
+import org.apache.aurora.scheduler.scheduling.TaskScheduler.TaskSchedulerImpl.TaskSchedulerSettings;
 import org.apache.aurora.scheduler.state.PubsubTestUtil;
 import org.apache.aurora.scheduler.state.TaskAssigner;
 import org.apache.aurora.scheduler.storage.Storage;
+import org.apache.aurora.scheduler.storage.Storage.MutateWork;
 import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult;
 import org.apache.aurora.scheduler.storage.db.DbUtil;
+import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
 import org.apache.aurora.scheduler.storage.entities.IJobKey;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.apache.aurora.scheduler.storage.testing.StorageTestUtil;
 import org.apache.aurora.scheduler.testing.FakeStatsProvider;
+import org.easymock.Capture;
 import org.easymock.EasyMock;
 import org.easymock.IExpectationSetters;
 import org.junit.Before;
@@ -65,8 +73,10 @@ import static org.apache.aurora.gen.ScheduleStatus.RUNNING;
 import static org.apache.aurora.gen.ScheduleStatus.THROTTLED;
 import static org.apache.aurora.scheduler.filter.AttributeAggregate.EMPTY;
 import static org.apache.aurora.scheduler.mesos.TestExecutorSettings.THERMOS_EXECUTOR;
+import static org.easymock.EasyMock.capture;
 import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -74,10 +84,18 @@ public class TaskSchedulerImplTest extends EasyMockTest {
 
   private static final IScheduledTask TASK_A =
       TaskTestUtil.makeTask("a", JobKeys.from("a", "a", "a"));
+  private static final IScheduledTask TASK_B =
+      TaskTestUtil.makeTask("b", JobKeys.from("a", "a", "a"));
   private static final TaskGroupKey GROUP_KEY =
       TaskGroupKey.from(TASK_A.getAssignedTask().getTask());
   private static final String SLAVE_ID = "HOST_A";
   private static final Map<String, TaskGroupKey> NO_RESERVATION = ImmutableMap.of();
+  private static final HostOffer OFFER = new HostOffer(
+      Offers.makeOffer("offer", "host"),
+      IHostAttributes.build(new HostAttributes()));
+  private static final HostOffer OFFER_B = new HostOffer(
+      Offers.makeOffer("offer_b", "host_b"),
+      IHostAttributes.build(new HostAttributes()));
 
   private StorageTestUtil storageUtil;
   private TaskAssigner assigner;
@@ -85,6 +103,7 @@ public class TaskSchedulerImplTest extends EasyMockTest {
   private Preemptor preemptor;
   private BiCache<String, TaskGroupKey> reservations;
   private EventSink eventSink;
+  private OfferManager offerManager;
 
   @Before
   public void setUp() throws Exception {
@@ -92,6 +111,7 @@ public class TaskSchedulerImplTest extends EasyMockTest {
     assigner = createMock(TaskAssigner.class);
     preemptor = createMock(Preemptor.class);
     reservations = createMock(new Clazz<BiCache<String, TaskGroupKey>>() { });
+    offerManager = createMock(OfferManager.class);
 
     Injector injector = getInjector(storageUtil.storage);
     scheduler = injector.getInstance(TaskScheduler.class);
@@ -99,6 +119,10 @@ public class TaskSchedulerImplTest extends EasyMockTest {
   }
 
   private Injector getInjector(Storage storageImpl) {
+    return getInjector(storageImpl, false);
+  }
+
+  private Injector getInjector(Storage storageImpl, boolean optimisticAssignment) {
     return Guice.createInjector(
         new PubsubEventModule(),
         new AbstractModule() {
@@ -115,6 +139,9 @@ public class TaskSchedulerImplTest extends EasyMockTest {
             bind(StatsProvider.class).toInstance(new FakeStatsProvider());
             bind(Storage.class).toInstance(storageImpl);
             bind(ExecutorSettings.class).toInstance(THERMOS_EXECUTOR);
+            bind(OfferManager.class).toInstance(offerManager);
+            bind(TaskSchedulerSettings.class)
+                .toInstance(new TaskSchedulerSettings(optimisticAssignment));
             PubsubEventModule.bindSubscriber(binder(), TaskScheduler.class);
           }
         });
@@ -295,6 +322,131 @@ public class TaskSchedulerImplTest extends EasyMockTest {
     assertFalse(scheduler.schedule("a"));
   }
 
+  private void useOptimisticAssignment() {
+    scheduler = getInjector(storageUtil.storage, true).getInstance(TaskScheduler.class);
+  }
+
+  private IExpectationSetters<Optional<HostOffer>> expectClaim(IScheduledTask task) {
+    return expect(assigner.claimMatchingOffer(
+        new ResourceRequest(task.getAssignedTask().getTask(), bag(task), EMPTY),
+        TaskGroupKey.from(task.getAssignedTask().getTask()),
+        Tasks.id(task),
+        NO_RESERVATION));
+  }
+
+  @Test
+  public void testOptimisticSchedule() throws Exception {
+    useOptimisticAssignment();
+    storageUtil.expectOperations();
+
+    expectAsMap(NO_RESERVATION);
+    expectTaskStillPendingQuery(TASK_A);
+    expectActiveJobFetch(TASK_A);
+    expectClaim(TASK_A).andReturn(Optional.of(OFFER));
+    expectTaskStillPendingQuery(TASK_A);
+    assigner.assignClaimed(storageUtil.mutableStoreProvider, OFFER, Tasks.id(TASK_A));
+
+    control.replay();
+
+    assertTrue(scheduler.schedule("a"));
+  }
+
+  @Test
+  public void testOptimisticTaskRemovedBeforeCommit() throws Exception {
+    useOptimisticAssignment();
+    storageUtil.expectOperations();
+
+    expectAsMap(NO_RESERVATION);
+    expectTaskStillPendingQuery(TASK_A);
+    expectActiveJobFetch(TASK_A);
+    expectClaim(TASK_A).andReturn(Optional.of(OFFER));
+    storageUtil.expectTaskFetch(
+        Query.taskScoped(Tasks.id(TASK_A)).byStatus(PENDING),
+        ImmutableSet.of());
+    offerManager.releaseOffer(OFFER);
+
+    control.replay();
+
+    assertTrue(scheduler.schedule("a"));
+  }
+
+  @Test
+  public void testOptimisticNoMatchPreempts() throws Exception {
+    useOptimisticAssignment();
+    storageUtil.expectOperations();
+
+    expectAsMap(NO_RESERVATION);
+    expectTaskStillPendingQuery(TASK_A);
+    expectActiveJobFetch(TASK_A);
+    expectClaim(TASK_A).andReturn(Optional.absent());
+    expectNoReservation(TASK_A).times(2);
+    expectTaskStillPendingQuery(TASK_A);
+    expectActiveJobFetch(TASK_A);
+    expectPreemptorCall(TASK_A, Optional.of(SLAVE_ID));
+    expectAddReservation(TASK_A, SLAVE_ID);
+
+    control.replay();
+
+    assertFalse(scheduler.schedule("a"));
+  }
+
+  @Test
+  public void testOptimisticCommitThrows() throws Exception {
+    useOptimisticAssignment();
+    storageUtil.expectOperations();
+
+    expectAsMap(NO_RESERVATION);
+    expectTaskStillPendingQuery(TASK_A);
+    expectActiveJobFetch(TASK_A);
+    expectClaim(TASK_A).andReturn(Optional.of(OFFER));
+    expectTaskStillPendingQuery(TASK_A);
+    assigner.assignClaimed(storageUtil.mutableStoreProvider, OFFER, Tasks.id(TASK_A));
+    expectLastCall().andThrow(new IllegalStateException("expected"));
+    assigner.withdrawClaimed(OFFER);
+    offerManager.releaseOffer(OFFER);
+
+    control.replay();
+
+    assertFalse(scheduler.schedule("a"));
+  }
+
+  @Test
+  public void testOptimisticCommitThrowsForLaterAssignment() throws Exception {
+    useOptimisticAssignment();
+
+    // Task b is scheduled while the commit of task a waits for the write lock, so that the
+    // assignments of both tasks are committed in the same transaction.
+    Capture<MutateWork<Object, RuntimeException>> commitA = createCapture();
+    expect(storageUtil.storage.<Object, RuntimeException>write(capture(commitA))).andAnswer(() -> {
+      assertFalse(scheduler.schedule(Tasks.id(TASK_B)));
+      return commitA.getValue().apply(storageUtil.mutableStoreProvider);
+    });
+    storageUtil.expectOperations();
+
+    expectAsMap(NO_RESERVATION).times(2);
+    expectTaskStillPendingQuery(TASK_A);
+    expectTaskStillPendingQuery(TASK_A);
+    expectTaskStillPendingQuery(TASK_B);
+    expectTaskStillPendingQuery(TASK_B);
+    expectActiveJobFetch(TASK_A);
+    expectActiveJobFetch(TASK_B);
+    expectClaim(TASK_A).andReturn(Optional.of(OFFER));
+    expectClaim(TASK_B).andReturn(Optional.of(OFFER_B));
+    assigner.assignClaimed(storageUtil.mutableStoreProvider, OFFER, Tasks.id(TASK_A));
+    assigner.assignClaimed(storageUtil.mutableStoreProvider, OFFER_B, Tasks.id(TASK_B));
+    expectLastCall().andThrow(new IllegalStateException("expected"));
+
+    // The launch requested for task a is withdrawn before its offer is released.
+    assigner.withdrawClaimed(OFFER);
+    assigner.withdrawClaimed(OFFER_B);
+    offerManager.releaseOffer(OFFER);
+    offerManager.releaseOffer(OFFER_B);
+
+    control.replay();
+
+    assertFalse(scheduler.schedule(Tasks.id(TASK_A)));
+  }
+
   private void expectPreemptorCall(IScheduledTask task, Optional<String> result) {
     expect(preemptor.attemptPreemptionFor(
         task.getAssignedTask(),
@@ -26,11 +26,11 @@ import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.common.stats.StatsProvider;
 import org.apache.aurora.common.testing.easymock.EasyMockTest;
 import org.apache.aurora.common.util.testing.FakeClock;
-import org.apache.aurora.scheduler.base.Query;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
 import org.apache.aurora.scheduler.sla.MetricCalculator.MetricCalculatorSettings;
 import org.apache.aurora.scheduler.sla.SlaGroup.GroupType;
+import org.apache.aurora.scheduler.stats.StatsPipeline;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
-import org.apache.aurora.scheduler.storage.testing.StorageTestUtil;
 import org.easymock.Capture;
 import org.easymock.CaptureType;
 import org.easymock.EasyMock;
@@ -72,12 +72,9 @@ public class MetricCalculatorTest extends EasyMockTest {
         10000,
         ImmutableSet.of(JOB_UPTIMES, MEDIANS, PLATFORM_UPTIME),
         ImmutableSet.of(JOB_UPTIMES, MEDIANS, PLATFORM_UPTIME));
-    StorageTestUtil storageUtil = new StorageTestUtil(this);
-    MetricCalculator calculator = new MetricCalculator(
-        storageUtil.storage,
-        clock,
-        settings,
-        statsProvider);
+    SlaMetricTracker tracker = new SlaMetricTracker(clock, settings);
+    MetricCalculator calculator =
+        new MetricCalculator(tracker, new StatsPipeline(2), statsProvider);
 
     expect(statsProvider.untracked()).andReturn(untracked).anyTimes();
 
@@ -86,14 +83,19 @@ public class MetricCalculatorTest extends EasyMockTest {
         .andReturn(EasyMock.anyObject())
         .anyTimes();
 
-    IScheduledTask task1 = makeTask(ImmutableMap.of(clock.nowMillis() - 1000, PENDING), 0);
-    IScheduledTask task2 = makeTask(ImmutableMap.of(clock.nowMillis() - 2000, PENDING), 1);
-    IScheduledTask task3 = makeTask(ImmutableMap.of(clock.nowMillis() - 3000, PENDING), 2);
-    IScheduledTask task4 = makeTask(ImmutableMap.of(clock.nowMillis() - 4000, PENDING), 3, false);
+    IScheduledTask task1 =
+        makeTask("task1", ImmutableMap.of(clock.nowMillis() - 1000, PENDING), 0, true);
+    IScheduledTask task2 =
+        makeTask("task2", ImmutableMap.of(clock.nowMillis() - 2000, PENDING), 1, true);
+    IScheduledTask task3 =
+        makeTask("task3", ImmutableMap.of(clock.nowMillis() - 3000, PENDING), 2, true);
+    IScheduledTask task4 =
+        makeTask("task4", ImmutableMap.of(clock.nowMillis() - 4000, PENDING), 3, false);
+    for (IScheduledTask task : ImmutableSet.of(task1, task2, task3, task4)) {
+      tracker.taskChangedState(TaskStateChange.initialized(task));
+    }
 
     clock.advance(Amount.of(10L, Time.SECONDS));
-    storageUtil.expectTaskFetch(Query.unscoped(), task1, task2, task3, task4);
-    storageUtil.expectOperations();
 
     control.replay();
     calculator.run();
@@ -35,6 +35,7 @@ import static org.apache.aurora.gen.ScheduleStatus.PENDING;
 import static org.apache.aurora.gen.ScheduleStatus.RESTARTING;
 import static org.apache.aurora.gen.ScheduleStatus.RUNNING;
 import static org.apache.aurora.gen.ScheduleStatus.STARTING;
+import static org.apache.aurora.scheduler.sla.ReferenceSlaAlgorithm.forType;
 import static org.apache.aurora.scheduler.sla.SlaAlgorithm.AlgorithmType.AGGREGATE_PLATFORM_UPTIME;
 import static org.apache.aurora.scheduler.sla.SlaAlgorithm.AlgorithmType.JOB_UPTIME_50;
 import static org.apache.aurora.scheduler.sla.SlaAlgorithm.AlgorithmType.JOB_UPTIME_75;
@@ -49,7 +50,7 @@ public class SlaAlgorithmTest {
 
   @Test
   public void testMedianTimeToAssignedEven() {
-    Number actual = MEDIAN_TIME_TO_ASSIGNED.getAlgorithm().calculate(
+    Number actual = forType(MEDIAN_TIME_TO_ASSIGNED).calculate(
         ImmutableSet.of(
             makeTask(ImmutableMap.of(50L, PENDING, 200L, ASSIGNED, 250L, KILLED)),
             makeTask(ImmutableMap.of(100L, PENDING, 200L, ASSIGNED, 300L, RUNNING)),
@@ -60,7 +61,7 @@ public class SlaAlgorithmTest {
 
   @Test
   public void testMedianTimeToAssignedOdd() {
-    Number actual = MEDIAN_TIME_TO_ASSIGNED.getAlgorithm().calculate(
+    Number actual = forType(MEDIAN_TIME_TO_ASSIGNED).calculate(
         ImmutableSet.of(
             makeTask(ImmutableMap.of(50L, PENDING, 200L, ASSIGNED, 250L, RUNNING)),
             makeTask(ImmutableMap.of(100L, PENDING, 200L, ASSIGNED, 300L, RUNNING)),
@@ -71,7 +72,7 @@ public class SlaAlgorithmTest {
 
   @Test
   public void testMedianTimeToAssignedZero() {
-    Number actual = MEDIAN_TIME_TO_ASSIGNED.getAlgorithm().calculate(
+    Number actual = forType(MEDIAN_TIME_TO_ASSIGNED).calculate(
         ImmutableSet.of(
             makeTask(ImmutableMap.of(50L, PENDING)),
             makeTask(ImmutableMap.of(100L, PENDING, 200L, ASSIGNED, 300L, KILLED))),
@@ -81,7 +82,7 @@ public class SlaAlgorithmTest {
 
   @Test
   public void testMedianTimeToAssignedOne() {
-    Number actual = MEDIAN_TIME_TO_ASSIGNED.getAlgorithm().calculate(
+    Number actual = forType(MEDIAN_TIME_TO_ASSIGNED).calculate(
         ImmutableSet.of(
             makeTask(ImmutableMap.of(50L, PENDING)),
             makeTask(ImmutableMap.of(100L, PENDING, 200L, ASSIGNED))),
@@ -91,7 +92,7 @@ public class SlaAlgorithmTest {
 
   @Test(expected = IllegalArgumentException.class)
   public void testMedianTimeToAssignedNoPending() {
-    MEDIAN_TIME_TO_ASSIGNED.getAlgorithm().calculate(
+    forType(MEDIAN_TIME_TO_ASSIGNED).calculate(
         ImmutableSet.of(
             makeTask(ImmutableMap.of(50L, ASSIGNED))),
         Range.closedOpen(0L, 300L));
@@ -99,7 +100,7 @@ public class SlaAlgorithmTest {
 
   @Test
   public void testMedianTimeToRunningEven() {
-    Number actual = MEDIAN_TIME_TO_RUNNING.getAlgorithm().calculate(
+    Number actual = forType(MEDIAN_TIME_TO_RUNNING).calculate(
         ImmutableSet.of(
             makeTask(ImmutableMap.of(50L, PENDING)), // Ignored as not RUNNING
             makeTask(ImmutableMap.of(50L, PENDING, 100L, ASSIGNED, 150L, STARTING, 180L, RUNNING)),
@@ -116,7 +117,7 @@ public class SlaAlgorithmTest {
 
   @Test
   public void testMedianTimeToRunningOdd() {
-    Number actual = MEDIAN_TIME_TO_RUNNING.getAlgorithm().calculate(
+    Number actual = forType(MEDIAN_TIME_TO_RUNNING).calculate(
         ImmutableSet.of(
             makeTask(ImmutableMap.of(50L, PENDING)), // Ignored as not RUNNING
             makeTask(ImmutableMap.of(50L, PENDING, 100L, ASSIGNED, 150L, STARTING, 180L, RUNNING)),
@@ -128,7 +129,7 @@ public class SlaAlgorithmTest {
 
   @Test
   public void testMedianTimeToRunningZero() {
-    Number actual = MEDIAN_TIME_TO_RUNNING.getAlgorithm().calculate(
+    Number actual = forType(MEDIAN_TIME_TO_RUNNING).calculate(
         ImmutableSet.of(
             makeTask(ImmutableMap.of(50L, PENDING)),
             makeTask(ImmutableMap.of(50L, PENDING, 100L, RUNNING, 200L, KILLED))),
@@ -138,7 +139,7 @@ public class SlaAlgorithmTest {
 
   @Test
   public void testMedianTimeEventsOutsideTimeRangeIgnored() {
-    Number actual = MEDIAN_TIME_TO_ASSIGNED.getAlgorithm().calculate(
+    Number actual = forType(MEDIAN_TIME_TO_ASSIGNED).calculate(
         ImmutableSet.of(
             makeTask(ImmutableMap.of(50L, PENDING)),
             makeTask(ImmutableMap.of(100L, PENDING, 200L, ASSIGNED)),
@@ -153,7 +154,7 @@ public class SlaAlgorithmTest {
   @Test
   public void testJobUptime50() {
     long now = System.currentTimeMillis();
-    Number actual = JOB_UPTIME_50.getAlgorithm().calculate(
+    Number actual = forType(JOB_UPTIME_50).calculate(
         makeUptimeTasks(100, now),
         Range.closed(0L, now));
     assertEquals(50, actual);
@@ -162,7 +163,7 @@ public class SlaAlgorithmTest {
   @Test
   public void testJobUptime75() {
     long now = System.currentTimeMillis();
-    Number actual = JOB_UPTIME_75.getAlgorithm().calculate(
+    Number actual = forType(JOB_UPTIME_75).calculate(
         makeUptimeTasks(100, now),
         Range.closed(0L, now));
     assertEquals(25, actual);
@@ -171,7 +172,7 @@ public class SlaAlgorithmTest {
   @Test
   public void testJobUptime90() {
     long now = System.currentTimeMillis();
-    Number actual = JOB_UPTIME_90.getAlgorithm().calculate(
+    Number actual = forType(JOB_UPTIME_90).calculate(
         makeUptimeTasks(100, now),
         Range.closed(0L, now));
     assertEquals(10, actual);
@@ -180,7 +181,7 @@ public class SlaAlgorithmTest {
   @Test
   public void testJobUptime95() {
     long now = System.currentTimeMillis();
-    Number actual = JOB_UPTIME_95.getAlgorithm().calculate(
+    Number actual = forType(JOB_UPTIME_95).calculate(
         makeUptimeTasks(100, now),
         Range.closed(0L, now));
     assertEquals(5, actual);
@@ -189,7 +190,7 @@ public class SlaAlgorithmTest {
   @Test
   public void testJobUptime99() {
     long now = System.currentTimeMillis();
-    Number actual = JOB_UPTIME_99.getAlgorithm().calculate(
+    Number actual = forType(JOB_UPTIME_99).calculate(
         makeUptimeTasks(100, now),
         Range.closed(0L, now));
     assertEquals(1, actual);
@@ -198,7 +199,7 @@ public class SlaAlgorithmTest {
   @Test
   public void testJobUptimeEmpty() {
     long now = System.currentTimeMillis();
-    Number actual = JOB_UPTIME_99.getAlgorithm().calculate(
+    Number actual = forType(JOB_UPTIME_99).calculate(
         new LinkedList<IScheduledTask>(),
         Range.closed(0L, now));
     assertEquals(0, actual);
@@ -209,7 +210,7 @@ public class SlaAlgorithmTest {
     long now = System.currentTimeMillis();
     Set<IScheduledTask> instances = makeUptimeTasks(100, now);
     instances.add(makeTask(ImmutableMap.of(now - 5000, RUNNING, now - 3000, KILLED)));
-    Number actual = JOB_UPTIME_99.getAlgorithm().calculate(instances, Range.closed(0L, now));
+    Number actual = forType(JOB_UPTIME_99).calculate(instances, Range.closed(0L, now));
     assertEquals(1, actual);
   }
 
@@ -218,13 +219,13 @@ public class SlaAlgorithmTest {
     long now = System.currentTimeMillis();
     Set<IScheduledTask> instances = makeUptimeTasks(100, now);
     instances.add(makeTask(ImmutableMap.of(now - 5000, RUNNING, now - 3000, RESTARTING)));
-    Number actual = JOB_UPTIME_99.getAlgorithm().calculate(instances, Range.closed(0L, now));
+    Number actual = forType(JOB_UPTIME_99).calculate(instances, Range.closed(0L, now));
     assertEquals(1, actual);
   }
 
   @Test
   public void testAggregatePlatformUptime() {
-    Number actual = AGGREGATE_PLATFORM_UPTIME.getAlgorithm().calculate(
+    Number actual = forType(AGGREGATE_PLATFORM_UPTIME).calculate(
         ImmutableSet.of(
             makeTask(ImmutableMap.of(100L, PENDING), 0), // Ignored.
             makeTask(ImmutableMap.of(
@@ -246,7 +247,7 @@ public class SlaAlgorithmTest {
 
   @Test
   public void testAggregatePlatformUptimeRecoveredFromDown() {
-    Number actual = AGGREGATE_PLATFORM_UPTIME.getAlgorithm().calculate(
+    Number actual = forType(AGGREGATE_PLATFORM_UPTIME).calculate(
         ImmutableSet.of(
             makeTask(ImmutableMap.of(50L, RUNNING, 300L, LOST, 310L, KILLED), 0), // DOWN mid range.
             makeTask(ImmutableMap.of(
@@ -260,7 +261,7 @@ public class SlaAlgorithmTest {
 
   @Test
   public void testAggregatePlatformUptimeKilledByPlatform() {
-    Number actual = AGGREGATE_PLATFORM_UPTIME.getAlgorithm().calculate(
+    Number actual = forType(AGGREGATE_PLATFORM_UPTIME).calculate(
         ImmutableSet.of(makeTask(ImmutableMap.of(50L, RUNNING, 300L, KILLED), 0)),
         Range.closedOpen(100L, 500L));
     assertEquals(50.0, actual);
@@ -268,7 +269,7 @@ public class SlaAlgorithmTest {
 
   @Test
   public void testAggregatePlatformUptimeEmpty() {
-    Number actual = AGGREGATE_PLATFORM_UPTIME.getAlgorithm().calculate(
+    Number actual = forType(AGGREGATE_PLATFORM_UPTIME).calculate(
         ImmutableSet.of(makeTask(ImmutableMap.of(50L, PENDING), 0)),
         Range.closedOpen(100L, 500L));
     assertEquals(100.0, actual);
@@ -0,0 +1,264 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.sla;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Range;
+
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.util.testing.FakeClock;
+import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.gen.ScheduledTask;
+import org.apache.aurora.gen.TaskEvent;
+import org.apache.aurora.scheduler.base.Tasks;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.events.PubsubEvent.TasksDeleted;
+import org.apache.aurora.scheduler.sla.MetricCalculator.MetricCalculatorSettings;
+import org.apache.aurora.scheduler.sla.MetricCalculator.MetricCategory;
+import org.apache.aurora.scheduler.sla.SlaAlgorithm.AlgorithmType;
+import org.apache.aurora.scheduler.sla.SlaGroup.GroupType;
+import org.apache.aurora.scheduler.stats.StatsPipeline;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.apache.aurora.gen.ScheduleStatus.ASSIGNED;
+import static org.apache.aurora.gen.ScheduleStatus.KILLED;
+import static org.apache.aurora.gen.ScheduleStatus.KILLING;
+import static org.apache.aurora.gen.ScheduleStatus.LOST;
+import static org.apache.aurora.gen.ScheduleStatus.PENDING;
+import static org.apache.aurora.gen.ScheduleStatus.RUNNING;
+import static org.apache.aurora.gen.ScheduleStatus.STARTING;
+import static org.apache.aurora.scheduler.sla.MetricCalculator.NAME_QUALIFIER_NON_PROD;
+import static org.apache.aurora.scheduler.sla.MetricCalculator.NAME_QUALIFIER_PROD;
+import static org.apache.aurora.scheduler.sla.SlaTestUtil.makeTask;
+import static org.junit.Assert.assertEquals;
+
+public class SlaMetricTrackerTest {
+
+  private static final long TIME_FRAME_MS = 10000;
+  private static final StatsPipeline PIPELINE = new StatsPipeline(2);
+
+  private FakeClock clock;
+  private SlaMetricTracker tracker;
+  private Map<String, IScheduledTask> tasks;
+
+  @Before
+  public void setUp() {
+    clock = new FakeClock();
+    clock.setNowMillis(100000);
+    tracker = new SlaMetricTracker(
+        clock,
+        new MetricCalculatorSettings(
+            TIME_FRAME_MS,
+            ImmutableSet.copyOf(MetricCategory.values()),
+            ImmutableSet.copyOf(MetricCategory.values())));
+    tasks = Maps.newLinkedHashMap();
+  }
+
+  private void load(IScheduledTask task) {
+    tasks.put(Tasks.id(task), task);
+    tracker.taskChangedState(TaskStateChange.initialized(task));
+  }
+
+  private IScheduledTask withStatus(IScheduledTask task, ScheduleStatus status) {
+    ScheduledTask builder = task.newBuilder()
+        .setStatus(status);
+    builder.addToTaskEvents(new TaskEvent(clock.nowMillis(), status));
+    return IScheduledTask.build(builder);
+  }
+
+  private void transition(String taskId, ScheduleStatus status) {
+    IScheduledTask task = tasks.get(taskId);
+    IScheduledTask updated = withStatus(task, status);
+    tasks.put(taskId, updated);
+    tracker.taskChangedState(TaskStateChange.transition(updated, task.getStatus()));
+  }
+
+  private void delete(String taskId) {
+    tracker.tasksDeleted(new TasksDeleted(ImmutableSet.of(tasks.remove(taskId))));
+  }
+
+  private void advance(long millis) {
+    clock.advance(Amount.of(millis, Time.MILLISECONDS));
+  }
+
+  /**
+   * Calculates the metrics by applying the SLA algorithms to all tasks, as the metric calculator
+   * did before metrics were tracked incrementally.
+   */
+  private Map<String, Number> calculateWithAlgorithms() {
+    long nowMs = clock.nowMillis();
+    Range<Long> timeFrame = Range.closedOpen(nowMs - TIME_FRAME_MS, nowMs);
+    ImmutableMap.Builder<String, Number> metrics = ImmutableMap.builder();
+    for (boolean production : ImmutableList.of(true, false)) {
+      Iterable<IScheduledTask> qualified = FluentIterable.from(tasks.values())
+          .filter(task -> task.getAssignedTask().getTask().isProduction() == production)
+          .toList();
+      String qualifier = production ? NAME_QUALIFIER_PROD : NAME_QUALIFIER_NON_PROD;
+      for (MetricCategory category : MetricCategory.values()) {
+        for (Entry<AlgorithmType, GroupType> metric : category.getMetrics().entries()) {
+          for (Entry<String, Collection<IScheduledTask>> group
+              : metric.getValue().getSlaGroup().createNamedGroups(qualified).asMap().entrySet()) {
+
+            metrics.put(
+                group.getKey() + metric.getKey().getAlgorithmName() + qualifier,
+                ReferenceSlaAlgorithm.forType(metric.getKey())
+                    .calculate(group.getValue(), timeFrame));
+          }
+        }
+      }
+    }
+    return metrics.build();
+  }
+
+  private void assertMatchesAlgorithms() {
+    assertEquals(calculateWithAlgorithms(), tracker.calculate(PIPELINE));
+  }
+
+  @Test
+  public void testNoTasks() {
+    assertEquals(ImmutableMap.of(), tracker.calculate(PIPELINE));
+  }
+
+  @Test
+  public void testMatchesAlgorithms() {
+    load(makeTask(
+        "running",
+        ImmutableMap.of(50000L, PENDING, 50100L, ASSIGNED, 50200L, STARTING, 50300L, RUNNING),
+        0,
+        true));
+    load(makeTask(
+        "started",
+        ImmutableMap.of(91000L, PENDING, 92000L, ASSIGNED, 93000L, RUNNING),
+        1,
+        true));
+    load(makeTask(
+        "lost",
+        ImmutableMap.of(60000L, PENDING, 60100L, ASSIGNED, 61000L, RUNNING, 95000L, LOST),
+        2,
+        true));
+    load(makeTask(
+        "rescheduled",
+        ImmutableMap.of(95001L, PENDING, 96000L, ASSIGNED),
+        2,
+        true));
+    load(makeTask(
+        "assigned_before",
+        ImmutableMap.of(85000L, PENDING, 89000L, ASSIGNED, 98000L, RUNNING),
+        3,
+        true));
+    load(makeTask(
+        "killed",
+        ImmutableMap.of(80000L, PENDING, 80500L, ASSIGNED, 81000L, RUNNING, 97000L, KILLING,
+            97100L, KILLED),
+        0,
+        false));
+    assertMatchesAlgorithms();
+
+    advance(2000);
+    transition("rescheduled", STARTING);
+    advance(1);
+    transition("rescheduled", RUNNING);
+    advance(500);
+    transition("running", KILLING);
+    advance(1);
+    transition("running", KILLED);
+    advance(1000);
+    assertMatchesAlgorithms();
+
+    // All instances are in an unchanged state over the time frame.
+    advance(20000);
+    assertMatchesAlgorithms();
+
+    delete("lost");
+    delete("killed");
+    assertMatchesAlgorithms();
+  }
+
+  @Test
+  public void testNewTaskTransitions() {
+    load(makeTask(
+        "old",
+        ImmutableMap.of(50000L, PENDING, 50100L, ASSIGNED, 50200L, RUNNING),
+        0,
+        true));
+    advance(1000);
+    transition("old", KILLING);
+    advance(1);
+    transition("old", KILLED);
+
+    // A replacement task is created and scheduled through transitions.
+    IScheduledTask replacement =
+        makeTask("new", ImmutableMap.of(clock.nowMillis() + 1, PENDING), 0, true);
+    advance(1);
+    tasks.put("new", replacement);
+    tracker.taskChangedState(TaskStateChange.transition(replacement, ScheduleStatus.INIT));
+    advance(2000);
+    transition("new", ASSIGNED);
+    advance(1000);
+    transition("new", STARTING);
+    advance(1000);
+    transition("new", RUNNING);
+    advance(1000);
+    assertMatchesAlgorithms();
+  }
+
+  @Test
+  public void testReorderedTransitionsIgnored() {
+    IScheduledTask assigned = makeTask(
+        "task",
+        ImmutableMap.of(90000L, PENDING, 91000L, ASSIGNED),
+        0,
+        true);
+    load(assigned);
+    advance(1000);
+    IScheduledTask starting = withStatus(assigned, STARTING);
+    advance(1000);
+    IScheduledTask running = withStatus(starting, RUNNING);
+    tasks.put("task", running);
+
+    // The event of the later transition is delivered first.
+    tracker.taskChangedState(TaskStateChange.transition(running, STARTING));
+    tracker.taskChangedState(TaskStateChange.transition(starting, ASSIGNED));
+    advance(1000);
+    assertMatchesAlgorithms();
+  }
+
+  @Test
+  public void testSkippedTransitionsReplayed() {
+    IScheduledTask pending = makeTask("task", ImmutableMap.of(90000L, PENDING), 0, true);
+    load(pending);
+    advance(1000);
+    IScheduledTask assigned = withStatus(pending, ASSIGNED);
+    advance(1000);
+    IScheduledTask running = withStatus(assigned, RUNNING);
+    tasks.put("task", running);
+
+    // The snapshot of the first delivered event already carries both later transitions.
+    tracker.taskChangedState(TaskStateChange.transition(running, ASSIGNED));
+    tracker.taskChangedState(TaskStateChange.transition(assigned, PENDING));
+    advance(1000);
+    assertMatchesAlgorithms();
+  }
+}
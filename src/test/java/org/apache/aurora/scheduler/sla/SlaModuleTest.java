@@ -33,10 +33,9 @@ import org.apache.aurora.common.testing.easymock.EasyMockTest;
 import org.apache.aurora.common.util.Clock;
 import org.apache.aurora.common.util.testing.FakeClock;
 import org.apache.aurora.scheduler.app.LifecycleModule;
-import org.apache.aurora.scheduler.base.Query;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
 import org.apache.aurora.scheduler.sla.SlaModule.SlaUpdater;
-import org.apache.aurora.scheduler.storage.Storage;
-import org.apache.aurora.scheduler.storage.testing.StorageTestUtil;
+import org.apache.aurora.scheduler.stats.StatsPipeline;
 import org.easymock.EasyMock;
 import org.junit.Before;
 import org.junit.Test;
@@ -53,13 +52,11 @@ public class SlaModuleTest extends EasyMockTest {
 
   private Injector injector;
   private FakeClock clock;
-  private StorageTestUtil storageUtil;
   private StatsProvider statsProvider;
   private SlaModule module;
 
   @Before
   public void setUp() throws Exception {
-    storageUtil = new StorageTestUtil(this);
     clock = new FakeClock();
     statsProvider = createMock(StatsProvider.class);
     module = new SlaModule(
@@ -74,8 +71,8 @@ public class SlaModuleTest extends EasyMockTest {
               @Override
               protected void configure() {
                 bind(Clock.class).toInstance(clock);
-                bind(Storage.class).toInstance(storageUtil.storage);
                 bind(StatsProvider.class).toInstance(statsProvider);
+                bind(StatsPipeline.class).toInstance(new StatsPipeline(2));
               }
             }).build()
     );
@@ -108,13 +105,11 @@ public class SlaModuleTest extends EasyMockTest {
           return null;
         }).anyTimes();
 
-    storageUtil.expectTaskFetch(
-        Query.unscoped(),
-        SlaTestUtil.makeTask(ImmutableMap.of(clock.nowMillis() - 1000, PENDING), 0)).anyTimes();
-    storageUtil.expectOperations();
-
     control.replay();
 
+    injector.getInstance(SlaMetricTracker.class).taskChangedState(TaskStateChange.initialized(
+        SlaTestUtil.makeTask(ImmutableMap.of(clock.nowMillis() - 1000, PENDING), 0)));
+
     injector.getInstance(SlaUpdater.class).startAsync().awaitRunning();
     latch.await();
   }
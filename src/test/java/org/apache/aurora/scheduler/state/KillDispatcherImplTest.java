@@ -0,0 +1,201 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.state;
+
+import com.google.common.base.Optional;
+
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.testing.easymock.EasyMockTest;
+import org.apache.aurora.scheduler.async.DelayExecutor;
+import org.apache.aurora.scheduler.mesos.Driver;
+import org.apache.aurora.scheduler.state.KillDispatcherImpl.KillDispatcherSettings;
+import org.apache.aurora.scheduler.testing.FakeScheduledExecutor;
+import org.apache.aurora.scheduler.testing.FakeStatsProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.apache.aurora.scheduler.state.KillDispatcherImpl.AGENT_THROTTLED_COUNTER;
+import static org.apache.aurora.scheduler.state.KillDispatcherImpl.AGENT_THROTTLES_GAUGE;
+import static org.apache.aurora.scheduler.state.KillDispatcherImpl.DEDUPLICATED_COUNTER;
+import static org.apache.aurora.scheduler.state.KillDispatcherImpl.DISPATCHED_COUNTER;
+import static org.apache.aurora.scheduler.state.KillDispatcherImpl.QUEUE_FULL_COUNTER;
+import static org.apache.aurora.scheduler.state.KillDispatcherImpl.QUEUE_SIZE_GAUGE;
+import static org.junit.Assert.assertEquals;
+
+public class KillDispatcherImplTest extends EasyMockTest {
+
+  private static final Optional<String> AGENT_A = Optional.of("agent-a");
+  private static final Optional<String> AGENT_B = Optional.of("agent-b");
+
+  private Driver driver;
+  private DelayExecutor executor;
+  private FakeScheduledExecutor clock;
+  private FakeStatsProvider statsProvider;
+
+  @Before
+  public void setUp() {
+    driver = createMock(Driver.class);
+    executor = createMock(DelayExecutor.class);
+    clock = FakeScheduledExecutor.fromDelayExecutor(executor);
+    statsProvider = new FakeStatsProvider();
+  }
+
+  private KillDispatcherImpl createDispatcher(int queueSize, double perAgentRate) {
+    return new KillDispatcherImpl(
+        driver,
+        executor,
+        clock,
+        new KillDispatcherSettings(queueSize, 1000, perAgentRate),
+        statsProvider);
+  }
+
+  @Test
+  public void testDispatchesQueuedKills() throws Exception {
+    driver.killTask("a");
+    driver.killTask("b");
+
+    control.replay();
+
+    KillDispatcherImpl dispatcher = createDispatcher(10, 1000);
+    dispatcher.killTask("a", AGENT_A);
+    dispatcher.killTask("b", Optional.absent());
+    assertEquals(2L, statsProvider.getLongValue(QUEUE_SIZE_GAUGE));
+
+    dispatcher.dispatchNext();
+    dispatcher.dispatchNext();
+    assertEquals(0L, statsProvider.getLongValue(QUEUE_SIZE_GAUGE));
+    assertEquals(2L, statsProvider.getLongValue(DISPATCHED_COUNTER));
+  }
+
+  @Test
+  public void testDeduplicatesPendingKills() throws Exception {
+    driver.killTask("a");
+    driver.killTask("a");
+
+    control.replay();
+
+    KillDispatcherImpl dispatcher = createDispatcher(10, 1000);
+    dispatcher.killTask("a", Optional.absent());
+    dispatcher.killTask("a", Optional.absent());
+    assertEquals(1L, statsProvider.getLongValue(DEDUPLICATED_COUNTER));
+    dispatcher.dispatchNext();
+
+    // Once sent, a kill may be requested again (e.g. by a retry).
+    dispatcher.killTask("a", Optional.absent());
+    dispatcher.dispatchNext();
+    assertEquals(2L, statsProvider.getLongValue(DISPATCHED_COUNTER));
+  }
+
+  @Test
+  public void testAgentRateLimit() throws Exception {
+    driver.killTask("a");
+    driver.killTask("c");
+
+    control.replay();
+
+    KillDispatcherImpl dispatcher = createDispatcher(10, 0.001);
+    dispatcher.killTask("a", AGENT_A);
+    dispatcher.killTask("b", AGENT_A);
+    dispatcher.killTask("c", AGENT_B);
+
+    dispatcher.dispatchNext();
+    // The second kill for agent A is deferred without holding up agent B.
+    dispatcher.dispatchNext();
+    dispatcher.dispatchNext();
+    assertEquals(1L, statsProvider.getLongValue(AGENT_THROTTLED_COUNTER));
+    assertEquals(0L, statsProvider.getLongValue(QUEUE_SIZE_GAUGE));
+  }
+
+  @Test
+  public void testDeferredKillsReleasedWithAgentPermits() throws Exception {
+    driver.killTask("a");
+    driver.killTask("b");
+    driver.killTask("c");
+
+    control.replay();
+
+    KillDispatcherImpl dispatcher = createDispatcher(10, 1);
+    dispatcher.killTask("a", AGENT_A);
+    dispatcher.killTask("b", AGENT_A);
+    dispatcher.killTask("c", AGENT_A);
+    dispatcher.dispatchNext();
+    dispatcher.dispatchNext();
+    dispatcher.dispatchNext();
+    assertEquals(1L, statsProvider.getLongValue(DISPATCHED_COUNTER));
+    assertEquals(2L, statsProvider.getLongValue(AGENT_THROTTLED_COUNTER));
+    assertEquals(0L, statsProvider.getLongValue(QUEUE_SIZE_GAUGE));
+
+    // Deferred kills are released one at a time, as permits for the agent become available.
+    clock.advance(Amount.of(1L, Time.SECONDS));
+    assertEquals(1L, statsProvider.getLongValue(QUEUE_SIZE_GAUGE));
+    dispatcher.dispatchNext();
+    assertEquals(2L, statsProvider.getLongValue(DISPATCHED_COUNTER));
+
+    clock.advance(Amount.of(1L, Time.SECONDS));
+    dispatcher.dispatchNext();
+    assertEquals(3L, statsProvider.getLongValue(DISPATCHED_COUNTER));
+
+    // The throttle is discarded once it is drained and its permit interval has passed.
+    assertEquals(1L, statsProvider.getLongValue(AGENT_THROTTLES_GAUGE));
+    clock.advance(Amount.of(1L, Time.SECONDS));
+    assertEquals(0L, statsProvider.getLongValue(AGENT_THROTTLES_GAUGE));
+    clock.assertEmpty();
+  }
+
+  @Test
+  public void testThrottleWithDeferredKillsKept() throws Exception {
+    driver.killTask("a");
+    driver.killTask("b");
+
+    control.replay();
+
+    KillDispatcherImpl dispatcher = createDispatcher(10, 0.1);
+    dispatcher.killTask("a", AGENT_A);
+    dispatcher.killTask("b", AGENT_A);
+    dispatcher.dispatchNext();
+    dispatcher.dispatchNext();
+    assertEquals(1L, statsProvider.getLongValue(AGENT_THROTTLED_COUNTER));
+
+    // The throttle is not discarded while it holds a deferred kill.
+    clock.advance(Amount.of(10L, Time.SECONDS));
+    assertEquals(1L, statsProvider.getLongValue(QUEUE_SIZE_GAUGE));
+    dispatcher.dispatchNext();
+    assertEquals(2L, statsProvider.getLongValue(DISPATCHED_COUNTER));
+  }
+
+  @Test
+  public void testFullQueueHoldsBackKills() throws Exception {
+    driver.killTask("a");
+    driver.killTask("b");
+
+    control.replay();
+
+    KillDispatcherImpl dispatcher = createDispatcher(1, 1000);
+    dispatcher.killTask("a", AGENT_A);
+    Thread submitter = new Thread(() -> dispatcher.killTask("b", AGENT_B));
+    submitter.start();
+    while (statsProvider.getLongValue(QUEUE_FULL_COUNTER) == 0) {
+      Thread.yield();
+    }
+
+    // The kill that did not fit is not sent until it has passed through the queue.
+    assertEquals(0L, statsProvider.getLongValue(DISPATCHED_COUNTER));
+    dispatcher.dispatchNext();
+    submitter.join();
+    assertEquals(1L, statsProvider.getLongValue(QUEUE_SIZE_GAUGE));
+    dispatcher.dispatchNext();
+    assertEquals(2L, statsProvider.getLongValue(DISPATCHED_COUNTER));
+  }
+}
@@ -0,0 +1,323 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.state;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.testing.easymock.EasyMockTest;
+import org.apache.aurora.common.util.testing.FakeClock;
+import org.apache.aurora.gen.HostAttributes;
+import org.apache.aurora.scheduler.HostOffer;
+import org.apache.aurora.scheduler.async.DelayExecutor;
+import org.apache.aurora.scheduler.base.SchedulerException;
+import org.apache.aurora.scheduler.mesos.MesosTaskFactory;
+import org.apache.aurora.scheduler.offers.OfferManager;
+import org.apache.aurora.scheduler.offers.OfferManager.LaunchException;
+import org.apache.aurora.scheduler.state.LaunchDispatcherImpl.LaunchDispatcherSettings;
+import org.apache.aurora.scheduler.storage.entities.IAssignedTask;
+import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
+import org.apache.aurora.scheduler.storage.testing.StorageTestUtil;
+import org.apache.aurora.scheduler.testing.FakeStatsProvider;
+import org.apache.mesos.Protos.Offer;
+import org.apache.mesos.Protos.TaskID;
+import org.apache.mesos.Protos.TaskInfo;
+import org.easymock.Capture;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.apache.aurora.gen.ScheduleStatus.ASSIGNED;
+import static org.apache.aurora.gen.ScheduleStatus.LOST;
+import static org.apache.aurora.scheduler.base.TaskTestUtil.JOB;
+import static org.apache.aurora.scheduler.base.TaskTestUtil.makeTask;
+import static org.apache.aurora.scheduler.resources.ResourceTestUtil.mesosScalar;
+import static org.apache.aurora.scheduler.resources.ResourceTestUtil.offer;
+import static org.apache.aurora.scheduler.resources.ResourceType.CPUS;
+import static org.apache.aurora.scheduler.state.LaunchDispatcherImpl.LAUNCH_FAILED_MSG;
+import static org.apache.aurora.scheduler.state.LaunchDispatcherImpl.LAUNCH_FAILURES_COUNTER;
+import static org.apache.aurora.scheduler.state.LaunchDispatcherImpl.OFFERS_ACCEPTED_COUNTER;
+import static org.apache.aurora.scheduler.state.LaunchDispatcherImpl.QUEUE_SIZE_GAUGE;
+import static org.apache.aurora.scheduler.state.LaunchDispatcherImpl.TASKS_LAUNCHED_COUNTER;
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.junit.Assert.assertEquals;
+
+public class LaunchDispatcherImplTest extends EasyMockTest {
+
+  private static final Offer OFFER = offer(mesosScalar(CPUS, 2.0));
+  private static final IHostAttributes ATTRIBUTES = IHostAttributes.build(new HostAttributes());
+  private static final HostOffer HOST_OFFER = new HostOffer(OFFER, ATTRIBUTES);
+  private static final Offer REMAINDER = offer(mesosScalar(CPUS, 1.0));
+  private static final HostOffer HOST_REMAINDER = new HostOffer(REMAINDER, ATTRIBUTES);
+  private static final Amount<Long, Time> PACKING_WINDOW = Amount.of(1L, Time.SECONDS);
+  private static final IAssignedTask TASK_A = makeTask("a", JOB).getAssignedTask();
+  private static final IAssignedTask TASK_B = makeTask("b", JOB).getAssignedTask();
+  private static final TaskInfo TASK_INFO_A = taskInfo(TASK_A);
+  private static final TaskInfo TASK_INFO_B = taskInfo(TASK_B);
+
+  private MesosTaskFactory taskFactory;
+  private OfferManager offerManager;
+  private StateManager stateManager;
+  private StorageTestUtil storageUtil;
+  private DelayExecutor executor;
+  private FakeStatsProvider statsProvider;
+  private LaunchDispatcherImpl dispatcher;
+
+  @Before
+  public void setUp() {
+    taskFactory = createMock(MesosTaskFactory.class);
+    offerManager = createMock(OfferManager.class);
+    stateManager = createMock(StateManager.class);
+    storageUtil = new StorageTestUtil(this);
+    executor = createMock(DelayExecutor.class);
+    statsProvider = new FakeStatsProvider();
+    dispatcher = createDispatcher(Optional.absent());
+  }
+
+  private LaunchDispatcherImpl createDispatcher(Optional<Amount<Long, Time>> packingWindow) {
+    return new LaunchDispatcherImpl(
+        taskFactory,
+        offerManager,
+        stateManager,
+        storageUtil.storage,
+        executor,
+        new FakeClock(),
+        statsProvider,
+        new LaunchDispatcherSettings(packingWindow));
+  }
+
+  private static TaskInfo taskInfo(IAssignedTask task) {
+    return TaskInfo.newBuilder()
+        .setName("taskName")
+        .setTaskId(TaskID.newBuilder().setValue(task.getTaskId()))
+        .setSlaveId(OFFER.getSlaveId())
+        .build();
+  }
+
+  private Capture<Runnable> expectEnqueue() {
+    Capture<Runnable> enqueue = createCapture();
+    executor.execute(capture(enqueue));
+    return enqueue;
+  }
+
+  private void expectLost(IAssignedTask task) {
+    expect(stateManager.changeState(
+        storageUtil.mutableStoreProvider,
+        task.getTaskId(),
+        Optional.of(ASSIGNED),
+        LOST,
+        LAUNCH_FAILED_MSG))
+        .andReturn(StateChangeResult.SUCCESS);
+  }
+
+  @Test
+  public void testTasksBatchedPerOffer() throws Exception {
+    Capture<Runnable> enqueue = expectEnqueue();
+    expect(taskFactory.createFrom(TASK_A, OFFER)).andReturn(TASK_INFO_A);
+    expect(taskFactory.createFrom(TASK_B, OFFER)).andReturn(TASK_INFO_B);
+    offerManager.launchTasks(OFFER.getId(), ImmutableList.of(TASK_INFO_A, TASK_INFO_B));
+
+    control.replay();
+
+    dispatcher.launch(HOST_OFFER, TASK_A);
+    dispatcher.launch(HOST_OFFER, TASK_B);
+    assertEquals(0L, statsProvider.getLongValue(QUEUE_SIZE_GAUGE));
+
+    // Simulates the end of the transaction.
+    enqueue.getValue().run();
+    assertEquals(1L, statsProvider.getLongValue(QUEUE_SIZE_GAUGE));
+
+    dispatcher.dispatchNext();
+    assertEquals(0L, statsProvider.getLongValue(QUEUE_SIZE_GAUGE));
+    assertEquals(1L, statsProvider.getLongValue(OFFERS_ACCEPTED_COUNTER));
+    assertEquals(2L, statsProvider.getLongValue(TASKS_LAUNCHED_COUNTER));
+  }
+
+  @Test
+  public void testLaunchFailureMarksTasksLost() throws Exception {
+    storageUtil.expectOperations();
+    Capture<Runnable> enqueue = expectEnqueue();
+    expect(taskFactory.createFrom(TASK_A, OFFER)).andReturn(TASK_INFO_A);
+    offerManager.launchTasks(OFFER.getId(), ImmutableList.of(TASK_INFO_A));
+    expectLastCall().andThrow(new LaunchException("expected"));
+    expectLost(TASK_A);
+
+    control.replay();
+
+    dispatcher.launch(HOST_OFFER, TASK_A);
+    enqueue.getValue().run();
+    dispatcher.dispatchNext();
+    assertEquals(1L, statsProvider.getLongValue(LAUNCH_FAILURES_COUNTER));
+    assertEquals(0L, statsProvider.getLongValue(TASKS_LAUNCHED_COUNTER));
+  }
+
+  @Test
+  public void testUnexpectedFailureMarksBatchLost() throws Exception {
+    storageUtil.expectOperations();
+    Capture<Runnable> first = expectEnqueue();
+    Capture<Runnable> second = expectEnqueue();
+    expect(taskFactory.createFrom(TASK_A, OFFER)).andReturn(TASK_INFO_A);
+    offerManager.launchTasks(OFFER.getId(), ImmutableList.of(TASK_INFO_A));
+    expectLastCall().andThrow(new IllegalArgumentException("expected"));
+    expectLost(TASK_A);
+    offerManager.launchTasks(OFFER.getId(), ImmutableList.of());
+    expect(taskFactory.createFrom(TASK_B, OFFER)).andReturn(TASK_INFO_B);
+    offerManager.launchTasks(OFFER.getId(), ImmutableList.of(TASK_INFO_B));
+
+    control.replay();
+
+    dispatcher.launch(HOST_OFFER, TASK_A);
+    first.getValue().run();
+    dispatcher.dispatchNext();
+    assertEquals(1L, statsProvider.getLongValue(LAUNCH_FAILURES_COUNTER));
+
+    // The failure is confined to its batch.
+    dispatcher.launch(HOST_OFFER, TASK_B);
+    second.getValue().run();
+    dispatcher.dispatchNext();
+    assertEquals(1L, statsProvider.getLongValue(TASKS_LAUNCHED_COUNTER));
+  }
+
+  @Test
+  public void testTaskInfoFailureLaunchesRemainingTasks() throws Exception {
+    storageUtil.expectOperations();
+    Capture<Runnable> enqueue = expectEnqueue();
+    expect(taskFactory.createFrom(TASK_A, OFFER)).andThrow(new SchedulerException("expected"));
+    expect(taskFactory.createFrom(TASK_B, OFFER)).andReturn(TASK_INFO_B);
+    offerManager.launchTasks(OFFER.getId(), ImmutableList.of(TASK_INFO_B));
+    expectLost(TASK_A);
+
+    control.replay();
+
+    dispatcher.launch(HOST_OFFER, TASK_A);
+    dispatcher.launch(HOST_OFFER, TASK_B);
+    enqueue.getValue().run();
+    dispatcher.dispatchNext();
+    assertEquals(1L, statsProvider.getLongValue(LAUNCH_FAILURES_COUNTER));
+    assertEquals(1L, statsProvider.getLongValue(TASKS_LAUNCHED_COUNTER));
+  }
+
+  @Test
+  public void testNewBatchAfterDispatch() throws Exception {
+    Capture<Runnable> first = expectEnqueue();
+    Capture<Runnable> second = expectEnqueue();
+    expect(taskFactory.createFrom(TASK_A, OFFER)).andReturn(TASK_INFO_A);
+    offerManager.launchTasks(OFFER.getId(), ImmutableList.of(TASK_INFO_A));
+    expect(taskFactory.createFrom(TASK_B, OFFER)).andReturn(TASK_INFO_B);
+    offerManager.launchTasks(OFFER.getId(), ImmutableList.of(TASK_INFO_B));
+
+    control.replay();
+
+    dispatcher.launch(HOST_OFFER, TASK_A);
+    first.getValue().run();
+    dispatcher.dispatchNext();
+
+    dispatcher.launch(HOST_OFFER, TASK_B);
+    second.getValue().run();
+    dispatcher.dispatchNext();
+    assertEquals(2L, statsProvider.getLongValue(OFFERS_ACCEPTED_COUNTER));
+  }
+
+  @Test
+  public void testWithdrawnLaunchNotSent() throws Exception {
+    Capture<Runnable> enqueue = expectEnqueue();
+
+    control.replay();
+
+    dispatcher.launch(HOST_OFFER, TASK_A);
+    dispatcher.withdraw(OFFER.getId());
+
+    // Simulates the end of the failed transaction.
+    enqueue.getValue().run();
+    assertEquals(0L, statsProvider.getLongValue(QUEUE_SIZE_GAUGE));
+  }
+
+  @Test
+  public void testWithdrawnPackedLaunchNotSent() throws Exception {
+    storageUtil.expectOperations();
+    expect(taskFactory.getRemainder(TASK_A, OFFER)).andReturn(REMAINDER);
+    offerManager.addPackedOffer(HOST_REMAINDER);
+    Capture<Runnable> windowClosed = createCapture();
+    executor.execute(capture(windowClosed), eq(PACKING_WINDOW));
+    offerManager.cancelOffer(OFFER.getId());
+
+    control.replay();
+
+    dispatcher = createDispatcher(Optional.of(PACKING_WINDOW));
+    dispatcher.launch(HOST_OFFER, TASK_A);
+    dispatcher.withdraw(OFFER.getId());
+
+    windowClosed.getValue().run();
+    assertEquals(0L, statsProvider.getLongValue(QUEUE_SIZE_GAUGE));
+  }
+
+  @Test
+  public void testPackedTasksLaunchedTogether() throws Exception {
+    storageUtil.expectOperations();
+    expect(taskFactory.getRemainder(TASK_A, OFFER)).andReturn(REMAINDER);
+    offerManager.addPackedOffer(HOST_REMAINDER);
+    Capture<Runnable> windowClosed = createCapture();
+    executor.execute(capture(windowClosed), eq(PACKING_WINDOW));
+    expect(taskFactory.getRemainder(TASK_B, REMAINDER)).andReturn(offer());
+    Capture<Runnable> offerUsedUp = expectEnqueue();
+    offerManager.cancelOffer(OFFER.getId());
+    expect(taskFactory.createFrom(TASK_A, OFFER)).andReturn(TASK_INFO_A);
+    expect(taskFactory.createFrom(TASK_B, REMAINDER)).andReturn(TASK_INFO_B);
+    offerManager.launchTasks(OFFER.getId(), ImmutableList.of(TASK_INFO_A, TASK_INFO_B));
+
+    control.replay();
+
+    dispatcher = createDispatcher(Optional.of(PACKING_WINDOW));
+    dispatcher.launch(HOST_OFFER, TASK_A);
+    dispatcher.launch(HOST_REMAINDER, TASK_B);
+    offerUsedUp.getValue().run();
+    assertEquals(1L, statsProvider.getLongValue(QUEUE_SIZE_GAUGE));
+
+    // The batch is already closed, and is not launched again when the window closes.
+    windowClosed.getValue().run();
+    assertEquals(1L, statsProvider.getLongValue(QUEUE_SIZE_GAUGE));
+
+    dispatcher.dispatchNext();
+    assertEquals(1L, statsProvider.getLongValue(OFFERS_ACCEPTED_COUNTER));
+    assertEquals(2L, statsProvider.getLongValue(TASKS_LAUNCHED_COUNTER));
+  }
+
+  @Test
+  public void testPackedOfferLaunchedWhenWindowCloses() throws Exception {
+    storageUtil.expectOperations();
+    expect(taskFactory.getRemainder(TASK_A, OFFER)).andReturn(REMAINDER);
+    offerManager.addPackedOffer(HOST_REMAINDER);
+    Capture<Runnable> windowClosed = createCapture();
+    executor.execute(capture(windowClosed), eq(PACKING_WINDOW));
+    offerManager.cancelOffer(OFFER.getId());
+    expect(taskFactory.createFrom(TASK_A, OFFER)).andReturn(TASK_INFO_A);
+    offerManager.launchTasks(OFFER.getId(), ImmutableList.of(TASK_INFO_A));
+
+    control.replay();
+
+    dispatcher = createDispatcher(Optional.of(PACKING_WINDOW));
+    dispatcher.launch(HOST_OFFER, TASK_A);
+    assertEquals(0L, statsProvider.getLongValue(QUEUE_SIZE_GAUGE));
+
+    windowClosed.getValue().run();
+    assertEquals(1L, statsProvider.getLongValue(QUEUE_SIZE_GAUGE));
+
+    dispatcher.dispatchNext();
+    assertEquals(1L, statsProvider.getLongValue(TASKS_LAUNCHED_COUNTER));
+  }
+}
@@ -35,6 +35,8 @@ import org.apache.aurora.scheduler.base.Query;
 import org.apache.aurora.scheduler.base.TaskTestUtil;
 import org.apache.aurora.scheduler.base.Tasks;
 import org.apache.aurora.scheduler.events.EventSink;
+import org.apache.aurora.scheduler.events.PubsubEvent.DriverRegistered;
+import org.apache.aurora.scheduler.events.PubsubEvent.HostAttributesChanged;
 import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
 import org.apache.aurora.scheduler.events.PubsubEventModule;
 import org.apache.aurora.scheduler.storage.Storage;
@@ -59,6 +61,7 @@ import static org.junit.Assert.assertEquals;
 public class MaintenanceControllerImplTest extends EasyMockTest {
 
   private static final String HOST_A = "a";
+  private static final String HOST_B = "b";
   private static final Set<String> A = ImmutableSet.of(HOST_A);
 
   private StorageTestUtil storageUtil;
@@ -114,9 +117,7 @@ public class MaintenanceControllerImplTest extends EasyMockTest {
     expect(storageUtil.attributeStore.getHostAttributes(HOST_A))
         .andReturn(Optional.of(attributes)).times(2);
 
-    expect(storageUtil.attributeStore.getHostAttributes()).andReturn(ImmutableSet.of(attributes));
-    expectFetchTasksByHost(HOST_A, ImmutableSet.of(task2));
-    // TaskA is KILLED and therefore no longer active
+    // Storage is only consulted once the last task on the host is KILLED.
     expectFetchTasksByHost(HOST_A, ImmutableSet.of());
     expectMaintenanceModeChange(HOST_A, DRAINED);
     expectMaintenanceModeChange(HOST_A, NONE);
@@ -135,6 +136,32 @@ public class MaintenanceControllerImplTest extends EasyMockTest {
     assertStatus(HOST_A, NONE, maintenance.endMaintenance(A));
   }
 
+  @Test
+  public void testDrainCompletesWithReorderedTaskEvents() {
+    IScheduledTask task1 = makeTask(HOST_A, "taskA");
+    IScheduledTask task2 = makeTask(HOST_A, "taskB");
+
+    expectFetchTasksByHost(HOST_A, ImmutableSet.of(task1, task2));
+    expectTaskDraining(task1);
+    expectTaskDraining(task2);
+    expectMaintenanceModeChange(HOST_A, DRAINING);
+    expect(storageUtil.attributeStore.getHostAttributes(HOST_A))
+        .andReturn(Optional.of(drainingHost(HOST_A)));
+    expectFetchTasksByHost(HOST_A, ImmutableSet.of());
+    expectMaintenanceModeChange(HOST_A, DRAINED);
+
+    control.replay();
+
+    assertStatus(HOST_A, DRAINING, maintenance.drain(A));
+    // The DRAINING transition of task1 is delivered after its terminal transition.
+    eventSink.post(TaskStateChange.transition(
+        IScheduledTask.build(task1.newBuilder().setStatus(KILLED)), ScheduleStatus.DRAINING));
+    eventSink.post(TaskStateChange.transition(
+        IScheduledTask.build(task1.newBuilder().setStatus(ScheduleStatus.DRAINING)), RUNNING));
+    eventSink.post(TaskStateChange.transition(
+        IScheduledTask.build(task2.newBuilder().setStatus(KILLED)), ScheduleStatus.DRAINING));
+  }
+
   @Test
   public void testUnknownHost() {
     expect(storageUtil.attributeStore.getHostAttributes("b"))
@@ -162,8 +189,6 @@ public class MaintenanceControllerImplTest extends EasyMockTest {
   public void testEndEarly() {
     expectMaintenanceModeChange(HOST_A, SCHEDULED);
     expectMaintenanceModeChange(HOST_A, NONE);
-    expect(storageUtil.attributeStore.getHostAttributes(HOST_A)).andReturn(Optional.of(
-        IHostAttributes.build(new HostAttributes().setHost(HOST_A).setMode(NONE))));
 
     control.replay();
 
@@ -178,6 +203,65 @@ public class MaintenanceControllerImplTest extends EasyMockTest {
         IScheduledTask.build(makeTask(HOST_A, "taskA").newBuilder().setStatus(KILLED)), RUNNING));
   }
 
+  @Test
+  public void testDrainTrackedAfterDriverRegistered() {
+    IHostAttributes drainingA = drainingHost(HOST_A);
+    IHostAttributes drainingB = drainingHost(HOST_B);
+    IScheduledTask taskB = makeTask(HOST_B, "taskB");
+
+    expect(storageUtil.attributeStore.getHostAttributes())
+        .andReturn(ImmutableSet.of(drainingA, drainingB));
+    expect(storageUtil.attributeStore.getHostAttributes(HOST_A))
+        .andReturn(Optional.of(drainingA));
+    expectFetchTasksByHost(HOST_A, ImmutableSet.of());
+    expectMaintenanceModeChange(HOST_A, DRAINED);
+    expect(storageUtil.attributeStore.getHostAttributes(HOST_B))
+        .andReturn(Optional.of(drainingB)).times(2);
+    expectFetchTasksByHost(HOST_B, ImmutableSet.of(taskB));
+    expectFetchTasksByHost(HOST_B, ImmutableSet.of());
+    expectMaintenanceModeChange(HOST_B, DRAINED);
+
+    control.replay();
+
+    eventSink.post(new DriverRegistered());
+    // A task on a host that is not draining does not touch storage.
+    eventSink.post(TaskStateChange.transition(
+        IScheduledTask.build(makeTask(HOST_A, "taskA").newBuilder().setStatus(KILLED)), RUNNING));
+    eventSink.post(TaskStateChange.transition(
+        IScheduledTask.build(taskB.newBuilder().setStatus(KILLED)), RUNNING));
+  }
+
+  @Test
+  public void testDrainTrackedFromAttributeChange() {
+    IHostAttributes draining = drainingHost(HOST_A);
+    IScheduledTask task = makeTask(HOST_A, "taskA");
+
+    expect(storageUtil.attributeStore.getHostAttributes(HOST_A))
+        .andReturn(Optional.of(draining)).times(2);
+    expectFetchTasksByHost(HOST_A, ImmutableSet.of(task));
+    expectFetchTasksByHost(HOST_A, ImmutableSet.of());
+    expectMaintenanceModeChange(HOST_A, DRAINED);
+
+    control.replay();
+
+    eventSink.post(new HostAttributesChanged(draining));
+    // The host is already tracked.
+    eventSink.post(new HostAttributesChanged(draining));
+    eventSink.post(TaskStateChange.transition(
+        IScheduledTask.build(task.newBuilder().setStatus(KILLED)), RUNNING));
+  }
+
+  @Test
+  public void testGetStatus() {
+    expect(storageUtil.attributeStore.getHostAttributes(HOST_A))
+        .andReturn(Optional.of(drainingHost(HOST_A)));
+    expect(storageUtil.attributeStore.getHostAttributes(HOST_B)).andReturn(Optional.absent());
+
+    control.replay();
+
+    assertStatus(HOST_A, DRAINING, maintenance.getStatus(ImmutableSet.of(HOST_A, HOST_B)));
+  }
+
   @Test
   public void testGetMode() {
     expect(storageUtil.attributeStore.getHostAttributes(HOST_A)).andReturn(Optional.of(
@@ -190,6 +274,10 @@ public class MaintenanceControllerImplTest extends EasyMockTest {
     assertEquals(NONE, maintenance.getMode("unknown"));
   }
 
+  private static IHostAttributes drainingHost(String host) {
+    return IHostAttributes.build(new HostAttributes().setHost(host).setMode(DRAINING));
+  }
+
   private void expectTaskDraining(IScheduledTask task) {
     expect(stateManager.changeState(
         storageUtil.mutableStoreProvider,
@@ -45,7 +45,6 @@ import org.apache.aurora.scheduler.events.EventSink;
 import org.apache.aurora.scheduler.events.PubsubEvent;
 import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
 import org.apache.aurora.scheduler.events.PubsubEvent.TasksDeleted;
-import org.apache.aurora.scheduler.mesos.Driver;
 import org.apache.aurora.scheduler.resources.ResourceManager;
 import org.apache.aurora.scheduler.scheduling.RescheduleCalculator;
 import org.apache.aurora.scheduler.storage.AttributeStore;
@@ -96,7 +95,7 @@ public class StateManagerImplTest extends EasyMockTest {
       setIsService(TaskTestUtil.makeConfig(TaskTestUtil.JOB), false);
   private static final ITaskConfig SERVICE_CONFIG = setIsService(NON_SERVICE_CONFIG, true);
 
-  private Driver driver;
+  private KillDispatcher killDispatcher;
   private TaskIdGenerator taskIdGenerator;
   private EventSink eventSink;
   private RescheduleCalculator rescheduleCalculator;
@@ -107,14 +106,14 @@ public class StateManagerImplTest extends EasyMockTest {
   @Before
   public void setUp() throws Exception {
     taskIdGenerator = createMock(TaskIdGenerator.class);
-    driver = createMock(Driver.class);
+    killDispatcher = createMock(KillDispatcher.class);
     eventSink = createMock(EventSink.class);
     rescheduleCalculator = createMock(RescheduleCalculator.class);
     // TODO(William Farner): Use a mocked storage.
     storage = DbUtil.createStorage();
     stateManager = new StateManagerImpl(
         clock,
-        driver,
+        killDispatcher,
         taskIdGenerator,
         eventSink,
         rescheduleCalculator);
@@ -230,7 +229,7 @@ public class StateManagerImplTest extends EasyMockTest {
     String taskId = "a";
     expect(taskIdGenerator.generate(NON_SERVICE_CONFIG, 0)).andReturn(taskId);
     expectStateTransitions(taskId, INIT, PENDING, ASSIGNED, RUNNING, KILLING, KILLED);
-    driver.killTask(EasyMock.anyObject());
+    killDispatcher.killTask(taskId, Optional.of(HOST_A.getSlaveId()));
 
     control.replay();
 
@@ -248,7 +247,7 @@ public class StateManagerImplTest extends EasyMockTest {
     expect(taskIdGenerator.generate(NON_SERVICE_CONFIG, 0)).andReturn(taskId);
     expectStateTransitions(taskId, INIT, PENDING, ASSIGNED, RUNNING, KILLING, LOST);
 
-    driver.killTask(EasyMock.anyObject());
+    killDispatcher.killTask(EasyMock.anyObject(), EasyMock.anyObject());
 
     control.replay();
 
@@ -320,7 +319,7 @@ public class StateManagerImplTest extends EasyMockTest {
   public void testKillUnknownTask() {
     String unknownTask = "unknown";
 
-    driver.killTask(unknownTask);
+    killDispatcher.killTask(unknownTask, Optional.absent());
 
     control.replay();
 
@@ -15,8 +15,8 @@ package org.apache.aurora.scheduler.state;
 
 import java.util.Map;
 
-import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultiset;
 import com.google.common.collect.ImmutableSet;
 
 import org.apache.aurora.common.testing.easymock.EasyMockTest;
@@ -28,11 +28,13 @@ import org.apache.aurora.scheduler.HostOffer;
 import org.apache.aurora.scheduler.TierManager;
 import org.apache.aurora.scheduler.base.TaskGroupKey;
 import org.apache.aurora.scheduler.base.Tasks;
+import org.apache.aurora.scheduler.events.EventSink;
+import org.apache.aurora.scheduler.events.PubsubEvent.Vetoed;
 import org.apache.aurora.scheduler.filter.SchedulingFilter;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.ResourceRequest;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.UnusedResource;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.Veto;
-import org.apache.aurora.scheduler.mesos.MesosTaskFactory;
+import org.apache.aurora.scheduler.filter.SchedulingFilter.VetoGroup;
 import org.apache.aurora.scheduler.offers.OfferManager;
 import org.apache.aurora.scheduler.resources.ResourceBag;
 import org.apache.aurora.scheduler.state.TaskAssigner.TaskAssignerImpl;
@@ -44,16 +46,12 @@ import org.apache.mesos.Protos.FrameworkID;
 import org.apache.mesos.Protos.OfferID;
 import org.apache.mesos.Protos.Resource;
 import org.apache.mesos.Protos.SlaveID;
-import org.apache.mesos.Protos.TaskID;
-import org.apache.mesos.Protos.TaskInfo;
 import org.apache.mesos.Protos.Value.Range;
 import org.apache.mesos.Protos.Value.Ranges;
 import org.apache.mesos.Protos.Value.Type;
 import org.junit.Before;
 import org.junit.Test;
 
-import static org.apache.aurora.gen.ScheduleStatus.LOST;
-import static org.apache.aurora.gen.ScheduleStatus.PENDING;
 import static org.apache.aurora.scheduler.base.TaskTestUtil.DEV_TIER;
 import static org.apache.aurora.scheduler.base.TaskTestUtil.JOB;
 import static org.apache.aurora.scheduler.base.TaskTestUtil.makeTask;
@@ -62,16 +60,16 @@ import static org.apache.aurora.scheduler.resources.ResourceManager.bagFromMesos
 import static org.apache.aurora.scheduler.resources.ResourceTestUtil.mesosRange;
 import static org.apache.aurora.scheduler.resources.ResourceTestUtil.offer;
 import static org.apache.aurora.scheduler.resources.ResourceType.PORTS;
-import static org.apache.aurora.scheduler.state.TaskAssigner.TaskAssignerImpl.LAUNCH_FAILED_MSG;
 import static org.apache.aurora.scheduler.storage.Storage.MutableStoreProvider;
 import static org.apache.mesos.Protos.Offer;
 import static org.easymock.EasyMock.anyObject;
 import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
-import static org.easymock.EasyMock.expectLastCall;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class TaskAssignerImplTest extends EasyMockTest {
 
@@ -82,11 +80,6 @@ public class TaskAssignerImplTest extends EasyMockTest {
       new HostOffer(MESOS_OFFER, IHostAttributes.build(new HostAttributes()));
   private static final IScheduledTask TASK = makeTask("id", JOB);
   private static final TaskGroupKey GROUP_KEY = TaskGroupKey.from(TASK.getAssignedTask().getTask());
-  private static final TaskInfo TASK_INFO = TaskInfo.newBuilder()
-      .setName("taskName")
-      .setTaskId(TaskID.newBuilder().setValue(Tasks.id(TASK)))
-      .setSlaveId(MESOS_OFFER.getSlaveId())
-      .build();
   private static final Map<String, TaskGroupKey> NO_RESERVATION = ImmutableMap.of();
   private static final UnusedResource UNUSED = new UnusedResource(
       bagFromMesosResources(MESOS_OFFER.getResourcesList()),
@@ -99,31 +92,36 @@ public class TaskAssignerImplTest extends EasyMockTest {
   private MutableStoreProvider storeProvider;
   private StateManager stateManager;
   private SchedulingFilter filter;
-  private MesosTaskFactory taskFactory;
   private OfferManager offerManager;
+  private LaunchDispatcher launchDispatcher;
   private TaskAssignerImpl assigner;
   private TierManager tierManager;
+  private EventSink eventSink;
 
   @Before
   public void setUp() throws Exception {
     storeProvider = createMock(MutableStoreProvider.class);
     filter = createMock(SchedulingFilter.class);
-    taskFactory = createMock(MesosTaskFactory.class);
     stateManager = createMock(StateManager.class);
     offerManager = createMock(OfferManager.class);
+    launchDispatcher = createMock(LaunchDispatcher.class);
     tierManager = createMock(TierManager.class);
-    assigner = new TaskAssignerImpl(stateManager, filter, taskFactory, offerManager, tierManager);
+    eventSink = createMock(EventSink.class);
+    assigner = new TaskAssignerImpl(
+        stateManager,
+        filter,
+        offerManager,
+        launchDispatcher,
+        tierManager,
+        eventSink);
   }
 
   @Test
   public void testAssignNoVetoes() throws Exception {
     expect(offerManager.getOffers(GROUP_KEY)).andReturn(ImmutableSet.of(OFFER));
-    offerManager.launchTask(MESOS_OFFER.getId(), TASK_INFO);
     expect(tierManager.getTier(TASK.getAssignedTask().getTask())).andReturn(DEV_TIER);
     expect(filter.filter(UNUSED, RESOURCE_REQUEST)).andReturn(ImmutableSet.of());
-    expectAssignTask(MESOS_OFFER);
-    expect(taskFactory.createFrom(TASK.getAssignedTask(), MESOS_OFFER))
-        .andReturn(TASK_INFO);
+    expectAssignTask(OFFER);
 
     control.replay();
 
@@ -142,6 +140,7 @@ public class TaskAssignerImplTest extends EasyMockTest {
     expect(tierManager.getTier(TASK.getAssignedTask().getTask())).andReturn(DEV_TIER);
     expect(filter.filter(UNUSED, RESOURCE_REQUEST))
         .andReturn(ImmutableSet.of(Veto.constraintMismatch("denied")));
+    eventSink.post(new Vetoed(GROUP_KEY, ImmutableSet.of(Veto.constraintMismatch("denied"))));
 
     control.replay();
 
@@ -159,6 +158,7 @@ public class TaskAssignerImplTest extends EasyMockTest {
     expect(tierManager.getTier(TASK.getAssignedTask().getTask())).andReturn(DEV_TIER);
     expect(filter.filter(UNUSED, RESOURCE_REQUEST))
         .andReturn(ImmutableSet.of(Veto.unsatisfiedLimit("limit")));
+    eventSink.post(new Vetoed(GROUP_KEY, ImmutableSet.of(Veto.unsatisfiedLimit("limit"))));
 
     control.replay();
 
@@ -171,22 +171,11 @@ public class TaskAssignerImplTest extends EasyMockTest {
   }
 
   @Test
-  public void testAssignmentClearedOnError() throws Exception {
+  public void testClaimedOfferSkipped() throws Exception {
     expect(offerManager.getOffers(GROUP_KEY)).andReturn(ImmutableSet.of(OFFER));
-    offerManager.launchTask(MESOS_OFFER.getId(), TASK_INFO);
-    expectLastCall().andThrow(new OfferManager.LaunchException("expected"));
     expect(tierManager.getTier(TASK.getAssignedTask().getTask())).andReturn(DEV_TIER);
     expect(filter.filter(UNUSED, RESOURCE_REQUEST)).andReturn(ImmutableSet.of());
-    expectAssignTask(MESOS_OFFER);
-    expect(stateManager.changeState(
-        storeProvider,
-        Tasks.id(TASK),
-        Optional.of(PENDING),
-        LOST,
-        LAUNCH_FAILED_MSG))
-        .andReturn(StateChangeResult.SUCCESS);
-    expect(taskFactory.createFrom(TASK.getAssignedTask(), MESOS_OFFER))
-        .andReturn(TASK_INFO);
+    expect(offerManager.claimOffer(MESOS_OFFER.getId())).andReturn(false);
 
     control.replay();
 
@@ -235,10 +224,7 @@ public class TaskAssignerImplTest extends EasyMockTest {
     expect(offerManager.getOffers(GROUP_KEY)).andReturn(ImmutableSet.of(offer, OFFER));
     expect(tierManager.getTier(TASK.getAssignedTask().getTask())).andReturn(DEV_TIER);
     expect(filter.filter(UNUSED, RESOURCE_REQUEST)).andReturn(ImmutableSet.of());
-    expectAssignTask(offer.getOffer());
-    expect(taskFactory.createFrom(TASK.getAssignedTask(), offer.getOffer()))
-        .andReturn(TASK_INFO);
-    offerManager.launchTask(offer.getOffer().getId(), TASK_INFO);
+    expectAssignTask(offer);
 
     control.replay();
 
@@ -282,10 +268,13 @@ public class TaskAssignerImplTest extends EasyMockTest {
         RESOURCE_REQUEST))
         .andReturn(ImmutableSet.of());
 
-    expectAssignTask(MESOS_OFFER);
-    expect(taskFactory.createFrom(TASK.getAssignedTask(), OFFER.getOffer()))
-        .andReturn(TASK_INFO);
-    offerManager.launchTask(OFFER.getOffer().getId(), TASK_INFO);
+    expectAssignTask(OFFER);
+
+    // The veto of the first offer is published even though the attempt succeeded.
+    eventSink.post(new Vetoed(
+        GROUP_KEY,
+        ImmutableSet.of(Veto.constraintMismatch("constraint mismatch")),
+        ImmutableMultiset.of(VetoGroup.STATIC)));
 
     control.replay();
 
@@ -297,6 +286,86 @@ public class TaskAssignerImplTest extends EasyMockTest {
         ImmutableMap.of(SLAVE_ID, GROUP_KEY)));
   }
 
+  @Test
+  public void testVetoesSummarizedPerAttempt() throws Exception {
+    HostOffer mismatched = new HostOffer(
+        Offer.newBuilder()
+            .setId(OfferID.newBuilder().setValue("offerId0"))
+            .setFrameworkId(FrameworkID.newBuilder().setValue("frameworkId"))
+            .setSlaveId(SlaveID.newBuilder().setValue("slaveId0"))
+            .setHostname("hostName0")
+            .build(),
+        IHostAttributes.build(new HostAttributes()));
+
+    Veto constraintVeto = Veto.constraintMismatch("constraint mismatch");
+    Veto resourceVeto = Veto.insufficientResources("ram", 10);
+    expect(offerManager.getOffers(GROUP_KEY)).andReturn(ImmutableSet.of(mismatched, OFFER));
+    expect(tierManager.getTier(TASK.getAssignedTask().getTask())).andReturn(DEV_TIER).times(2);
+    expect(filter.filter(
+        new UnusedResource(
+            bagFromMesosResources(mismatched.getOffer().getResourcesList()),
+            mismatched.getAttributes()),
+        RESOURCE_REQUEST))
+        .andReturn(ImmutableSet.of(constraintVeto));
+    offerManager.banOffer(mismatched.getOffer().getId(), GROUP_KEY);
+    expect(filter.filter(UNUSED, RESOURCE_REQUEST)).andReturn(ImmutableSet.of(resourceVeto));
+    offerManager.banOffer(MESOS_OFFER.getId(), GROUP_KEY);
+
+    // Only one event is sent for both offers, carrying the closest fit.
+    eventSink.post(new Vetoed(
+        GROUP_KEY,
+        ImmutableSet.of(resourceVeto),
+        ImmutableMultiset.of(VetoGroup.STATIC, VetoGroup.STATIC)));
+
+    control.replay();
+
+    assertFalse(assigner.maybeAssign(
+        storeProvider,
+        RESOURCE_REQUEST,
+        TaskGroupKey.from(TASK.getAssignedTask().getTask()),
+        Tasks.id(TASK),
+        NO_RESERVATION));
+  }
+
+  @Test
+  public void testClaimedOfferReleasedWhenAssignmentFails() throws Exception {
+    expect(offerManager.getOffers(GROUP_KEY)).andReturn(ImmutableSet.of(OFFER));
+    expect(tierManager.getTier(TASK.getAssignedTask().getTask())).andReturn(DEV_TIER);
+    expect(filter.filter(UNUSED, RESOURCE_REQUEST)).andReturn(ImmutableSet.of());
+    expect(offerManager.claimOffer(MESOS_OFFER.getId())).andReturn(true);
+    IllegalStateException failure = new IllegalStateException("Task is not pending.");
+    expect(stateManager.assignTask(
+        eq(storeProvider),
+        eq(Tasks.id(TASK)),
+        eq(MESOS_OFFER.getHostname()),
+        eq(MESOS_OFFER.getSlaveId()),
+        anyObject())).andThrow(failure);
+    offerManager.releaseOffer(OFFER);
+
+    control.replay();
+
+    try {
+      assigner.maybeAssign(
+          storeProvider,
+          RESOURCE_REQUEST,
+          GROUP_KEY,
+          Tasks.id(TASK),
+          NO_RESERVATION);
+      fail();
+    } catch (IllegalStateException e) {
+      assertSame(failure, e);
+    }
+  }
+
+  @Test
+  public void testWithdrawClaimed() {
+    launchDispatcher.withdraw(MESOS_OFFER.getId());
+
+    control.replay();
+
+    assigner.withdrawClaimed(OFFER);
+  }
+
   @Test
   public void testResourceMapperCallback() {
     AssignedTask builder = TASK.newBuilder().getAssignedTask();
@@ -309,12 +378,14 @@ public class TaskAssignerImplTest extends EasyMockTest {
         assigner.mapAndAssignResources(MESOS_OFFER, IAssignedTask.build(builder)));
   }
 
-  private void expectAssignTask(Offer offer) {
+  private void expectAssignTask(HostOffer offer) {
+    expect(offerManager.claimOffer(offer.getOffer().getId())).andReturn(true);
+    launchDispatcher.launch(offer, TASK.getAssignedTask());
     expect(stateManager.assignTask(
         eq(storeProvider),
         eq(Tasks.id(TASK)),
-        eq(offer.getHostname()),
-        eq(offer.getSlaveId()),
+        eq(offer.getOffer().getHostname()),
+        eq(offer.getOffer().getSlaveId()),
         anyObject())).andReturn(TASK.getAssignedTask());
   }
 }
@@ -0,0 +1,79 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.state;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.ImmutableSet;
+
+import org.apache.aurora.gen.JobKey;
+import org.apache.aurora.gen.TaskConfig;
+import org.apache.aurora.scheduler.base.TaskGroupKey;
+import org.apache.aurora.scheduler.events.PubsubEvent.Vetoed;
+import org.apache.aurora.scheduler.filter.SchedulingFilter.Veto;
+import org.apache.aurora.scheduler.filter.SchedulingFilter.VetoGroup;
+import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class VetoAccumulatorTest {
+
+  private static final TaskGroupKey GROUP_KEY = TaskGroupKey.from(
+      ITaskConfig.build(new TaskConfig().setJob(new JobKey("role", "env", "job"))));
+
+  private VetoAccumulator accumulator;
+
+  @Before
+  public void setUp() {
+    accumulator = new VetoAccumulator(GROUP_KEY);
+  }
+
+  @Test
+  public void testNoVetoes() {
+    assertEquals(0, accumulator.size());
+    assertEquals(Optional.absent(), accumulator.summarize());
+  }
+
+  @Test
+  public void testKeepsClosestFit() {
+    Veto constraint = Veto.constraintMismatch("rack");
+    Veto ram = Veto.insufficientResources("ram", 100);
+    Veto limit = Veto.unsatisfiedLimit("host");
+
+    accumulator.record(ImmutableSet.of(constraint));
+    accumulator.record(ImmutableSet.of(ram));
+    accumulator.record(ImmutableSet.of(limit, ram));
+
+    assertEquals(3, accumulator.size());
+    assertEquals(
+        Optional.of(new Vetoed(
+            GROUP_KEY,
+            ImmutableSet.of(ram),
+            ImmutableMultiset.of(VetoGroup.STATIC, VetoGroup.STATIC, VetoGroup.MIXED))),
+        accumulator.summarize());
+  }
+
+  @Test
+  public void testTiesKeepFirstVetoes() {
+    Veto first = Veto.insufficientResources("cpu", 100);
+    Veto second = Veto.insufficientResources("ram", 100);
+
+    accumulator.record(ImmutableSet.of(first));
+    accumulator.record(ImmutableSet.of(second));
+
+    assertEquals(ImmutableSet.of(first), accumulator.summarize().get().getVetoes());
+  }
+}
@@ -90,6 +90,9 @@ public class ResourceCounterTest {
     for (Metric metric : resourceCounter.computeConsumptionTotals()) {
       assertEquals(ZERO.getBag(), metric.getBag());
     }
+    for (Metric metric : resourceCounter.computeConsumptionTotals(new StatsPipeline(2))) {
+      assertEquals(ZERO.getBag(), metric.getBag());
+    }
   }
 
   @Test
@@ -113,6 +116,9 @@ public class ResourceCounterTest {
         new Metric(FREE_POOL_CONSUMED, bag(2, 2 * GB, 2 * GB)));
 
     assertEquals(expected, ImmutableSet.copyOf(resourceCounter.computeConsumptionTotals()));
+    assertEquals(
+        expected,
+        ImmutableSet.copyOf(resourceCounter.computeConsumptionTotals(new StatsPipeline(2))));
   }
 
   @Test
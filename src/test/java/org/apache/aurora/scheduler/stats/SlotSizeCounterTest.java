@@ -60,7 +60,11 @@ public class SlotSizeCounterTest extends EasyMockTest {
   public void setUp() {
     slotProvider = createMock(MachineResourceProvider.class);
     statsProvider = createMock(StatsProvider.class);
-    slotCounter = new SlotSizeCounter(SLOT_SIZES, slotProvider, new CachedCounters(statsProvider));
+    slotCounter = new SlotSizeCounter(
+        SLOT_SIZES,
+        slotProvider,
+        new CachedCounters(statsProvider),
+        new StatsPipeline(2));
   }
 
   private void expectStatExport() {
@@ -26,10 +26,12 @@ import com.google.common.base.Optional;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultiset;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Multiset;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
@@ -52,6 +54,7 @@ import org.apache.aurora.gen.MesosContainer;
 import org.apache.aurora.gen.MesosFetcherURI;
 import org.apache.aurora.gen.Metadata;
 import org.apache.aurora.gen.ScheduledTask;
+import org.apache.aurora.gen.TaskEvent;
 import org.apache.aurora.gen.TaskQuery;
 import org.apache.aurora.scheduler.base.JobKeys;
 import org.apache.aurora.scheduler.base.Query;
@@ -69,6 +72,8 @@ import org.junit.Ignore;
 import org.junit.Test;
 
 import static org.apache.aurora.gen.ScheduleStatus.ASSIGNED;
+import static org.apache.aurora.gen.ScheduleStatus.FINISHED;
+import static org.apache.aurora.gen.ScheduleStatus.PENDING;
 import static org.apache.aurora.gen.ScheduleStatus.RUNNING;
 import static org.apache.aurora.scheduler.base.TaskTestUtil.makeTask;
 import static org.junit.Assert.assertEquals;
@@ -360,6 +365,44 @@ public abstract class AbstractTaskStoreTest extends TearDownTestCase {
         IScheduledTask.build(TASK_D.newBuilder().setStatus(ASSIGNED)));
   }
 
+  @Test
+  public void testMutateStateTransitions() {
+    ScheduledTask builder = unsetHost(TASK_A).newBuilder()
+        .setStatus(PENDING)
+        .setTaskEvents(ImmutableList.of(new TaskEvent(100L, PENDING)));
+    builder.getAssignedTask().setAssignedPorts(ImmutableMap.of());
+    IScheduledTask pending = IScheduledTask.build(builder);
+    saveTasks(pending);
+
+    builder = setHost(pending, HOST_A).newBuilder().setStatus(ASSIGNED);
+    builder.addToTaskEvents(new TaskEvent(101L, ASSIGNED));
+    builder.getAssignedTask().setAssignedPorts(ImmutableMap.of("http", 1000));
+    IScheduledTask assigned = IScheduledTask.build(builder);
+    assertMutated(pending, assigned);
+
+    builder = assigned.newBuilder().setStatus(RUNNING).setFailureCount(4);
+    builder.addToTaskEvents(new TaskEvent(102L, RUNNING));
+    IScheduledTask running = IScheduledTask.build(builder);
+    assertMutated(assigned, running);
+
+    // Changes other than those made by state transitions are also stored.
+    builder = setHost(running, HOST_B).newBuilder().setAncestorId("other");
+    builder.getAssignedTask().setAssignedPorts(ImmutableMap.of("http", 1001, "admin", 1002));
+    assertMutated(running, IScheduledTask.build(builder));
+    assertQueryResults(Query.slaveScoped(HOST_A.getHost()));
+  }
+
+  private void assertMutated(IScheduledTask original, IScheduledTask mutated) {
+    Optional<IScheduledTask> result = mutateTask(Tasks.id(original),
+        task -> {
+          assertEquals(original, task);
+          return mutated;
+        });
+    assertEquals(Optional.of(mutated), result);
+    assertEquals(Optional.of(mutated), fetchTask(Tasks.id(original)));
+    assertQueryResults(Query.slaveScoped(mutated.getAssignedTask().getSlaveHost()), mutated);
+  }
+
   @Test
   public void testUnsafeModifyInPlace() {
     ITaskConfig updated = ITaskConfig.build(
@@ -553,6 +596,43 @@ public abstract class AbstractTaskStoreTest extends TearDownTestCase {
     assertQueryResults(Query.slaveScoped(HOST_A.getHost()), updated);
   }
 
+  private Multiset<ITaskConfig> getActiveTaskConfigs(String role) {
+    return storage.read(storeProvider -> storeProvider.getTaskStore().getActiveTaskConfigs(role));
+  }
+
+  @Test
+  public void testActiveTaskConfigs() {
+    IScheduledTask a = makeTask("a", JobKeys.from("role", "env", "job"));
+    IScheduledTask b = makeTask("b", JobKeys.from("role", "env", "job"));
+    ITaskConfig config = a.getAssignedTask().getTask();
+    assertEquals(ImmutableMultiset.of(), getActiveTaskConfigs("role"));
+
+    saveTasks(a, b, TASK_C);
+    assertEquals(ImmutableMultiset.of(config, config), getActiveTaskConfigs("role"));
+    assertEquals(
+        ImmutableMultiset.of(TASK_C.getAssignedTask().getTask()),
+        getActiveTaskConfigs("role-c"));
+
+    mutateTask("a", task -> IScheduledTask.build(task.newBuilder().setStatus(FINISHED)));
+    assertEquals(ImmutableMultiset.of(config), getActiveTaskConfigs("role"));
+
+    ITaskConfig updated = setConfigData(b, "new config data").getAssignedTask().getTask();
+    assertTrue(unsafeModifyInPlace("b", updated));
+    assertEquals(ImmutableMultiset.of(updated), getActiveTaskConfigs("role"));
+
+    // Saving over an existing task replaces its configuration rather than counting it twice.
+    saveTasks(b);
+    assertEquals(ImmutableMultiset.of(config), getActiveTaskConfigs("role"));
+
+    deleteTasks("a", "b");
+    assertEquals(ImmutableMultiset.of(), getActiveTaskConfigs("role"));
+
+    saveTasks(a, b);
+    deleteAllTasks();
+    assertEquals(ImmutableMultiset.of(), getActiveTaskConfigs("role"));
+    assertEquals(ImmutableMultiset.of(), getActiveTaskConfigs("role-c"));
+  }
+
   private Set<IJobKey> getJobKeys() {
     return storage.read(storeProvider -> storeProvider.getTaskStore().getJobKeys());
   }
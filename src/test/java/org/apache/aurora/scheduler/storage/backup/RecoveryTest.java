@@ -68,18 +68,20 @@ public class RecoveryTest extends EasyMockTest {
   private FakeClock clock;
   private StorageBackupImpl storageBackup;
   private RecoveryImpl recovery;
+  private File backupDir;
+  private ScheduledExecutorService executor;
   @Rule
   public TemporaryFolder temporaryFolder = new TemporaryFolder();
 
   @Before
   public void setUp() throws IOException {
-    final File backupDir = temporaryFolder.newFolder();
+    backupDir = temporaryFolder.newFolder();
     snapshotStore = createMock(new Clazz<SnapshotStore<Snapshot>>() { });
     distributedStore = createMock(DistributedSnapshotStore.class);
     primaryStorage = createMock(Storage.class);
     storeProvider = createMock(MutableStoreProvider.class);
     shutDownNow = createMock(Command.class);
-    ScheduledExecutorService executor = createMock(ScheduledExecutorService.class);
+    executor = createMock(ScheduledExecutorService.class);
     clock = FakeScheduledExecutor.scheduleExecutor(executor);
     TemporaryStorageFactory factory = new TemporaryStorageFactory(TaskTestUtil.THRIFT_BACKFILL);
     storageBackup = new StorageBackupImpl(
@@ -150,6 +152,49 @@ public class RecoveryTest extends EasyMockTest {
     assertEquals(modified, snapshot.getValue());
   }
 
+  @Test
+  public void testRecoverCompressedDelta() throws Exception {
+    IScheduledTask changed = IScheduledTask.build(TASK1.newBuilder().setFailureCount(1));
+    IScheduledTask task3 = TaskTestUtil.makeTask("task3", TaskTestUtil.JOB);
+    Snapshot snapshot2 = makeSnapshot(changed, task3);
+    expect(snapshotStore.createSnapshot()).andReturn(SNAPSHOT1);
+    expect(snapshotStore.createSnapshot()).andReturn(snapshot2);
+    Capture<MutateWork<Object, Exception>> transaction = createCapture();
+    expect(primaryStorage.write(capture(transaction))).andReturn(null);
+    Capture<Snapshot> snapshot = createCapture();
+    distributedStore.persist(capture(snapshot));
+    shutDownNow.execute();
+
+    control.replay();
+
+    storageBackup = new StorageBackupImpl(
+        snapshotStore,
+        clock,
+        new BackupConfig(backupDir, 5, INTERVAL, true, 1),
+        executor);
+    clock.advance(INTERVAL);
+    storageBackup.createSnapshot();
+    String full = storageBackup.createBackupName() + BackupFormat.COMPRESSED_SUFFIX;
+    clock.advance(INTERVAL);
+    storageBackup.createSnapshot();
+    String delta = storageBackup.createBackupName()
+        + BackupFormat.DELTA_SUFFIX
+        + BackupFormat.COMPRESSED_SUFFIX;
+    assertEquals(ImmutableSet.of(full, delta), recovery.listBackups());
+
+    recovery.stage(delta);
+    assertEquals(
+        ImmutableSet.of(changed, task3),
+        ImmutableSet.copyOf(recovery.query(Query.unscoped())));
+    assertEquals(
+        ImmutableSet.of(task3),
+        ImmutableSet.copyOf(recovery.query(Query.taskScoped(Tasks.id(task3)))));
+    recovery.commit();
+    transaction.getValue().apply(storeProvider);
+
+    assertEquals(snapshot2, snapshot.getValue());
+  }
+
   @Test(expected = RecoveryException.class)
   public void testLoadUnknownBackup() throws Exception {
     control.replay();
@@ -38,10 +38,13 @@ import org.apache.aurora.gen.ScheduledTask;
 import org.apache.aurora.gen.storage.QuotaConfiguration;
 import org.apache.aurora.gen.storage.SchedulerMetadata;
 import org.apache.aurora.gen.storage.Snapshot;
+import org.apache.aurora.gen.storage.SnapshotDelta;
 import org.apache.aurora.gen.storage.StoredCronJob;
+import org.apache.aurora.scheduler.base.TaskTestUtil;
 import org.apache.aurora.scheduler.storage.SnapshotStore;
 import org.apache.aurora.scheduler.storage.backup.StorageBackup.StorageBackupImpl;
 import org.apache.aurora.scheduler.storage.backup.StorageBackup.StorageBackupImpl.BackupConfig;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.apache.aurora.scheduler.testing.FakeScheduledExecutor;
 import org.junit.Before;
 import org.junit.Rule;
@@ -165,6 +168,57 @@ public class StorageBackupTest extends EasyMockTest {
     assertEquals(1, storageBackup.getSuccesses().get());
   }
 
+  @Test
+  public void testDeltaBackup() throws Exception {
+    config = new BackupConfig(config.getDir(), MAX_BACKUPS, INTERVAL, false, 1);
+    ScheduledExecutorService executor = createMock(ScheduledExecutorService.class);
+    clock = FakeScheduledExecutor.scheduleExecutor(executor);
+    storageBackup = new StorageBackupImpl(delegate, clock, config, executor);
+
+    IScheduledTask task1 = TaskTestUtil.makeTask("task1", TaskTestUtil.JOB);
+    IScheduledTask task2 = TaskTestUtil.makeTask("task2", TaskTestUtil.JOB);
+    IScheduledTask changed = IScheduledTask.build(task1.newBuilder().setFailureCount(1));
+    IScheduledTask task3 = TaskTestUtil.makeTask("task3", TaskTestUtil.JOB);
+    Snapshot full = makeSnapshot().setTasks(IScheduledTask.toBuildersSet(
+        ImmutableSet.of(task1, task2)));
+    Snapshot next = makeSnapshot().setTasks(IScheduledTask.toBuildersSet(
+        ImmutableSet.of(changed, task3)));
+    expect(delegate.createSnapshot()).andReturn(full);
+    expect(delegate.createSnapshot()).andReturn(next).times(2);
+
+    control.replay();
+
+    clock.advance(INTERVAL);
+    storageBackup.createSnapshot();
+    String fullName = storageBackup.createBackupName();
+    clock.advance(INTERVAL);
+    storageBackup.createSnapshot();
+    String deltaName = storageBackup.createBackupName() + BackupFormat.DELTA_SUFFIX;
+    assertBackupCount(2);
+    assertEquals(1, storageBackup.getDeltas().get());
+
+    SnapshotDelta delta = ThriftBinaryCodec.decode(
+        SnapshotDelta.class,
+        Files.toByteArray(new File(config.getDir(), deltaName)));
+    assertEquals(fullName, delta.getBaseBackup());
+    assertEquals(
+        ImmutableSet.of(changed, task3),
+        IScheduledTask.setFromBuilders(delta.getSnapshot().getTasks()));
+    assertEquals(ImmutableSet.of("task2"), delta.getRemovedTaskIds());
+    assertEquals(next.getCronJobs(), delta.getSnapshot().getCronJobs());
+
+    // The delta limit is reached, so the next backup is a full backup.
+    clock.advance(INTERVAL);
+    storageBackup.createSnapshot();
+    assertEquals(
+        next,
+        ThriftBinaryCodec.decode(
+            Snapshot.class,
+            Files.toByteArray(new File(config.getDir(), storageBackup.createBackupName()))));
+    assertEquals(3, storageBackup.getSuccesses().get());
+    assertEquals(1, storageBackup.getDeltas().get());
+  }
+
   private void assertBackupCount(int count) {
     assertEquals(count, config.getDir().list().length);
   }
@@ -14,6 +14,7 @@
 package org.apache.aurora.scheduler.storage.db;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
@@ -91,7 +92,7 @@ public class RowGarbageCollectorTest {
     taskConfigMapper.insert(CONFIG_A, new InsertResult());
     InsertResult a2Insert = new InsertResult();
     taskConfigMapper.insert(TASK_A2.getAssignedTask().getTask(), a2Insert);
-    taskMapper.insertScheduledTask(TASK_A2, a2Insert.getId(), new InsertResult());
+    taskMapper.insertScheduledTasks(ImmutableMap.of(TASK_A2, a2Insert.getId()));
     jobKeyMapper.merge(JOB_B);
     taskConfigMapper.insert(CONFIG_B, new InsertResult());
     rowGc.runOneIteration();
@@ -0,0 +1,85 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.storage.entities;
+
+import com.google.common.collect.ImmutableList;
+
+import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.gen.ScheduledTask;
+import org.apache.aurora.gen.TaskEvent;
+import org.apache.aurora.scheduler.base.TaskTestUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+public class IScheduledTaskTest {
+
+  private static final IScheduledTask TASK = TaskTestUtil.makeTask("id", TaskTestUtil.JOB);
+
+  @Test
+  public void testWithMatchesBuilder() {
+    TaskEvent event = new TaskEvent()
+        .setTimestamp(5L)
+        .setStatus(ScheduleStatus.RUNNING)
+        .setScheduler("scheduler");
+
+    ScheduledTask builder = TASK.newBuilder();
+    builder.setStatus(ScheduleStatus.RUNNING);
+    builder.addToTaskEvents(event);
+    builder.setFailureCount(TASK.getFailureCount() + 1);
+    builder.getAssignedTask().setSlaveHost("host");
+    IScheduledTask expected = IScheduledTask.build(builder);
+
+    IScheduledTask mutated = TASK
+        .withStatus(ScheduleStatus.RUNNING)
+        .withTaskEvents(ImmutableList.<ITaskEvent>builder()
+            .addAll(TASK.getTaskEvents())
+            .add(ITaskEvent.build(event))
+            .build())
+        .withFailureCount(TASK.getFailureCount() + 1)
+        .withAssignedTask(TASK.getAssignedTask().withSlaveHost("host"));
+
+    assertEquals(expected, mutated);
+    assertEquals(expected.hashCode(), mutated.hashCode());
+    assertEquals(expected.newBuilder(), mutated.newBuilder());
+  }
+
+  @Test
+  public void testWithSharesUnchangedFields() {
+    IScheduledTask mutated = TASK.withStatus(ScheduleStatus.KILLING);
+
+    assertNotEquals(TASK, mutated);
+    assertSame(TASK.getAssignedTask(), mutated.getAssignedTask());
+    assertSame(TASK.getTaskEvents(), mutated.getTaskEvents());
+    assertSame(
+        TASK.getAssignedTask().getTask(),
+        mutated.withAncestorId("ancestor").getAssignedTask().getTask());
+  }
+
+  @Test
+  public void testWithUnsetsNullableField() {
+    IScheduledTask mutated = TASK.withAncestorId(null);
+
+    assertFalse(mutated.isSetAncestorId());
+    assertFalse(mutated.newBuilder().isSetAncestorId());
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testWithRejectsNullCollection() {
+    TASK.withTaskEvents(null);
+  }
+}
@@ -20,9 +20,11 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingDeque;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 import com.google.common.base.Function;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
@@ -40,6 +42,8 @@ import org.apache.aurora.gen.AssignedTask;
 import org.apache.aurora.gen.Attribute;
 import org.apache.aurora.gen.HostAttributes;
 import org.apache.aurora.gen.ScheduledTask;
+import org.apache.aurora.gen.TaskConfig;
+import org.apache.aurora.gen.storage.ConfigReferencingScheduledTask;
 import org.apache.aurora.gen.storage.DeduplicatedSnapshot;
 import org.apache.aurora.gen.storage.Frame;
 import org.apache.aurora.gen.storage.FrameChunk;
@@ -48,7 +52,9 @@ import org.apache.aurora.gen.storage.LogEntry;
 import org.apache.aurora.gen.storage.Op;
 import org.apache.aurora.gen.storage.RemoveJob;
 import org.apache.aurora.gen.storage.RemoveTasks;
+import org.apache.aurora.gen.storage.SaveDeduplicatedTasks;
 import org.apache.aurora.gen.storage.SaveFrameworkId;
+import org.apache.aurora.gen.storage.SaveTaskConfig;
 import org.apache.aurora.gen.storage.SaveTasks;
 import org.apache.aurora.gen.storage.Snapshot;
 import org.apache.aurora.gen.storage.Transaction;
@@ -100,11 +106,19 @@ public class LogManagerTest extends EasyMockTest {
   }
 
   private StreamManager createStreamManager(final Amount<Integer, Data> maxEntrySize) {
+    return createStreamManager(maxEntrySize, false);
+  }
+
+  private StreamManager createStreamManager(
+      Amount<Integer, Data> maxEntrySize,
+      boolean deduplicateTaskConfigs) {
+
     return new StreamManagerImpl(
         stream,
         new EntrySerializer.EntrySerializerImpl(maxEntrySize, Hashing.md5()),
         Hashing.md5(),
-        new SnapshotDeduplicatorImpl());
+        new SnapshotDeduplicatorImpl(),
+        deduplicateTaskConfigs);
   }
 
   @Test
@@ -134,6 +148,76 @@ public class LogManagerTest extends EasyMockTest {
     createNoMessagesStreamManager().readFromBeginning(reader);
   }
 
+  @Test
+  public void testTaskConfigsRegisteredOncePerSnapshot() throws Exception {
+    ScheduledTask task1 = TaskTestUtil.makeTask("task1", TaskTestUtil.JOB).newBuilder();
+    ScheduledTask task2 = TaskTestUtil.makeTask("task2", TaskTestUtil.JOB).newBuilder();
+    String configId = configId(task1.getAssignedTask().getTask());
+    Op registerConfig =
+        Op.saveTaskConfig(new SaveTaskConfig(configId, task1.getAssignedTask().getTask()));
+
+    expectTransaction(position1, registerConfig, saveDeduplicatedTasks(configId, task1));
+    expectTransaction(position2, saveDeduplicatedTasks(configId, task2));
+    Snapshot snapshot = createSnapshot();
+    expectAppend(
+        position1,
+        Entries.deflate(LogEntry.deduplicatedSnapshot(
+            new SnapshotDeduplicatorImpl().deduplicate(snapshot))));
+    stream.truncateBefore(position1);
+    expectTransaction(position2, registerConfig, saveDeduplicatedTasks(configId, task2));
+
+    control.replay();
+
+    StreamManager streamManager = createStreamManager(NO_FRAMES_EVER_SIZE, true);
+    commitSaveTasks(streamManager, task1);
+    commitSaveTasks(streamManager, task2);
+    streamManager.snapshot(snapshot);
+    commitSaveTasks(streamManager, task2);
+  }
+
+  @Test
+  public void testStreamManagerReadExpandsTaskConfigs() throws Exception {
+    ScheduledTask task1 = TaskTestUtil.makeTask("task1", TaskTestUtil.JOB).newBuilder();
+    ScheduledTask task2 = TaskTestUtil.makeTask("task2", TaskTestUtil.JOB).newBuilder();
+    String configId = configId(task1.getAssignedTask().getTask());
+
+    Entry entry1 = createMock(Entry.class);
+    expect(entry1.contents()).andReturn(encode(createLogEntry(
+        Op.saveTaskConfig(new SaveTaskConfig(configId, task1.getAssignedTask().getTask())),
+        saveDeduplicatedTasks(configId, task1))));
+    Entry entry2 = createMock(Entry.class);
+    expect(entry2.contents())
+        .andReturn(encode(createLogEntry(saveDeduplicatedTasks(configId, task2))));
+    expect(stream.readAll()).andReturn(ImmutableList.of(entry1, entry2).iterator());
+
+    Consumer<LogEntry> reader = createMock(new Clazz<Consumer<LogEntry>>() { });
+    reader.accept(createLogEntry(Op.saveTasks(new SaveTasks(ImmutableSet.of(task1)))));
+    reader.accept(createLogEntry(Op.saveTasks(new SaveTasks(ImmutableSet.of(task2)))));
+
+    control.replay();
+
+    createNoMessagesStreamManager().readFromBeginning(reader);
+  }
+
+  private static String configId(TaskConfig config) throws CodingException {
+    return Hashing.sha256().hashBytes(ThriftBinaryCodec.encodeNonNull(config)).toString();
+  }
+
+  private static Op saveDeduplicatedTasks(String configId, ScheduledTask task) {
+    ScheduledTask partial = task.deepCopy();
+    partial.getAssignedTask().unsetTask();
+    return Op.saveDeduplicatedTasks(new SaveDeduplicatedTasks(
+        ImmutableList.of(new ConfigReferencingScheduledTask(partial, configId))));
+  }
+
+  private static void commitSaveTasks(StreamManager streamManager, ScheduledTask task)
+      throws CodingException {
+
+    StreamTransaction transaction = streamManager.startTransaction();
+    transaction.add(Op.saveTasks(new SaveTasks(ImmutableSet.of(task.deepCopy()))));
+    transaction.commit();
+  }
+
   @Test
   public void testStreamManagerTruncateBefore() {
     stream.truncateBefore(position2);
@@ -382,6 +466,13 @@ public class LogManagerTest extends EasyMockTest {
         throw new UnsupportedOperationException();
       }
 
+      @Override
+      public Iterator<Entry> readAfter(Optional<Position> position)
+          throws InvalidPositionException, StreamAccessException {
+
+        throw new UnsupportedOperationException();
+      }
+
       @Override
       public void truncateBefore(Position position)
           throws InvalidPositionException, StreamAccessException {
@@ -478,6 +569,72 @@ public class LogManagerTest extends EasyMockTest {
     streamManager.readFromBeginning(reader);
   }
 
+  @Test
+  public void testStreamManagerReadAfterStopsAtPartialFrame() throws Exception {
+    LogEntry transaction1 = createLogEntry(
+        Op.removeJob(new RemoveJob(JobKeys.from("r1", "env", "name").newBuilder())));
+    LogEntry transaction2 = createLogEntry(
+        Op.removeJob(new RemoveJob(JobKeys.from("r2", "env", "name").newBuilder())));
+
+    Message message = frame(transaction2);
+
+    Entry standardEntry = createMock(Entry.class);
+    expect(standardEntry.contents()).andReturn(encode(transaction1));
+    expect(standardEntry.position()).andReturn(position2);
+
+    // The remaining chunks of this entry have not been written yet.
+    Entry headerEntry = createMock(Entry.class);
+    expect(headerEntry.contents()).andReturn(encode(message.header));
+    expect(headerEntry.position()).andReturn(createMock(Position.class));
+    Entry chunkEntry = createMock(Entry.class);
+    expect(chunkEntry.contents()).andReturn(encode(message.chunks.get(0)));
+    expect(chunkEntry.position()).andReturn(createMock(Position.class));
+
+    expect(stream.readAfter(Optional.of(position1)))
+        .andReturn(ImmutableList.of(standardEntry, headerEntry, chunkEntry).iterator());
+
+    BiConsumer<LogEntry, Position> reader =
+        createMock(new Clazz<BiConsumer<LogEntry, Position>>() { });
+    reader.accept(transaction1, position2);
+
+    StreamManager streamManager = createStreamManager(message.chunkSize);
+    control.replay();
+
+    assertEquals(Optional.of(position2), streamManager.readAfter(Optional.of(position1), reader));
+  }
+
+  @Test
+  public void testStreamManagerReadAfterNothingNew() throws Exception {
+    expect(stream.readAfter(Optional.of(position1))).andReturn(Iterators.emptyIterator());
+
+    BiConsumer<LogEntry, Position> reader =
+        createMock(new Clazz<BiConsumer<LogEntry, Position>>() { });
+
+    control.replay();
+
+    assertEquals(
+        Optional.of(position1),
+        createNoMessagesStreamManager().readAfter(Optional.of(position1), reader));
+  }
+
+  @Test
+  public void testStreamManagerCatchUp() throws Exception {
+    LogEntry transaction1 = createLogEntry(
+        Op.removeJob(new RemoveJob(JobKeys.from("r1", "env", "name").newBuilder())));
+    expectAppend(position2, LogEntry.noop(true));
+    Entry entry1 = createMock(Entry.class);
+    expect(entry1.contents()).andReturn(encode(transaction1));
+    expect(stream.readAfter(Optional.of(position1)))
+        .andReturn(Iterators.singletonIterator(entry1));
+
+    Consumer<LogEntry> reader = createMock(new Clazz<Consumer<LogEntry>>() { });
+    reader.accept(transaction1);
+
+    control.replay();
+
+    createNoMessagesStreamManager().catchUp(Optional.of(position1), reader);
+  }
+
   @Test
   public void testWriteAndReadDeflatedEntry() throws Exception {
     Snapshot snapshot = createSnapshot();
@@ -24,6 +24,7 @@ import com.google.common.base.Functions;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Sets;
 import com.google.common.hash.HashFunction;
 import com.google.common.hash.Hashing;
@@ -86,6 +87,7 @@ import org.apache.aurora.scheduler.log.Log;
 import org.apache.aurora.scheduler.log.Log.Entry;
 import org.apache.aurora.scheduler.log.Log.Position;
 import org.apache.aurora.scheduler.log.Log.Stream;
+import org.apache.aurora.scheduler.log.Log.Stream.InvalidPositionException;
 import org.apache.aurora.scheduler.resources.ResourceTestUtil;
 import org.apache.aurora.scheduler.storage.AttributeStore;
 import org.apache.aurora.scheduler.storage.SnapshotStore;
@@ -131,12 +133,14 @@ import static org.junit.Assert.assertTrue;
 public class LogStorageTest extends EasyMockTest {
 
   private static final Amount<Long, Time> SNAPSHOT_INTERVAL = Amount.of(1L, Time.MINUTES);
+  private static final Amount<Long, Time> FOLLOW_INTERVAL = Amount.of(5L, Time.SECONDS);
   private static final IJobKey JOB_KEY = JobKeys.from("role", "env", "name");
   private static final IJobUpdateKey UPDATE_ID =
       IJobUpdateKey.build(new JobUpdateKey(JOB_KEY.newBuilder(), "testUpdateId"));
   private static final long NOW = 42L;
 
   private LogStorage logStorage;
+  private LogManager logManager;
   private Log log;
   private SnapshotDeduplicator deduplicator;
   private Stream stream;
@@ -160,18 +164,29 @@ public class LogStorageTest extends EasyMockTest {
           md5,
           deduplicator);
     };
-    LogManager logManager = new LogManager(log, streamManagerFactory);
+    logManager = new LogManager(log, streamManagerFactory);
 
     schedulingService = createMock(SchedulingService.class);
     snapshotStore = createMock(new Clazz<SnapshotStore<Snapshot>>() { });
     storageUtil = new StorageTestUtil(this);
     eventSink = createMock(EventSink.class);
 
-    logStorage = new LogStorage(
+    logStorage = createLogStorage(Optional.absent());
+
+    stream = createMock(Stream.class);
+    streamMatcher = LogOpMatcher.matcherFor(stream);
+    position = createMock(Position.class);
+
+    storageUtil.storage.prepare();
+  }
+
+  private LogStorage createLogStorage(Optional<Amount<Long, Time>> followInterval) {
+    return new LogStorage(
         logManager,
         schedulingService,
         snapshotStore,
         SNAPSHOT_INTERVAL,
+        followInterval,
         storageUtil.storage,
         storageUtil.schedulerStore,
         storageUtil.jobStore,
@@ -183,12 +198,6 @@ public class LogStorageTest extends EasyMockTest {
         eventSink,
         new ReentrantLock(),
         TaskTestUtil.THRIFT_BACKFILL);
-
-    stream = createMock(Stream.class);
-    streamMatcher = LogOpMatcher.matcherFor(stream);
-    position = createMock(Position.class);
-
-    storageUtil.storage.prepare();
   }
 
   @Test
@@ -268,11 +277,144 @@ public class LogStorageTest extends EasyMockTest {
         EnumSet.copyOf(logStorage.buildLogEntryReplayActions().keySet()));
 
     // Assert all Transaction types have handlers defined.
+    // Task config dictionary ops are likewise expanded into SaveTasks ops while reading.
     assertEquals(
-        EnumSet.allOf(Op._Fields.class),
+        Sets.complementOf(EnumSet.of(
+            Op._Fields.SAVE_TASK_CONFIG,
+            Op._Fields.SAVE_DEDUPLICATED_TASKS)),
         EnumSet.copyOf(logStorage.buildTransactionReplayActions().keySet()));
   }
 
+  @Test
+  public void testFollowAndCatchUp() throws Exception {
+    expect(log.open()).andReturn(stream);
+    Capture<Runnable> followAction = createCapture();
+    schedulingService.doEvery(eq(FOLLOW_INTERVAL), capture(followAction));
+
+    // The first read replays the log from the beginning.
+    Position followed = createMock(Position.class);
+    Entry first =
+        expectEntry(createTransaction(Op.saveFrameworkId(new SaveFrameworkId("a"))), followed);
+    expect(stream.readAfter(Optional.absent())).andReturn(Iterators.singletonIterator(first));
+    expectFollowedEntryWrite();
+    storageUtil.schedulerStore.saveFrameworkId("a");
+
+    // Later reads only replay new entries.
+    expect(stream.readAfter(Optional.of(followed))).andReturn(Collections.emptyIterator());
+
+    // On election, only the tail is recovered after claiming the log for writing.
+    expectReplayWrite();
+    streamMatcher.expectNoop().andReturn(position);
+    Entry tail = expectEntry(createTransaction(Op.saveFrameworkId(new SaveFrameworkId("b"))), null);
+    expect(stream.readAfter(Optional.of(followed))).andReturn(Iterators.singletonIterator(tail));
+    expectReplayWrite();
+    storageUtil.schedulerStore.saveFrameworkId("b");
+    expectReplayWrite();
+    schedulingService.doEvery(eq(SNAPSHOT_INTERVAL), notNull(Runnable.class));
+
+    control.replay();
+
+    LogStorage follower = createLogStorage(Optional.of(FOLLOW_INTERVAL));
+    follower.prepare();
+    followAction.getValue().run();
+    followAction.getValue().run();
+    follower.start(stores -> { });
+
+    // Following stops once leading.
+    followAction.getValue().run();
+  }
+
+  @Test
+  public void testFollowAfterTruncation() throws Exception {
+    expect(log.open()).andReturn(stream);
+    schedulingService.doEvery(eq(FOLLOW_INTERVAL), notNull(Runnable.class));
+
+    Position followed = createMock(Position.class);
+    Entry first =
+        expectEntry(createTransaction(Op.saveFrameworkId(new SaveFrameworkId("a"))), followed);
+    expect(stream.readAfter(Optional.absent())).andReturn(Iterators.singletonIterator(first));
+    expectFollowedEntryWrite();
+    storageUtil.schedulerStore.saveFrameworkId("a");
+
+    // The log was truncated by a snapshot, which is replayed from the beginning.
+    expect(stream.readAfter(Optional.of(followed)))
+        .andThrow(new InvalidPositionException("truncated"));
+    Snapshot snapshot = new Snapshot().setTimestamp(NOW);
+    Entry snapshotEntry = expectEntry(LogEntry.snapshot(snapshot), createMock(Position.class));
+    expect(stream.readAfter(Optional.absent()))
+        .andReturn(Iterators.singletonIterator(snapshotEntry));
+    expectReplayWrite();
+    snapshotStore.applySnapshot(snapshot);
+
+    control.replay();
+
+    LogStorage follower = createLogStorage(Optional.of(FOLLOW_INTERVAL));
+    follower.prepare();
+    follower.follow();
+    follower.follow();
+  }
+
+  @Test
+  public void testFollowResumesAfterFailedEntry() throws Exception {
+    expect(log.open()).andReturn(stream);
+    Capture<Runnable> followAction = createCapture();
+    schedulingService.doEvery(eq(FOLLOW_INTERVAL), capture(followAction));
+
+    Position applied = createMock(Position.class);
+    Entry first =
+        expectEntry(createTransaction(Op.saveFrameworkId(new SaveFrameworkId("a"))), applied);
+    Entry failed = expectEntry(
+        createTransaction(Op.saveFrameworkId(new SaveFrameworkId("b"))),
+        createMock(Position.class));
+    expect(stream.readAfter(Optional.absent()))
+        .andReturn(ImmutableList.of(first, failed).iterator());
+    expectFollowedEntryWrite();
+    storageUtil.schedulerStore.saveFrameworkId("a");
+    expectFollowedEntryWrite();
+    storageUtil.schedulerStore.saveFrameworkId("b");
+    expectLastCall().andThrow(new IllegalStateException("injected"));
+
+    // The next run resumes after the last entry applied, without cancelling the periodic follow.
+    Entry retried = expectEntry(
+        createTransaction(Op.saveFrameworkId(new SaveFrameworkId("b"))),
+        createMock(Position.class));
+    expect(stream.readAfter(Optional.of(applied)))
+        .andReturn(Iterators.singletonIterator(retried));
+    expectFollowedEntryWrite();
+    storageUtil.schedulerStore.saveFrameworkId("b");
+
+    control.replay();
+
+    LogStorage follower = createLogStorage(Optional.of(FOLLOW_INTERVAL));
+    follower.prepare();
+    followAction.getValue().run();
+    followAction.getValue().run();
+  }
+
+  private Entry expectEntry(LogEntry logEntry, Position entryPosition) throws Exception {
+    Entry entry = createMock(Entry.class);
+    expect(entry.contents()).andReturn(ThriftBinaryCodec.encodeNonNull(logEntry));
+    if (entryPosition != null) {
+      expect(entry.position()).andReturn(entryPosition);
+    }
+    return entry;
+  }
+
+  private void expectFollowedEntryWrite() {
+    // Each followed entry is applied in a write-behind transaction, within which a transaction
+    // entry is replayed through a nested write.
+    expectReplayWrite();
+    expectReplayWrite();
+  }
+
+  private void expectReplayWrite() {
+    Capture<MutateWork<Void, RuntimeException>> work = createCapture();
+    expect(storageUtil.storage.write(capture(work))).andAnswer(() -> {
+      work.getValue().apply(storageUtil.mutableStoreProvider);
+      return null;
+    });
+  }
+
   private void buildReplayLogEntries() throws Exception {
     ImmutableSet.Builder<LogEntry> builder = ImmutableSet.builder();
 
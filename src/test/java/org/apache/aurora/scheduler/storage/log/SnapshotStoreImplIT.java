@@ -100,6 +100,7 @@ public class SnapshotStoreImplIT {
         clock,
         storage,
         dbTaskStore,
+        false,
         createStorageInjector(testModuleWithWorkQueue()).getInstance(MigrationManager.class),
         TaskTestUtil.THRIFT_BACKFILL);
   }
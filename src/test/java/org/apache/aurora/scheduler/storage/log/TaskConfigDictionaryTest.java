@@ -0,0 +1,139 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.storage.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import org.apache.aurora.codec.ThriftBinaryCodec;
+import org.apache.aurora.codec.ThriftBinaryCodec.CodingException;
+import org.apache.aurora.gen.AssignedTask;
+import org.apache.aurora.gen.ExecutorConfig;
+import org.apache.aurora.gen.ScheduledTask;
+import org.apache.aurora.gen.TaskConfig;
+import org.apache.aurora.gen.storage.Op;
+import org.apache.aurora.gen.storage.RemoveTasks;
+import org.apache.aurora.gen.storage.SaveTasks;
+import org.apache.aurora.gen.storage.Transaction;
+import org.apache.aurora.gen.storage.storageConstants;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class TaskConfigDictionaryTest {
+  private static final TaskConfig CONFIG_A = makeConfig("a");
+  private static final TaskConfig CONFIG_B = makeConfig("b");
+
+  private AtomicLong configsRegistered;
+  private AtomicLong bytesSaved;
+  private TaskConfigDictionary.Writer writer;
+  private TaskConfigDictionary.Reader reader;
+
+  @Before
+  public void setUp() {
+    configsRegistered = new AtomicLong();
+    bytesSaved = new AtomicLong();
+    writer = new TaskConfigDictionary.Writer(configsRegistered, bytesSaved);
+    reader = new TaskConfigDictionary.Reader();
+  }
+
+  private static TaskConfig makeConfig(String data) {
+    return new TaskConfig()
+        .setExecutorConfig(new ExecutorConfig()
+            .setData(data));
+  }
+
+  private static ScheduledTask makeTask(String taskId, TaskConfig config) {
+    return new ScheduledTask()
+        .setAssignedTask(new AssignedTask()
+            .setTaskId(taskId)
+            .setTask(config.deepCopy()));
+  }
+
+  private static Transaction makeTransaction(Op... ops) {
+    return new Transaction(ImmutableList.copyOf(ops), storageConstants.CURRENT_SCHEMA_VERSION);
+  }
+
+  private static Op saveTasks(ScheduledTask... tasks) {
+    return Op.saveTasks(new SaveTasks(ImmutableSet.copyOf(tasks)));
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    Transaction first = makeTransaction(
+        saveTasks(makeTask("task1", CONFIG_A), makeTask("task2", CONFIG_A)),
+        Op.removeTasks(new RemoveTasks(ImmutableSet.of("task0"))),
+        saveTasks(makeTask("task3", CONFIG_B)));
+    Transaction second = makeTransaction(saveTasks(makeTask("task4", CONFIG_A)));
+
+    Transaction compactedFirst = writer.compact(first.deepCopy());
+    Transaction compactedSecond = writer.compact(second.deepCopy());
+
+    assertEquals(
+        ImmutableList.of(
+            Op._Fields.SAVE_TASK_CONFIG,
+            Op._Fields.SAVE_DEDUPLICATED_TASKS,
+            Op._Fields.REMOVE_TASKS,
+            Op._Fields.SAVE_TASK_CONFIG,
+            Op._Fields.SAVE_DEDUPLICATED_TASKS),
+        fields(compactedFirst));
+    assertEquals(ImmutableList.of(Op._Fields.SAVE_DEDUPLICATED_TASKS), fields(compactedSecond));
+    assertEquals(2L, configsRegistered.get());
+    assertEquals(2L * ThriftBinaryCodec.encodeNonNull(CONFIG_A).length, bytesSaved.get());
+
+    assertEquals(first, reader.expand(compactedFirst));
+    assertEquals(second, reader.expand(compactedSecond));
+  }
+
+  @Test
+  public void testClearRegistersAgain() throws Exception {
+    Transaction transaction = makeTransaction(saveTasks(makeTask("task1", CONFIG_A)));
+
+    writer.compact(transaction.deepCopy());
+    writer.clear();
+    Transaction compacted = writer.compact(transaction.deepCopy());
+
+    assertEquals(
+        ImmutableList.of(Op._Fields.SAVE_TASK_CONFIG, Op._Fields.SAVE_DEDUPLICATED_TASKS),
+        fields(compacted));
+    assertEquals(2L, configsRegistered.get());
+    assertEquals(0L, bytesSaved.get());
+  }
+
+  @Test
+  public void testExpandWithoutDictionaryOps() throws Exception {
+    Transaction transaction = makeTransaction(saveTasks(makeTask("task1", CONFIG_A)));
+
+    assertSame(transaction, reader.expand(transaction));
+  }
+
+  @Test(expected = CodingException.class)
+  public void testUnregisteredConfig() throws Exception {
+    writer.compact(makeTransaction(saveTasks(makeTask("task1", CONFIG_A))));
+    Transaction compacted = writer.compact(
+        makeTransaction(saveTasks(makeTask("task2", CONFIG_A))));
+
+    reader.expand(compacted);
+  }
+
+  private static ImmutableList<Op._Fields> fields(Transaction transaction) {
+    return ImmutableList.copyOf(transaction.getOps().stream()
+        .map(Op::getSetField)
+        .iterator());
+  }
+}
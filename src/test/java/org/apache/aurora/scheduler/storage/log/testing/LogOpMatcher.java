@@ -88,6 +88,15 @@ public class LogOpMatcher implements IArgumentMatcher {
       return expect(stream.append(sameEntry(entry)));
     }
 
+    /**
+     * Sets an expectation for a noop entry.
+     *
+     * @return An expectation setter.
+     */
+    public IExpectationSetters<Position> expectNoop() {
+      return expect(stream.append(sameEntry(LogEntry.noop(true))));
+    }
+
     /**
      * Sets an expectation for a snapshot.
      *
@@ -0,0 +1,32 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.storage.mem;
+
+import com.google.common.base.Optional;
+import com.google.inject.Module;
+
+import org.apache.aurora.scheduler.storage.AbstractJobUpdateStoreTest;
+import org.apache.aurora.scheduler.storage.db.DbModule;
+
+import static org.apache.aurora.common.inject.Bindings.KeyFactory.PLAIN;
+
+public class MemJobUpdateStoreTest extends AbstractJobUpdateStoreTest {
+  @Override
+  protected Module getStorageModule() {
+    return DbModule.testModuleWithWorkQueue(
+        PLAIN,
+        Optional.of(new DbModule.TaskStoreModule(PLAIN)),
+        MemJobUpdateStore.class);
+  }
+}
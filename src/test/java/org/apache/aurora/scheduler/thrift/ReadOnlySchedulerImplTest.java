@@ -71,7 +71,6 @@ import org.apache.aurora.scheduler.base.TaskTestUtil;
 import org.apache.aurora.scheduler.base.Tasks;
 import org.apache.aurora.scheduler.configuration.SanitizedConfiguration;
 import org.apache.aurora.scheduler.cron.CronPredictor;
-import org.apache.aurora.scheduler.cron.CrontabEntry;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.Veto;
 import org.apache.aurora.scheduler.metadata.NearestFit;
 import org.apache.aurora.scheduler.quota.QuotaInfo;
@@ -191,7 +190,7 @@ public class ReadOnlySchedulerImplTest extends EasyMockTest {
     Set<JobSummary> ownedImmediateJobSummaryOnly = ImmutableSet.of(
         new JobSummary().setJob(ownedImmediateJob).setStats(new JobStats().setActiveTaskCount(1)));
 
-    expect(cronPredictor.predictNextRun(CrontabEntry.parse(CRON_SCHEDULE)))
+    expect(cronPredictor.predictNextRun(CRON_SCHEDULE))
         .andReturn(Optional.of(new Date(nextCronRunMs)))
         .anyTimes();
 
@@ -243,7 +242,7 @@ public class ReadOnlySchedulerImplTest extends EasyMockTest {
     JobConfiguration job = makeJob()
         .setCronSchedule(cronSchedule)
         .setTaskConfig(task);
-    expect(cronPredictor.predictNextRun(CrontabEntry.parse(cronSchedule)))
+    expect(cronPredictor.predictNextRun(cronSchedule))
         .andReturn(Optional.absent())
         .anyTimes();
     storageUtil.expectTaskFetch(Query.roleScoped(ROLE));
@@ -69,6 +69,7 @@ import org.apache.aurora.scheduler.events.PubsubEvent;
 import org.apache.aurora.scheduler.mesos.Driver;
 import org.apache.aurora.scheduler.scheduling.RescheduleCalculator;
 import org.apache.aurora.scheduler.scheduling.RescheduleCalculator.RescheduleCalculatorImpl;
+import org.apache.aurora.scheduler.state.KillDispatcher;
 import org.apache.aurora.scheduler.state.LockManager;
 import org.apache.aurora.scheduler.state.LockManagerImpl;
 import org.apache.aurora.scheduler.state.StateChangeResult;
@@ -179,6 +180,7 @@ public class JobUpdaterIT extends EasyMockTest {
             bind(Clock.class).toInstance(clock);
             bind(StateManager.class).to(StateManagerImpl.class);
             bind(Driver.class).toInstance(driver);
+            bind(KillDispatcher.class).toInstance((taskId, agentId) -> driver.killTask(taskId));
             bind(TaskIdGenerator.class).to(TaskIdGeneratorImpl.class);
             bind(RescheduleCalculator.class).to(RescheduleCalculatorImpl.class);
             bind(RescheduleCalculatorImpl.RescheduleCalculatorSettings.class)